@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Ajustes de schema que o ddl-auto=update não faz sozinho.
+ *
+ * O update do Hibernate cria tabelas e colunas novas, mas não altera nem remove colunas
+ * existentes. Colunas que saíram das entidades continuam no banco com as restrições
+ * antigas; as que eram NOT NULL impediriam os inserts. Aqui elas só passam a aceitar NULL
+ * (nenhum dado é apagado, e a versão anterior da aplicação continua funcionando). A
+ * remoção das colunas é um passo manual posterior: db/migracao/remover_imagens_base64.sql.
+ *
+ * Roda depois do update do schema e antes de o servidor web aceitar requisições.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AjusteSchemaLegado {
+
+    private static final Logger logger = LoggerFactory.getLogger(AjusteSchemaLegado.class);
+
+    /** Tabela, coluna e tipo das colunas que saíram das entidades e eram NOT NULL. */
+    private static final List<String[]> COLUNAS_REMOVIDAS = List.<String[]>of(
+            new String[] { "tb_pagamentos_pix", "qrcode_pix", "LONGTEXT" });
+
+    private static final String SQL_COLUNA_NOT_NULL = "SELECT COUNT(*) FROM information_schema.COLUMNS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ? AND IS_NULLABLE = 'NO'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AjusteSchemaLegado(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void liberarColunasRemovidas() {
+        liberarParaNull(COLUNAS_REMOVIDAS);
+    }
+
+    void liberarParaNull(List<String[]> colunas) {
+        for (String[] coluna : colunas) {
+            String tabela = coluna[0];
+            String nome = coluna[1];
+            String alteracao = "ALTER TABLE " + tabela + " MODIFY " + nome + " " + coluna[2] + " NULL";
+            try {
+                Integer notNull = jdbcTemplate.queryForObject(SQL_COLUNA_NOT_NULL, Integer.class, tabela, nome);
+                if (notNull != null && notNull > 0) {
+                    jdbcTemplate.execute(alteracao);
+                    logger.info("Coluna {}.{} (não usada pela aplicação) passou a aceitar NULL", tabela, nome);
+                }
+            } catch (Exception e) {
+                // Sem permissão de ALTER, por exemplo: a aplicação sobe, mas os inserts na tabela falham
+                logger.error("Não foi possível liberar {}.{} para NULL; execute manualmente: {}",
+                        tabela, nome, alteracao, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches de leitura do catálogo (produtos, categorias e fornecedores).
+ *
+ * Cada cache tem um primeiro nível Caffeine com tamanho máximo e TTL, e usa como
+ * segundo nível o CacheManager "cacheManagerSegundoNivel", se existir um (ex.: Redis).
+ * Os caches são transacionais: invalidações feitas dentro de uma transação só valem
+ * depois do commit, então uma leitura concorrente não recoloca o valor antigo.
+ *
+ * Métricas de acerto, erro e remoção: cache.gets, cache.evictions, cache.size
+ * (tag "cache") e cache.segundo-nivel.acertos.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUTOS = "produtos";
+    public static final String CATEGORIAS = "categorias";
+    public static final String FORNECEDORES = "fornecedores";
+
+    @Bean
+    @Primary
+    public CacheManager cacheManager(MeterRegistry meterRegistry,
+            @Qualifier("cacheManagerSegundoNivel") ObjectProvider<CacheManager> segundoNivel,
+            @Value("${cache.produtos.ttl:60s}") Duration ttlProdutos,
+            @Value("${cache.produtos.tamanho-maximo:10000}") long maximoProdutos,
+            @Value("${cache.categorias.ttl:30m}") Duration ttlCategorias,
+            @Value("${cache.categorias.tamanho-maximo:1000}") long maximoCategorias,
+            @Value("${cache.fornecedores.ttl:10m}") Duration ttlFornecedores,
+            @Value("${cache.fornecedores.tamanho-maximo:5000}") long maximoFornecedores) {
+
+        CacheManager remoto = segundoNivel.getIfAvailable();
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                criarCache(PRODUTOS, ttlProdutos, maximoProdutos, remoto, meterRegistry),
+                criarCache(CATEGORIAS, ttlCategorias, maximoCategorias, remoto, meterRegistry),
+                criarCache(FORNECEDORES, ttlFornecedores, maximoFornecedores, remoto, meterRegistry)));
+        return cacheManager;
+    }
+
+    private Cache criarCache(String nome, Duration ttl, long tamanhoMaximo, CacheManager remoto,
+            MeterRegistry meterRegistry) {
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, nome);
+
+        CacheDoisNiveis cache = new CacheDoisNiveis(nome, local,
+                remoto != null ? remoto.getCache(nome) : null,
+                meterRegistry.counter("cache.segundo-nivel.acertos", "cache", nome));
+
+        return new TransactionAwareCacheDecorator(cache);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.config;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Cache em dois níveis: Caffeine local (L1) na frente de um segundo nível opcional (L2),
+ * como um Redis compartilhado entre as instâncias.
+ *
+ * Leituras procuram no L1, depois no L2 (promovendo o valor para o L1) e só então vão
+ * ao banco. Escritas e remoções são aplicadas nos dois níveis.
+ */
+public class CacheDoisNiveis extends AbstractValueAdaptingCache {
+
+    private final String nome;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remoto;
+    private final Counter acertosRemoto;
+
+    public CacheDoisNiveis(String nome, com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+            Cache remoto, Counter acertosRemoto) {
+        super(false);
+        this.nome = nome;
+        this.local = local;
+        this.remoto = remoto;
+        this.acertosRemoto = acertosRemoto;
+    }
+
+    @Override
+    public String getName() {
+        return nome;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object valor = local.getIfPresent(key);
+        if (valor != null || remoto == null) {
+            return valor;
+        }
+
+        ValueWrapper doRemoto = remoto.get(key);
+        if (doRemoto == null || doRemoto.get() == null) {
+            return null;
+        }
+
+        acertosRemoto.increment();
+        local.put(key, doRemoto.get());
+        return doRemoto.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) fromStoreValue(local.get(key, k -> {
+            // Dentro do compute do Caffeine: consulta o L2 sem tocar no L1
+            ValueWrapper doRemoto = remoto != null ? remoto.get(k) : null;
+            if (doRemoto != null && doRemoto.get() != null) {
+                acertosRemoto.increment();
+                return doRemoto.get();
+            }
+
+            try {
+                Object carregado = toStoreValue(valueLoader.call());
+                if (remoto != null) {
+                    remoto.put(k, carregado);
+                }
+                return carregado;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(k, valueLoader, e);
+            }
+        }));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object valor = toStoreValue(value);
+        local.put(key, valor);
+        if (remoto != null) {
+            remoto.put(key, valor);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.invalidate(key);
+        if (remoto != null) {
+            remoto.evict(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        if (remoto != null) {
+            remoto.clear();
+        }
+    }
+}
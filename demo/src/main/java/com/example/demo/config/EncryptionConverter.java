@@ -36,7 +36,9 @@ public class EncryptionConverter implements AttributeConverter<String, String> {
             return null;
         }
         
-        if (encryptionService != null && !encryptionService.isEncrypted(dbData)) {
+        // Valores no formato antigo (AES/ECB) ainda são decifrados; texto puro passa direto
+        if (encryptionService != null && !encryptionService.isEncrypted(dbData)
+                && !encryptionService.isLegado(dbData)) {
             return dbData;
         }
         
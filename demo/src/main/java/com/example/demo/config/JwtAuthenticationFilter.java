@@ -1,11 +1,15 @@
 package com.example.demo.config;
 
 import com.example.demo.exception.TokenInvalidoException;
+import com.example.demo.service.RevogacaoTokenService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,13 +20,40 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Duration;
 
+/**
+ * Autentica requisições com Bearer token.
+ *
+ * Tokens emitidos com as claims do principal (userId, clienteId, fornecedorId, roles)
+ * não consultam o banco: o principal é montado a partir das claims e guardado em um
+ * cache limitado por tamanho e tempo, indexado pelo id do token (jti). A assinatura e a
+ * expiração continuam sendo verificadas em toda requisição, assim como a lista de
+ * revogação da família do token. Tokens antigos, sem essas claims, seguem pelo
+ * UserDetailsService. Refresh tokens são recusados.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final RevogacaoTokenService revogacaoTokenService;
+    private final Cache<String, UsuarioAutenticado> principais;
+
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            UserDetailsService userDetailsService,
+            RevogacaoTokenService revogacaoTokenService,
+            @Value("${jwt.cache-principal.tamanho-maximo:10000}") long tamanhoMaximo,
+            @Value("${jwt.cache-principal.ttl:15m}") Duration ttl) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.revogacaoTokenService = revogacaoTokenService;
+        this.principais = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .build();
+    }
 
     @Override
     protected void doFilterInternal(
@@ -33,7 +64,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -42,24 +72,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             jwt = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(jwt);
 
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            // Lança exceção se a assinatura for inválida ou o token estiver expirado
+            TokenValidado token = jwtService.validar(jwt);
+            if (token.isRefresh()) {
+                throw new TokenInvalidoException("Refresh token não pode ser usado como token de acesso");
+            }
+            if (revogacaoTokenService.isRevogada(token.familia())) {
+                throw new TokenInvalidoException("Token revogado");
+            }
+            Claims claims = token.claims();
+            String userEmail = token.email();
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                } else {
-                    throw new TokenInvalidoException("Token inválido ou expirado");
-                }
+            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UsernamePasswordAuthenticationToken authToken = autenticar(claims, userEmail);
+                authToken.setDetails(
+                        new WebAuthenticationDetailsSource().buildDetails(request)
+                );
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
             
             filterChain.doFilter(request, response);
@@ -69,4 +99,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throw new TokenInvalidoException("Erro ao processar token: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private UsernamePasswordAuthenticationToken autenticar(Claims claims, String userEmail) {
+
+        String idToken = claims.getId();
+        UsuarioAutenticado principal = idToken != null
+                ? principais.get(idToken, id -> jwtService.extractPrincipal(claims))
+                : null;
+
+        if (principal != null) {
+            return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        }
+
+        // Token emitido antes das claims do principal
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+        if (!userDetails.getUsername().equals(userEmail)) {
+            throw new TokenInvalidoException("Token inválido ou expirado");
+        }
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+}
@@ -1,23 +1,47 @@
 package com.example.demo.config;
 
 import com.example.demo.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_CLIENTE_ID = "clienteId";
+    public static final String CLAIM_FORNECEDOR_ID = "fornecedorId";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_FAMILIA = "fam";
+    public static final String CLAIM_TIPO = "tipo";
+
+    public static final String TIPO_ACESSO = "acesso";
+    public static final String TIPO_REFRESH = "refresh";
+
     @Value("${jwt.secret}")
     private String secretKey;
 
@@ -27,13 +51,108 @@ public class JwtService {
     @Value("${jwt.refresh-token.expiration}")
     private long refreshExpiration;
 
+    @Value("${jwt.cache-validacao.tamanho-maximo:20000}")
+    private long tamanhoCacheValidacao;
+
+    private final MeterRegistry meterRegistry;
+
+    private SecretKey chaveAssinatura;
+    private JwtParser parser;
+    private Cache<String, TokenValidado> tokensValidados;
+    private Timer tempoVerificacao;
+    private Timer tempoCache;
+
+    public JwtService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Chave e parser são imutáveis e thread-safe: montados uma vez na inicialização.
+     * Tokens já verificados ficam em cache até expirarem, então requisições seguidas
+     * com o mesmo token não recalculam o HMAC.
+     */
+    @PostConstruct
+    void inicializar() {
+        byte[] keyBytes = Base64.getDecoder().decode(secretKey);
+        chaveAssinatura = new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256");
+        parser = Jwts.parser().verifyWith(chaveAssinatura).build();
+
+        tokensValidados = Caffeine.newBuilder()
+                .maximumSize(tamanhoCacheValidacao)
+                .expireAfter(new Expiry<String, TokenValidado>() {
+                    @Override
+                    public long expireAfterCreate(String token, TokenValidado validado, long agora) {
+                        return validado.expiracao() == null
+                                ? TimeUnit.MILLISECONDS.toNanos(jwtExpiration)
+                                : Math.max(0, Duration.between(Instant.now(), validado.expiracao()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, TokenValidado validado, long agora, long restante) {
+                        return restante;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, TokenValidado validado, long agora, long restante) {
+                        return restante;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokensValidados, "jwt.tokens-validados");
+
+        tempoVerificacao = Timer.builder("jwt.validacao").tag("origem", "assinatura").register(meterRegistry);
+        tempoCache = Timer.builder("jwt.validacao").tag("origem", "cache").register(meterRegistry);
+    }
+
+    /**
+     * Verifica assinatura e expiração com uma única leitura do token.
+     *
+     * @throws JwtException se o token for inválido ou estiver expirado
+     */
+    public TokenValidado validar(String token) {
+        long inicio = System.nanoTime();
+
+        TokenValidado emCache = tokensValidados.getIfPresent(token);
+        if (emCache != null && !emCache.expirado(Instant.now())) {
+            tempoCache.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            return emCache;
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Date expiracao = claims.getExpiration();
+        String familia = claims.get(CLAIM_FAMILIA, String.class);
+        TokenValidado validado = new TokenValidado(
+                claims.getSubject(),
+                claims.getId(),
+                familia,
+                tipo(claims, familia),
+                expiracao != null ? expiracao.toInstant() : null,
+                claims);
+        tokensValidados.put(token, validado);
+
+        tempoVerificacao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return validado;
+    }
+
+    /**
+     * Tipo do token. Refresh tokens emitidos antes da claim "tipo" são os que têm família
+     * mas não trazem o principal.
+     */
+    private static String tipo(Claims claims, String familia) {
+        String tipo = claims.get(CLAIM_TIPO, String.class);
+        if (tipo != null) {
+            return tipo;
+        }
+        return familia != null && claims.get(CLAIM_USER_ID) == null ? TIPO_REFRESH : TIPO_ACESSO;
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(validar(token).claims());
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -49,12 +168,65 @@ public class JwtService {
         return generateToken(extraClaims, userDetails);
     }
 
+    /**
+     * Token de acesso com o principal completo nas claims, para que o filtro de
+     * autenticação não precise consultar o banco a cada requisição.
+     * A família liga o access token à sessão, para que logout e reuso de refresh token o revoguem.
+     */
+    public String generateToken(UsuarioAutenticado principal, UserDetails userDetails, String familia) {
+
+        Map<String, Object> extraClaims = new HashMap<>();
+
+        extraClaims.put(CLAIM_USER_ID, principal.idUsuario());
+        extraClaims.put("email", principal.email());
+        extraClaims.put(CLAIM_ROLES, principal.papeis());
+        extraClaims.put(CLAIM_FAMILIA, familia);
+        if (principal.idCliente() != null) {
+            extraClaims.put(CLAIM_CLIENTE_ID, principal.idCliente());
+        }
+        if (principal.idFornecedor() != null) {
+            extraClaims.put(CLAIM_FORNECEDOR_ID, principal.idFornecedor());
+        }
+
+        return generateToken(extraClaims, userDetails);
+    }
+
+    /**
+     * Lê o principal das claims de um token já validado.
+     * Retorna null para tokens emitidos antes de as claims do principal existirem.
+     */
+    public UsuarioAutenticado extractPrincipal(Claims claims) {
+        Number idUsuario = claims.get(CLAIM_USER_ID, Number.class);
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        if (idUsuario == null || roles == null) {
+            return null;
+        }
+
+        Number idCliente = claims.get(CLAIM_CLIENTE_ID, Number.class);
+        Number idFornecedor = claims.get(CLAIM_FORNECEDOR_ID, Number.class);
+
+        return new UsuarioAutenticado(
+                idUsuario.longValue(),
+                claims.getSubject(),
+                idCliente != null ? idCliente.intValue() : null,
+                idFornecedor != null ? idFornecedor.intValue() : null,
+                roles.stream().map(String::valueOf).toList());
+    }
+
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return buildToken(extraClaims, userDetails, jwtExpiration);
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        claims.put(CLAIM_TIPO, TIPO_ACESSO);
+        return buildToken(claims, userDetails, jwtExpiration);
     }
 
-    public String generateRefreshToken(UserDetails userDetails) {
-        return buildToken(new HashMap<>(), userDetails, refreshExpiration);
+    /**
+     * Refresh token: só é aceito por /auth/refresh e /auth/logout, nunca como Bearer.
+     */
+    public String generateRefreshToken(UserDetails userDetails, String familia) {
+        Map<String, Object> extraClaims = new HashMap<>();
+        extraClaims.put(CLAIM_FAMILIA, familia);
+        extraClaims.put(CLAIM_TIPO, TIPO_REFRESH);
+        return buildToken(extraClaims, userDetails, refreshExpiration);
     }
 
     private String buildToken(
@@ -66,36 +238,22 @@ public class JwtService {
                 .builder()
                 .claims(extraClaims)
                 .subject(userDetails.getUsername())
+                .id(UUID.randomUUID().toString())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey())
+                .signWith(chaveAssinatura)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        TokenValidado validado = validar(token);
+        return validado.email() != null && validado.email().equals(userDetails.getUsername());
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(secretKey);
-        return new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256");
+    /**
+     * Verifica assinatura e expiração e retorna as claims (uma única leitura do token).
+     */
+    public Claims extractAllClaims(String token) {
+        return validar(token).claims();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hash de senhas: BCrypt com custo configurável, executado em pool limitado.
+ *
+ * Separado do SecurityConfig porque o encoder também é usado pelos services de cliente e
+ * fornecedor (cadastro e troca de senha).
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${seguranca.senha.bcrypt-custo:10}") int custo,
+            @Value("${seguranca.senha.threads:0}") int threads,
+            @Value("${seguranca.senha.capacidade-fila:64}") int capacidadeFila,
+            @Value("${seguranca.senha.timeout-ms:5000}") long timeoutMillis) {
+
+        int quantidadeThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        return new SenhaEncoderLimitado(new BCryptPasswordEncoder(custo), quantidadeThreads, capacidadeFila,
+                timeoutMillis, meterRegistry);
+    }
+}
@@ -1,10 +1,20 @@
 package com.example.demo.config;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import com.example.demo.service.ContadorCompartilhado;
+import com.example.demo.util.BaldeTokens;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
@@ -14,17 +24,57 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.io.IOException;
-
+/**
+ * Limita requisições por cliente (IP) com um balde de tokens por política de rota.
+ *
+ * Os baldes ficam em um cache de capacidade fixa: um balde ocioso por mais tempo que a
+ * maior janela já está cheio de novo, então pode ser descartado sem perder estado. A
+ * limpeza roda em segundo plano, fora do caminho da requisição.
+ *
+ * O balde local segura rajadas; a contagem por janela no ContadorCompartilhado aplica o
+ * mesmo limite somando todas as instâncias (contador.backend=jdbc).
+ */
 @Component
 public class RateLimitingFilter implements Filter {
 
-    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
-
-    private final Map<String, Long> requestTimestamps = new ConcurrentHashMap<>();
-
-    private static final int MAX_REQUESTS_PER_MINUTE = 100;
-    private static final long MINUTE_IN_MILLIS = 60_000;
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final List<PoliticaLimite> politicas;
+    private final Cache<String, BaldeTokens> baldes;
+    private final ContadorCompartilhado contador;
+
+    public RateLimitingFilter(
+            ContadorCompartilhado contador,
+            @Value("${rate-limit.auth.capacidade:10}") long capacidadeAuth,
+            @Value("${rate-limit.auth.janela:1m}") Duration janelaAuth,
+            @Value("${rate-limit.catalogo.capacidade:300}") long capacidadeCatalogo,
+            @Value("${rate-limit.catalogo.janela:1m}") Duration janelaCatalogo,
+            @Value("${rate-limit.webhook.capacidade:6000}") long capacidadeWebhook,
+            @Value("${rate-limit.webhook.janela:1m}") Duration janelaWebhook,
+            @Value("${rate-limit.padrao.capacidade:100}") long capacidadePadrao,
+            @Value("${rate-limit.padrao.janela:1m}") Duration janelaPadrao,
+            @Value("${rate-limit.max-chaves:100000}") long maxChaves) {
+
+        this.contador = contador;
+
+        // Avaliadas em ordem; a última atende qualquer requisição
+        this.politicas = List.of(
+                new PoliticaLimite("auth", null, "/auth/**", capacidadeAuth, janelaAuth),
+                new PoliticaLimite("catalogo", HttpMethod.GET, "/produto/**", capacidadeCatalogo, janelaCatalogo),
+                new PoliticaLimite("webhook", HttpMethod.POST, "/pagamento/pix/webhook",
+                        capacidadeWebhook, janelaWebhook),
+                new PoliticaLimite("padrao", null, "/**", capacidadePadrao, janelaPadrao));
+
+        Duration maiorJanela = politicas.stream()
+                .map(PoliticaLimite::janela)
+                .max(Duration::compareTo)
+                .orElseThrow();
+
+        this.baldes = Caffeine.newBuilder()
+                .maximumSize(maxChaves)
+                .expireAfterAccess(maiorJanela)
+                .build();
+    }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
@@ -33,14 +83,39 @@ public class RateLimitingFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        String clientIP = getClientIP(httpRequest);
+        PoliticaLimite politica = politicaPara(httpRequest);
+        String chave = politica.nome() + "|" + getClientIP(httpRequest);
+
+        BaldeTokens balde = baldes.get(chave, k -> politica.novoBalde());
+        BaldeTokens.Resultado resultado = balde.consumir(System.nanoTime());
 
-        if (!isAllowed(clientIP)) {
+        boolean permitido = resultado.permitido();
+        long restantes = resultado.restantes();
+        long esperaNanos = resultado.esperaNanos();
+
+        if (permitido) {
+            // Limite global (todas as instâncias, quando o backend é compartilhado)
+            long usados = contador.incrementar(chave, politica.janela());
+            restantes = Math.min(restantes, Math.max(0, politica.capacidade() - usados));
+            if (usados > politica.capacidade()) {
+                permitido = false;
+                esperaNanos = politica.janela().toNanos() / politica.capacidade();
+            }
+        }
+
+        httpResponse.setHeader("RateLimit-Policy", politica.cabecalho());
+        httpResponse.setHeader("RateLimit-Limit", Long.toString(resultado.limite()));
+        httpResponse.setHeader("RateLimit-Remaining", Long.toString(restantes));
+        httpResponse.setHeader("RateLimit-Reset", Long.toString(segundos(resultado.ateEncherNanos())));
+
+        if (!permitido) {
+            long retryAfter = Math.max(1, segundos(esperaNanos));
+            httpResponse.setHeader("Retry-After", Long.toString(retryAfter));
             httpResponse.setStatus(429); 
             httpResponse.setContentType("application/json");
             httpResponse.getWriter().write(
                     "{\"error\": \"Rate limit exceeded\", " +
-                            "\"message\": \"Muitas requisições. Tente novamente em 1 minuto.\", " +
+                            "\"message\": \"Muitas requisições. Tente novamente em " + retryAfter + " segundo(s).\", " +
                             "\"status\": 429}");
             return;
         }
@@ -48,35 +123,26 @@ public class RateLimitingFilter implements Filter {
         chain.doFilter(request, response);
     }
 
-    private boolean isAllowed(String clientIP) {
-        long currentTime = System.currentTimeMillis();
-
-        requestTimestamps.entrySet().removeIf(entry -> currentTime - entry.getValue() > MINUTE_IN_MILLIS);
-
-        if (!requestCounts.containsKey(clientIP)) {
-            requestCounts.put(clientIP, new AtomicInteger(1));
-            requestTimestamps.put(clientIP, currentTime);
-            return true;
-        }
-
-        Long firstRequestTimeObj = requestTimestamps.get(clientIP);
-
-        if (firstRequestTimeObj == null) {
-            requestCounts.put(clientIP, new AtomicInteger(1));
-            requestTimestamps.put(clientIP, currentTime);
-            return true;
-        }
-
-        long firstRequestTime = firstRequestTimeObj.longValue();
+    /**
+     * Aplica expirações pendentes do cache de baldes em segundo plano.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.limpeza-ms:30000}")
+    public void limparBaldesOciosos() {
+        baldes.cleanUp();
+    }
 
-        if (currentTime - firstRequestTime > MINUTE_IN_MILLIS) {
-            requestCounts.put(clientIP, new AtomicInteger(1));
-            requestTimestamps.put(clientIP, currentTime);
-            return true;
+    private PoliticaLimite politicaPara(HttpServletRequest request) {
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        for (PoliticaLimite politica : politicas) {
+            if (politica.aplicaA(request.getMethod(), caminho)) {
+                return politica;
+            }
         }
+        return politicas.get(politicas.size() - 1);
+    }
 
-        int currentCount = requestCounts.get(clientIP).incrementAndGet();
-        return currentCount <= MAX_REQUESTS_PER_MINUTE;
+    private static long segundos(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
     }
 
     private String getClientIP(HttpServletRequest request) {
@@ -92,4 +158,23 @@ public class RateLimitingFilter implements Filter {
 
         return request.getRemoteAddr();
     }
+
+    /**
+     * Limite aplicado às requisições que casam com o método (null = qualquer) e o padrão de caminho.
+     */
+    record PoliticaLimite(String nome, HttpMethod metodo, String padrao, long capacidade, Duration janela) {
+
+        boolean aplicaA(String metodoRequisicao, String caminho) {
+            return (metodo == null || metodo.matches(metodoRequisicao))
+                    && MATCHER.match(padrao, caminho);
+        }
+
+        BaldeTokens novoBalde() {
+            return new BaldeTokens(capacidade, janela.toNanos());
+        }
+
+        String cabecalho() {
+            return capacidade + ";w=" + janela.toSeconds();
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package com.example.demo.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.demo.exception.ServicoSobrecarregadoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * PasswordEncoder que executa o hash (BCrypt) em um pool próprio e limitado.
+ *
+ * O hash é caro em CPU de propósito. Rodando nas threads das requisições, uma rajada de
+ * logins consome todos os núcleos e atrasa os demais endpoints; aqui a quantidade de
+ * hashes simultâneos é fixa e o excedente aguarda em uma fila curta. Com a fila cheia (ou
+ * após o tempo máximo de espera) a requisição falha rápido com 503.
+ */
+public class SenhaEncoderLimitado implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Timer tempoEncode;
+    private final Timer tempoMatches;
+    private final Counter rejeitadas;
+
+    public SenhaEncoderLimitado(PasswordEncoder delegate, int threads, int capacidadeFila,
+            long timeoutMillis, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger sequencia = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "senha-hash-" + sequencia.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "senha.hash");
+        this.tempoEncode = Timer.builder("senha.hash.duracao").tag("operacao", "encode").register(meterRegistry);
+        this.tempoMatches = Timer.builder("senha.hash.duracao").tag("operacao", "matches").register(meterRegistry);
+        this.rejeitadas = Counter.builder("senha.hash.rejeitadas")
+                .description("Verificações de senha recusadas por falta de capacidade")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executar(() -> tempoEncode.recordCallable(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executar(() -> tempoMatches.recordCallable(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T executar(Callable<T> tarefa) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(tarefa);
+        } catch (RejectedExecutionException e) {
+            rejeitadas.increment();
+            throw new ServicoSobrecarregadoException(
+                    "Muitas tentativas de login simultâneas. Tente novamente em instantes.");
+        }
+
+        try {
+            return futuro.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rejeitadas.increment();
+            throw new ServicoSobrecarregadoException(
+                    "Muitas tentativas de login simultâneas. Tente novamente em instantes.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Verificação de senha interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Erro ao processar senha", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.config;
+
+import java.time.Instant;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Resultado imutável da verificação de um JWT (assinatura conferida uma única vez).
+ * A família é null em tokens emitidos antes da rotação de refresh tokens; o tipo é
+ * {@link JwtService#TIPO_ACESSO} ou {@link JwtService#TIPO_REFRESH}.
+ */
+public record TokenValidado(
+        String email,
+        String idToken,
+        String familia,
+        String tipo,
+        Instant expiracao,
+        Claims claims) {
+
+    public boolean isRefresh() {
+        return JwtService.TIPO_REFRESH.equals(tipo);
+    }
+
+    public boolean expirado(Instant agora) {
+        return expiracao != null && !agora.isBefore(expiracao);
+    }
+}
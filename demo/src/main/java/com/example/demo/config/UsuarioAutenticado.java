@@ -0,0 +1,45 @@
+package com.example.demo.config;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Principal das requisições autenticadas por JWT.
+ *
+ * Montado a partir das claims do token (userId, clienteId, fornecedorId, roles),
+ * então controllers e regras de acesso conhecem o usuário sem consultar o banco.
+ * authentication.getName() continua retornando o e-mail.
+ */
+public record UsuarioAutenticado(
+        Long idUsuario,
+        String email,
+        Integer idCliente,
+        Integer idFornecedor,
+        List<String> papeis) implements AuthenticatedPrincipal, Serializable {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return papeis.stream().map(SimpleGrantedAuthority::new).toList();
+    }
+
+    /**
+     * Principal da autenticação corrente, se ela veio de um JWT com as claims do principal.
+     */
+    public static Optional<UsuarioAutenticado> de(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof UsuarioAutenticado usuario) {
+            return Optional.of(usuario);
+        }
+        return Optional.empty();
+    }
+}
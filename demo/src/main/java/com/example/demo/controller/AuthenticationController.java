@@ -29,4 +29,12 @@ public class AuthenticationController {
     ) {
         return ResponseEntity.ok(authenticationService.refreshToken(request));
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @Valid @RequestBody RefreshTokenRequestDTO request
+    ) {
+        authenticationService.logout(request);
+        return ResponseEntity.noContent().build();
+    }
 }
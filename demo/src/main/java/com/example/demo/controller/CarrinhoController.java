@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.config.UsuarioAutenticado;
 import com.example.demo.dto.AdicionarItemCarrinhoDTO;
 import com.example.demo.dto.CarrinhoResponseDTO;
 import com.example.demo.model.Cliente;
@@ -89,6 +90,13 @@ public class CarrinhoController {
     }
 
     private Integer obterIdClienteLogado(Authentication authentication) {
+        Integer idDoToken = UsuarioAutenticado.de(authentication)
+                .map(UsuarioAutenticado::idCliente)
+                .orElse(null);
+        if (idDoToken != null) {
+            return idDoToken;
+        }
+
         String email = authentication.getName();
 
         Cliente cliente = clienteRepository.findByUser_Email(email)
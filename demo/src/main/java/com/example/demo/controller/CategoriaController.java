@@ -50,8 +50,7 @@ public class CategoriaController {
 
     @GetMapping("/{id}")
     public ResponseEntity<CategoriaResponseDTO> buscarPorId(@PathVariable Integer id) {
-        Categoria categoria = categoriaService.findById(id);
-        return ResponseEntity.ok(new CategoriaResponseDTO(categoria));
+        return ResponseEntity.ok(categoriaService.buscarPorId(id));
     }
 
     @PostMapping
@@ -1,7 +1,6 @@
 package com.example.demo.controller;
 
 import java.net.URI;
-import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -16,10 +15,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.example.demo.dto.AlterarSenhaDTO;
 import com.example.demo.dto.ClienteResponseDTO;
+import com.example.demo.dto.PaginaCursorDTO;
 import com.example.demo.model.Cliente;
 
 import com.example.demo.service.ClienteService;
@@ -34,9 +35,11 @@ public class ClienteController {
     private ClienteService cService;
 
     @GetMapping
-    public ResponseEntity<List<ClienteResponseDTO>> findAll() {
+    public ResponseEntity<PaginaCursorDTO<ClienteResponseDTO>> findAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
 
-        List<ClienteResponseDTO> clientesDTO = cService.listarTodosClientes();
+        PaginaCursorDTO<ClienteResponseDTO> clientesDTO = cService.listarClientes(cursor, tamanho);
 
         return ResponseEntity.ok(clientesDTO);
 
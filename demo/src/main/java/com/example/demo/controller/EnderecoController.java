@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.config.UsuarioAutenticado;
 import com.example.demo.dto.EnderecoRequestDTO;
 import com.example.demo.dto.EnderecoResponseDTO;
 import com.example.demo.model.Cliente;
@@ -38,6 +39,13 @@ public class EnderecoController {
     }
 
     private Integer obterIdClienteLogado(Authentication authentication) {
+        Integer idDoToken = UsuarioAutenticado.de(authentication)
+                .map(UsuarioAutenticado::idCliente)
+                .orElse(null);
+        if (idDoToken != null) {
+            return idDoToken;
+        }
+
         String email = authentication.getName();
         Cliente cliente = clienteRepository.findByUser_Email(email)
                 .orElseThrow(() -> new RuntimeException("Cliente não encontrado para o usuário logado."));
@@ -1,7 +1,6 @@
 package com.example.demo.controller;
 
 import java.net.URI;
-import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -16,12 +15,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.example.demo.dto.AlterarSenhaDTO;
 import com.example.demo.dto.FornecedorRequestDTO;
 import com.example.demo.dto.FornecedorResponseDTO;
+import com.example.demo.dto.PaginaCursorDTO;
 import com.example.demo.model.Fornecedor;
 import com.example.demo.service.FornecedorService;
 
@@ -35,9 +36,11 @@ public class FornecedorController {
     private FornecedorService fService;
 
     @GetMapping
-    public ResponseEntity<List<FornecedorResponseDTO>> findAll() {
+    public ResponseEntity<PaginaCursorDTO<FornecedorResponseDTO>> findAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
 
-        List<FornecedorResponseDTO> fornecedoresDTO = fService.listarTodosFornecedores();
+        PaginaCursorDTO<FornecedorResponseDTO> fornecedoresDTO = fService.listarFornecedores(cursor, tamanho);
 
         return ResponseEntity.ok(fornecedoresDTO);
 
@@ -56,9 +59,7 @@ public class FornecedorController {
     @PreAuthorize("hasRole('FORNECEDOR') and @fornecedorService.isOwner(authentication, #idFornecedor)")
     public ResponseEntity<FornecedorResponseDTO> buscarPorIdFornecedor(@PathVariable Integer idFornecedor) {
 
-        Fornecedor fornecedor = fService.findById(idFornecedor);
-
-        FornecedorResponseDTO fResponseDto = new FornecedorResponseDTO(fornecedor);
+        FornecedorResponseDTO fResponseDto = fService.buscarPorId(idFornecedor);
 
         return ResponseEntity.ok(fResponseDto);
     }
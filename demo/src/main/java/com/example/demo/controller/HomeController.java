@@ -23,7 +23,8 @@ public class HomeController {
         Map<String, String> endpointsPublicos = new HashMap<>();
         endpointsPublicos.put("Criar Cliente", "POST /cliente");
         endpointsPublicos.put("Criar Fornecedor", "POST /fornecedor");
-        endpointsPublicos.put("Listar Produtos", "GET /produto");
+        endpointsPublicos.put("Listar Produtos", "GET /produto?cursor=&tamanho=20");
+        endpointsPublicos.put("Facetas do Catálogo", "GET /produto/facetas?idCategoria=1&idFornecedor=&faixaPreco=");
         endpointsPublicos.put("Ver Produto", "GET /produto/{id}");
         endpointsPublicos.put("Listar Produtos Paginado", "GET /produto/paginado");
         endpointsPublicos.put("Buscar Produto por Nome", "GET /produto/buscar?nome=texto");
@@ -46,8 +47,8 @@ public class HomeController {
         
         endpointsProtegidos.put("Criar Pedido", "POST /pedido (cliente - cria do carrinho)");
         endpointsProtegidos.put("Ver Pedido", "GET /pedido/{id} (cliente/fornecedor)");
-        endpointsProtegidos.put("Meus Pedidos", "GET /pedido/meus-pedidos (apenas cliente)");
-        endpointsProtegidos.put("Vendas", "GET /pedido/vendas (apenas fornecedor)");
+        endpointsProtegidos.put("Meus Pedidos", "GET /pedido/meus-pedidos?cursor=&tamanho=20 (apenas cliente)");
+        endpointsProtegidos.put("Vendas", "GET /pedido/vendas?cursor=&tamanho=20 (apenas fornecedor)");
         endpointsProtegidos.put("Atualizar Status", "PATCH /pedido/{id}/status?status=PAGO (apenas cliente)");
         endpointsProtegidos.put("Cancelar Pedido", "POST /pedido/{id}/cancelar (apenas cliente)");
         
@@ -1,27 +1,37 @@
 package com.example.demo.controller;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.example.demo.dto.ConfirmarPixDTO;
 import com.example.demo.dto.PagamentoPixResponseDTO;
+import com.example.demo.dto.PixWebhookDTO;
+import com.example.demo.dto.PixWebhookRespostaDTO;
 import com.example.demo.model.PagamentoPix;
 import com.example.demo.service.PixService;
+import com.example.demo.service.PixWebhookService;
 
 @RestController
 @RequestMapping("/pagamento")
 public class PagamentoController {
 
     private final PixService pixService;
+    private final PixWebhookService pixWebhookService;
 
-    public PagamentoController(PixService pixService) {
+    public PagamentoController(PixService pixService, PixWebhookService pixWebhookService) {
         this.pixService = pixService;
+        this.pixWebhookService = pixWebhookService;
     }
 
     @GetMapping("/pix/{idPedido}")
@@ -43,6 +53,38 @@ public class PagamentoController {
         return ResponseEntity.ok(new PagamentoPixResponseDTO(pagamentoPix));
     }
 
+    /**
+     * Webhook do PSP: registra o lote e responde sem esperar a confirmação dos pedidos.
+     * O corpo é recebido cru porque a assinatura (HMAC) é calculada sobre os bytes enviados.
+     */
+    @PostMapping(path = "/pix/webhook", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PixWebhookRespostaDTO> receberWebhookPix(
+            @RequestHeader(name = "X-Webhook-Signature", required = false) String assinatura,
+            @RequestBody byte[] corpo) {
+
+        pixWebhookService.validarAssinatura(assinatura, corpo);
+        PixWebhookDTO dto = pixWebhookService.ler(corpo);
+
+        return ResponseEntity.ok(pixWebhookService.receber(dto));
+    }
+
+    @GetMapping("/pix/{idPedido}/qrcode")
+    public ResponseEntity<byte[]> qrCodeDoPix(@PathVariable Integer idPedido, WebRequest request) {
+
+        PagamentoPix pagamentoPix = pixService.buscarPorPedido(idPedido);
+
+        String etag = pixService.calcularEtagQRCodePix(pagamentoPix);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.IMAGE_PNG)
+                .body(pixService.renderizarQRCodePix(pagamentoPix));
+    }
+
     @GetMapping("/pix/{idPedido}/status")
     public ResponseEntity<PagamentoPixResponseDTO> verificarStatus(@PathVariable Integer idPedido) {
 
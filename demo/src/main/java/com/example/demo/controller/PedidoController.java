@@ -1,12 +1,13 @@
 package com.example.demo.controller;
 
-import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -18,7 +19,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.example.demo.config.UsuarioAutenticado;
 import com.example.demo.dto.CriarPedidoDTO;
+import com.example.demo.dto.DuracaoStatusDTO;
+import com.example.demo.dto.HistoricoStatusPedidoDTO;
+import com.example.demo.dto.PaginaCursorDTO;
 import com.example.demo.dto.PedidoResponseDTO;
 import com.example.demo.dto.PedidoResumoDTO;
 import com.example.demo.model.Cliente;
@@ -26,11 +31,14 @@ import com.example.demo.model.Fornecedor;
 import com.example.demo.model.StatusPedido;
 import com.example.demo.repository.ClienteRepository;
 import com.example.demo.repository.FornecedorRepository;
+import com.example.demo.service.HistoricoStatusPedidoService;
 import com.example.demo.service.PedidoService;
 
 import jakarta.validation.Valid;
 
 import java.net.URI;
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/pedido")
@@ -39,6 +47,9 @@ public class PedidoController {
     @Autowired
     private PedidoService pedidoService;
 
+    @Autowired
+    private HistoricoStatusPedidoService historicoStatusPedidoService;
+
     @Autowired
     private ClienteRepository clienteRepository;
 
@@ -74,12 +85,48 @@ public class PedidoController {
         return ResponseEntity.ok(pedido);
     }
 
+    /**
+     * Transições de status do pedido, da criação até o status atual.
+     */
+    @GetMapping("/{idPedido}/historico")
+    public ResponseEntity<List<HistoricoStatusPedidoDTO>> listarHistorico(
+            @PathVariable Integer idPedido,
+            Authentication authentication) {
+
+        verificarAcessoPedido(idPedido, authentication);
+
+        return ResponseEntity.ok(historicoStatusPedidoService.listar(idPedido));
+    }
+
+    /**
+     * Tempo médio e máximo que os pedidos passaram em cada status, por período de saída do
+     * status (datas inclusivas, padrão: últimos 30 dias).
+     */
+    @GetMapping("/status/duracoes")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<DuracaoStatusDTO>> listarDuracoesPorStatus(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+
+        LocalDate fim = ate != null ? ate : LocalDate.now();
+        LocalDate inicio = de != null ? de : fim.minusDays(30);
+
+        return ResponseEntity.ok(historicoStatusPedidoService.duracoes(inicio, fim));
+    }
+
+    /**
+     * Lista os pedidos do cliente por cursor: envie o proximoCursor da resposta
+     * anterior no parâmetro "cursor" para obter a página seguinte.
+     */
     @GetMapping("/meus-pedidos")
-    public ResponseEntity<List<PedidoResumoDTO>> listarMeusPedidos(Authentication authentication) {
+    public ResponseEntity<PaginaCursorDTO<PedidoResumoDTO>> listarMeusPedidos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho,
+            Authentication authentication) {
 
         Integer idCliente = obterIdClienteLogado(authentication);
 
-        List<PedidoResumoDTO> pedidos = pedidoService.listarPedidosDoCliente(idCliente);
+        PaginaCursorDTO<PedidoResumoDTO> pedidos = pedidoService.listarPedidosDoCliente(idCliente, cursor, tamanho);
 
         return ResponseEntity.ok(pedidos);
     }
@@ -97,11 +144,15 @@ public class PedidoController {
     }
 
     @GetMapping("/vendas")
-    public ResponseEntity<List<PedidoResumoDTO>> listarVendas(Authentication authentication) {
+    public ResponseEntity<PaginaCursorDTO<PedidoResumoDTO>> listarVendas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho,
+            Authentication authentication) {
 
         Integer idFornecedor = obterIdFornecedorLogado(authentication);
 
-        List<PedidoResumoDTO> pedidos = pedidoService.listarPedidosDoFornecedor(idFornecedor);
+        PaginaCursorDTO<PedidoResumoDTO> pedidos = pedidoService.listarPedidosDoFornecedor(idFornecedor, cursor,
+                tamanho);
 
         return ResponseEntity.ok(pedidos);
     }
@@ -144,6 +195,13 @@ public class PedidoController {
     }
 
     private Integer obterIdClienteLogado(Authentication authentication) {
+        Integer idDoToken = UsuarioAutenticado.de(authentication)
+                .map(UsuarioAutenticado::idCliente)
+                .orElse(null);
+        if (idDoToken != null) {
+            return idDoToken;
+        }
+
         String email = authentication.getName();
 
         Cliente cliente = clienteRepository.findByUser_Email(email)
@@ -153,6 +211,13 @@ public class PedidoController {
     }
 
     private Integer obterIdFornecedorLogado(Authentication authentication) {
+        Integer idDoToken = UsuarioAutenticado.de(authentication)
+                .map(UsuarioAutenticado::idFornecedor)
+                .orElse(null);
+        if (idDoToken != null) {
+            return idDoToken;
+        }
+
         String email = authentication.getName();
 
         Fornecedor fornecedor = fornecedorRepository.findByUser_Email(email)
@@ -162,6 +227,20 @@ public class PedidoController {
     }
 
     private void verificarAcessoPedido(Integer idPedido, Authentication authentication) {
+        UsuarioAutenticado usuario = UsuarioAutenticado.de(authentication).orElse(null);
+        if (usuario != null) {
+            if (usuario.idCliente() != null) {
+                PedidoResponseDTO pedido = pedidoService.buscarPorId(idPedido);
+                if (!pedido.idCliente().equals(usuario.idCliente())) {
+                    throw new RuntimeException("Você não tem permissão para acessar este pedido.");
+                }
+                return;
+            }
+            if (usuario.idFornecedor() != null) {
+                return;
+            }
+        }
+
         String email = authentication.getName();
 
         clienteRepository.findByUser_Email(email)
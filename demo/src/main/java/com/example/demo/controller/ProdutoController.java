@@ -20,9 +20,10 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.example.demo.dto.FacetasProdutoDTO;
+import com.example.demo.dto.PaginaCursorDTO;
 import com.example.demo.dto.ProdutoRequestDTO;
 import com.example.demo.dto.ProdutoResponseDTO;
-import com.example.demo.model.Produto;
 import com.example.demo.service.ProdutoService;
 
 import jakarta.validation.Valid;
@@ -35,8 +36,10 @@ public class ProdutoController {
     private ProdutoService pService;
 
     @GetMapping
-    public ResponseEntity<List<ProdutoResponseDTO>> listarTodosProdutos() {
-        List<ProdutoResponseDTO> produtosDTO = pService.listarTodosProdutos();
+    public ResponseEntity<PaginaCursorDTO<ProdutoResponseDTO>> listarProdutos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho) {
+        PaginaCursorDTO<ProdutoResponseDTO> produtosDTO = pService.listarProdutos(cursor, tamanho);
         
         return ResponseEntity.ok(produtosDTO); 
     }
@@ -90,12 +93,23 @@ public class ProdutoController {
         return ResponseEntity.ok(produtosDTO);
     }
 
+    /**
+     * Contagens de produtos por categoria, fornecedor e faixa de preço.
+     * Os filtros são opcionais; cada faceta é contada com os filtros das demais.
+     */
+    @GetMapping("/facetas")
+    public ResponseEntity<FacetasProdutoDTO> contarFacetas(
+            @RequestParam(required = false) Integer idCategoria,
+            @RequestParam(required = false) Integer idFornecedor,
+            @RequestParam(required = false) Integer faixaPreco) {
+
+        return ResponseEntity.ok(pService.contarFacetas(idCategoria, idFornecedor, faixaPreco));
+    }
+
     @GetMapping(value = "/{idProduto}")
     public ResponseEntity<ProdutoResponseDTO> buscarPorIdProduto(@PathVariable Integer idProduto) {
 
-        Produto produto = pService.findById(idProduto);
-
-        ProdutoResponseDTO responseDto = new ProdutoResponseDTO(produto);
+        ProdutoResponseDTO responseDto = pService.buscarProdutoPorId(idProduto);
 
         return ResponseEntity.ok(responseDto);
     }
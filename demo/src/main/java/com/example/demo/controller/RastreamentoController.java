@@ -3,13 +3,15 @@ package com.example.demo.controller;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,20 +19,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.example.demo.dto.QRCodeResponseDTO;
+import com.example.demo.exception.NoSuchElementException;
 import com.example.demo.exception.RegraNegocioException;
 import com.example.demo.model.QRCodeRastreamento;
+import com.example.demo.model.StatusGeracaoQRCode;
 import com.example.demo.repository.QRCodeRastreamentoRepository;
+import com.example.demo.service.QRCodeService;
 
 @RestController
 @RequestMapping("/rastreamento")
 public class RastreamentoController {
 
     private final QRCodeRastreamentoRepository qrCodeRepository;
+    private final QRCodeService qrCodeService;
 
-    public RastreamentoController(QRCodeRastreamentoRepository qrCodeRepository) {
+    public RastreamentoController(QRCodeRastreamentoRepository qrCodeRepository, QRCodeService qrCodeService) {
         this.qrCodeRepository = qrCodeRepository;
+        this.qrCodeService = qrCodeService;
     }
 
     @GetMapping("/{codigo}")
@@ -66,44 +74,82 @@ public class RastreamentoController {
         return ResponseEntity.ok(dtos);
     }
 
+    /**
+     * 🖼️ GET /rastreamento/{codigo}/imagem
+     * Retorna o PNG do QR Code, gerado sob demanda (com ETag para cache do navegador)
+     */
+    @GetMapping("/{codigo}/imagem")
+    public ResponseEntity<byte[]> imagemQRCode(@PathVariable String codigo, WebRequest request) {
+
+        QRCodeRastreamento qrCode = qrCodeRepository.findByCodigoRastreamento(codigo)
+                .orElseThrow(() -> new RegraNegocioException(
+                        "Código de rastreamento não encontrado: " + codigo));
+
+        if (qrCode.isPendente()) {
+            return ResponseEntity.accepted().build();
+        }
+        exigirGerado(qrCode);
+
+        String etag = qrCodeService.calcularEtag(qrCode);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.IMAGE_PNG)
+                .body(qrCodeService.renderizarPng(qrCode));
+    }
+
     /**
      * 📥 GET /rastreamento/{codigo}/download
-     * Faz download do arquivo PNG do QR Code
+     * Faz download do arquivo PNG do QR Code.
+     * O arquivo é enviado em streaming direto do disco (sem carregar em memória), com
+     * suporte a Range, ETag e Last-Modified.
      */
     @GetMapping("/{codigo}/download")
-    public ResponseEntity<Resource> downloadQRCode(@PathVariable String codigo) {
+    public ResponseEntity<Resource> downloadQRCode(@PathVariable String codigo, WebRequest request) {
         
         QRCodeRastreamento qrCode = qrCodeRepository.findByCodigoRastreamento(codigo)
                 .orElseThrow(() -> new RegraNegocioException(
                         "Código de rastreamento não encontrado: " + codigo));
 
-        try {
-            // Lê o arquivo físico
-            Path caminhoArquivo = Paths.get(qrCode.getQrcodeCaminhoArquivo());
-            
-            if (!Files.exists(caminhoArquivo)) {
-                throw new RegraNegocioException(
-                        "Arquivo do QR Code não encontrado no servidor.");
-            }
-
-            byte[] bytes = Files.readAllBytes(caminhoArquivo);
-            ByteArrayResource resource = new ByteArrayResource(bytes);
-
-            // Define headers para download
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, 
-                    "attachment; filename=" + codigo + ".png");
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentLength(bytes.length)
-                    .contentType(MediaType.IMAGE_PNG)
-                    .body(resource);
+        if (qrCode.isPendente()) {
+            // Imagem ainda sendo gerada em segundo plano
+            return ResponseEntity.accepted().build();
+        }
+        exigirGerado(qrCode);
+
+        String etag = qrCodeService.calcularEtag(qrCode);
+        Path caminhoArquivo = qrCodeService.arquivoPng(qrCode);
 
+        long ultimaModificacao;
+        try {
+            ultimaModificacao = Files.getLastModifiedTime(caminhoArquivo).toMillis();
         } catch (IOException e) {
             throw new RegraNegocioException(
                     "Erro ao ler arquivo do QR Code: " + e.getMessage());
         }
+
+        if (request.checkNotModified(etag, ultimaModificacao)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        // Define headers para download
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(codigo + ".png")
+                .build());
+
+        // Requisições com Range são respondidas com 206 pelo próprio Spring (ResourceRegion)
+        return ResponseEntity.ok()
+                .headers(headers)
+                .eTag(etag)
+                .lastModified(ultimaModificacao)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.IMAGE_PNG)
+                .body(new FileSystemResource(caminhoArquivo));
     }
 
     /**
@@ -117,8 +163,23 @@ public class RastreamentoController {
                 .orElseThrow(() -> new RegraNegocioException(
                         "Código de rastreamento não encontrado: " + codigo));
 
+        if (qrCode.isPendente()) {
+            return ResponseEntity.accepted().build();
+        }
+        exigirGerado(qrCode);
+
         return ResponseEntity.ok()
                 .contentType(MediaType.TEXT_PLAIN)
                 .body(qrCode.getConteudoQRCode());
     }
+
+    /**
+     * Conteúdo e imagem só existem para QR Codes GERADOS; os que falharam não têm o que servir.
+     */
+    private static void exigirGerado(QRCodeRastreamento qrCode) {
+        if (qrCode.getStatusGeracaoEfetivo() != StatusGeracaoQRCode.GERADO) {
+            throw new NoSuchElementException("QR Code " + qrCode.getCodigoRastreamento()
+                    + " indisponível: a geração da imagem falhou.");
+        }
+    }
 }
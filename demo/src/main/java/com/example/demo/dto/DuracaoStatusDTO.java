@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.StatusPedido;
+
+
+public record DuracaoStatusDTO(
+        StatusPedido status,
+        long quantidade,
+        long mediaSegundos,
+        long maximoSegundos
+) {
+}
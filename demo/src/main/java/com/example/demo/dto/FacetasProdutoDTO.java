@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Contagens de produtos por categoria, fornecedor e faixa de preço para os filtros informados.
+ * Cada faceta é contada aplicando os filtros das outras facetas (não o seu próprio), para
+ * que o cliente veja quantos produtos teria ao trocar a seleção.
+ */
+public record FacetasProdutoDTO(
+        long totalProdutos,
+        List<ValorFaceta> categorias,
+        List<ValorFaceta> fornecedores,
+        List<ValorFaceta> faixasPreco) {
+
+    public record ValorFaceta(Integer id, String nome, long quantidade) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.demo.model.StatusPedido;
+
+
+public record HistoricoStatusPedidoDTO(
+        StatusPedido statusAnterior,
+        StatusPedido statusNovo,
+        LocalDateTime ocorridoEm,
+        Long segundosNoStatusAnterior
+) {
+}
@@ -11,7 +11,7 @@ public record PagamentoPixResponseDTO(
         Integer id,
         Integer idPedido,
         String codigoPix,
-        String qrCodePix,
+        String urlQrCodePix,
         BigDecimal valorPix,
         LocalDateTime dataExpiracao,
         StatusPagamentoPix statusPagamento,
@@ -25,7 +25,7 @@ public record PagamentoPixResponseDTO(
                 pix.getId(),
                 pix.getPedido().getId(),
                 pix.getCodigoPix(),
-                pix.getQrCodePix(),
+                "/pagamento/pix/" + pix.getPedido().getId() + "/qrcode",
                 pix.getValorPix(),
                 pix.getDataExpiracao(),
                 pix.getStatusPagamento(),
@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de uma listagem por cursor (keyset).
+ * Para buscar a próxima página, envie proximoCursor no parâmetro "cursor".
+ */
+public record PaginaCursorDTO<T>(
+        List<T> conteudo,
+        int tamanho,
+        String proximoCursor,
+        boolean temProxima) {
+
+    /**
+     * Monta a página a partir de uma consulta que buscou tamanho + 1 registros:
+     * o registro excedente só indica que existe próxima página.
+     */
+    public static <T> PaginaCursorDTO<T> de(List<T> resultados, int tamanho, Function<T, String> cursorDe) {
+        boolean temProxima = resultados.size() > tamanho;
+        List<T> conteudo = temProxima ? resultados.subList(0, tamanho) : resultados;
+        String proximoCursor = temProxima ? cursorDe.apply(conteudo.get(conteudo.size() - 1)) : null;
+        return new PaginaCursorDTO<>(conteudo, conteudo.size(), proximoCursor, temProxima);
+    }
+}
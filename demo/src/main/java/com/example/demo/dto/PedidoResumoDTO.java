@@ -3,11 +3,12 @@ package com.example.demo.dto;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
-import com.example.demo.model.Pedido;
 import com.example.demo.model.StatusPedido;
 import com.example.demo.model.TipoPagamento;
 
-
+/**
+ * Resumo de pedido das listagens, montado direto na consulta (PedidoRepository.SELECT_RESUMO_DTO).
+ */
 public record PedidoResumoDTO(
         Integer id,
         LocalDateTime dataPedido,
@@ -16,16 +17,4 @@ public record PedidoResumoDTO(
         BigDecimal valorTotal,
         Integer totalItens
 ) {
-    public PedidoResumoDTO(Pedido pedido) {
-        this(
-                pedido.getId(),
-                pedido.getDataPedido(),
-                pedido.getStatus(),
-                pedido.getTipoPagamento(),
-                pedido.getValorTotal(),
-                pedido.getItens().stream()
-                        .mapToInt(item -> item.getQuantidade())
-                        .sum()
-        );
-    }
 }
@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Notificação de PIX recebidos enviada pelo PSP (formato do webhook da API PIX do BCB).
+ * Um mesmo txid pode chegar mais de uma vez: o PSP reenvia até receber 2xx.
+ */
+public record PixWebhookDTO(
+        @NotEmpty @Size(max = 1000) List<@Valid PixRecebido> pix
+) {
+
+    public record PixRecebido(
+            String endToEndId,
+            @NotBlank @Size(max = 35) String txid,
+            @NotNull @Positive BigDecimal valor,
+            @NotNull OffsetDateTime horario
+    ) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+
+public record PixWebhookRespostaDTO(
+        int recebidos,
+        int novos,
+        int duplicados
+) {
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Atributos de um produto usados no cálculo das facetas do catálogo.
+ */
+public record ProdutoFacetaDTO(
+        Integer id,
+        Integer idCategoria,
+        String nomeCategoria,
+        Integer idFornecedor,
+        String nomeFornecedor,
+        BigDecimal preco) {
+}
@@ -1,18 +1,21 @@
 package com.example.demo.dto;
 
 import com.example.demo.model.QRCodeRastreamento;
+import com.example.demo.model.StatusGeracaoQRCode;
 
 
 public record QRCodeResponseDTO(
     String codigoRastreamento,
-    String qrcodeBase64,
+    StatusGeracaoQRCode status,
+    String urlImagem,
     String urlRastreamento,
     String urlDownload
 ) {
     public QRCodeResponseDTO(QRCodeRastreamento qrCode) {
         this(
             qrCode.getCodigoRastreamento(),
-            qrCode.getQrcodeBase64(),
+            qrCode.getStatusGeracaoEfetivo(),
+            "/rastreamento/" + qrCode.getCodigoRastreamento() + "/imagem",
             "/rastreamento/" + qrCode.getCodigoRastreamento(),
             "/rastreamento/" + qrCode.getCodigoRastreamento() + "/download"
         );
@@ -0,0 +1,8 @@
+package com.example.demo.event;
+
+/**
+ * Publicado pelo CategoriaService quando uma categoria é alterada.
+ * Os ouvintes (ex.: facetas do catálogo) recebem o evento depois do commit.
+ */
+public record CategoriaAlteradaEvent(Integer idCategoria, String nome) {
+}
@@ -0,0 +1,8 @@
+package com.example.demo.event;
+
+/**
+ * Publicado pelo FornecedorService quando um fornecedor é alterado.
+ * Os ouvintes (ex.: facetas do catálogo) recebem o evento depois do commit.
+ */
+public record FornecedorAlteradoEvent(Integer idFornecedor, String nome) {
+}
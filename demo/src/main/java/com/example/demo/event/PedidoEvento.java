@@ -0,0 +1,16 @@
+package com.example.demo.event;
+
+import java.time.LocalDateTime;
+
+import com.example.demo.model.TipoEventoPedido;
+
+/**
+ * Evento do ciclo de vida de um pedido, entregue pelo RelayEventosPedido depois do commit.
+ *
+ * Eventos do mesmo pedido chegam em ordem e um de cada vez; um ouvinte que lança exceção
+ * faz o evento ser entregue de novo (a todos os ouvintes), então os ouvintes devem ser
+ * idempotentes.
+ */
+public record PedidoEvento(Long idEvento, Integer idPedido, TipoEventoPedido tipo, LocalDateTime ocorridoEm,
+        int tentativa) {
+}
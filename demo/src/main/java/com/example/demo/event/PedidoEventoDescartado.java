@@ -0,0 +1,8 @@
+package com.example.demo.event;
+
+/**
+ * Publicado pelo RelayEventosPedido quando um evento esgota as tentativas e fica como FALHA.
+ * Os efeitos daquele evento não foram aplicados e não serão sem intervenção.
+ */
+public record PedidoEventoDescartado(PedidoEvento evento, String erro) {
+}
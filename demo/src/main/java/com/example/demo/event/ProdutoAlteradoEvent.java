@@ -0,0 +1,16 @@
+package com.example.demo.event;
+
+/**
+ * Publicado pelo ProdutoService quando um produto é criado, alterado ou removido.
+ * Os ouvintes (ex.: índice de busca) recebem o evento depois do commit.
+ */
+public record ProdutoAlteradoEvent(Integer idProduto, boolean removido) {
+
+    public static ProdutoAlteradoEvent alterado(Integer idProduto) {
+        return new ProdutoAlteradoEvent(idProduto, false);
+    }
+
+    public static ProdutoAlteradoEvent removido(Integer idProduto) {
+        return new ProdutoAlteradoEvent(idProduto, true);
+    }
+}
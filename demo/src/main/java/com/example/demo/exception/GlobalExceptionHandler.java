@@ -245,6 +245,24 @@ public class GlobalExceptionHandler {
     }
 
    
+    @ExceptionHandler(ServicoSobrecarregadoException.class)
+    public ResponseEntity<ErrorResponse> handleServicoSobrecarregado(
+            ServicoSobrecarregadoException ex,
+            WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Serviço Indisponível",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", ""));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(errorResponse);
+    }
+
+    
     @ExceptionHandler(DadosDuplicadosException.class)
     public ResponseEntity<ErrorResponse> handleDadosDuplicados(
             DadosDuplicadosException ex,
@@ -0,0 +1,12 @@
+package com.example.demo.exception;
+
+/**
+ * Recurso limitado (ex.: verificação de senhas) sem capacidade no momento.
+ * Respondida com 503 para que o cliente tente novamente mais tarde.
+ */
+public class ServicoSobrecarregadoException extends RuntimeException {
+
+    public ServicoSobrecarregadoException(String mensagem) {
+        super(mensagem);
+    }
+}
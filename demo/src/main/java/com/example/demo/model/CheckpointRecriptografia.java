@@ -0,0 +1,89 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Progresso da recriptografia de uma coluna para a chave ativa.
+ *
+ * A linha é travada a cada lote (SELECT ... FOR UPDATE), então só uma instância avança o
+ * job por vez, e o ultimoId permite retomar do ponto em que parou após um reinício.
+ * Uma nova chave ativa reinicia o progresso.
+ */
+@Entity
+@Table(name = "tb_recriptografia_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "nome")
+public class CheckpointRecriptografia implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Coluna processada (ex.: tb_cartoes.numero_mascarado), com sufixo ":simulacao" no modo dry-run. */
+    @Id
+    @Column(name = "nome", length = 100)
+    private String nome;
+
+    /** Chave para a qual as linhas estão sendo recriptografadas. */
+    @Column(name = "chave_destino", nullable = false, length = 50)
+    private String chaveDestino;
+
+    /** Maior id já processado (paginação por chave, sem OFFSET). */
+    @Column(name = "ultimo_id", nullable = false)
+    private Integer ultimoId;
+
+    @Column(name = "processados", nullable = false)
+    private Long processados;
+
+    /** Linhas regravadas (ou que seriam, no modo simulação). */
+    @Column(name = "alterados", nullable = false)
+    private Long alterados;
+
+    /** Linhas que não puderam ser decifradas; ficam como estão e aparecem no log. */
+    @Column(name = "falhas", nullable = false)
+    private Long falhas;
+
+    @Column(name = "iniciado_em", nullable = false)
+    private LocalDateTime iniciadoEm;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    @Column(name = "concluido_em")
+    private LocalDateTime concluidoEm;
+
+    public CheckpointRecriptografia(String nome, String chaveDestino) {
+        this.nome = nome;
+        reiniciar(chaveDestino);
+    }
+
+    /**
+     * Recomeça do primeiro id, agora para a chave informada.
+     */
+    public void reiniciar(String chaveDestino) {
+        this.chaveDestino = chaveDestino;
+        this.ultimoId = 0;
+        this.processados = 0L;
+        this.alterados = 0L;
+        this.falhas = 0L;
+        this.iniciadoEm = LocalDateTime.now();
+        this.atualizadoEm = this.iniciadoEm;
+        this.concluidoEm = null;
+    }
+
+    public boolean isConcluido() {
+        return concluidoEm != null;
+    }
+}
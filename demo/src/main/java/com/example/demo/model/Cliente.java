@@ -11,6 +11,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
@@ -26,7 +27,10 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "tb_clientes")
+@Table(name = "tb_clientes", indexes = {
+        // Paginação por keyset
+        @Index(name = "idx_cliente_nome_id", columnList = "nome_cliente, id_cliente")
+})
 @Getter
 @Setter
 @EqualsAndHashCode(of = "idCliente", callSuper = false)
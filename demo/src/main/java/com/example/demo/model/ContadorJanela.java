@@ -0,0 +1,65 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Contagem de uma chave em um balde de tempo fixo, compartilhada entre as instâncias.
+ *
+ * Escrita só por ContadorCompartilhadoJdbc (upsert em lote via JDBC); a entidade existe
+ * para que o schema seja mantido junto com o restante das tabelas.
+ */
+@Entity
+@Table(name = "tb_contador", indexes = {
+        @Index(name = "idx_contador_expira_em", columnList = "expira_em")
+})
+@IdClass(ContadorJanela.Chave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = { "chave", "inicioJanela" })
+public class ContadorJanela implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "chave", length = 200)
+    private String chave;
+
+    /** Início do balde em epoch millis (múltiplo do tamanho da janela). */
+    @Id
+    @Column(name = "inicio_janela")
+    private Long inicioJanela;
+
+    @Column(name = "quantidade", nullable = false)
+    private Long quantidade;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Chave implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String chave;
+        private Long inicioJanela;
+    }
+}
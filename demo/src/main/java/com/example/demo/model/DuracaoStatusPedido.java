@@ -0,0 +1,60 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Tempo que os pedidos passaram em cada status, somado por dia de saída do status.
+ *
+ * Mantido de forma incremental a partir das transições de tb_pedido_evento (quantidade,
+ * soma e máximo), então a média de um período sai da soma de poucas linhas.
+ */
+@Entity
+@Table(name = "tb_pedido_status_duracao", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_pedido_status_duracao_dia_status", columnNames = { "dia", "status" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class DuracaoStatusPedido implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_duracao")
+    private Long id;
+
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private StatusPedido status;
+
+    @Column(name = "quantidade", nullable = false)
+    private Long quantidade;
+
+    @Column(name = "soma_ms", nullable = false)
+    private Long somaMs;
+
+    @Column(name = "maximo_ms", nullable = false)
+    private Long maximoMs;
+}
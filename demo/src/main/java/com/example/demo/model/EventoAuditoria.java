@@ -0,0 +1,83 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Evento de auditoria (tabela somente de inserção).
+ *
+ * Gravado em lotes via JDBC pela thread de AuditLogService; a aplicação nunca altera nem
+ * remove linhas. A entidade existe para que o schema seja mantido junto com o restante
+ * das tabelas e para consultas.
+ */
+@Entity
+@Table(name = "tb_auditoria", indexes = {
+        @Index(name = "idx_auditoria_ocorrido", columnList = "ocorrido_em"),
+        @Index(name = "idx_auditoria_tipo_ocorrido", columnList = "tipo, ocorrido_em"),
+        @Index(name = "idx_auditoria_entidade", columnList = "entidade, id_entidade"),
+        @Index(name = "idx_auditoria_usuario", columnList = "usuario")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class EventoAuditoria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_auditoria")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private TipoAuditoria tipo;
+
+    /** Momento do fato (não o da gravação, que pode vir alguns instantes depois). */
+    @Column(name = "ocorrido_em", nullable = false)
+    private LocalDateTime ocorridoEm;
+
+    /** E-mail do usuário, quando o evento é de autenticação ou acesso. */
+    @Column(name = "usuario", length = 150)
+    private String usuario;
+
+    @Column(name = "id_cliente")
+    private Long idCliente;
+
+    /** Entidade afetada (Pedido, Cartao, ...) e seu id. */
+    @Column(name = "entidade", length = 50)
+    private String entidade;
+
+    @Column(name = "id_entidade")
+    private Long idEntidade;
+
+    @Column(name = "valor", precision = 10, scale = 2)
+    private BigDecimal valor;
+
+    @Column(name = "detalhe", length = 500)
+    private String detalhe;
+
+    @Column(name = "ip", length = 45)
+    private String ip;
+
+    @Column(name = "rastro", columnDefinition = "TEXT")
+    private String rastro;
+}
@@ -0,0 +1,80 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Evento de pedido aguardando publicação (outbox transacional).
+ *
+ * Gravado via JDBC por OutboxPedidoService na mesma transação que altera o pedido, então
+ * o evento existe se e somente se a alteração fez commit. RelayEventosPedido lê os
+ * pendentes e os entrega aos ouvintes; a entidade existe para que o schema seja mantido
+ * junto com o restante das tabelas.
+ */
+@Entity
+@Table(name = "tb_pedido_outbox", indexes = {
+        // Leitura dos pendentes disponíveis, em ordem
+        @Index(name = "idx_outbox_status_disponivel", columnList = "status, disponivel_em"),
+        // Evento pendente mais antigo de cada pedido (ordem por pedido)
+        @Index(name = "idx_outbox_pedido_status", columnList = "id_pedido, status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class EventoPedidoOutbox implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_evento")
+    private Long id;
+
+    @Column(name = "id_pedido", nullable = false)
+    private Integer idPedido;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30)
+    private TipoEventoPedido tipo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private StatusEventoOutbox status;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    /** Antes disso o evento não é entregue (backoff após falha). */
+    @Column(name = "disponivel_em", nullable = false)
+    private LocalDateTime disponivelEm;
+
+    /** Reserva da instância que está entregando o evento; vencida, outra instância pode assumir. */
+    @Column(name = "reservado_ate")
+    private LocalDateTime reservadoAte;
+
+    @Column(name = "tentativas", nullable = false)
+    private Integer tentativas;
+
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+
+    @Column(name = "processado_em")
+    private LocalDateTime processadoEm;
+}
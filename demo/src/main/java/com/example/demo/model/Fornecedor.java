@@ -14,6 +14,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 
 import jakarta.persistence.OneToMany;
@@ -27,7 +28,10 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "tb_fornecedores")
+@Table(name = "tb_fornecedores", indexes = {
+        // Paginação por keyset
+        @Index(name = "idx_fornecedor_nome_id", columnList = "nome, id_fornecedor")
+})
 @Getter
 @Setter
 @EqualsAndHashCode(of = "idFornecedor", callSuper = false)
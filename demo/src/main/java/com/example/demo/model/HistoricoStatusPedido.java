@@ -0,0 +1,71 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Transição de status de um pedido (tabela somente de inserção).
+ *
+ * Gravada via JDBC por HistoricoStatusPedidoService na mesma transação que altera o
+ * status; só a marca de agregação é alterada depois. A sequência de linhas de um pedido é o seu histórico completo. A entidade
+ * existe para que o schema seja mantido junto com o restante das tabelas.
+ */
+@Entity
+@Table(name = "tb_pedido_evento", indexes = {
+        // Histórico do pedido e última transição (entrada no status atual)
+        @Index(name = "idx_pedido_evento_pedido_ocorrido", columnList = "id_pedido, ocorrido_em"),
+        // Varredura das durações ainda não somadas em tb_pedido_status_duracao
+        @Index(name = "idx_pedido_evento_agregacao", columnList = "agregacao_pendente, id_evento")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class HistoricoStatusPedido implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_evento")
+    private Long id;
+
+    @Column(name = "id_pedido", nullable = false)
+    private Integer idPedido;
+
+    /** Nulo na criação do pedido. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_anterior", length = 20)
+    private StatusPedido statusAnterior;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_novo", nullable = false, length = 20)
+    private StatusPedido statusNovo;
+
+    @Column(name = "ocorrido_em", nullable = false)
+    private LocalDateTime ocorridoEm;
+
+    /** Tempo no status anterior; nulo quando a entrada nele não é conhecida (pedidos antigos). */
+    @Column(name = "duracao_anterior_ms")
+    private Long duracaoAnteriorMs;
+
+    /** TRUE enquanto a duração não foi somada no agregado diário; nulo depois (ou sem duração). */
+    @Column(name = "agregacao_pendente")
+    private Boolean agregacaoPendente;
+}
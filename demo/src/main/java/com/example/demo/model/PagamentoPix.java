@@ -13,6 +13,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
@@ -31,7 +32,12 @@ import lombok.Setter;
  * Relacionado a um pedido específico
  */
 @Entity
-@Table(name = "tb_pagamentos_pix")
+@Table(name = "tb_pagamentos_pix", indexes = {
+        // Varredura de PIX pendentes vencidos
+        @Index(name = "idx_pix_status_expiracao", columnList = "status_pagamento, data_expiracao"),
+        // Confirmações recebidas pelo webhook do PSP
+        @Index(name = "idx_pix_txid", columnList = "txid")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -59,13 +65,6 @@ public class PagamentoPix extends Auditable implements Serializable {
     @Column(name = "codigo_pix", nullable = false, length = 500, columnDefinition = "TEXT")
     private String codigoPix;
 
-    /**
-     * QR Code do PIX em Base64 (imagem PNG)
-     */
-    @NotNull
-    @Column(name = "qrcode_pix", nullable = false, columnDefinition = "LONGTEXT")
-    private String qrCodePix;
-
     /**
      * Valor do pagamento PIX
      */
@@ -96,7 +95,7 @@ public class PagamentoPix extends Auditable implements Serializable {
     private LocalDateTime dataConfirmacao;
 
     /**
-     * ID da transação PIX (retornado pela instituição financeira)
+     * ID da transação PIX (gerado com a cobrança; a instituição financeira o devolve na confirmação)
      */
     @Column(name = "txid", length = 100)
     private String txid;
@@ -15,6 +15,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -31,7 +32,10 @@ import lombok.Setter;
  * Representa um pedido realizado por um cliente
  */
 @Entity
-@Table(name = "tb_pedido")
+@Table(name = "tb_pedido", indexes = {
+        // Paginação por keyset
+        @Index(name = "idx_pedido_cliente_data_id", columnList = "id_cliente, data_pedido, id_pedido")
+})
 @Getter
 @Setter
 @NoArgsConstructor
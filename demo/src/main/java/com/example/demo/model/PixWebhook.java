@@ -0,0 +1,68 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Notificação de PIX recebida do PSP, uma por txid (tabela de idempotência do webhook).
+ *
+ * Escrita só por PixWebhookService via JDBC: a chave primária no txid descarta os
+ * reenvios do PSP já na inserção. A entidade existe para que o schema seja mantido
+ * junto com o restante das tabelas.
+ */
+@Entity
+@Table(name = "tb_pix_webhook", indexes = {
+        // Varredura de notificações recebidas e ainda não processadas
+        @Index(name = "idx_pix_webhook_status_recebido", columnList = "status, recebido_em")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "txid")
+public class PixWebhook implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "txid", length = 35)
+    private String txid;
+
+    @Column(name = "end_to_end_id", length = 32)
+    private String endToEndId;
+
+    @Column(name = "valor", nullable = false, precision = 10, scale = 2)
+    private BigDecimal valor;
+
+    /** Momento do pagamento informado pelo PSP. */
+    @Column(name = "horario", nullable = false)
+    private LocalDateTime horario;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private StatusWebhookPix status;
+
+    /** Motivo do descarte quando status = IGNORADO. */
+    @Column(name = "motivo", length = 100)
+    private String motivo;
+
+    @Column(name = "recebido_em", nullable = false)
+    private LocalDateTime recebidoEm;
+
+    @Column(name = "processado_em")
+    private LocalDateTime processadoEm;
+}
@@ -11,6 +11,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -26,7 +27,10 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "tb_produto")
+@Table(name = "tb_produto", indexes = {
+        // Paginação por keyset
+        @Index(name = "idx_produto_nome_id", columnList = "nome, id_produto")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -5,6 +5,8 @@ import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -45,22 +47,43 @@ public class QRCodeRastreamento extends Auditable implements Serializable {
     @Column(name = "codigo_rastreamento", unique = true, nullable = false, length = 50)
     private String codigoRastreamento;
 
-    @Column(name = "qrcode_base64", columnDefinition = "LONGTEXT")
-    private String qrcodeBase64; // Imagem em Base64 para retornar na API
-
     @Column(name = "qrcode_caminho_arquivo", length = 255)
     private String qrcodeCaminhoArquivo; // Caminho do arquivo físico
 
     @Column(name = "conteudo_qrcode", columnDefinition = "TEXT")
-    private String conteudoQRCode; // Texto completo que está codificado
+    private String conteudoQRCode; // Texto completo que está codificado (a imagem é gerada a partir dele)
 
     @Column(name = "data_geracao", nullable = false)
     private LocalDateTime dataGeracao;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_geracao", length = 20)
+    private StatusGeracaoQRCode statusGeracao; // null em registros anteriores à geração assíncrona
+
+    @Column(name = "tentativas")
+    private Integer tentativas = 0;
+
     @PrePersist
     protected void onCreate() {
         if (this.dataGeracao == null) {
             this.dataGeracao = LocalDateTime.now();
         }
+        if (this.statusGeracao == null) {
+            this.statusGeracao = StatusGeracaoQRCode.PENDENTE;
+        }
+    }
+
+    /**
+     * Verifica se a imagem do QR Code ainda não foi gerada
+     */
+    public boolean isPendente() {
+        return this.statusGeracao == StatusGeracaoQRCode.PENDENTE;
+    }
+
+    /**
+     * Retorna o status de geração (registros antigos já nasceram gerados)
+     */
+    public StatusGeracaoQRCode getStatusGeracaoEfetivo() {
+        return this.statusGeracao != null ? this.statusGeracao : StatusGeracaoQRCode.GERADO;
     }
 }
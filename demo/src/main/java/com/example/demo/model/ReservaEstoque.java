@@ -0,0 +1,70 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Unidades de um produto retiradas de tb_produto e retidas em memória por uma instância
+ * (reserva antecipada de produtos "quentes").
+ *
+ * O estoque real de um produto é tb_produto.estoque somado às reservas de todas as
+ * instâncias. Escrita só por ReservaEstoqueMemoria (via JDBC, na mesma transação que
+ * altera tb_produto); a entidade existe para que o schema seja mantido junto com o
+ * restante das tabelas.
+ */
+@Entity
+@Table(name = "tb_reserva_estoque", indexes = {
+        @Index(name = "idx_reserva_estoque_produto", columnList = "id_produto"),
+        @Index(name = "idx_reserva_estoque_atualizado_em", columnList = "atualizado_em")
+})
+@IdClass(ReservaEstoque.Chave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = { "idInstancia", "idProduto" })
+public class ReservaEstoque implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Identificador da instância, gerado a cada subida da aplicação. */
+    @Id
+    @Column(name = "id_instancia", length = 36)
+    private String idInstancia;
+
+    @Id
+    @Column(name = "id_produto")
+    private Integer idProduto;
+
+    @Column(name = "quantidade", nullable = false)
+    private Integer quantidade;
+
+    /** Último sinal de vida da instância; reservas paradas são devolvidas ao estoque. */
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Chave implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String idInstancia;
+        private Integer idProduto;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+/**
+ * Situação de um evento na outbox de pedidos
+ */
+public enum StatusEventoOutbox {
+    PENDENTE,
+    PROCESSADO,
+    FALHA
+}
@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+/**
+ * Situação da geração da imagem de um QR Code de rastreamento
+ */
+public enum StatusGeracaoQRCode {
+    PENDENTE,
+    GERADO,
+    FALHA
+}
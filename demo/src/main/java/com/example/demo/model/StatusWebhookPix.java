@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+/**
+ * Situação de uma notificação de PIX recebida via webhook
+ */
+public enum StatusWebhookPix {
+    RECEBIDO,
+    PROCESSADO,
+    IGNORADO
+}
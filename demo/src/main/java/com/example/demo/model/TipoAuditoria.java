@@ -0,0 +1,17 @@
+package com.example.demo.model;
+
+/**
+ * Tipos de evento de auditoria (mesmos nomes das linhas [AUDIT] do log)
+ */
+public enum TipoAuditoria {
+    LOGIN_SUCCESS,
+    LOGIN_FAILED,
+    ACCOUNT_LOCKED,
+    CARD_CREATED,
+    CARD_DELETED,
+    ORDER_CREATED,
+    PIX_CONFIRMED,
+    ACCESS_DENIED,
+    DATA_MODIFIED,
+    SYSTEM_ERROR
+}
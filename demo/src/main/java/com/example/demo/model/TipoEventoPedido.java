@@ -0,0 +1,27 @@
+package com.example.demo.model;
+
+/**
+ * Eventos do ciclo de vida de um pedido publicados pela outbox
+ */
+public enum TipoEventoPedido {
+    PEDIDO_CRIADO,
+    PEDIDO_PAGO,
+    PEDIDO_EM_PREPARACAO,
+    PEDIDO_ENVIADO,
+    PEDIDO_ENTREGUE,
+    PEDIDO_CANCELADO;
+
+    /**
+     * Evento correspondente à entrada do pedido no status informado.
+     */
+    public static TipoEventoPedido paraStatus(StatusPedido status) {
+        return switch (status) {
+            case PENDENTE -> PEDIDO_CRIADO;
+            case PAGO -> PEDIDO_PAGO;
+            case EM_PREPARACAO -> PEDIDO_EM_PREPARACAO;
+            case ENVIADO -> PEDIDO_ENVIADO;
+            case ENTREGUE -> PEDIDO_ENTREGUE;
+            case CANCELADO -> PEDIDO_CANCELADO;
+        };
+    }
+}
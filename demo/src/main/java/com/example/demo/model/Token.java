@@ -0,0 +1,81 @@
+package com.example.demo.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Refresh token emitido para um usuário.
+ *
+ * Todos os refresh tokens de uma mesma sessão (login) compartilham a família. A cada
+ * renovação o token usado é marcado como utilizado e um novo é emitido na mesma família;
+ * reapresentar um token já utilizado revoga a família inteira, inclusive os access
+ * tokens emitidos com ela.
+ */
+@Entity
+@Table(name = "tb_token", indexes = {
+        @Index(name = "idx_token_familia", columnList = "familia"),
+        @Index(name = "idx_token_revogado_expiracao", columnList = "revogado, data_expiracao")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class Token implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_token")
+    private Long id;
+
+    @Column(name = "jti", nullable = false, unique = true, length = 36)
+    private String jti;
+
+    @Column(name = "familia", nullable = false, length = 36)
+    private String familia;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_user", nullable = false)
+    private User user;
+
+    @Column(name = "data_emissao", nullable = false)
+    private LocalDateTime dataEmissao;
+
+    @Column(name = "data_expiracao", nullable = false)
+    private LocalDateTime dataExpiracao;
+
+    @Column(name = "utilizado", nullable = false)
+    private boolean utilizado;
+
+    @Column(name = "revogado", nullable = false)
+    private boolean revogado;
+
+    @Column(name = "data_revogacao")
+    private LocalDateTime dataRevogacao;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.dataEmissao == null) {
+            this.dataEmissao = LocalDateTime.now();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,8 +12,9 @@ import com.example.demo.model.Carrinho;
 public interface CarrinhoRepository extends JpaRepository<Carrinho, Integer> {
 
     /**
-     * Busca o carrinho de um cliente específico
+     * Busca o carrinho de um cliente específico (com cliente, itens e produtos)
      */
+    @EntityGraph(attributePaths = { "cliente", "itens", "itens.produto" })
     Optional<Carrinho> findByCliente_IdCliente(Integer idCliente);
 
     /**
@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.model.CheckpointRecriptografia;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface CheckpointRecriptografiaRepository extends JpaRepository<CheckpointRecriptografia, String> {
+
+    /**
+     * Checkpoint travado até o fim da transação: outra instância que tente o mesmo job espera.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CheckpointRecriptografia c WHERE c.nome = :nome")
+    Optional<CheckpointRecriptografia> travar(@Param("nome") String nome);
+}
@@ -5,7 +5,10 @@ import com.example.demo.model.Cliente;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -13,6 +16,15 @@ public interface ClienteRepository extends JpaRepository<Cliente, Integer> {
 
     Optional<Cliente> findByUser_Email(String email);
 
+    // Paginação por keyset em (nomeCliente, id); o e-mail do ClienteResponseDTO vem no JOIN
+    @Query("SELECT c FROM Cliente c JOIN FETCH c.user ORDER BY c.nomeCliente, c.idCliente")
+    List<Cliente> listarPrimeiraPagina(Limit limite);
+
+    @Query("SELECT c FROM Cliente c JOIN FETCH c.user"
+            + " WHERE c.nomeCliente > :nome OR (c.nomeCliente = :nome AND c.idCliente > :id)"
+            + " ORDER BY c.nomeCliente, c.idCliente")
+    List<Cliente> listarApos(@Param("nome") String nome, @Param("id") Integer id, Limit limite);
+
     Optional<Cliente> findByCpf(String cpf);
 
     List<Cliente> findByNomeClienteContainingIgnoreCase(String nome);
@@ -2,7 +2,10 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Fornecedor;
 import com.example.demo.model.EstadosBrasileiros; 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,6 +18,15 @@ public interface FornecedorRepository extends JpaRepository<Fornecedor, Integer>
 
     Optional<Fornecedor> findByCnpj(String cnpj);
 
+    // Paginação por keyset em (nome, id); o e-mail do FornecedorResponseDTO vem no JOIN
+    @Query("SELECT f FROM Fornecedor f JOIN FETCH f.user ORDER BY f.nome, f.idFornecedor")
+    List<Fornecedor> listarPrimeiraPagina(Limit limite);
+
+    @Query("SELECT f FROM Fornecedor f JOIN FETCH f.user"
+            + " WHERE f.nome > :nome OR (f.nome = :nome AND f.idFornecedor > :id)"
+            + " ORDER BY f.nome, f.idFornecedor")
+    List<Fornecedor> listarApos(@Param("nome") String nome, @Param("id") Integer id, Limit limite);
+
     List<Fornecedor> findByNomeContainingIgnoreCase(String nome);
 
     List<Fornecedor> findByEstado(EstadosBrasileiros estado);
@@ -3,10 +3,15 @@ package com.example.demo.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.PagamentoPix;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface PagamentoPixRepository extends JpaRepository<PagamentoPix, Integer> {
 
@@ -15,4 +20,11 @@ public interface PagamentoPixRepository extends JpaRepository<PagamentoPix, Inte
 
    
     Optional<PagamentoPix> findByTxid(String txid);
+
+    /**
+     * PIX do pedido com a linha travada (SELECT ... FOR UPDATE) até o fim da transação.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pix FROM PagamentoPix pix WHERE pix.pedido.id = :idPedido")
+    Optional<PagamentoPix> findParaAtualizarByIdPedido(@Param("idPedido") Integer idPedido);
 }
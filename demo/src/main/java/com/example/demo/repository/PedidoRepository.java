@@ -1,35 +1,100 @@
 package com.example.demo.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.dto.PedidoResumoDTO;
 import com.example.demo.model.Pedido;
 import com.example.demo.model.StatusPedido;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Integer> {
 
-   
-    List<Pedido> findByCliente_IdClienteOrderByDataPedidoDesc(Integer idCliente);
+    /**
+     * Pedido completo para o PedidoResponseDTO: cliente, endereço, itens, produtos
+     * e QR Codes em um único SELECT.
+     */
+    @EntityGraph(attributePaths = { "cliente", "enderecoEntrega", "itens", "itens.produto",
+            "itens.qrCodeRastreamento" })
+    Optional<Pedido> findDetalhadoById(Integer idPedido);
+
+    /**
+     * Pedido com a linha travada (SELECT ... FOR UPDATE) até o fim da transação.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Pedido p WHERE p.id = :idPedido")
+    Optional<Pedido> findParaAtualizarById(@Param("idPedido") Integer idPedido);
 
-    
-    Page<Pedido> findByCliente_IdClienteOrderByDataPedidoDesc(Integer idCliente, Pageable pageable);
+    /*
+     * Listagens sem paginação trazem os itens junto (o PedidoResumoDTO soma as quantidades).
+     * Nas paginadas o JOIN com a coleção obrigaria o Hibernate a paginar em memória, então
+     * os itens são carregados em lote (hibernate.default_batch_fetch_size).
+     */
 
-    
+    @EntityGraph(attributePaths = { "itens" })
     List<Pedido> findByStatusOrderByDataPedidoDesc(StatusPedido status);
 
+    @EntityGraph(attributePaths = { "itens" })
     List<Pedido> findByCliente_IdClienteAndStatusOrderByDataPedidoDesc(Integer idCliente, StatusPedido status);
 
-    @Query("SELECT DISTINCT p FROM Pedido p JOIN p.itens i WHERE i.produto.fornecedor.idFornecedor = :idFornecedor ORDER BY p.dataPedido DESC")
-    List<Pedido> findPedidosPorFornecedor(@Param("idFornecedor") Integer idFornecedor);
+    /*
+     * Listagens de resumo: projeção direto no PedidoResumoDTO, com o total de itens somado
+     * no próprio SELECT. Sem entidades, os OneToOne inversos (Pedido.pagamentoPix e
+     * ItemPedido.qrCodeRastreamento), que o Hibernate resolve com um SELECT por linha,
+     * não entram na consulta.
+     */
+
+    String SELECT_RESUMO_DTO = "SELECT new com.example.demo.dto.PedidoResumoDTO("
+            + "p.id, p.dataPedido, p.status, p.tipoPagamento, p.valorTotal, "
+            + "CAST((SELECT COALESCE(SUM(ip.quantidade), 0) FROM ItemPedido ip WHERE ip.pedido = p) AS Integer)) "
+            + "FROM Pedido p";
+
+    String DO_CLIENTE = " WHERE p.cliente.idCliente = :idCliente";
+
+    String DO_FORNECEDOR = " WHERE EXISTS (SELECT 1 FROM ItemPedido i WHERE i.pedido = p"
+            + " AND i.produto.fornecedor.idFornecedor = :idFornecedor)";
+
+    String APOS = " AND (p.dataPedido < :dataPedido OR (p.dataPedido = :dataPedido AND p.id < :id))";
+
+    String MAIS_RECENTES = " ORDER BY p.dataPedido DESC, p.id DESC";
+
+    // Paginação por keyset em (dataPedido, id), do mais recente para o mais antigo
+
+    @Query(SELECT_RESUMO_DTO + DO_CLIENTE + MAIS_RECENTES)
+    List<PedidoResumoDTO> listarDoClientePrimeiraPagina(@Param("idCliente") Integer idCliente, Limit limite);
+
+    @Query(SELECT_RESUMO_DTO + DO_CLIENTE + APOS + MAIS_RECENTES)
+    List<PedidoResumoDTO> listarDoClienteApos(@Param("idCliente") Integer idCliente,
+            @Param("dataPedido") LocalDateTime dataPedido, @Param("id") Integer id, Limit limite);
+
+    @Query(SELECT_RESUMO_DTO + DO_FORNECEDOR + MAIS_RECENTES)
+    List<PedidoResumoDTO> listarDoFornecedorPrimeiraPagina(@Param("idFornecedor") Integer idFornecedor,
+            Limit limite);
+
+    @Query(SELECT_RESUMO_DTO + DO_FORNECEDOR + APOS + MAIS_RECENTES)
+    List<PedidoResumoDTO> listarDoFornecedorApos(@Param("idFornecedor") Integer idFornecedor,
+            @Param("dataPedido") LocalDateTime dataPedido, @Param("id") Integer id, Limit limite);
+
+    // Paginação por OFFSET (endpoints /paginado)
+
+    @Query(value = SELECT_RESUMO_DTO + DO_CLIENTE + MAIS_RECENTES,
+            countQuery = "SELECT COUNT(p) FROM Pedido p" + DO_CLIENTE)
+    Page<PedidoResumoDTO> listarDoCliente(@Param("idCliente") Integer idCliente, Pageable pageable);
 
-    
-    @Query("SELECT DISTINCT p FROM Pedido p JOIN p.itens i WHERE i.produto.fornecedor.idFornecedor = :idFornecedor ORDER BY p.dataPedido DESC")
-    Page<Pedido> findPedidosPorFornecedor(@Param("idFornecedor") Integer idFornecedor, Pageable pageable);
+    @Query(value = SELECT_RESUMO_DTO + DO_FORNECEDOR + MAIS_RECENTES,
+            countQuery = "SELECT COUNT(p) FROM Pedido p" + DO_FORNECEDOR)
+    Page<PedidoResumoDTO> listarDoFornecedor(@Param("idFornecedor") Integer idFornecedor, Pageable pageable);
 }
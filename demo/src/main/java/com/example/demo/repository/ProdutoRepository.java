@@ -1,25 +1,89 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.dto.ProdutoFacetaDTO;
+import com.example.demo.dto.ProdutoResponseDTO;
 import com.example.demo.model.Produto;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Integer> {
 
-    
-    List<Produto> findByNomeContainingIgnoreCase(String nome);
+    /*
+     * Leituras do catálogo: projeções direto no ProdutoResponseDTO (SELECT new ...).
+     * Não criam entidades gerenciadas, então não passam pelo contexto de persistência
+     * nem pelo dirty checking. Produtos excluídos (soft delete) ficam de fora de todas
+     * elas, inclusive das contagens das páginas.
+     */
 
-   
-    Page<Produto> findByNomeContainingIgnoreCase(String nome, Pageable pageable);
+    String SELECT_RESPONSE_DTO = "SELECT new com.example.demo.dto.ProdutoResponseDTO("
+            + "p.id, p.nome, p.descricao, p.preco, p.estoque, c.nome, f.nome) "
+            + "FROM Produto p JOIN p.categoria c JOIN p.fornecedor f WHERE p.deletedAt IS NULL";
 
-   
-    List<Produto> findByCategoria_Id(Integer idCategoria);
+    @Query(value = SELECT_RESPONSE_DTO, countQuery = "SELECT COUNT(p) FROM Produto p WHERE p.deletedAt IS NULL")
+    Page<ProdutoResponseDTO> listarResponseDTO(Pageable pageable);
 
-    Page<Produto> findByCategoria_Id(Integer idCategoria, Pageable pageable);
+    @Query(SELECT_RESPONSE_DTO + " AND p.id = :idProduto")
+    Optional<ProdutoResponseDTO> buscarResponseDTOPorId(@Param("idProduto") Integer idProduto);
+
+    @Query(SELECT_RESPONSE_DTO + " AND p.id IN :ids")
+    List<ProdutoResponseDTO> buscarResponseDTOPorIds(@Param("ids") Collection<Integer> ids);
+
+    @Query(SELECT_RESPONSE_DTO + " AND LOWER(p.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    List<ProdutoResponseDTO> buscarResponseDTOPorNome(@Param("nome") String nome);
+
+    @Query(value = SELECT_RESPONSE_DTO + " AND LOWER(p.nome) LIKE LOWER(CONCAT('%', :nome, '%'))",
+            countQuery = "SELECT COUNT(p) FROM Produto p WHERE p.deletedAt IS NULL"
+                    + " AND LOWER(p.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    Page<ProdutoResponseDTO> buscarResponseDTOPorNome(@Param("nome") String nome, Pageable pageable);
+
+    @Query(SELECT_RESPONSE_DTO + " AND c.id = :idCategoria")
+    List<ProdutoResponseDTO> buscarResponseDTOPorCategoria(@Param("idCategoria") Integer idCategoria);
+
+    @Query(value = SELECT_RESPONSE_DTO + " AND c.id = :idCategoria",
+            countQuery = "SELECT COUNT(p) FROM Produto p WHERE p.deletedAt IS NULL AND p.categoria.id = :idCategoria")
+    Page<ProdutoResponseDTO> buscarResponseDTOPorCategoria(@Param("idCategoria") Integer idCategoria,
+            Pageable pageable);
+
+    /*
+     * Paginação por keyset em (nome, id): a próxima página começa depois do último
+     * registro entregue, usando o índice idx_produto_nome_id.
+     */
+
+    @Query(SELECT_RESPONSE_DTO + " ORDER BY p.nome, p.id")
+    List<ProdutoResponseDTO> listarResponseDTOPrimeiraPagina(Limit limite);
+
+    @Query(SELECT_RESPONSE_DTO
+            + " AND (p.nome > :nome OR (p.nome = :nome AND p.id > :id)) ORDER BY p.nome, p.id")
+    List<ProdutoResponseDTO> listarResponseDTOApos(@Param("nome") String nome, @Param("id") Integer id,
+            Limit limite);
+
+    // Atributos das facetas do catálogo (sem produtos excluídos), em lotes por keyset em id
+
+    String SELECT_FACETA_DTO = "SELECT new com.example.demo.dto.ProdutoFacetaDTO("
+            + "p.id, c.id, c.nome, f.idFornecedor, f.nome, p.preco) "
+            + "FROM Produto p JOIN p.categoria c JOIN p.fornecedor f WHERE p.deletedAt IS NULL";
+
+    @Query(SELECT_FACETA_DTO + " AND p.id > :id ORDER BY p.id")
+    List<ProdutoFacetaDTO> listarFacetaDTOApos(@Param("id") Integer id, Limit limite);
+
+    @Query(SELECT_FACETA_DTO + " AND p.id = :idProduto")
+    Optional<ProdutoFacetaDTO> buscarFacetaDTOPorId(@Param("idProduto") Integer idProduto);
+
+    /**
+     * Produto gerenciado, para alteração, com categoria e fornecedor já carregados.
+     */
+    @EntityGraph(attributePaths = { "categoria", "fornecedor" })
+    Optional<Produto> findComDetalhesById(Integer idProduto);
 }
@@ -1,5 +1,6 @@
 package com.example.demo.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.QRCodeRastreamento;
+import com.example.demo.model.StatusGeracaoQRCode;
 
 @Repository
 public interface QRCodeRastreamentoRepository extends JpaRepository<QRCodeRastreamento, Integer> {
@@ -22,4 +24,10 @@ public interface QRCodeRastreamentoRepository extends JpaRepository<QRCodeRastre
 
   
     Optional<QRCodeRastreamento> findByItemPedido_Id(Integer idItemPedido);
+
+    /**
+     * Busca QR Codes que ficaram pendentes (fila cheia, falha ou reinício da aplicação)
+     */
+    List<QRCodeRastreamento> findTop100ByStatusGeracaoAndCreatedAtBeforeOrderByIdAsc(
+            StatusGeracaoQRCode statusGeracao, LocalDateTime limite);
 }
@@ -0,0 +1,42 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.model.Token;
+
+@Repository
+public interface TokenRepository extends JpaRepository<Token, Long> {
+
+    Optional<Token> findByJti(String jti);
+
+    /**
+     * Marca o refresh token como utilizado só se ainda estiver disponível.
+     * Retorna 0 quando o token já foi usado ou revogado (inclusive por uma renovação concorrente).
+     */
+    @Modifying
+    @Query("UPDATE Token t SET t.utilizado = true WHERE t.jti = :jti AND t.utilizado = false AND t.revogado = false")
+    int marcarUtilizado(@Param("jti") String jti);
+
+    @Modifying
+    @Query("UPDATE Token t SET t.revogado = true, t.dataRevogacao = :agora WHERE t.familia = :familia AND t.revogado = false")
+    int revogarFamilia(@Param("familia") String familia, @Param("agora") LocalDateTime agora);
+
+    /**
+     * Famílias revogadas que ainda têm tokens dentro da validade, com a maior expiração de cada uma.
+     */
+    @Query("SELECT t.familia, MAX(t.dataExpiracao) FROM Token t "
+            + "WHERE t.revogado = true AND t.dataExpiracao > :agora GROUP BY t.familia")
+    List<Object[]> listarFamiliasRevogadas(@Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("DELETE FROM Token t WHERE t.dataExpiracao < :limite")
+    int removerExpiradosAntes(@Param("limite") LocalDateTime limite);
+}
@@ -1,48 +1,132 @@
 package com.example.demo.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Bloqueio temporário de contas após falhas de login consecutivas.
+ *
+ * As falhas são contadas pelo ContadorCompartilhado em uma janela deslizante, então com
+ * contador.backend=jdbc o limite vale para o conjunto de instâncias, e não por instância.
+ *
+ * Bloqueios e reincidências ficam em caches limitados por memória estimada e com expiração
+ * por entrada: uma rodada de credential stuffing com milhões de e-mails distintos descarta
+ * as entradas mais antigas em vez de crescer o heap. Cada novo bloqueio dentro da janela
+ * de reincidência dobra a duração do anterior, até a duração máxima.
+ *
+ * Um bloqueio vencido continua no cache por duas janelas de tentativas: o primeiro acesso
+ * depois do fim encerra o bloqueio e zera as falhas que o causaram. Sem essa carência a
+ * entrada sumiria exatamente no fim e as falhas antigas continuariam contando, mantendo a
+ * conta bloqueada pelo contador ou bloqueando de novo na próxima falha.
+ */
 @Service
 public class AccountLockoutService {
 
-    private static final int MAX_ATTEMPTS = 5;
-    private static final long LOCKOUT_DURATION_MINUTES = 15;
-
-    private final ConcurrentHashMap<String, Integer> attemptCache = new ConcurrentHashMap<>();
-
-    private final ConcurrentHashMap<String, LocalDateTime> lockoutCache = new ConcurrentHashMap<>();
+    // Estimativa por entrada (String do e-mail + nó do cache), usada no limite de memória
+    private static final int BYTES_POR_ENTRADA = 160;
+
+    private final ContadorCompartilhado contador;
+    private final int maxAttempts;
+    private final Duration lockoutDuration;
+    private final Duration maxLockoutDuration;
+    private final Duration janelaTentativas;
+
+    /** Fim do bloqueio de cada conta bloqueada; a entrada expira após a carência. */
+    private final Cache<String, LocalDateTime> lockoutCache;
+
+    /** Quantidade de bloqueios recentes de cada conta (define a duração do próximo). */
+    private final Cache<String, Integer> reincidencias;
+
+    public AccountLockoutService(
+            ContadorCompartilhado contador,
+            MeterRegistry meterRegistry,
+            @Value("${conta.bloqueio.max-tentativas:5}") int maxAttempts,
+            @Value("${conta.bloqueio.duracao:15m}") Duration lockoutDuration,
+            @Value("${conta.bloqueio.duracao-maxima:24h}") Duration maxLockoutDuration,
+            @Value("${conta.bloqueio.janela-reincidencia:24h}") Duration janelaReincidencia,
+            @Value("${conta.bloqueio.memoria-maxima-bytes:16777216}") long memoriaMaxima) {
+        this.contador = contador;
+        this.maxAttempts = maxAttempts;
+        this.lockoutDuration = lockoutDuration;
+        this.maxLockoutDuration = maxLockoutDuration;
+        this.janelaTentativas = lockoutDuration;
+        long carencia = janelaTentativas.multipliedBy(2).toNanos();
+
+        this.lockoutCache = Caffeine.newBuilder()
+                .maximumWeight(memoriaMaxima / 2)
+                .weigher((String email, LocalDateTime fim) -> BYTES_POR_ENTRADA + email.length() * 2)
+                .expireAfter(new Expiry<String, LocalDateTime>() {
+                    @Override
+                    public long expireAfterCreate(String email, LocalDateTime fim, long agora) {
+                        return ateOFim(fim) + carencia;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String email, LocalDateTime fim, long agora, long restante) {
+                        return ateOFim(fim) + carencia;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String email, LocalDateTime fim, long agora, long restante) {
+                        return restante;
+                    }
+                })
+                .build();
+
+        this.reincidencias = Caffeine.newBuilder()
+                .maximumWeight(memoriaMaxima / 2)
+                .weigher((String email, Integer nivel) -> BYTES_POR_ENTRADA + email.length() * 2)
+                .expireAfterWrite(janelaReincidencia)
+                .build();
+
+        Gauge.builder("conta.bloqueio.entradas", lockoutCache, Cache::estimatedSize)
+                .tag("tipo", "bloqueios")
+                .description("Contas bloqueadas em memória")
+                .register(meterRegistry);
+        Gauge.builder("conta.bloqueio.entradas", reincidencias, Cache::estimatedSize)
+                .tag("tipo", "reincidencias")
+                .description("Contas com bloqueios recentes (backoff)")
+                .register(meterRegistry);
+        Gauge.builder("conta.bloqueio.memoria", this, AccountLockoutService::memoriaEstimada)
+                .baseUnit("bytes")
+                .description("Memória estimada do estado de bloqueio")
+                .register(meterRegistry);
+    }
 
     public void registerFailedAttempt(String email) {
-        int attempts = attemptCache.getOrDefault(email, 0) + 1;
-        attemptCache.put(email, attempts);
+        boolean bloqueada = bloqueioEmVigor(email) != null;
+        long attempts = contador.incrementar(chave(email), janelaTentativas);
 
-        if (attempts >= MAX_ATTEMPTS) {
+        if (attempts >= maxAttempts && !bloqueada) {
             lockAccount(email);
         }
     }
 
     public void resetAttempts(String email) {
-        attemptCache.remove(email);
-        lockoutCache.remove(email);
+        // Evita ida ao banco (backend jdbc) no caso comum de login sem falhas anteriores
+        if (contador.contar(chave(email), janelaTentativas) > 0) {
+            contador.zerar(chave(email), janelaTentativas);
+        }
+        lockoutCache.invalidate(email);
+        reincidencias.invalidate(email);
     }
 
     public boolean isAccountLocked(String email) {
-        LocalDateTime lockoutTime = lockoutCache.get(email);
-
-        if (lockoutTime == null) {
-            return false;
+        if (bloqueioEmVigor(email) != null) {
+            return true;
         }
-
-        if (LocalDateTime.now().isAfter(lockoutTime)) {
-
-            unlockAccount(email);
-            return false;
-        }
-
-        return true;
+        // Bloqueio causado por falhas registradas em outras instâncias
+        return contador.contar(chave(email), janelaTentativas) >= maxAttempts;
     }
 
     /**
@@ -52,37 +136,85 @@ public class AccountLockoutService {
      * @return Número de tentativas restantes
      */
     public int getRemainingAttempts(String email) {
-        int attempts = attemptCache.getOrDefault(email, 0);
-        return Math.max(0, MAX_ATTEMPTS - attempts);
+        long attempts = contador.contar(chave(email), janelaTentativas);
+        return (int) Math.max(0, maxAttempts - attempts);
     }
 
     /**
      * Retorna quando o bloqueio expira.
      * 
      * @param email Email do usuário
-     * @return LocalDateTime quando expira, ou null se não está bloqueado
+     * @return LocalDateTime quando expira, ou null se não está bloqueado nesta instância
      */
     public LocalDateTime getLockoutExpiration(String email) {
-        return lockoutCache.get(email);
+        return bloqueioEmVigor(email);
     }
 
     /**
-     * Bloqueia a conta por LOCKOUT_DURATION_MINUTES minutos.
+     * Minutos até o fim do bloqueio (arredondado para cima), para mensagens ao usuário.
+     * 
+     * @param email Email do usuário
+     * @return Minutos restantes; quando o bloqueio veio de outra instância, o tempo até as
+     *         falhas da janela ficarem abaixo do limite
+     */
+    public long getLockoutMinutesRemaining(String email) {
+        LocalDateTime fim = bloqueioEmVigor(email);
+        Duration restante = fim != null
+                ? Duration.between(LocalDateTime.now(), fim)
+                : contador.tempoAteAbaixoDe(chave(email), janelaTentativas, maxAttempts);
+        return Math.max(1, (restante.getSeconds() + 59) / 60);
+    }
+
+    /**
+     * Bloqueia a conta. A duração dobra a cada bloqueio dentro da janela de reincidência
+     * (15, 30, 60 minutos...), limitada a conta.bloqueio.duracao-maxima.
      * 
      * @param email Email do usuário
      */
     private void lockAccount(String email) {
-        LocalDateTime lockoutExpiration = LocalDateTime.now().plusMinutes(LOCKOUT_DURATION_MINUTES);
-        lockoutCache.put(email, lockoutExpiration);
+        int nivel = reincidencias.asMap().merge(email, 1, Integer::sum);
+
+        Duration duracao = lockoutDuration.multipliedBy(1L << Math.min(nivel - 1, 20));
+        if (duracao.compareTo(maxLockoutDuration) > 0) {
+            duracao = maxLockoutDuration;
+        }
+
+        lockoutCache.put(email, LocalDateTime.now().plus(duracao));
     }
 
     /**
-     * Desbloqueia a conta manualmente.
+     * Desbloqueia a conta ao fim do bloqueio. A reincidência é mantida para o backoff.
      * 
      * @param email Email do usuário
      */
     private void unlockAccount(String email) {
-        attemptCache.remove(email);
-        lockoutCache.remove(email);
+        contador.zerar(chave(email), janelaTentativas);
+        lockoutCache.invalidate(email);
+    }
+
+    /**
+     * Fim do bloqueio local ainda em vigor. Um bloqueio vencido que ainda está na carência
+     * do cache é encerrado aqui.
+     */
+    private LocalDateTime bloqueioEmVigor(String email) {
+        LocalDateTime fim = lockoutCache.getIfPresent(email);
+        if (fim != null && LocalDateTime.now().isAfter(fim)) {
+            unlockAccount(email);
+            return null;
+        }
+        return fim;
+    }
+
+    private long memoriaEstimada() {
+        return lockoutCache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L)
+                + reincidencias.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    private static long ateOFim(LocalDateTime fim) {
+        return Math.max(0, Duration.between(LocalDateTime.now(), fim).toNanos());
+    }
+
+    private static String chave(String email) {
+        return "login:" + email.toLowerCase();
     }
 }
@@ -2,62 +2,296 @@ package com.example.demo.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import com.example.demo.model.TipoAuditoria;
+import com.example.demo.util.BufferCircular;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de eventos de auditoria.
+ *
+ * Quem chama só monta o registro e o coloca em um buffer circular sem locks; uma thread
+ * em segundo plano drena o buffer em lotes, grava em tb_auditoria (INSERT em lote) e, se
+ * auditoria.log.habilitado, escreve cada evento como uma linha JSON no logger "auditoria",
+ * que pode ser direcionado a um arquivo próprio na configuração de log.
+ *
+ * Com o buffer cheio vale auditoria.politica-cheio: DESCARTAR perde o evento na hora e
+ * AGUARDAR espera até auditoria.espera-maxima-ms por espaço antes de descartar. Descartes,
+ * falhas de gravação e o atraso entre o fato e a gravação ficam nas métricas auditoria.*.
+ */
 @Service
 public class AuditLogService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuditLogService.class);
+    private static final Logger loggerAuditoria = LoggerFactory.getLogger("auditoria");
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO tb_auditoria (tipo, ocorrido_em, usuario, id_cliente, entidade, id_entidade, valor,"
+                    + " detalhe, ip, rastro) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public enum PoliticaCheio {
+        DESCARTAR,
+        AGUARDAR
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BufferCircular<Registro> buffer;
+
+    private final Counter gravados;
+    private final Counter descartados;
+    private final Counter falhas;
+    private final Timer atraso;
+    private final Timer tempoLote;
+
+    @Value("${auditoria.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    @Value("${auditoria.intervalo-ms:200}")
+    private long intervaloMs;
+
+    @Value("${auditoria.politica-cheio:DESCARTAR}")
+    private PoliticaCheio politicaCheio;
+
+    @Value("${auditoria.espera-maxima-ms:5}")
+    private long esperaMaximaMs;
+
+    @Value("${auditoria.log.habilitado:true}")
+    private boolean logHabilitado;
+
+    private Thread gravador;
+    private volatile boolean executando = true;
+
+    public AuditLogService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${auditoria.capacidade-buffer:65536}") int capacidadeBuffer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new BufferCircular<>(capacidadeBuffer);
+
+        Gauge.builder("auditoria.buffer.tamanho", buffer, BufferCircular::tamanho).register(meterRegistry);
+        this.gravados = meterRegistry.counter("auditoria.gravados");
+        this.descartados = meterRegistry.counter("auditoria.descartados");
+        this.falhas = meterRegistry.counter("auditoria.falhas");
+        this.atraso = Timer.builder("auditoria.atraso")
+                .description("Tempo entre o evento de auditoria e sua gravação")
+                .register(meterRegistry);
+        this.tempoLote = meterRegistry.timer("auditoria.lote.tempo");
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        gravador = Thread.ofVirtual().name("auditoria-gravador").start(this::executarGravador);
+    }
+
+    /**
+     * Para o gravador depois de gravar o que ainda estiver no buffer.
+     */
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        executando = false;
+        LockSupport.unpark(gravador);
+        gravador.join(Duration.ofSeconds(10));
+    }
 
     public void logSuccessfulLogin(String email, String ipAddress) {
-        logger.info("[AUDIT] LOGIN_SUCCESS | User: {} | IP: {} | Time: {}",
-                email, ipAddress, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.LOGIN_SUCCESS, email, null, null, null, null, null, ipAddress, null));
     }
 
     public void logFailedLogin(String email, String ipAddress, String reason) {
-        logger.warn("[AUDIT] LOGIN_FAILED | User: {} | IP: {} | Reason: {} | Time: {}",
-                email, ipAddress, reason, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.LOGIN_FAILED, email, null, null, null, null, reason, ipAddress, null));
     }
 
     public void logAccountLockout(String email, String ipAddress) {
-        logger.error("[AUDIT] ACCOUNT_LOCKED | User: {} | IP: {} | Time: {}",
-                email, ipAddress, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.ACCOUNT_LOCKED, email, null, null, null, null, null, ipAddress, null));
     }
 
     public void logCardCreated(Long clienteId, String cardLastDigits, String ipAddress) {
-        logger.info("[AUDIT] CARD_CREATED | ClienteId: {} | LastDigits: {} | IP: {} | Time: {}",
-                clienteId, cardLastDigits, ipAddress, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.CARD_CREATED, null, clienteId, "Cartao", null, null, cardLastDigits,
+                ipAddress, null));
     }
 
     public void logCardDeleted(Long clienteId, Integer cardId, String ipAddress) {
-        logger.warn("[AUDIT] CARD_DELETED | ClienteId: {} | CardId: {} | IP: {} | Time: {}",
-                clienteId, cardId, ipAddress, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.CARD_DELETED, null, clienteId, "Cartao",
+                cardId == null ? null : cardId.longValue(), null, null, ipAddress, null));
     }
 
     public void logOrderCreated(Long clienteId, Long pedidoId, Double valor, String ipAddress) {
-        logger.info("[AUDIT] ORDER_CREATED | ClienteId: {} | PedidoId: {} | Value: {} | IP: {} | Time: {}",
-                clienteId, pedidoId, valor, ipAddress, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.ORDER_CREATED, null, clienteId, "Pedido", pedidoId, valor, null,
+                ipAddress, null));
     }
 
     public void logPixPaymentConfirmed(Long pedidoId, String txid, String ipAddress) {
-        logger.info("[AUDIT] PIX_CONFIRMED | PedidoId: {} | TxId: {} | IP: {} | Time: {}",
-                pedidoId, txid, ipAddress, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.PIX_CONFIRMED, null, null, "Pedido", pedidoId, null, txid, ipAddress,
+                null));
     }
 
     public void logAccessDenied(String email, String resource, String ipAddress) {
-        logger.error("[AUDIT] ACCESS_DENIED | User: {} | Resource: {} | IP: {} | Time: {}",
-                email, resource, ipAddress, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.ACCESS_DENIED, email, null, null, null, null, resource, ipAddress, null));
     }
 
     public void logSensitiveDataModified(String entity, Long entityId, String field, String ipAddress) {
-        logger.warn("[AUDIT] DATA_MODIFIED | Entity: {} | EntityId: {} | Field: {} | IP: {} | Time: {}",
-                entity, entityId, field, ipAddress, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.DATA_MODIFIED, null, null, entity, entityId, null, field, ipAddress,
+                null));
     }
 
     public void logSystemError(String errorType, String message, String stackTrace) {
-        logger.error("[AUDIT] SYSTEM_ERROR | Type: {} | Message: {} | StackTrace: {} | Time: {}",
-                errorType, message, stackTrace, LocalDateTime.now());
+        registrar(new Registro(TipoAuditoria.SYSTEM_ERROR, null, null, errorType, null, null, message, null,
+                stackTrace));
+    }
+
+    private void registrar(Registro registro) {
+        if (buffer.oferecer(registro)) {
+            return;
+        }
+
+        if (politicaCheio == PoliticaCheio.AGUARDAR) {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+            LockSupport.unpark(gravador);
+            while (System.nanoTime() < limite) {
+                LockSupport.parkNanos(50_000);
+                if (buffer.oferecer(registro)) {
+                    return;
+                }
+            }
+        }
+
+        descartados.increment();
+    }
+
+    private void executarGravador() {
+        List<Registro> lote = new ArrayList<>(tamanhoLote);
+        while (true) {
+            lote.clear();
+            buffer.drenar(lote::add, tamanhoLote);
+
+            if (lote.isEmpty()) {
+                if (!executando) {
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(intervaloMs));
+                continue;
+            }
+
+            try {
+                tempoLote.record(() -> gravar(lote));
+            } catch (RuntimeException e) {
+                falhas.increment(lote.size());
+                logger.error("Falha no gravador de auditoria: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void gravar(List<Registro> lote) {
+
+        List<Object[]> linhas = new ArrayList<>(lote.size());
+        for (Registro registro : lote) {
+            linhas.add(new Object[] { registro.tipo().name(), new Timestamp(registro.instante()),
+                    limitar(registro.usuario(), 150), registro.idCliente(), limitar(registro.entidade(), 50),
+                    registro.idEntidade(), registro.valor() == null ? null : BigDecimal.valueOf(registro.valor()),
+                    limitar(registro.detalhe(), 500), limitar(registro.ip(), 45), registro.rastro() });
+
+            if (logHabilitado) {
+                loggerAuditoria.atLevel(nivel(registro.tipo())).log(json(registro));
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(SQL_INSERIR, linhas);
+            gravados.increment(lote.size());
+        } catch (Exception e) {
+            // Sem nova tentativa: o gravador não pode travar o buffer; as linhas JSON continuam no log
+            falhas.increment(lote.size());
+            logger.error("Falha ao gravar {} eventos de auditoria: {}", lote.size(), e.getMessage());
+        }
+
+        atraso.record(System.currentTimeMillis() - lote.get(0).instante(), TimeUnit.MILLISECONDS);
+    }
+
+    private static Level nivel(TipoAuditoria tipo) {
+        return switch (tipo) {
+            case ACCOUNT_LOCKED, ACCESS_DENIED, SYSTEM_ERROR -> Level.ERROR;
+            case LOGIN_FAILED, CARD_DELETED, DATA_MODIFIED -> Level.WARN;
+            default -> Level.INFO;
+        };
+    }
+
+    private static String json(Registro registro) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append("{\"tipo\":\"").append(registro.tipo().name()).append('"');
+        sb.append(",\"ocorridoEm\":\"").append(Instant.ofEpochMilli(registro.instante())).append('"');
+        campo(sb, "usuario", registro.usuario());
+        if (registro.idCliente() != null) {
+            sb.append(",\"idCliente\":").append(registro.idCliente());
+        }
+        campo(sb, "entidade", registro.entidade());
+        if (registro.idEntidade() != null) {
+            sb.append(",\"idEntidade\":").append(registro.idEntidade());
+        }
+        if (registro.valor() != null) {
+            sb.append(",\"valor\":").append(registro.valor());
+        }
+        campo(sb, "detalhe", registro.detalhe());
+        campo(sb, "ip", registro.ip());
+        campo(sb, "rastro", registro.rastro());
+        return sb.append('}').toString();
+    }
+
+    private static void campo(StringBuilder sb, String nome, String valor) {
+        if (valor == null) {
+            return;
+        }
+        sb.append(",\"").append(nome).append("\":\"");
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static String limitar(String valor, int tamanho) {
+        return valor == null || valor.length() <= tamanho ? valor : valor.substring(0, tamanho);
+    }
+
+    /**
+     * Evento como recebido por quem chama; a formatação fica toda no gravador.
+     */
+    private record Registro(TipoAuditoria tipo, long instante, String usuario, Long idCliente, String entidade,
+            Long idEntidade, Double valor, String detalhe, String ip, String rastro) {
+
+        Registro(TipoAuditoria tipo, String usuario, Long idCliente, String entidade, Long idEntidade,
+                Double valor, String detalhe, String ip, String rastro) {
+            this(tipo, System.currentTimeMillis(), usuario, idCliente, entidade, idEntidade, valor, detalhe, ip,
+                    rastro);
+        }
     }
 }
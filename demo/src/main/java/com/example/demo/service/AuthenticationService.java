@@ -1,31 +1,46 @@
 package com.example.demo.service;
 
 import com.example.demo.config.JwtService;
+import com.example.demo.config.TokenValidado;
+import com.example.demo.config.UsuarioAutenticado;
 import com.example.demo.dto.AuthenticationRequestDTO;
 import com.example.demo.dto.AuthenticationResponseDTO;
 import com.example.demo.dto.RefreshTokenRequestDTO;
 import com.example.demo.exception.CredenciaisInvalidasException;
 import com.example.demo.exception.TokenInvalidoException;
+import com.example.demo.model.Cliente;
+import com.example.demo.model.Fornecedor;
+import com.example.demo.model.Role;
+import com.example.demo.model.Token;
 import com.example.demo.model.User;
+import com.example.demo.repository.ClienteRepository;
+import com.example.demo.repository.FornecedorRepository;
+import com.example.demo.repository.TokenRepository;
 import com.example.demo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
 
     private final UserRepository userRepository;
+    private final ClienteRepository clienteRepository;
+    private final FornecedorRepository fornecedorRepository;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
     private final AccountLockoutService accountLockoutService;
+    private final TokenRepository tokenRepository;
+    private final RevogacaoTokenService revogacaoTokenService;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
@@ -36,7 +51,7 @@ public class AuthenticationService {
         if (accountLockoutService.isAccountLocked(email)) {
             throw new CredenciaisInvalidasException(
                     "Conta temporariamente bloqueada devido a múltiplas tentativas de login falhadas. " +
-                            "Tente novamente em 15 minutos.");
+                            "Tente novamente em " + accountLockoutService.getLockoutMinutesRemaining(email) + " minutos.");
         }
 
         try {
@@ -58,15 +73,17 @@ public class AuthenticationService {
                         "Email ou senha incorretos. Tentativas restantes: " + remainingAttempts);
             } else {
                 throw new CredenciaisInvalidasException(
-                        "Conta bloqueada devido a múltiplas tentativas falhadas. Tente novamente em 15 minutos.");
+                        "Conta bloqueada devido a múltiplas tentativas falhadas. Tente novamente em "
+                                + accountLockoutService.getLockoutMinutesRemaining(email) + " minutos.");
             }
         }
 
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new CredenciaisInvalidasException("Usuário não encontrado"));
 
-        String accessToken = jwtService.generateToken(user);
-        String refreshToken = jwtService.generateRefreshToken(user);
+        String familia = UUID.randomUUID().toString();
+        String accessToken = jwtService.generateToken(montarPrincipal(user), user, familia);
+        String refreshToken = emitirRefreshToken(user, familia);
 
         String roleName = user.getRoles().isEmpty() ? "USER" : user.getRoles().iterator().next().getNomePapel();
 
@@ -80,41 +97,108 @@ public class AuthenticationService {
                 .build();
     }
 
+    /**
+     * Troca um refresh token por um novo par de tokens (rotação).
+     *
+     * Cada refresh token só pode ser usado uma vez. Reapresentar um token já usado indica
+     * que ele vazou: a família inteira é revogada e o usuário precisa fazer login de novo.
+     */
+    @Transactional(noRollbackFor = TokenInvalidoException.class)
     public AuthenticationResponseDTO refreshToken(RefreshTokenRequestDTO request) {
-        String refreshToken = request.getRefreshToken();
 
+        TokenValidado validado;
         try {
+            validado = jwtService.validar(request.getRefreshToken());
+        } catch (Exception e) {
+            throw new TokenInvalidoException("Refresh token inválido ou expirado");
+        }
+        if (!validado.isRefresh()) {
+            throw new TokenInvalidoException("Refresh token inválido");
+        }
+
+        Token armazenado = tokenRepository.findByJti(validado.idToken())
+                .orElseThrow(() -> new TokenInvalidoException("Refresh token inválido"));
 
-            String userEmail = jwtService.extractUsername(refreshToken);
+        if (armazenado.isRevogado()) {
+            throw new TokenInvalidoException("Refresh token revogado");
+        }
 
-            if (userEmail != null) {
+        if (tokenRepository.marcarUtilizado(armazenado.getJti()) == 0) {
+            revogacaoTokenService.revogarFamilia(armazenado.getFamilia());
+            throw new TokenInvalidoException("Refresh token já utilizado. Sessão encerrada por segurança.");
+        }
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+        User user = armazenado.getUser();
 
-                if (jwtService.isTokenValid(refreshToken, userDetails)) {
+        String accessToken = jwtService.generateToken(montarPrincipal(user), user, armazenado.getFamilia());
+        String refreshToken = emitirRefreshToken(user, armazenado.getFamilia());
 
-                    String accessToken = jwtService.generateToken(userDetails);
+        String roleName = user.getRoles().isEmpty() ? "USER"
+                : user.getRoles().iterator().next().getNomePapel();
 
-                    User user = userRepository.findByEmail(userEmail)
-                            .orElseThrow(() -> new TokenInvalidoException("Usuário não encontrado"));
+        return AuthenticationResponseDTO.builder()
+                .accessToken(accessToken)
+                .refreshToken(refreshToken)
+                .tokenType("Bearer")
+                .expiresIn(jwtExpiration)
+                .username(user.getEmail())
+                .role(roleName)
+                .build();
+    }
 
-                    String roleName = user.getRoles().isEmpty() ? "USER"
-                            : user.getRoles().iterator().next().getNomePapel();
+    /**
+     * Encerra a sessão do refresh token informado, revogando todos os tokens da família.
+     */
+    @Transactional
+    public void logout(RefreshTokenRequestDTO request) {
 
-                    return AuthenticationResponseDTO.builder()
-                            .accessToken(accessToken)
-                            .refreshToken(refreshToken) // Mantém o mesmo refresh token
-                            .tokenType("Bearer")
-                            .expiresIn(jwtExpiration)
-                            .username(user.getEmail())
-                            .role(roleName)
-                            .build();
-                }
-            }
+        TokenValidado validado;
+        try {
+            validado = jwtService.validar(request.getRefreshToken());
         } catch (Exception e) {
-            throw new TokenInvalidoException("Refresh token inválido ou expirado");
+            // Token expirado ou inválido: não há sessão a encerrar
+            return;
+        }
+        if (!validado.isRefresh()) {
+            throw new TokenInvalidoException("Refresh token inválido");
         }
 
-        throw new TokenInvalidoException("Refresh token inválido");
+        if (validado.familia() != null) {
+            revogacaoTokenService.revogarFamilia(validado.familia());
+        }
+    }
+
+    private String emitirRefreshToken(User user, String familia) {
+        String refreshToken = jwtService.generateRefreshToken(user, familia);
+        TokenValidado emitido = jwtService.validar(refreshToken);
+
+        Token token = new Token();
+        token.setJti(emitido.idToken());
+        token.setFamilia(familia);
+        token.setUser(user);
+        token.setDataExpiracao(LocalDateTime.ofInstant(emitido.expiracao(), ZoneId.systemDefault()));
+        tokenRepository.save(token);
+
+        return refreshToken;
+    }
+
+    /**
+     * Resolve, uma vez por emissão de token, os dados que o filtro de autenticação
+     * e os controllers precisam do usuário logado.
+     */
+    private UsuarioAutenticado montarPrincipal(User user) {
+        Integer idCliente = clienteRepository.findByUser_Email(user.getEmail())
+                .map(Cliente::getIdCliente)
+                .orElse(null);
+        Integer idFornecedor = fornecedorRepository.findByUser_Email(user.getEmail())
+                .map(Fornecedor::getIdFornecedor)
+                .orElse(null);
+
+        return new UsuarioAutenticado(
+                user.getId(),
+                user.getEmail(),
+                idCliente,
+                idFornecedor,
+                user.getRoles().stream().map(Role::getNomePapel).sorted().toList());
     }
 }
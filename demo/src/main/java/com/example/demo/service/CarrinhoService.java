@@ -22,13 +22,16 @@ public class CarrinhoService {
     private final CarrinhoRepository carrinhoRepository;
     private final ClienteRepository clienteRepository;
     private final ProdutoRepository produtoRepository;
+    private final EstoqueService estoqueService;
 
     public CarrinhoService(CarrinhoRepository carrinhoRepository,
             ClienteRepository clienteRepository,
-            ProdutoRepository produtoRepository) {
+            ProdutoRepository produtoRepository,
+            EstoqueService estoqueService) {
         this.carrinhoRepository = carrinhoRepository;
         this.clienteRepository = clienteRepository;
         this.produtoRepository = produtoRepository;
+        this.estoqueService = estoqueService;
     }
 
     @Transactional
@@ -64,9 +67,11 @@ public class CarrinhoService {
         Produto produto = produtoRepository.findById(dto.idProduto())
                 .orElseThrow(() -> new RegraNegocioException("Produto não encontrado com ID: " + dto.idProduto()));
 
+        int estoqueDisponivel = estoqueService.disponivel(produto);
+
         // Verifica se há estoque suficiente
-        if (produto.getEstoque() < dto.quantidade()) {
-            throw new RegraNegocioException("Estoque insuficiente. Disponível: " + produto.getEstoque());
+        if (estoqueDisponivel < dto.quantidade()) {
+            throw new RegraNegocioException("Estoque insuficiente. Disponível: " + estoqueDisponivel);
         }
 
         // Verifica se o produto já está no carrinho
@@ -79,8 +84,8 @@ public class CarrinhoService {
             ItemCarrinho item = itemExistente.get();
             int novaQuantidade = item.getQuantidade() + dto.quantidade();
 
-            if (produto.getEstoque() < novaQuantidade) {
-                throw new RegraNegocioException("Estoque insuficiente. Disponível: " + produto.getEstoque());
+            if (estoqueDisponivel < novaQuantidade) {
+                throw new RegraNegocioException("Estoque insuficiente. Disponível: " + estoqueDisponivel);
             }
 
             item.setQuantidade(novaQuantidade);
@@ -115,9 +120,10 @@ public class CarrinhoService {
                 .findFirst()
                 .orElseThrow(() -> new RegraNegocioException("Item não encontrado no carrinho."));
 
-       
-        if (item.getProduto().getEstoque() < novaQuantidade) {
-            throw new RegraNegocioException("Estoque insuficiente. Disponível: " + item.getProduto().getEstoque());
+        int estoqueDisponivel = estoqueService.disponivel(item.getProduto());
+
+        if (estoqueDisponivel < novaQuantidade) {
+            throw new RegraNegocioException("Estoque insuficiente. Disponível: " + estoqueDisponivel);
         }
 
         item.setQuantidade(novaQuantidade);
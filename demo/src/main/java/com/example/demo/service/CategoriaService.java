@@ -4,13 +4,19 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.dto.CategoriaRequestDTO;
 import com.example.demo.dto.CategoriaResponseDTO;
+import com.example.demo.event.CategoriaAlteradaEvent;
 import com.example.demo.exception.RegraNegocioException;
 import com.example.demo.model.Categoria;
 import com.example.demo.repository.CategoriaRepository;
@@ -19,9 +25,11 @@ import com.example.demo.repository.CategoriaRepository;
 public class CategoriaService {
 
     private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoriaService(CategoriaRepository categoriaRepository) {
+    public CategoriaService(CategoriaRepository categoriaRepository, ApplicationEventPublisher eventPublisher) {
         this.categoriaRepository = categoriaRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     
@@ -32,6 +40,11 @@ public class CategoriaService {
                         "Categoria " + idCategoria + " não encontrada! Tipo: " + Categoria.class.getName()));
     }
 
+    @Cacheable(cacheNames = CacheConfig.CATEGORIAS, key = "#idCategoria")
+    public CategoriaResponseDTO buscarPorId(Integer idCategoria) {
+        return new CategoriaResponseDTO(findById(idCategoria));
+    }
+
    
     public List<CategoriaResponseDTO> listarTodasCategorias() {
         List<Categoria> categorias = categoriaRepository.findAll();
@@ -65,7 +78,11 @@ public class CategoriaService {
         }
     }
 
-    
+    // O nome da categoria também aparece nos produtos em cache
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, key = "#idCategoria"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+    })
     public Categoria alterarCategoria(CategoriaRequestDTO dto, Integer idCategoria) {
         
         Categoria categoriaExistente = this.findById(idCategoria);
@@ -84,10 +101,14 @@ public class CategoriaService {
             categoriaExistente.setDescricao(dto.descricao());
         }
 
-        return categoriaRepository.save(categoriaExistente);
+        Categoria categoriaAlterada = categoriaRepository.save(categoriaExistente);
+
+        eventPublisher.publishEvent(new CategoriaAlteradaEvent(idCategoria, categoriaAlterada.getNome()));
+
+        return categoriaAlterada;
     }
 
-   
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, key = "#idCategoria")
     public void deletarCategoria(Integer idCategoria) {
         
         Categoria categoriaParaDeletar = this.findById(idCategoria);
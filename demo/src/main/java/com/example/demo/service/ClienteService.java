@@ -8,12 +8,15 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import com.example.demo.config.UsuarioAutenticado;
 import com.example.demo.dto.ClienteRequestDTO;
 import com.example.demo.dto.ClienteResponseDTO;
+import com.example.demo.dto.PaginaCursorDTO;
 import com.example.demo.exception.CpfException;
 import com.example.demo.exception.EmailException;
 import com.example.demo.exception.RegraNegocioException;
@@ -25,6 +28,7 @@ import com.example.demo.repository.ClienteRepository;
 import com.example.demo.repository.RoleRepository;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.util.CpfValidator;
+import com.example.demo.util.CursorPaginacao;
 
 @Service
 public class ClienteService {
@@ -51,13 +55,22 @@ public class ClienteService {
         return clientes;
     }
 
-    public List<ClienteResponseDTO> listarTodosClientes() {
+    public PaginaCursorDTO<ClienteResponseDTO> listarClientes(String cursor, Integer tamanho) {
 
-        List<Cliente> clientes = cRepository.findAll();
+        int tamanhoPagina = CursorPaginacao.tamanhoValido(tamanho);
+        CursorPaginacao.Cursor posicao = CursorPaginacao.decodificar(cursor);
+        Limit limite = Limit.of(tamanhoPagina + 1);
 
-        return clientes.stream()
+        List<Cliente> clientes = posicao == null
+                ? cRepository.listarPrimeiraPagina(limite)
+                : cRepository.listarApos(posicao.chave(), posicao.id(), limite);
+
+        List<ClienteResponseDTO> dtos = clientes.stream()
                 .map(cliente -> new ClienteResponseDTO(cliente))
                 .collect(Collectors.toList());
+
+        return PaginaCursorDTO.de(dtos, tamanhoPagina,
+                dto -> CursorPaginacao.codificar(dto.nomeCliente(), dto.idCliente()));
     }
 
     public Page<ClienteResponseDTO> listarTodosClientesPaginado(Pageable pageable) {
@@ -179,6 +192,13 @@ public class ClienteService {
             return false;
         }
 
+        Integer idDoToken = UsuarioAutenticado.de(authentication)
+                .map(UsuarioAutenticado::idCliente)
+                .orElse(null);
+        if (idDoToken != null) {
+            return idDoToken.equals(idCliente);
+        }
+
         String emailAutenticado = authentication.getName();
         Cliente cliente = findById(idCliente);
 
@@ -0,0 +1,67 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+
+/**
+ * Contadores por janela deslizante usados pelo limite de requisições e pelo bloqueio de
+ * contas.
+ *
+ * A janela deslizante é aproximada por dois baldes fixos consecutivos: a contagem do balde
+ * atual somada à do anterior, ponderada pela fração dele que ainda cai dentro da janela.
+ * A implementação ativa é escolhida por contador.backend (memoria ou jdbc); com jdbc os
+ * limites valem para todas as instâncias da aplicação.
+ */
+public interface ContadorCompartilhado {
+
+    /**
+     * Registra um evento e retorna a contagem estimada na janela, já incluindo este evento.
+     */
+    long incrementar(String chave, Duration janela);
+
+    /**
+     * Contagem estimada na janela, sem registrar evento.
+     */
+    long contar(String chave, Duration janela);
+
+    /**
+     * Descarta a contagem da chave (ex.: login bem-sucedido).
+     */
+    void zerar(String chave, Duration janela);
+
+    /**
+     * Tempo até a contagem estimada ficar abaixo do limite se não houver novos eventos
+     * (zero se já está abaixo).
+     */
+    Duration tempoAteAbaixoDe(String chave, Duration janela, long limite);
+
+    /**
+     * Estimativa da janela deslizante a partir dos dois baldes fixos.
+     */
+    static long estimar(long atual, long anterior, long agoraMillis, long janelaMillis) {
+        double decorrido = (double) (agoraMillis % janelaMillis) / janelaMillis;
+        return atual + (long) Math.floor(anterior * (1 - decorrido));
+    }
+
+    /**
+     * Milissegundos até estimar() ficar abaixo do limite, sem novos eventos. Enquanto o
+     * balde atual sozinho atinge o limite, ele precisa virar o anterior e perder peso.
+     */
+    static long millisAteAbaixoDe(long atual, long anterior, long agoraMillis, long janelaMillis, long limite) {
+        if (estimar(atual, anterior, agoraMillis, janelaMillis) < limite) {
+            return 0;
+        }
+        long decorrido = agoraMillis % janelaMillis;
+        if (atual >= limite) {
+            return janelaMillis - decorrido + decaimento(atual, limite, janelaMillis);
+        }
+        return Math.max(0, decaimento(anterior, limite - atual, janelaMillis) - decorrido);
+    }
+
+    /**
+     * Instante, a partir do início do balde, em que o anterior com esta contagem passa a
+     * pesar menos que o limite.
+     */
+    private static long decaimento(long contagem, long limite, long janelaMillis) {
+        return Math.min(janelaMillis, janelaMillis * (contagem - limite) / contagem + 1);
+    }
+}
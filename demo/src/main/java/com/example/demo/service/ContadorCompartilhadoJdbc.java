@@ -0,0 +1,382 @@
+package com.example.demo.service;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Contadores compartilhados entre instâncias em tb_contador.
+ *
+ * Os incrementos são acumulados localmente e enviados em lote (upsert atômico
+ * quantidade = quantidade + ?) a cada contador.jdbc.intervalo-ms. Na mesma ida ao banco,
+ * a instância lê as contagens globais das chaves que incrementou na última janela.
+ * Consultas e incrementos respondem com a última contagem global lida somada ao que ainda
+ * não foi enviado, sem acessar o banco por requisição; o atraso entre instâncias é de no
+ * máximo um intervalo.
+ *
+ * Só incrementos passam a acompanhar uma chave: consultar não gera leitura no banco, e uma
+ * chave que esta instância nunca incrementou conta zero aqui. As chaves acompanhadas são
+ * limitadas por contador.jdbc.max-chaves (expiram duas janelas depois do último incremento)
+ * e cada sincronização lê no máximo contador.jdbc.max-leituras delas, as incrementadas mais
+ * recentemente primeiro. Assim muitos IPs ou e-mails distintos não crescem a memória nem o
+ * volume de consultas sem limite.
+ */
+@Service
+@ConditionalOnProperty(name = "contador.backend", havingValue = "jdbc")
+public class ContadorCompartilhadoJdbc implements ContadorCompartilhado {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadorCompartilhadoJdbc.class);
+
+    private static final String SQL_UPSERT_MARIADB =
+            "INSERT INTO tb_contador (chave, inicio_janela, quantidade, expira_em) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE quantidade = quantidade + VALUES(quantidade)";
+
+    private static final String SQL_UPSERT_POSTGRES =
+            "INSERT INTO tb_contador (chave, inicio_janela, quantidade, expira_em) VALUES (?, ?, ?, ?) "
+                    + "ON CONFLICT (chave, inicio_janela) DO UPDATE SET quantidade = tb_contador.quantidade + EXCLUDED.quantidade";
+
+    private static final String SQL_ZERAR = "DELETE FROM tb_contador WHERE chave = ?";
+
+    private static final String SQL_REMOVER_EXPIRADOS = "DELETE FROM tb_contador WHERE expira_em < ?";
+
+    /** Chaves por SELECT (dois baldes cada). */
+    private static final int TAMANHO_LOTE_LEITURA = 250;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final int maxLeituras;
+
+    /** Chaves incrementadas por esta instância nas duas últimas janelas. */
+    private final Cache<String, Acompanhada> acompanhadas;
+
+    /** Chaves com incrementos ainda não enviados ao banco. */
+    private final Set<Acompanhada> comPendentes = ConcurrentHashMap.newKeySet();
+
+    /** Incrementos de chaves removidas por falta de espaço, enviados na próxima sincronização. */
+    private final Queue<Envio> orfaos = new ConcurrentLinkedQueue<>();
+
+    private String sqlUpsert;
+
+    public ContadorCompartilhadoJdbc(JdbcTemplate jdbcTemplate, DataSource dataSource,
+            @Value("${contador.jdbc.max-chaves:100000}") long maxChaves,
+            @Value("${contador.jdbc.max-leituras:5000}") int maxLeituras) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.maxLeituras = maxLeituras;
+        this.acompanhadas = Caffeine.newBuilder()
+                .maximumSize(maxChaves)
+                .expireAfter(new Expiry<String, Acompanhada>() {
+                    @Override
+                    public long expireAfterCreate(String chave, Acompanhada acompanhada, long agora) {
+                        return acompanhada.janelaMillis * 2_000_000L;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String chave, Acompanhada acompanhada, long agora, long restante) {
+                        return acompanhada.janelaMillis * 2_000_000L;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String chave, Acompanhada acompanhada, long agora, long restante) {
+                        // Consultar não prolonga o acompanhamento
+                        return restante;
+                    }
+                })
+                .evictionListener((String chave, Acompanhada acompanhada, RemovalCause causa) -> {
+                    if (acompanhada != null && causa == RemovalCause.SIZE) {
+                        orfaos.addAll(acompanhada.retirarPendentes());
+                    }
+                })
+                .build();
+    }
+
+    @PostConstruct
+    void detectarBanco() {
+        try (Connection conexao = dataSource.getConnection()) {
+            String produto = conexao.getMetaData().getDatabaseProductName().toLowerCase();
+            sqlUpsert = produto.contains("postgres") ? SQL_UPSERT_POSTGRES : SQL_UPSERT_MARIADB;
+        } catch (Exception e) {
+            throw new IllegalStateException("Não foi possível identificar o banco dos contadores", e);
+        }
+    }
+
+    @Override
+    public long incrementar(String chave, Duration janela) {
+        long janelaMillis = janela.toMillis();
+        long agora = System.currentTimeMillis();
+        long[] estimativa = new long[1];
+
+        // compute conta como escrita para a expiração e serializa com a remoção da chave
+        acompanhadas.asMap().compute(chaveCompleta(chave, janelaMillis), (k, atual) -> {
+            Acompanhada acompanhada = atual != null ? atual : new Acompanhada(k, janelaMillis);
+            estimativa[0] = acompanhada.incrementar(agora);
+            comPendentes.add(acompanhada);
+            return acompanhada;
+        });
+        return estimativa[0];
+    }
+
+    @Override
+    public long contar(String chave, Duration janela) {
+        Acompanhada acompanhada = acompanhadas.getIfPresent(chaveCompleta(chave, janela.toMillis()));
+        return acompanhada == null ? 0 : acompanhada.contar(System.currentTimeMillis());
+    }
+
+    @Override
+    public void zerar(String chave, Duration janela) {
+        String chaveCompleta = chaveCompleta(chave, janela.toMillis());
+        Acompanhada removida = acompanhadas.asMap().remove(chaveCompleta);
+        if (removida != null) {
+            removida.retirarPendentes();
+            comPendentes.remove(removida);
+        }
+        jdbcTemplate.update(SQL_ZERAR, chaveCompleta);
+    }
+
+    @Override
+    public Duration tempoAteAbaixoDe(String chave, Duration janela, long limite) {
+        Acompanhada acompanhada = acompanhadas.getIfPresent(chaveCompleta(chave, janela.toMillis()));
+        return acompanhada == null ? Duration.ZERO
+                : Duration.ofMillis(acompanhada.millisAteAbaixoDe(System.currentTimeMillis(), limite));
+    }
+
+    /**
+     * Envia os incrementos pendentes e atualiza as contagens globais das chaves em uso.
+     */
+    @Scheduled(fixedDelayString = "${contador.jdbc.intervalo-ms:500}")
+    public void sincronizar() {
+        long agora = System.currentTimeMillis();
+
+        Map<Acompanhada, List<Envio>> enviados = new HashMap<>();
+        for (Iterator<Acompanhada> it = comPendentes.iterator(); it.hasNext();) {
+            Acompanhada acompanhada = it.next();
+            it.remove();
+            // Os pendentes passam a contar como globais até a leitura abaixo confirmar
+            List<Envio> envios = acompanhada.retirarPendentes();
+            if (!envios.isEmpty()) {
+                enviados.put(acompanhada, envios);
+            }
+        }
+        List<Envio> semChave = new ArrayList<>();
+        for (Envio envio; (envio = orfaos.poll()) != null;) {
+            semChave.add(envio);
+        }
+
+        try {
+            List<Object[]> lote = new ArrayList<>();
+            enviados.values().forEach(envios -> envios.forEach(envio -> lote.add(envio.parametros())));
+            semChave.forEach(envio -> lote.add(envio.parametros()));
+            if (!lote.isEmpty()) {
+                jdbcTemplate.batchUpdate(sqlUpsert, lote);
+            }
+            lerGlobais(agora);
+        } catch (Exception e) {
+            // Devolve os incrementos para a próxima tentativa; a estimativa local não muda.
+            // Os de chaves já removidas são descartados para não acumular com o banco fora.
+            logger.warn("Falha ao sincronizar contadores com o banco: {}", e.getMessage());
+            enviados.forEach((acompanhada, envios) -> {
+                acompanhada.devolver(envios);
+                comPendentes.add(acompanhada);
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${contador.jdbc.limpeza-ms:60000}")
+    public void removerExpirados() {
+        jdbcTemplate.update(SQL_REMOVER_EXPIRADOS, Timestamp.from(Instant.now()));
+    }
+
+    @PreDestroy
+    public void enviarPendentes() {
+        sincronizar();
+    }
+
+    private void lerGlobais(long agora) {
+        // As incrementadas mais recentemente expiram por último
+        List<Acompanhada> emUso = acompanhadas.policy().expireVariably().orElseThrow()
+                .youngest(maxLeituras).values().stream()
+                .filter(acompanhada -> acompanhada.incrementadaDesde(agora - acompanhada.janelaMillis))
+                .toList();
+
+        for (int inicio = 0; inicio < emUso.size(); inicio += TAMANHO_LOTE_LEITURA) {
+            List<Acompanhada> parte = emUso.subList(inicio, Math.min(emUso.size(), inicio + TAMANHO_LOTE_LEITURA));
+
+            StringBuilder sql = new StringBuilder(
+                    "SELECT chave, inicio_janela, quantidade FROM tb_contador WHERE (chave, inicio_janela) IN (");
+            List<Object> parametros = new ArrayList<>();
+            Map<String, Acompanhada> porChave = new HashMap<>();
+            for (Acompanhada acompanhada : parte) {
+                long indice = agora / acompanhada.janelaMillis;
+                porChave.put(acompanhada.chave, acompanhada);
+                for (long i = indice - 1; i <= indice; i++) {
+                    sql.append(parametros.isEmpty() ? "(?, ?)" : ", (?, ?)");
+                    parametros.add(acompanhada.chave);
+                    parametros.add(i * acompanhada.janelaMillis);
+                }
+            }
+            sql.append(")");
+
+            // Sem linha no banco: outra instância zerou a chave (ou ninguém contou ainda)
+            Map<Acompanhada, long[]> lidas = new HashMap<>();
+            parte.forEach(acompanhada -> lidas.put(acompanhada, new long[2]));
+            jdbcTemplate.query(sql.toString(), rs -> {
+                Acompanhada acompanhada = porChave.get(rs.getString("chave"));
+                if (acompanhada != null) {
+                    boolean atual = rs.getLong("inicio_janela") / acompanhada.janelaMillis
+                            == agora / acompanhada.janelaMillis;
+                    lidas.get(acompanhada)[atual ? 0 : 1] = rs.getLong("quantidade");
+                }
+            }, parametros.toArray());
+
+            lidas.forEach((acompanhada, quantidades) -> acompanhada.atualizar(agora, quantidades[0], quantidades[1]));
+        }
+    }
+
+    private static String chaveCompleta(String chave, long janelaMillis) {
+        return chave + "|" + janelaMillis;
+    }
+
+    /**
+     * Incremento de um balde a enviar: chave completa, início do balde e quantidade.
+     */
+    private record Envio(String chave, long inicio, long janelaMillis, long quantidade) {
+
+        Object[] parametros() {
+            return new Object[] { chave, inicio, quantidade,
+                    Timestamp.from(Instant.ofEpochMilli(inicio + 2 * janelaMillis)) };
+        }
+    }
+
+    /**
+     * Balde atual e anterior de uma chave: a última contagem global lida (já com o que
+     * esta instância enviou) e o que ainda não foi enviado. Todas as operações usam o lock
+     * do próprio objeto, então enviar os pendentes não perde um incremento concorrente.
+     */
+    private static final class Acompanhada {
+
+        private final String chave;
+        private final long janelaMillis;
+        private long indice = Long.MIN_VALUE;
+        private long atual;
+        private long anterior;
+        private long pendenteAtual;
+        private long pendenteAnterior;
+        private long ultimoIncremento;
+
+        Acompanhada(String chave, long janelaMillis) {
+            this.chave = chave;
+            this.janelaMillis = janelaMillis;
+        }
+
+        synchronized long incrementar(long agora) {
+            avancar(agora);
+            pendenteAtual++;
+            ultimoIncremento = agora;
+            return estimar(agora);
+        }
+
+        synchronized long contar(long agora) {
+            avancar(agora);
+            return estimar(agora);
+        }
+
+        synchronized long millisAteAbaixoDe(long agora, long limite) {
+            avancar(agora);
+            return ContadorCompartilhado.millisAteAbaixoDe(atual + pendenteAtual, anterior + pendenteAnterior,
+                    agora, janelaMillis, limite);
+        }
+
+        synchronized boolean incrementadaDesde(long instante) {
+            return ultimoIncremento >= instante;
+        }
+
+        /**
+         * Retira os incrementos pendentes, já somando-os à contagem global local.
+         */
+        synchronized List<Envio> retirarPendentes() {
+            List<Envio> envios = new ArrayList<>(2);
+            if (pendenteAtual > 0) {
+                envios.add(new Envio(chave, indice * janelaMillis, janelaMillis, pendenteAtual));
+            }
+            if (pendenteAnterior > 0) {
+                envios.add(new Envio(chave, (indice - 1) * janelaMillis, janelaMillis, pendenteAnterior));
+            }
+            atual += pendenteAtual;
+            anterior += pendenteAnterior;
+            pendenteAtual = 0;
+            pendenteAnterior = 0;
+            return envios;
+        }
+
+        synchronized void devolver(List<Envio> envios) {
+            for (Envio envio : envios) {
+                long indiceEnvio = envio.inicio() / janelaMillis;
+                if (indiceEnvio == indice) {
+                    atual -= envio.quantidade();
+                    pendenteAtual += envio.quantidade();
+                } else if (indiceEnvio == indice - 1) {
+                    anterior -= envio.quantidade();
+                    pendenteAnterior += envio.quantidade();
+                }
+            }
+        }
+
+        /**
+         * Contagens lidas do banco para o balde atual e o anterior no instante da leitura
+         * (ignoradas se o balde virou enquanto a leitura acontecia).
+         */
+        synchronized void atualizar(long lidoEm, long atualLido, long anteriorLido) {
+            avancar(lidoEm);
+            if (lidoEm / janelaMillis == indice) {
+                atual = atualLido;
+                anterior = anteriorLido;
+            }
+        }
+
+        private long estimar(long agora) {
+            return ContadorCompartilhado.estimar(atual + pendenteAtual, anterior + pendenteAnterior, agora,
+                    janelaMillis);
+        }
+
+        private void avancar(long agora) {
+            long novoIndice = agora / janelaMillis;
+            if (novoIndice == indice) {
+                return;
+            }
+            boolean seguinte = novoIndice == indice + 1;
+            anterior = seguinte ? atual : 0;
+            pendenteAnterior = seguinte ? pendenteAtual : 0;
+            atual = 0;
+            pendenteAtual = 0;
+            indice = novoIndice;
+        }
+    }
+}
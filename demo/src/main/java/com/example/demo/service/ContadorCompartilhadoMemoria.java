@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Contadores locais da instância (padrão para uma única instância).
+ *
+ * Limitados em quantidade de chaves; cada chave expira depois de duas janelas sem uso,
+ * quando as duas contagens já não contam mais.
+ */
+@Service
+@ConditionalOnProperty(name = "contador.backend", havingValue = "memoria", matchIfMissing = true)
+public class ContadorCompartilhadoMemoria implements ContadorCompartilhado {
+
+    private final Cache<String, Janelas> contadores;
+
+    public ContadorCompartilhadoMemoria(@Value("${contador.memoria.max-chaves:100000}") long maxChaves) {
+        this.contadores = Caffeine.newBuilder()
+                .maximumSize(maxChaves)
+                .expireAfter(new Expiry<String, Janelas>() {
+                    @Override
+                    public long expireAfterCreate(String chave, Janelas janelas, long agora) {
+                        return janelas.janelaMillis * 2_000_000L;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String chave, Janelas janelas, long agora, long restante) {
+                        return janelas.janelaMillis * 2_000_000L;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String chave, Janelas janelas, long agora, long restante) {
+                        return janelas.janelaMillis * 2_000_000L;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public long incrementar(String chave, Duration janela) {
+        long janelaMillis = janela.toMillis();
+        Janelas janelas = contadores.get(chave(chave, janelaMillis), k -> new Janelas(janelaMillis));
+        return janelas.incrementar(System.currentTimeMillis());
+    }
+
+    @Override
+    public long contar(String chave, Duration janela) {
+        Janelas janelas = contadores.getIfPresent(chave(chave, janela.toMillis()));
+        return janelas == null ? 0 : janelas.contar(System.currentTimeMillis());
+    }
+
+    @Override
+    public void zerar(String chave, Duration janela) {
+        contadores.invalidate(chave(chave, janela.toMillis()));
+    }
+
+    @Override
+    public Duration tempoAteAbaixoDe(String chave, Duration janela, long limite) {
+        Janelas janelas = contadores.getIfPresent(chave(chave, janela.toMillis()));
+        return janelas == null ? Duration.ZERO
+                : Duration.ofMillis(janelas.millisAteAbaixoDe(System.currentTimeMillis(), limite));
+    }
+
+    private static String chave(String chave, long janelaMillis) {
+        return chave + "|" + janelaMillis;
+    }
+
+    /**
+     * Balde atual e anterior de uma chave. As operações são curtas e por chave,
+     * então o lock do próprio objeto não disputa com outras chaves.
+     */
+    private static final class Janelas {
+
+        private final long janelaMillis;
+        private long indice = Long.MIN_VALUE;
+        private long atual;
+        private long anterior;
+
+        Janelas(long janelaMillis) {
+            this.janelaMillis = janelaMillis;
+        }
+
+        synchronized long incrementar(long agora) {
+            avancar(agora);
+            atual++;
+            return ContadorCompartilhado.estimar(atual, anterior, agora, janelaMillis);
+        }
+
+        synchronized long contar(long agora) {
+            avancar(agora);
+            return ContadorCompartilhado.estimar(atual, anterior, agora, janelaMillis);
+        }
+
+        synchronized long millisAteAbaixoDe(long agora, long limite) {
+            avancar(agora);
+            return ContadorCompartilhado.millisAteAbaixoDe(atual, anterior, agora, janelaMillis, limite);
+        }
+
+        private void avancar(long agora) {
+            long novoIndice = agora / janelaMillis;
+            if (novoIndice == indice) {
+                return;
+            }
+            anterior = novoIndice == indice + 1 ? atual : 0;
+            atual = 0;
+            indice = novoIndice;
+        }
+    }
+}
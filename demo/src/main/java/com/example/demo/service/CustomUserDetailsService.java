@@ -1,15 +1,17 @@
 package com.example.demo.service;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -30,4 +32,21 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         return user; // User implementa UserDetails
     }
+
+    /**
+     * Chamado pelo DaoAuthenticationProvider após um login válido quando o hash salvo
+     * usa um custo menor que o configurado (seguranca.senha.bcrypt-custo).
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException(
+                        "Usuário não encontrado com o email: " + userDetails.getUsername()));
+
+        user.setSenha(newPassword);
+
+        return userRepository.save(user);
+    }
 }
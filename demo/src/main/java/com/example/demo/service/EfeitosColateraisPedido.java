@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.event.PedidoEvento;
+import com.example.demo.event.PedidoEventoDescartado;
+import com.example.demo.model.ItemPedido;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.StatusPedido;
+import com.example.demo.model.TipoEventoPedido;
+import com.example.demo.model.TipoPagamento;
+import com.example.demo.repository.PagamentoPixRepository;
+import com.example.demo.repository.PedidoRepository;
+
+/**
+ * Efeitos colaterais do ciclo de vida do pedido, executados fora do checkout.
+ *
+ * Recebe os eventos da outbox (RelayEventosPedido), um de cada vez por pedido. Cada evento
+ * é tratado em uma transação; como um evento pode ser entregue de novo após uma falha,
+ * todos os efeitos verificam antes se já foram aplicados.
+ */
+@Component
+public class EfeitosColateraisPedido {
+
+    private static final Logger logger = LoggerFactory.getLogger(EfeitosColateraisPedido.class);
+
+    private final PedidoRepository pedidoRepository;
+    private final PagamentoPixRepository pagamentoPixRepository;
+    private final QRCodeService qrCodeService;
+    private final QRCodeGeracaoWorker qrCodeGeracaoWorker;
+    private final PixService pixService;
+    private final AuditLogService auditLogService;
+    private final PedidoService pedidoService;
+
+    public EfeitosColateraisPedido(PedidoRepository pedidoRepository,
+            PagamentoPixRepository pagamentoPixRepository,
+            QRCodeService qrCodeService,
+            QRCodeGeracaoWorker qrCodeGeracaoWorker,
+            PixService pixService,
+            AuditLogService auditLogService,
+            PedidoService pedidoService) {
+        this.pedidoRepository = pedidoRepository;
+        this.pagamentoPixRepository = pagamentoPixRepository;
+        this.qrCodeService = qrCodeService;
+        this.qrCodeGeracaoWorker = qrCodeGeracaoWorker;
+        this.pixService = pixService;
+        this.auditLogService = auditLogService;
+        this.pedidoService = pedidoService;
+    }
+
+    @EventListener
+    @Transactional
+    public void aoReceberEvento(PedidoEvento evento) {
+        switch (evento.tipo()) {
+            case PEDIDO_CRIADO -> aoCriarPedido(evento.idPedido());
+            default -> {
+                // Demais eventos não têm efeitos aqui (o PIX é cancelado junto com o pedido)
+            }
+        }
+    }
+
+    /**
+     * PEDIDO_CRIADO descartado: o pedido ficou sem PIX e segura o estoque debitado. Se ainda
+     * estiver pendente é cancelado, o que devolve o estoque; caso contrário fica só o alerta.
+     */
+    @EventListener
+    @Transactional
+    public void aoDescartarEvento(PedidoEventoDescartado descartado) {
+        PedidoEvento evento = descartado.evento();
+        if (evento.tipo() != TipoEventoPedido.PEDIDO_CRIADO) {
+            return;
+        }
+
+        Pedido pedido = pedidoRepository.findById(evento.idPedido()).orElse(null);
+        if (pedido == null || pedido.getStatus() != StatusPedido.PENDENTE) {
+            logger.error("PEDIDO_CRIADO do pedido {} descartado; pedido {}, sem cancelamento automático",
+                    evento.idPedido(), pedido == null ? "inexistente" : pedido.getStatus());
+            return;
+        }
+
+        pedidoService.cancelarPedido(evento.idPedido());
+        logger.error("Pedido {} cancelado: PEDIDO_CRIADO descartado após {} tentativas ({})", evento.idPedido(),
+                evento.tentativa(), descartado.erro());
+    }
+
+    private void aoCriarPedido(Integer idPedido) {
+
+        // Trava o pedido para que um cancelamento simultâneo espere o PIX ser gerado e o cancele,
+        // ou seja visto aqui e impeça a cobrança
+        if (pedidoRepository.findParaAtualizarById(idPedido).isEmpty()) {
+            logger.warn("Pedido {} do evento PEDIDO_CRIADO não encontrado", idPedido);
+            return;
+        }
+        Pedido pedido = pedidoRepository.findDetalhadoById(idPedido).orElse(null);
+        if (pedido == null) {
+            logger.warn("Pedido {} do evento PEDIDO_CRIADO não encontrado", idPedido);
+            return;
+        }
+
+        List<Integer> idsQRCode = new ArrayList<>();
+        for (ItemPedido itemPedido : pedido.getItens()) {
+            if (itemPedido.getQrCodeRastreamento() == null) {
+                idsQRCode.add(qrCodeService.registrarPendente(itemPedido).getId());
+            }
+        }
+        qrCodeGeracaoWorker.enfileirarAposCommit(idsQRCode);
+
+        // Um pedido cancelado antes deste evento não recebe mais cobrança
+        if (pedido.getTipoPagamento() == TipoPagamento.PIX && pedido.getStatus() == StatusPedido.PENDENTE
+                && pagamentoPixRepository.findByPedido_Id(idPedido).isEmpty()) {
+            pixService.gerarPagamentoPix(pedido);
+        }
+
+        // Numa reentrega depois do commit os QR Codes já existem e a criação não é auditada de novo
+        if (idsQRCode.size() == pedido.getItens().size()) {
+            auditLogService.logOrderCreated(pedido.getCliente().getIdCliente().longValue(),
+                    pedido.getId().longValue(), pedido.getValorTotal().doubleValue(), null);
+        }
+    }
+}
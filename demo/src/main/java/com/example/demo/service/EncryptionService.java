@@ -3,35 +3,122 @@ package com.example.demo.service;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Criptografia dos dados sensíveis gravados no banco (AES-256-GCM).
+ *
+ * Formato gravado: "enc:v1:{id da chave}:{Base64(IV de 12 bytes + texto cifrado + tag)}".
+ * O prefixo identifica o texto cifrado sem heurística e o id da chave permite conviver
+ * com várias chaves durante uma rotação: cifra sempre com a chave ativa e decifra com a
+ * chave indicada no próprio valor. Valores antigos (AES/ECB em Base64, sem prefixo) ainda
+ * são lidos com a chave legada "k0" (encryption.key).
+ *
+ * As chaves são decodificadas uma vez na inicialização e cada thread reaproveita suas
+ * instâncias de Cipher, então cada campo custa só o init e o doFinal.
+ */
 @Service
 public class EncryptionService {
 
+    public static final String PREFIXO = "enc:v1:";
+
+    /** Id da chave derivada de encryption.key, a mesma usada pelo formato antigo. */
+    public static final String ID_CHAVE_LEGADA = "k0";
+
     private static final String ALGORITHM = "AES";
-    private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String TRANSFORMATION_LEGADA = "AES/ECB/PKCS5Padding";
+
+    private static final int TAMANHO_IV = 12;
+    private static final int TAMANHO_TAG_BITS = 128;
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> novoCipher(TRANSFORMATION));
+    private static final ThreadLocal<Cipher> CIPHER_LEGADO =
+            ThreadLocal.withInitial(() -> novoCipher(TRANSFORMATION_LEGADA));
+
+    private final SecureRandom secureRandom = new SecureRandom();
 
     @Value("${encryption.key:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
     private String encryptionKey;
 
+    /** Chaves adicionais no formato "id:base64,id:base64" (16, 24 ou 32 bytes cada). */
+    @Value("${encryption.chaves:}")
+    private String chavesAdicionais;
+
+    @Value("${encryption.chave-ativa:" + ID_CHAVE_LEGADA + "}")
+    private String idChaveAtiva;
+
+    private Map<String, SecretKey> chaves;
+    private SecretKey chaveAtiva;
+    private byte[] cabecalhoAtivo;
+
+    @PostConstruct
+    void carregarChaves() {
+        Map<String, SecretKey> carregadas = new HashMap<>();
+        carregadas.put(ID_CHAVE_LEGADA, chaveLegada(encryptionKey));
+
+        for (String entrada : chavesAdicionais.split(",")) {
+            if (entrada.isBlank()) {
+                continue;
+            }
+            int separador = entrada.indexOf(':');
+            if (separador <= 0) {
+                throw new IllegalStateException("Entrada inválida em encryption.chaves (esperado id:base64).");
+            }
+            String id = entrada.substring(0, separador).trim();
+            if (id.contains(":") || carregadas.containsKey(id)) {
+                throw new IllegalStateException("Id de chave inválido ou repetido em encryption.chaves: " + id);
+            }
+            byte[] bytes = Base64.getDecoder().decode(entrada.substring(separador + 1).trim());
+            if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+                throw new IllegalStateException("A chave " + id + " deve ter 16, 24 ou 32 bytes.");
+            }
+            carregadas.put(id, new SecretKeySpec(bytes, ALGORITHM));
+        }
+
+        if (!carregadas.containsKey(idChaveAtiva)) {
+            throw new IllegalStateException("encryption.chave-ativa não encontrada: " + idChaveAtiva);
+        }
+
+        this.chaves = Collections.unmodifiableMap(carregadas);
+        this.chaveAtiva = carregadas.get(idChaveAtiva);
+        this.cabecalhoAtivo = cabecalho(idChaveAtiva);
+    }
+
     public String encrypt(String plainText) {
         if (plainText == null || plainText.isEmpty()) {
             return plainText;
         }
 
         try {
-            SecretKey key = generateKey();
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.ENCRYPT_MODE, key);
+            byte[] iv = new byte[TAMANHO_IV];
+            secureRandom.nextBytes(iv);
 
-            byte[] encryptedBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encryptedBytes);
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, chaveAtiva, new GCMParameterSpec(TAMANHO_TAG_BITS, iv));
+            // O cabeçalho entra como dado autenticado: trocar o id da chave invalida a tag
+            cipher.updateAAD(cabecalhoAtivo);
+            byte[] plain = plainText.getBytes(StandardCharsets.UTF_8);
+            byte[] corpo = new byte[TAMANHO_IV + cipher.getOutputSize(plain.length)];
+            System.arraycopy(iv, 0, corpo, 0, TAMANHO_IV);
+            cipher.doFinal(plain, 0, plain.length, corpo, TAMANHO_IV);
 
-        } catch (Exception e) {
+            return PREFIXO + idChaveAtiva + ":" + Base64.getEncoder().encodeToString(corpo);
+
+        } catch (GeneralSecurityException e) {
             throw new RuntimeException("Erro ao criptografar dados: " + e.getMessage(), e);
         }
     }
@@ -42,22 +129,109 @@ public class EncryptionService {
         }
 
         try {
-            SecretKey key = generateKey();
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.DECRYPT_MODE, key);
+            if (!isEncrypted(encryptedText)) {
+                return decryptLegado(encryptedText);
+            }
 
-            byte[] decodedBytes = Base64.getDecoder().decode(encryptedText);
-            byte[] decryptedBytes = cipher.doFinal(decodedBytes);
+            int fimId = encryptedText.indexOf(':', PREFIXO.length());
+            if (fimId < 0) {
+                throw new IllegalArgumentException("Valor criptografado sem id de chave.");
+            }
+            String idChave = encryptedText.substring(PREFIXO.length(), fimId);
+            SecretKey chave = chaves.get(idChave);
+            if (chave == null) {
+                throw new IllegalArgumentException("Chave de criptografia desconhecida: " + idChave);
+            }
+
+            byte[] corpo = Base64.getDecoder().decode(encryptedText.substring(fimId + 1));
+            if (corpo.length < TAMANHO_IV + TAMANHO_TAG_BITS / 8) {
+                throw new IllegalArgumentException("Valor criptografado truncado.");
+            }
+
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, chave, new GCMParameterSpec(TAMANHO_TAG_BITS, corpo, 0, TAMANHO_IV));
+            cipher.updateAAD(cabecalho(idChave));
+            byte[] decryptedBytes = cipher.doFinal(corpo, TAMANHO_IV, corpo.length - TAMANHO_IV);
             return new String(decryptedBytes, StandardCharsets.UTF_8);
 
-        } catch (Exception e) {
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
             throw new RuntimeException("Erro ao descriptografar dados: " + e.getMessage(), e);
         }
     }
 
-    private SecretKey generateKey() {
+    /**
+     * Indica se o valor está no formato versionado (detecção pelo prefixo, sem heurística).
+     */
+    public boolean isEncrypted(String text) {
+        return text != null && text.startsWith(PREFIXO);
+    }
+
+    /**
+     * Indica se o valor pode ser um texto cifrado no formato antigo (Base64 de blocos AES).
+     */
+    public boolean isLegado(String text) {
+        if (text == null || text.isEmpty() || isEncrypted(text) || text.length() % 4 != 0) {
+            return false;
+        }
         try {
+            return Base64.getDecoder().decode(text).length % 16 == 0;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Id da chave usada no valor, ou {@link #ID_CHAVE_LEGADA} para o formato antigo.
+     */
+    public String idChave(String encryptedText) {
+        if (!isEncrypted(encryptedText)) {
+            return ID_CHAVE_LEGADA;
+        }
+        int fimId = encryptedText.indexOf(':', PREFIXO.length());
+        return fimId < 0 ? null : encryptedText.substring(PREFIXO.length(), fimId);
+    }
+
+    public String getIdChaveAtiva() {
+        return idChaveAtiva;
+    }
+
+    public Set<String> getIdsChaves() {
+        return chaves.keySet();
+    }
+
+    /**
+     * Indica se o valor precisa ser regravado com a chave ativa (formato antigo ou outra chave).
+     */
+    public boolean precisaRecriptografar(String encryptedText) {
+        if (encryptedText == null || encryptedText.isEmpty()) {
+            return false;
+        }
+        return !isEncrypted(encryptedText) || !idChaveAtiva.equals(idChave(encryptedText));
+    }
 
+    /**
+     * Decifra com a chave original e cifra de novo com a chave ativa. Valores que nunca
+     * foram cifrados (nem no formato antigo) são apenas cifrados.
+     */
+    public String recriptografar(String encryptedText) {
+        boolean cifrado = isEncrypted(encryptedText) || isLegado(encryptedText);
+        return encrypt(cifrado ? decrypt(encryptedText) : encryptedText);
+    }
+
+    private String decryptLegado(String encryptedText) throws GeneralSecurityException {
+        Cipher cipher = CIPHER_LEGADO.get();
+        cipher.init(Cipher.DECRYPT_MODE, chaves.get(ID_CHAVE_LEGADA));
+
+        byte[] decodedBytes = Base64.getDecoder().decode(encryptedText);
+        byte[] decryptedBytes = cipher.doFinal(decodedBytes);
+        return new String(decryptedBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Derivação usada desde a primeira versão: Base64 de encryption.key ajustado para 32 bytes.
+     */
+    private static SecretKey chaveLegada(String encryptionKey) {
+        try {
             byte[] decodedKey = Base64.getDecoder().decode(encryptionKey);
 
             byte[] key = new byte[32];
@@ -70,17 +244,15 @@ public class EncryptionService {
         }
     }
 
-    public boolean isEncrypted(String text) {
-        if (text == null || text.isEmpty()) {
-            return false;
-        }
+    private static byte[] cabecalho(String idChave) {
+        return (PREFIXO + idChave).getBytes(StandardCharsets.US_ASCII);
+    }
 
+    private static Cipher novoCipher(String transformation) {
         try {
-            Base64.getDecoder().decode(text);
-
-            return text.length() > 16 && !text.contains(" ");
-        } catch (IllegalArgumentException e) {
-            return false;
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Algoritmo de criptografia indisponível: " + transformation, e);
         }
     }
 }
@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.exception.EstoqueInsuficienteException;
+import com.example.demo.model.Produto;
+
+/**
+ * Controle atômico de estoque.
+ *
+ * As baixas são feitas com decremento condicional (estoque = estoque - ? WHERE estoque >= ?)
+ * em um único UPDATE para todos os produtos, evitando a condição de corrida do
+ * "lê, compara e salva" e o custo de um UPDATE por item do carrinho.
+ */
+@Service
+public class EstoqueService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReservaEstoqueMemoria reservaMemoria;
+    private final Cache cacheProdutos;
+
+    public EstoqueService(JdbcTemplate jdbcTemplate, ReservaEstoqueMemoria reservaMemoria, CacheManager cacheManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reservaMemoria = reservaMemoria;
+        this.cacheProdutos = cacheManager.getCache(CacheConfig.PRODUTOS);
+    }
+
+    /**
+     * Retorna o estoque disponível para venda, incluindo o que estiver reservado em memória.
+     */
+    public int disponivel(Produto produto) {
+        return produto.getEstoque() + reservaMemoria.saldo(produto.getId());
+    }
+
+    /**
+     * Debita as quantidades (idProduto -> quantidade) de uma vez só.
+     * Se algum produto não tiver saldo, lança EstoqueInsuficienteException e a
+     * transação é desfeita por inteiro.
+     */
+    @Transactional
+    public void debitar(Map<Integer, Integer> quantidades) {
+
+        Map<Integer, Integer> restante = new TreeMap<>(reservaMemoria.consumir(quantidades));
+
+        if (restante.isEmpty()) {
+            return;
+        }
+
+        List<Object> parametros = new ArrayList<>();
+        String casos = montarCase(restante, parametros);
+        List<Object> parametrosCondicao = new ArrayList<>();
+        String casosCondicao = montarCase(restante, parametrosCondicao);
+        parametros.addAll(restante.keySet());
+        parametros.addAll(parametrosCondicao);
+
+        String sql = "UPDATE tb_produto SET estoque = estoque - " + casos
+                + " WHERE id_produto IN (" + placeholders(restante.size()) + ")"
+                + " AND estoque >= " + casosCondicao;
+
+        int atualizados = jdbcTemplate.update(sql, parametros.toArray());
+
+        if (atualizados != restante.size()) {
+            throw estoqueInsuficiente(restante);
+        }
+
+        invalidarCache(restante);
+    }
+
+    /**
+     * Devolve as quantidades (idProduto -> quantidade) ao estoque em um único UPDATE.
+     */
+    @Transactional
+    public void creditar(Map<Integer, Integer> quantidades) {
+
+        if (quantidades.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> ordenado = new TreeMap<>(quantidades);
+
+        List<Object> parametros = new ArrayList<>();
+        String casos = montarCase(ordenado, parametros);
+        parametros.addAll(ordenado.keySet());
+
+        jdbcTemplate.update("UPDATE tb_produto SET estoque = estoque + " + casos
+                + " WHERE id_produto IN (" + placeholders(ordenado.size()) + ")",
+                parametros.toArray());
+
+        invalidarCache(ordenado);
+    }
+
+    // O estoque faz parte do ProdutoResponseDTO em cache (removido só após o commit)
+    private void invalidarCache(Map<Integer, Integer> quantidades) {
+        quantidades.keySet().forEach(cacheProdutos::evict);
+    }
+
+    private EstoqueInsuficienteException estoqueInsuficiente(Map<Integer, Integer> quantidades) {
+
+        // Caminho raro: relê o estoque atual só para montar a mensagem de erro
+        List<Object[]> linhas = jdbcTemplate.query(
+                "SELECT id_produto, nome, estoque FROM tb_produto WHERE id_produto IN ("
+                        + placeholders(quantidades.size()) + ")",
+                (rs, i) -> new Object[] { rs.getInt(1), rs.getString(2), rs.getInt(3) },
+                quantidades.keySet().toArray());
+
+        for (Object[] linha : linhas) {
+            Integer quantidade = quantidades.get((Integer) linha[0]);
+            if ((Integer) linha[2] < quantidade) {
+                return new EstoqueInsuficienteException((String) linha[1], (Integer) linha[2], quantidade);
+            }
+        }
+
+        Map.Entry<Integer, Integer> primeiro = quantidades.entrySet().iterator().next();
+        return new EstoqueInsuficienteException("ID " + primeiro.getKey(), 0, primeiro.getValue());
+    }
+
+    private String montarCase(Map<Integer, Integer> quantidades, List<Object> parametros) {
+        StringBuilder sb = new StringBuilder("CASE id_produto");
+        quantidades.forEach((idProduto, quantidade) -> {
+            sb.append(" WHEN ? THEN ?");
+            parametros.add(idProduto);
+            parametros.add(quantidade);
+        });
+        return sb.append(" END").toString();
+    }
+
+    private String placeholders(int quantidade) {
+        return IntStream.range(0, quantidade)
+                .mapToObj(i -> "?")
+                .collect(Collectors.joining(", "));
+    }
+}
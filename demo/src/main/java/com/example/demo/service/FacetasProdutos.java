@@ -0,0 +1,348 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.dto.FacetasProdutoDTO;
+import com.example.demo.dto.FacetasProdutoDTO.ValorFaceta;
+import com.example.demo.dto.ProdutoFacetaDTO;
+import com.example.demo.event.CategoriaAlteradaEvent;
+import com.example.demo.event.FornecedorAlteradoEvent;
+import com.example.demo.event.ProdutoAlteradoEvent;
+import com.example.demo.repository.ProdutoRepository;
+
+/**
+ * Facetas do catálogo (categoria, fornecedor e faixa de preço) mantidas em memória.
+ *
+ * Cada produto recebe um ordinal e cada valor de faceta guarda um BitSet com os
+ * ordinais dos seus produtos. Filtrar é um AND entre bitsets e contar é um
+ * cardinality(), então uma consulta de facetas não toca o banco.
+ *
+ * Carregado em segundo plano na subida da aplicação (sem os produtos excluídos) e
+ * atualizado a cada ProdutoAlteradoEvent; os nomes exibidos acompanham
+ * CategoriaAlteradaEvent e FornecedorAlteradoEvent.
+ */
+@Component
+public class FacetasProdutos {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacetasProdutos.class);
+
+    private static final int TAMANHO_LOTE_CARGA = 1000;
+
+    private final ProdutoRepository produtoRepository;
+    private final List<BigDecimal> limitesFaixas;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Substituído inteiro ao fim de cada carga; protegido pelo lock
+    private Indice indice = new Indice();
+
+    // Uma carga por vez
+    private final Object carga = new Object();
+
+    // Alterações recebidas durante uma carga (null fora dela); protegido por "this"
+    private Alteracoes alteracoes;
+
+    public FacetasProdutos(ProdutoRepository produtoRepository,
+            @Value("${produto.facetas.faixas-preco:50,100,250,500,1000}") List<BigDecimal> limitesFaixas) {
+        this.produtoRepository = produtoRepository;
+        this.limitesFaixas = limitesFaixas.stream().sorted().toList();
+    }
+
+    /**
+     * Carga inicial em uma thread virtual, para não atrasar a subida. Até ela terminar,
+     * as contagens saem vazias.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        Thread.ofVirtual().name("facetas-produtos").start(() -> {
+            try {
+                recarregar();
+            } catch (Exception e) {
+                logger.error("Falha ao carregar as facetas de produtos", e);
+            }
+        });
+    }
+
+    /**
+     * Monta as facetas em estruturas novas, fora do lock, e só no fim as coloca no lugar
+     * das atuais. Enquanto isso, consultas e eventos seguem usando as atuais; os produtos
+     * alterados durante a carga são relidos do banco antes da troca, porque o lote que os
+     * trouxe pode ter sido lido antes da alteração.
+     */
+    void recarregar() {
+        synchronized (carga) {
+            long inicio = System.currentTimeMillis();
+            int total = 0;
+
+            synchronized (this) {
+                alteracoes = new Alteracoes();
+            }
+            try {
+                Indice novo = new Indice();
+
+                Limit limite = Limit.of(TAMANHO_LOTE_CARGA);
+                List<ProdutoFacetaDTO> lote = produtoRepository.listarFacetaDTOApos(0, limite);
+
+                while (!lote.isEmpty()) {
+                    lote.forEach(novo::indexar);
+                    total += lote.size();
+                    lote = produtoRepository.listarFacetaDTOApos(lote.get(lote.size() - 1).id(), limite);
+                }
+
+                while (true) {
+                    Alteracoes pendentes;
+                    synchronized (this) {
+                        pendentes = alteracoes;
+                        alteracoes = pendentes.produtos.isEmpty() ? null : new Alteracoes();
+                        pendentes.renomeacoes.forEach(renomeacao -> renomeacao.accept(novo));
+
+                        if (alteracoes == null) {
+                            lock.writeLock().lock();
+                            try {
+                                indice = novo;
+                            } finally {
+                                lock.writeLock().unlock();
+                            }
+                            break;
+                        }
+                    }
+
+                    for (Integer idProduto : pendentes.produtos) {
+                        novo.remover(idProduto);
+                        produtoRepository.buscarFacetaDTOPorId(idProduto).ifPresent(novo::indexar);
+                    }
+                }
+            } finally {
+                synchronized (this) {
+                    alteracoes = null;
+                }
+            }
+
+            logger.info("Facetas de produtos carregadas: {} produtos em {} ms", total,
+                    System.currentTimeMillis() - inicio);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        ProdutoFacetaDTO atributos = evento.removido()
+                ? null
+                : produtoRepository.buscarFacetaDTOPorId(evento.idProduto()).orElse(null);
+
+        synchronized (this) {
+            if (alteracoes != null) {
+                alteracoes.produtos.add(evento.idProduto());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            indice.remover(evento.idProduto());
+            if (atributos != null) {
+                indice.indexar(atributos);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCategoria(CategoriaAlteradaEvent evento) {
+        renomear(i -> i.nomesCategorias.computeIfPresent(evento.idCategoria(), (id, atual) -> evento.nome()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarFornecedor(FornecedorAlteradoEvent evento) {
+        renomear(i -> i.nomesFornecedores.computeIfPresent(evento.idFornecedor(), (id, atual) -> evento.nome()));
+    }
+
+    /**
+     * Conta os produtos por faceta. Filtros nulos não restringem.
+     */
+    public FacetasProdutoDTO contar(Integer idCategoria, Integer idFornecedor, Integer faixaPreco) {
+
+        lock.readLock().lock();
+        try {
+            return indice.contar(idCategoria, idFornecedor, faixaPreco);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Só valores com produtos no catálogo têm nome guardado
+    private void renomear(Consumer<Indice> renomeacao) {
+        synchronized (this) {
+            if (alteracoes != null) {
+                alteracoes.renomeacoes.add(renomeacao);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            renomeacao.accept(indice);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Alteracoes {
+        private final Set<Integer> produtos = new HashSet<>();
+        private final List<Consumer<Indice>> renomeacoes = new ArrayList<>();
+    }
+
+    /**
+     * Ordinais, bitsets e nomes das facetas. Não é thread-safe: o índice em uso é
+     * protegido pelo lock, e o de uma carga só é visto pela thread que o monta.
+     */
+    private final class Indice {
+
+        private final Map<Integer, Integer> ordinalPorProduto = new HashMap<>();
+        private final Map<Integer, ProdutoFacetaDTO> atributosPorProduto = new HashMap<>();
+        private final Deque<Integer> ordinaisLivres = new ArrayDeque<>();
+        private int proximoOrdinal = 0;
+
+        private final BitSet ativos = new BitSet();
+        private final Map<Integer, BitSet> porCategoria = new HashMap<>();
+        private final Map<Integer, BitSet> porFornecedor = new HashMap<>();
+        private final Map<Integer, BitSet> porFaixa = new HashMap<>();
+        private final Map<Integer, String> nomesCategorias = new HashMap<>();
+        private final Map<Integer, String> nomesFornecedores = new HashMap<>();
+
+        FacetasProdutoDTO contar(Integer idCategoria, Integer idFornecedor, Integer faixaPreco) {
+            BitSet filtroCategoria = idCategoria == null ? null : valorOuVazio(porCategoria, idCategoria);
+            BitSet filtroFornecedor = idFornecedor == null ? null : valorOuVazio(porFornecedor, idFornecedor);
+            BitSet filtroFaixa = faixaPreco == null ? null : valorOuVazio(porFaixa, faixaPreco);
+
+            long total = interseccao(filtroCategoria, filtroFornecedor, filtroFaixa).cardinality();
+
+            // Cada faceta ignora o próprio filtro
+            List<ValorFaceta> categorias = contarValores(porCategoria, nomesCategorias::get,
+                    interseccao(null, filtroFornecedor, filtroFaixa));
+            List<ValorFaceta> fornecedores = contarValores(porFornecedor, nomesFornecedores::get,
+                    interseccao(filtroCategoria, null, filtroFaixa));
+            List<ValorFaceta> faixas = contarValores(porFaixa, FacetasProdutos.this::rotuloFaixa,
+                    interseccao(filtroCategoria, filtroFornecedor, null));
+            faixas = faixas.stream().sorted(Comparator.comparing(ValorFaceta::id)).toList();
+
+            return new FacetasProdutoDTO(total, categorias, fornecedores, faixas);
+        }
+
+        private List<ValorFaceta> contarValores(Map<Integer, BitSet> valores,
+                Function<Integer, String> nomeDe, BitSet base) {
+
+            List<ValorFaceta> resultado = new ArrayList<>();
+            valores.forEach((id, produtos) -> {
+                BitSet comum = (BitSet) base.clone();
+                comum.and(produtos);
+                long quantidade = comum.cardinality();
+                if (quantidade > 0) {
+                    resultado.add(new ValorFaceta(id, nomeDe.apply(id), quantidade));
+                }
+            });
+
+            resultado.sort(Comparator.comparingLong(ValorFaceta::quantidade).reversed()
+                    .thenComparing(ValorFaceta::id));
+            return resultado;
+        }
+
+        private BitSet interseccao(BitSet... filtros) {
+            BitSet resultado = (BitSet) ativos.clone();
+            for (BitSet filtro : filtros) {
+                if (filtro != null) {
+                    resultado.and(filtro);
+                }
+            }
+            return resultado;
+        }
+
+        void indexar(ProdutoFacetaDTO produto) {
+            // Reindexar (evento repetido) não pode deixar o ordinal antigo marcado
+            remover(produto.id());
+            Integer ordinal = ordinaisLivres.isEmpty() ? proximoOrdinal++ : ordinaisLivres.pop();
+
+            ordinalPorProduto.put(produto.id(), ordinal);
+            atributosPorProduto.put(produto.id(), produto);
+
+            ativos.set(ordinal);
+            porCategoria.computeIfAbsent(produto.idCategoria(), id -> new BitSet()).set(ordinal);
+            porFornecedor.computeIfAbsent(produto.idFornecedor(), id -> new BitSet()).set(ordinal);
+            porFaixa.computeIfAbsent(faixaDoPreco(produto.preco()), id -> new BitSet()).set(ordinal);
+            nomesCategorias.put(produto.idCategoria(), produto.nomeCategoria());
+            nomesFornecedores.put(produto.idFornecedor(), produto.nomeFornecedor());
+        }
+
+        void remover(Integer idProduto) {
+            Integer ordinal = ordinalPorProduto.remove(idProduto);
+            ProdutoFacetaDTO produto = atributosPorProduto.remove(idProduto);
+            if (ordinal == null) {
+                return;
+            }
+
+            ativos.clear(ordinal);
+            limpar(porCategoria, produto.idCategoria(), ordinal, nomesCategorias);
+            limpar(porFornecedor, produto.idFornecedor(), ordinal, nomesFornecedores);
+            limpar(porFaixa, faixaDoPreco(produto.preco()), ordinal, null);
+            ordinaisLivres.push(ordinal);
+        }
+
+        private void limpar(Map<Integer, BitSet> valores, Integer id, int ordinal, Map<Integer, String> nomes) {
+            BitSet produtos = valores.get(id);
+            if (produtos == null) {
+                return;
+            }
+            produtos.clear(ordinal);
+            if (produtos.isEmpty()) {
+                valores.remove(id);
+                if (nomes != null) {
+                    nomes.remove(id);
+                }
+            }
+        }
+    }
+
+    private static BitSet valorOuVazio(Map<Integer, BitSet> valores, Integer id) {
+        return valores.getOrDefault(id, new BitSet());
+    }
+
+    private int faixaDoPreco(BigDecimal preco) {
+        for (int i = 0; i < limitesFaixas.size(); i++) {
+            if (preco.compareTo(limitesFaixas.get(i)) < 0) {
+                return i;
+            }
+        }
+        return limitesFaixas.size();
+    }
+
+    private String rotuloFaixa(Integer faixa) {
+        if (faixa == 0) {
+            return "Até R$ " + limitesFaixas.get(0).toPlainString();
+        }
+        if (faixa == limitesFaixas.size()) {
+            return "A partir de R$ " + limitesFaixas.get(faixa - 1).toPlainString();
+        }
+        return "R$ " + limitesFaixas.get(faixa - 1).toPlainString() + " a R$ " + limitesFaixas.get(faixa).toPlainString();
+    }
+}
@@ -6,15 +6,24 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.config.CacheConfig;
+import com.example.demo.config.UsuarioAutenticado;
 import com.example.demo.dto.FornecedorRequestDTO;
 import com.example.demo.dto.FornecedorResponseDTO;
+import com.example.demo.dto.PaginaCursorDTO;
+import com.example.demo.event.FornecedorAlteradoEvent;
 import com.example.demo.exception.CnpjException;
 import com.example.demo.exception.EmailException;
 import com.example.demo.exception.RegraNegocioException;
@@ -26,6 +35,7 @@ import com.example.demo.repository.FornecedorRepository;
 import com.example.demo.repository.RoleRepository;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.util.CnpjValidator;
+import com.example.demo.util.CursorPaginacao;
 
 @Service("fornecedorService")
 public class FornecedorService {
@@ -34,23 +44,35 @@ public class FornecedorService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     public FornecedorService(FornecedorRepository fRepository, UserRepository userRepository,
             RoleRepository roleRepository,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            ApplicationEventPublisher eventPublisher) {
         this.fRepository = fRepository;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<FornecedorResponseDTO> listarTodosFornecedores() {
+    public PaginaCursorDTO<FornecedorResponseDTO> listarFornecedores(String cursor, Integer tamanho) {
 
-        List<Fornecedor> fornecedores = fRepository.findAll();
+        int tamanhoPagina = CursorPaginacao.tamanhoValido(tamanho);
+        CursorPaginacao.Cursor posicao = CursorPaginacao.decodificar(cursor);
+        Limit limite = Limit.of(tamanhoPagina + 1);
 
-        return fornecedores.stream()
+        List<Fornecedor> fornecedores = posicao == null
+                ? fRepository.listarPrimeiraPagina(limite)
+                : fRepository.listarApos(posicao.chave(), posicao.id(), limite);
+
+        List<FornecedorResponseDTO> dtos = fornecedores.stream()
                 .map(fornecedor -> new FornecedorResponseDTO(fornecedor))
                 .collect(Collectors.toList());
+
+        return PaginaCursorDTO.de(dtos, tamanhoPagina,
+                dto -> CursorPaginacao.codificar(dto.nomeFornecedor(), dto.idFornecedor()));
     }
 
     public Page<FornecedorResponseDTO> listarTodosFornecedoresPaginado(Pageable pageable) {
@@ -68,6 +90,11 @@ public class FornecedorService {
         return fornecedores;
     }
 
+    @Cacheable(cacheNames = CacheConfig.FORNECEDORES, key = "#idFornecedor")
+    public FornecedorResponseDTO buscarPorId(Integer idFornecedor) {
+        return new FornecedorResponseDTO(findById(idFornecedor));
+    }
+
     public Fornecedor inserirFornecedor(FornecedorRequestDTO dto) {
 
         if (fRepository.findByUser_Email(dto.email()).isPresent()) {
@@ -106,6 +133,11 @@ public class FornecedorService {
         }
     }
 
+    // O nome do fornecedor também aparece nos produtos em cache
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.FORNECEDORES, key = "#idFornecedor"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUTOS, allEntries = true)
+    })
     public Fornecedor alteraFornecedor(FornecedorRequestDTO dto, Integer idFornecedor) {
 
         Fornecedor fornecedorExistente = this.findById(idFornecedor);
@@ -130,7 +162,11 @@ public class FornecedorService {
             fornecedorExistente.setTelefone(dto.telefone());
         }
 
-        return fRepository.save(fornecedorExistente);
+        Fornecedor fornecedorAlterado = fRepository.save(fornecedorExistente);
+
+        eventPublisher.publishEvent(new FornecedorAlteradoEvent(idFornecedor, fornecedorAlterado.getNome()));
+
+        return fornecedorAlterado;
     }
 
     public void alterarSenha(String novaSenha, Integer idFornecedor) {
@@ -169,6 +205,7 @@ public class FornecedorService {
         userRepository.save(user);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.FORNECEDORES, key = "#idFornecedor")
     public void deletarFornecedor(Integer idFornecedor) {
 
         Fornecedor fornecedorParaDeletar = this.findById(idFornecedor);
@@ -182,6 +219,13 @@ public class FornecedorService {
     }
 
     public boolean isOwner(Authentication auth, Integer idFornecedor) {
+
+        Integer idDoToken = UsuarioAutenticado.de(auth)
+                .map(UsuarioAutenticado::idFornecedor)
+                .orElse(null);
+        if (idDoToken != null) {
+            return idDoToken.equals(idFornecedor);
+        }
       
         String emailDoUsuarioLogado = auth.getName();
 
@@ -0,0 +1,252 @@
+package com.example.demo.service;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.dto.DuracaoStatusDTO;
+import com.example.demo.dto.HistoricoStatusPedidoDTO;
+import com.example.demo.exception.RegraNegocioException;
+import com.example.demo.model.StatusPedido;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Histórico de status dos pedidos (tb_pedido_evento) e tempo gasto em cada status
+ * (tb_pedido_status_duracao).
+ *
+ * Cada transição grava, na transação de quem altera o pedido, uma linha de histórico com
+ * o tempo no status anterior, medido desde a transição anterior (ou desde data_pedido,
+ * para quem sai de PENDENTE), marcada como pendente de agregação. O agregado do dia não é
+ * tocado ali: todas as transições disputariam a mesma linha (dia, status) dentro das
+ * transações de pagamento. Uma varredura periódica soma as linhas pendentes em lotes
+ * (FOR UPDATE SKIP LOCKED) com um upsert por (dia, status), então as durações aparecem
+ * no agregado com alguns segundos de atraso.
+ */
+@Service
+public class HistoricoStatusPedidoService {
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO tb_pedido_evento (id_pedido, status_anterior, status_novo, ocorrido_em, duracao_anterior_ms,"
+                    + " agregacao_pendente) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_PENDENTES_AGREGACAO =
+            "SELECT id_evento, status_anterior, ocorrido_em, duracao_anterior_ms FROM tb_pedido_evento"
+                    + " WHERE agregacao_pendente = ? ORDER BY id_evento LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SQL_SOMAR_AGREGADO_MARIADB =
+            "INSERT INTO tb_pedido_status_duracao (dia, status, quantidade, soma_ms, maximo_ms) VALUES (?, ?, ?, ?, ?)"
+                    + " ON DUPLICATE KEY UPDATE quantidade = quantidade + VALUES(quantidade),"
+                    + " soma_ms = soma_ms + VALUES(soma_ms), maximo_ms = GREATEST(maximo_ms, VALUES(maximo_ms))";
+
+    private static final String SQL_SOMAR_AGREGADO_POSTGRES =
+            "INSERT INTO tb_pedido_status_duracao AS d (dia, status, quantidade, soma_ms, maximo_ms)"
+                    + " VALUES (?, ?, ?, ?, ?) ON CONFLICT (dia, status) DO UPDATE SET"
+                    + " quantidade = d.quantidade + EXCLUDED.quantidade, soma_ms = d.soma_ms + EXCLUDED.soma_ms,"
+                    + " maximo_ms = GREATEST(d.maximo_ms, EXCLUDED.maximo_ms)";
+
+    private static final int MAX_LOTES_POR_VARREDURA = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${pedido.historico.agregacao.tamanho-lote:1000}")
+    private int tamanhoLoteAgregacao;
+
+    private String sqlSomarAgregado;
+
+    public HistoricoStatusPedidoService(JdbcTemplate jdbcTemplate, DataSource dataSource,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void identificarBanco() {
+        try (Connection conexao = dataSource.getConnection()) {
+            String produto = conexao.getMetaData().getDatabaseProductName().toLowerCase();
+            sqlSomarAgregado = produto.contains("postgres") ? SQL_SOMAR_AGREGADO_POSTGRES : SQL_SOMAR_AGREGADO_MARIADB;
+        } catch (Exception e) {
+            throw new IllegalStateException("Não foi possível identificar o banco do histórico de pedidos", e);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Integer idPedido, StatusPedido anterior, StatusPedido novo) {
+        registrar(List.of(idPedido), anterior, novo);
+    }
+
+    /**
+     * Registra a mesma transição para vários pedidos (alterações em lote via JDBC).
+     *
+     * @param anterior status de onde os pedidos saem, ou null na criação
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Collection<Integer> idsPedidos, StatusPedido anterior, StatusPedido novo) {
+        if (idsPedidos.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        Map<Integer, LocalDateTime> entradas = anterior == null
+                ? Collections.emptyMap()
+                : entradasNoStatusAtual(idsPedidos, anterior);
+
+        List<Object[]> linhas = new ArrayList<>(idsPedidos.size());
+        for (Integer idPedido : idsPedidos) {
+            LocalDateTime entrada = entradas.get(idPedido);
+            Long duracao = entrada == null ? null : Math.max(0, Duration.between(entrada, agora).toMillis());
+            // Sem duração não há o que agregar: a marca fica nula
+            linhas.add(new Object[] { idPedido, anterior == null ? null : anterior.name(), novo.name(),
+                    Timestamp.valueOf(agora), duracao, duracao == null ? null : Boolean.TRUE });
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERIR, linhas);
+    }
+
+    /**
+     * Soma no agregado diário as durações ainda não agregadas, em lotes com transação própria.
+     */
+    @Scheduled(fixedDelayString = "${pedido.historico.agregacao.intervalo-ms:10000}")
+    public void agregarDuracoes() {
+        int agregadas;
+        int lotes = 0;
+        do {
+            agregadas = transactionTemplate.execute(status -> agregarLote());
+            lotes++;
+        } while (agregadas == tamanhoLoteAgregacao && lotes < MAX_LOTES_POR_VARREDURA);
+    }
+
+    /**
+     * Um lote da agregação, na transação corrente. As linhas são somadas em memória por
+     * (dia, status) e aplicadas em ordem de chave, para que instâncias concorrentes não
+     * travem as mesmas linhas do agregado em ordens diferentes.
+     *
+     * @return quantidade de linhas de histórico agregadas
+     */
+    int agregarLote() {
+
+        Map<ChaveAgregado, long[]> somas = new TreeMap<>();
+        List<Long> ids = new ArrayList<>();
+        jdbcTemplate.query(SQL_PENDENTES_AGREGACAO,
+                rs -> {
+                    ids.add(rs.getLong(1));
+                    long duracao = rs.getLong(4);
+                    ChaveAgregado chave = new ChaveAgregado(rs.getTimestamp(3).toLocalDateTime().toLocalDate(),
+                            rs.getString(2));
+                    long[] soma = somas.computeIfAbsent(chave, c -> new long[3]);
+                    soma[0]++;
+                    soma[1] += duracao;
+                    soma[2] = Math.max(soma[2], duracao);
+                },
+                Boolean.TRUE, tamanhoLoteAgregacao);
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> linhas = new ArrayList<>(somas.size());
+        somas.forEach((chave, soma) -> linhas.add(new Object[] { Date.valueOf(chave.dia()), chave.status(),
+                soma[0], soma[1], soma[2] }));
+        jdbcTemplate.batchUpdate(sqlSomarAgregado, linhas);
+
+        jdbcTemplate.update("UPDATE tb_pedido_evento SET agregacao_pendente = NULL WHERE id_evento IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")", ids.toArray());
+        return ids.size();
+    }
+
+    public List<HistoricoStatusPedidoDTO> listar(Integer idPedido) {
+        return jdbcTemplate.query(
+                "SELECT status_anterior, status_novo, ocorrido_em, duracao_anterior_ms FROM tb_pedido_evento"
+                        + " WHERE id_pedido = ? ORDER BY ocorrido_em, id_evento",
+                (rs, linha) -> {
+                    String anterior = rs.getString(1);
+                    long duracao = rs.getLong(4);
+                    Long segundos = rs.wasNull() ? null : duracao / 1000;
+                    return new HistoricoStatusPedidoDTO(
+                            anterior == null ? null : StatusPedido.valueOf(anterior),
+                            StatusPedido.valueOf(rs.getString(2)),
+                            rs.getTimestamp(3).toLocalDateTime(),
+                            segundos);
+                },
+                idPedido);
+    }
+
+    /**
+     * Tempo médio e máximo em cada status, para os pedidos que saíram dele no período
+     * (inclui as transições já agregadas pela varredura).
+     */
+    public List<DuracaoStatusDTO> duracoes(LocalDate de, LocalDate ate) {
+        if (de.isAfter(ate)) {
+            throw new RegraNegocioException("A data inicial deve ser anterior ou igual à final.");
+        }
+
+        return jdbcTemplate.query(
+                "SELECT status, SUM(quantidade), SUM(soma_ms), MAX(maximo_ms) FROM tb_pedido_status_duracao"
+                        + " WHERE dia BETWEEN ? AND ? GROUP BY status ORDER BY status",
+                (rs, linha) -> {
+                    long quantidade = rs.getLong(2);
+                    long soma = rs.getLong(3);
+                    return new DuracaoStatusDTO(StatusPedido.valueOf(rs.getString(1)), quantidade,
+                            quantidade == 0 ? 0 : soma / quantidade / 1000, rs.getLong(4) / 1000);
+                },
+                Date.valueOf(de), Date.valueOf(ate));
+    }
+
+    /**
+     * Momento em que cada pedido entrou no status atual: a última transição registrada ou,
+     * sem histórico, a data do pedido se ele ainda está no status inicial.
+     */
+    private Map<Integer, LocalDateTime> entradasNoStatusAtual(Collection<Integer> idsPedidos, StatusPedido anterior) {
+
+        String emPedidos = " IN (" + String.join(", ", Collections.nCopies(idsPedidos.size(), "?")) + ")";
+        Map<Integer, LocalDateTime> entradas = new HashMap<>();
+
+        jdbcTemplate.query("SELECT id_pedido, MAX(ocorrido_em) FROM tb_pedido_evento WHERE id_pedido" + emPedidos
+                + " GROUP BY id_pedido",
+                rs -> {
+                    entradas.put(rs.getInt(1), rs.getTimestamp(2).toLocalDateTime());
+                },
+                idsPedidos.toArray());
+
+        if (anterior == StatusPedido.PENDENTE && entradas.size() < idsPedidos.size()) {
+            jdbcTemplate.query("SELECT id_pedido, data_pedido FROM tb_pedido WHERE id_pedido" + emPedidos,
+                    rs -> {
+                        entradas.putIfAbsent(rs.getInt(1), rs.getTimestamp(2).toLocalDateTime());
+                    },
+                    idsPedidos.toArray());
+        }
+        return entradas;
+    }
+
+    private record ChaveAgregado(LocalDate dia, String status) implements Comparable<ChaveAgregado> {
+
+        @Override
+        public int compareTo(ChaveAgregado outra) {
+            int porDia = dia.compareTo(outra.dia);
+            return porDia != 0 ? porDia : status.compareTo(outra.status);
+        }
+    }
+}
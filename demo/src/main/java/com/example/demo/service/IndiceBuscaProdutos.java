@@ -0,0 +1,308 @@
+package com.example.demo.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.event.ProdutoAlteradoEvent;
+import com.example.demo.repository.ProdutoRepository;
+
+/**
+ * Índice invertido em memória para a busca de produtos por texto.
+ *
+ * Substitui o LIKE '%termo%' (que varre tb_produto inteira) por uma busca em um
+ * mapa ordenado de termos: sem acentos e sem diferenciar maiúsculas, ignorando
+ * stopwords do português, com casamento por prefixo e ranking por relevância
+ * (termos do nome pesam mais que os da descrição, termos raros mais que os comuns).
+ *
+ * O índice é carregado em segundo plano na subida da aplicação e atualizado a cada
+ * ProdutoAlteradoEvent. Enquanto a carga inicial não termina, a busca vai ao banco e os
+ * eventos recebidos ficam guardados: um lote lido antes de uma alteração pode ser
+ * gravado no índice depois dela, então os produtos alterados são relidos do banco ao
+ * final da carga.
+ */
+@Component
+public class IndiceBuscaProdutos {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceBuscaProdutos.class);
+
+    private static final int PESO_NOME = 3;
+    private static final int PESO_DESCRICAO = 1;
+    private static final int TAMANHO_LOTE_CARGA = 500;
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas", "de", "do", "da", "dos", "das",
+            "e", "ou", "em", "no", "na", "nos", "nas", "para", "pra", "por", "com", "sem",
+            "ao", "aos", "que", "se", "sua", "seu", "suas", "seus");
+
+    private final ProdutoRepository produtoRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // termo -> (idProduto -> peso do termo no produto)
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    private final Map<Integer, String> nomes = new HashMap<>();
+    private final Map<Integer, Set<String>> termosPorProduto = new HashMap<>();
+
+    // Produtos alterados durante a carga inicial (null fora dela); protegido por "this"
+    private Set<Integer> alteradosNaCarga;
+
+    private volatile boolean pronto = false;
+
+    public IndiceBuscaProdutos(ProdutoRepository produtoRepository) {
+        this.produtoRepository = produtoRepository;
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    /**
+     * Carga inicial em uma thread virtual, para não atrasar a subida.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        iniciarCarga();
+        Thread.ofVirtual().name("indice-busca-produtos").start(() -> {
+            try {
+                long inicio = System.currentTimeMillis();
+                int total = indexarProdutos();
+                concluirCarga();
+
+                pronto = true;
+                logger.info("Índice de busca de produtos carregado: {} produtos em {} ms",
+                        total, System.currentTimeMillis() - inicio);
+
+            } catch (Exception e) {
+                synchronized (this) {
+                    alteradosNaCarga = null;
+                }
+                logger.error("Falha ao carregar o índice de busca de produtos; a busca continuará no banco", e);
+            }
+        });
+    }
+
+    /**
+     * A partir daqui, os eventos ficam guardados até concluirCarga().
+     */
+    synchronized void iniciarCarga() {
+        alteradosNaCarga = new HashSet<>();
+    }
+
+    /**
+     * Relê do banco os produtos alterados durante a carga, até não sobrar nenhum, e volta
+     * a aplicar os eventos assim que chegam.
+     */
+    void concluirCarga() {
+        while (true) {
+            Set<Integer> alterados;
+            synchronized (this) {
+                alterados = alteradosNaCarga;
+                if (alterados == null || alterados.isEmpty()) {
+                    alteradosNaCarga = null;
+                    return;
+                }
+                alteradosNaCarga = new HashSet<>();
+            }
+            alterados.forEach(this::reindexar);
+        }
+    }
+
+    /**
+     * Indexa os produtos não excluídos, em páginas por keyset. Retorna quantos indexou.
+     */
+    int indexarProdutos() {
+        Limit limite = Limit.of(TAMANHO_LOTE_CARGA);
+        List<ProdutoResponseDTO> lote = produtoRepository.listarResponseDTOPrimeiraPagina(limite);
+        int total = 0;
+
+        while (!lote.isEmpty()) {
+            lote.forEach(this::indexar);
+            total += lote.size();
+
+            ProdutoResponseDTO ultimo = lote.get(lote.size() - 1);
+            lote = produtoRepository.listarResponseDTOApos(ultimo.nome(), ultimo.id(), limite);
+        }
+        return total;
+    }
+
+    /**
+     * Mantém o índice em dia com o banco (somente após o commit da alteração).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        synchronized (this) {
+            if (alteradosNaCarga != null) {
+                alteradosNaCarga.add(evento.idProduto());
+                return;
+            }
+        }
+
+        if (evento.removido()) {
+            remover(evento.idProduto());
+            return;
+        }
+
+        reindexar(evento.idProduto());
+    }
+
+    private void reindexar(Integer idProduto) {
+        // Produto excluído (soft delete) não volta da consulta e sai do índice
+        produtoRepository.buscarResponseDTOPorId(idProduto)
+                .ifPresentOrElse(this::indexar, () -> remover(idProduto));
+    }
+
+    /**
+     * IDs dos produtos que contêm todos os termos da consulta (cada termo pode ser só
+     * o início de uma palavra), do mais relevante para o menos relevante.
+     * Preço e estoque mudam com frequência, então quem chama lê os dados atuais do banco.
+     */
+    public List<Integer> buscar(String consulta, int maximo) {
+
+        List<String> termosConsulta = analisar(consulta);
+        if (termosConsulta.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> pontuacoes = null;
+
+            for (String termo : termosConsulta) {
+                Map<Integer, Double> doTermo = pontuarTermo(termo);
+
+                if (pontuacoes == null) {
+                    pontuacoes = doTermo;
+                } else {
+                    // Todos os termos precisam casar (AND)
+                    pontuacoes.keySet().retainAll(doTermo.keySet());
+                    pontuacoes.replaceAll((id, pontos) -> pontos + doTermo.get(id));
+                }
+
+                if (pontuacoes.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return pontuacoes.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                            .thenComparing(e -> nomes.get(e.getKey()), Comparator.nullsLast(String::compareTo)))
+                    .limit(maximo)
+                    .map(Map.Entry::getKey)
+                    .toList();
+
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Double> pontuarTermo(String termo) {
+        Map<Integer, Double> pontuacoes = new HashMap<>();
+        double totalProdutos = Math.max(nomes.size(), 1);
+
+        // Casamento por prefixo: todos os termos do intervalo [termo, termo + MAX_VALUE)
+        for (Map.Entry<String, Map<Integer, Integer>> entrada
+                : postings.subMap(termo, true, termo + Character.MAX_VALUE, false).entrySet()) {
+
+            Map<Integer, Integer> ocorrencias = entrada.getValue();
+            double idf = Math.log(1 + totalProdutos / ocorrencias.size());
+            double fator = entrada.getKey().equals(termo) ? 2.0 : 1.0;
+
+            ocorrencias.forEach((idProduto, peso) ->
+                    pontuacoes.merge(idProduto, peso * idf * fator, Math::max));
+        }
+
+        return pontuacoes;
+    }
+
+    void indexar(ProdutoResponseDTO produto) {
+        Map<String, Integer> pesos = new HashMap<>();
+        analisar(produto.nome()).forEach(t -> pesos.merge(t, PESO_NOME, Integer::sum));
+        analisar(produto.descricao()).forEach(t -> pesos.merge(t, PESO_DESCRICAO, Integer::sum));
+
+        lock.writeLock().lock();
+        try {
+            removerSemLock(produto.id());
+
+            pesos.forEach((termo, peso) ->
+                    postings.computeIfAbsent(termo, t -> new HashMap<>()).put(produto.id(), peso));
+            nomes.put(produto.id(), produto.nome());
+            termosPorProduto.put(produto.id(), new HashSet<>(pesos.keySet()));
+
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remover(Integer idProduto) {
+        lock.writeLock().lock();
+        try {
+            removerSemLock(idProduto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removerSemLock(Integer idProduto) {
+        Set<String> termos = termosPorProduto.remove(idProduto);
+        nomes.remove(idProduto);
+        if (termos == null) {
+            return;
+        }
+
+        for (String termo : termos) {
+            Map<Integer, Integer> ocorrencias = postings.get(termo);
+            if (ocorrencias != null) {
+                ocorrencias.remove(idProduto);
+                if (ocorrencias.isEmpty()) {
+                    postings.remove(termo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Normaliza o texto: minúsculas, sem acentos, quebrado em palavras e sem stopwords.
+     */
+    static List<String> analisar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+
+        String normalizado = DIACRITICOS
+                .matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        List<String> termos = new ArrayList<>();
+        for (String termo : SEPARADORES.split(normalizado)) {
+            if (!termo.isEmpty() && !STOPWORDS.contains(termo)) {
+                termos.add(termo);
+            }
+        }
+        return termos;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.exception.RegraNegocioException;
+import com.example.demo.model.StatusPedido;
+
+/**
+ * Transições de status permitidas para um pedido.
+ *
+ * PENDENTE -> PAGO | CANCELADO
+ * PAGO -> EM_PREPARACAO | ENVIADO | CANCELADO
+ * EM_PREPARACAO -> ENVIADO
+ * ENVIADO -> ENTREGUE
+ *
+ * ENTREGUE e CANCELADO são finais. PAGO -> ENVIADO continua aceito para lojas que não
+ * registram a preparação.
+ */
+@Component
+public class MaquinaEstadosPedido {
+
+    private final Map<StatusPedido, Set<StatusPedido>> transicoes = new EnumMap<>(StatusPedido.class);
+
+    public MaquinaEstadosPedido() {
+        transicoes.put(StatusPedido.PENDENTE, EnumSet.of(StatusPedido.PAGO, StatusPedido.CANCELADO));
+        transicoes.put(StatusPedido.PAGO,
+                EnumSet.of(StatusPedido.EM_PREPARACAO, StatusPedido.ENVIADO, StatusPedido.CANCELADO));
+        transicoes.put(StatusPedido.EM_PREPARACAO, EnumSet.of(StatusPedido.ENVIADO));
+        transicoes.put(StatusPedido.ENVIADO, EnumSet.of(StatusPedido.ENTREGUE));
+        transicoes.put(StatusPedido.ENTREGUE, EnumSet.noneOf(StatusPedido.class));
+        transicoes.put(StatusPedido.CANCELADO, EnumSet.noneOf(StatusPedido.class));
+    }
+
+    public boolean podeTransitar(StatusPedido atual, StatusPedido novo) {
+        return transicoes.get(atual).contains(novo);
+    }
+
+    public boolean isFinal(StatusPedido status) {
+        return transicoes.get(status).isEmpty();
+    }
+
+    public Set<StatusPedido> proximos(StatusPedido atual) {
+        return Collections.unmodifiableSet(transicoes.get(atual));
+    }
+
+    public void validar(StatusPedido atual, StatusPedido novo) {
+        if (isFinal(atual)) {
+            throw new RegraNegocioException("Não é possível alterar o status de um pedido finalizado.");
+        }
+        if (!podeTransitar(atual, novo)) {
+            throw new RegraNegocioException("Transição de status inválida: " + atual + " -> " + novo);
+        }
+    }
+}
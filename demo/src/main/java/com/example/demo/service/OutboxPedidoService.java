@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.model.StatusEventoOutbox;
+import com.example.demo.model.TipoEventoPedido;
+
+/**
+ * Grava eventos de pedido na outbox (tb_pedido_outbox).
+ *
+ * Exige a transação de quem altera o pedido: evento e alteração fazem commit (ou rollback)
+ * juntos. Depois do commit o relay é acordado para entregar o evento sem esperar a
+ * próxima leitura periódica.
+ */
+@Service
+public class OutboxPedidoService {
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO tb_pedido_outbox (id_pedido, tipo, status, criado_em, disponivel_em, tentativas)"
+                    + " VALUES (?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RelayEventosPedido relay;
+
+    public OutboxPedidoService(JdbcTemplate jdbcTemplate, RelayEventosPedido relay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.relay = relay;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEventoPedido tipo, Integer idPedido) {
+        registrar(tipo, List.of(idPedido));
+    }
+
+    /**
+     * Um evento do mesmo tipo para cada pedido, em um único lote de INSERTs.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEventoPedido tipo, Collection<Integer> idsPedidos) {
+        if (idsPedidos.isEmpty()) {
+            return;
+        }
+
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> linhas = new ArrayList<>(idsPedidos.size());
+        for (Integer idPedido : idsPedidos) {
+            linhas.add(new Object[] { idPedido, tipo.name(), StatusEventoOutbox.PENDENTE.name(), agora, agora });
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERIR, linhas);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.acordar();
+            }
+        });
+    }
+}
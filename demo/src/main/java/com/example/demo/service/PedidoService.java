@@ -1,14 +1,19 @@
 package com.example.demo.service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.dto.CriarPedidoDTO;
+import com.example.demo.dto.PaginaCursorDTO;
 import com.example.demo.dto.PedidoResponseDTO;
 import com.example.demo.dto.PedidoResumoDTO;
 import com.example.demo.exception.RegraNegocioException;
@@ -19,15 +24,15 @@ import com.example.demo.model.Endereco;
 import com.example.demo.model.ItemCarrinho;
 import com.example.demo.model.ItemPedido;
 import com.example.demo.model.Pedido;
-import com.example.demo.model.Produto;
 import com.example.demo.model.StatusPedido;
+import com.example.demo.model.TipoEventoPedido;
 import com.example.demo.model.TipoPagamento;
 import com.example.demo.repository.CarrinhoRepository;
 import com.example.demo.repository.CartaoRepository;
 import com.example.demo.repository.ClienteRepository;
 import com.example.demo.repository.EnderecoRepository;
 import com.example.demo.repository.PedidoRepository;
-import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.util.CursorPaginacao;
 
 @Service
 public class PedidoService {
@@ -35,28 +40,34 @@ public class PedidoService {
     private final PedidoRepository pedidoRepository;
     private final CarrinhoRepository carrinhoRepository;
     private final ClienteRepository clienteRepository;
-    private final ProdutoRepository produtoRepository;
+    private final EstoqueService estoqueService;
     private final EnderecoRepository enderecoRepository;
-    private final QRCodeService qrCodeService;
-    private final PixService pixService;
     private final CartaoRepository cartaoRepository;
+    private final OutboxPedidoService outboxPedidoService;
+    private final HistoricoStatusPedidoService historicoStatusPedidoService;
+    private final MaquinaEstadosPedido maquinaEstados;
+    private final PixService pixService;
 
     public PedidoService(PedidoRepository pedidoRepository,
             CarrinhoRepository carrinhoRepository,
             ClienteRepository clienteRepository,
-            ProdutoRepository produtoRepository,
+            EstoqueService estoqueService,
             EnderecoRepository enderecoRepository,
-            QRCodeService qrCodeService,
-            PixService pixService,
-            CartaoRepository cartaoRepository) {
+            CartaoRepository cartaoRepository,
+            OutboxPedidoService outboxPedidoService,
+            HistoricoStatusPedidoService historicoStatusPedidoService,
+            MaquinaEstadosPedido maquinaEstados,
+            PixService pixService) {
         this.pedidoRepository = pedidoRepository;
         this.carrinhoRepository = carrinhoRepository;
         this.clienteRepository = clienteRepository;
-        this.produtoRepository = produtoRepository;
+        this.estoqueService = estoqueService;
         this.enderecoRepository = enderecoRepository;
-        this.qrCodeService = qrCodeService;
-        this.pixService = pixService;
         this.cartaoRepository = cartaoRepository;
+        this.outboxPedidoService = outboxPedidoService;
+        this.historicoStatusPedidoService = historicoStatusPedidoService;
+        this.maquinaEstados = maquinaEstados;
+        this.pixService = pixService;
     }
 
     @Transactional
@@ -119,38 +130,30 @@ public class PedidoService {
         pedido.setEnderecoEntrega(enderecoEntrega);
         pedido.setCartao(cartaoSelecionado);
 
-        for (ItemCarrinho itemCarrinho : carrinho.getItens()) {
-            Produto produto = itemCarrinho.getProduto();
+        Map<Integer, Integer> quantidades = new HashMap<>();
 
-            if (produto.getEstoque() < itemCarrinho.getQuantidade()) {
-                throw new RegraNegocioException(
-                        "Estoque insuficiente para o produto: " + produto.getNome() +
-                                ". Disponível: " + produto.getEstoque());
-            }
+        for (ItemCarrinho itemCarrinho : carrinho.getItens()) {
 
             ItemPedido itemPedido = new ItemPedido();
-            itemPedido.setProduto(produto);
+            itemPedido.setProduto(itemCarrinho.getProduto());
             itemPedido.setQuantidade(itemCarrinho.getQuantidade());
             itemPedido.setPrecoUnitario(itemCarrinho.getPrecoUnitario());
             itemPedido.setPedido(pedido);
 
             pedido.getItens().add(itemPedido);
 
-            produto.setEstoque(produto.getEstoque() - itemCarrinho.getQuantidade());
-            produtoRepository.save(produto);
+            quantidades.merge(itemCarrinho.getProduto().getId(), itemCarrinho.getQuantidade(), Integer::sum);
         }
 
+        estoqueService.debitar(quantidades);
+
         pedido.setValorTotal(pedido.calcularValorTotal());
 
         Pedido pedidoSalvo = pedidoRepository.save(pedido);
 
-        for (ItemPedido itemPedido : pedidoSalvo.getItens()) {
-            qrCodeService.gerarQRCodeParaItem(itemPedido);
-        }
-
-        if (dto.tipoPagamento() == TipoPagamento.PIX) {
-            pixService.gerarPagamentoPix(pedidoSalvo);
-        }
+        // QR Codes de rastreamento, cobrança PIX e auditoria saem da outbox (EfeitosColateraisPedido)
+        outboxPedidoService.registrar(TipoEventoPedido.PEDIDO_CRIADO, pedidoSalvo.getId());
+        historicoStatusPedidoService.registrar(pedidoSalvo.getId(), null, StatusPedido.PENDENTE);
 
         carrinho.getItens().clear();
         carrinhoRepository.save(carrinho);
@@ -160,59 +163,80 @@ public class PedidoService {
 
     public PedidoResponseDTO buscarPorId(Integer idPedido) {
 
-        Pedido pedido = pedidoRepository.findById(idPedido)
+        Pedido pedido = pedidoRepository.findDetalhadoById(idPedido)
                 .orElseThrow(() -> new RegraNegocioException("Pedido não encontrado com ID: " + idPedido));
 
         return new PedidoResponseDTO(pedido);
     }
 
-    public List<PedidoResumoDTO> listarPedidosDoCliente(Integer idCliente) {
+    public PaginaCursorDTO<PedidoResumoDTO> listarPedidosDoCliente(Integer idCliente, String cursor, Integer tamanho) {
 
-        List<Pedido> pedidos = pedidoRepository.findByCliente_IdClienteOrderByDataPedidoDesc(idCliente);
+        int tamanhoPagina = CursorPaginacao.tamanhoValido(tamanho);
+        CursorPaginacao.Cursor posicao = CursorPaginacao.decodificar(cursor);
+        Limit limite = Limit.of(tamanhoPagina + 1);
 
-        return pedidos.stream()
-                .map(PedidoResumoDTO::new)
-                .collect(Collectors.toList());
+        List<PedidoResumoDTO> pedidos = posicao == null
+                ? pedidoRepository.listarDoClientePrimeiraPagina(idCliente, limite)
+                : pedidoRepository.listarDoClienteApos(idCliente, lerDataDoCursor(posicao), posicao.id(), limite);
+
+        return paginaDePedidos(pedidos, tamanhoPagina);
     }
 
     public Page<PedidoResumoDTO> listarPedidosDoClientePaginado(Integer idCliente, Pageable pageable) {
 
-        Page<Pedido> pedidos = pedidoRepository.findByCliente_IdClienteOrderByDataPedidoDesc(idCliente, pageable);
+        return pedidoRepository.listarDoCliente(idCliente, pageable);
+    }
 
-        return pedidos.map(PedidoResumoDTO::new);
+    public PaginaCursorDTO<PedidoResumoDTO> listarPedidosDoFornecedor(Integer idFornecedor, String cursor,
+            Integer tamanho) {
+
+        int tamanhoPagina = CursorPaginacao.tamanhoValido(tamanho);
+        CursorPaginacao.Cursor posicao = CursorPaginacao.decodificar(cursor);
+        Limit limite = Limit.of(tamanhoPagina + 1);
+
+        List<PedidoResumoDTO> pedidos = posicao == null
+                ? pedidoRepository.listarDoFornecedorPrimeiraPagina(idFornecedor, limite)
+                : pedidoRepository.listarDoFornecedorApos(idFornecedor, lerDataDoCursor(posicao), posicao.id(),
+                        limite);
+
+        return paginaDePedidos(pedidos, tamanhoPagina);
     }
 
-    public List<PedidoResumoDTO> listarPedidosDoFornecedor(Integer idFornecedor) {
+    private PaginaCursorDTO<PedidoResumoDTO> paginaDePedidos(List<PedidoResumoDTO> pedidos, int tamanhoPagina) {
 
-        List<Pedido> pedidos = pedidoRepository.findPedidosPorFornecedor(idFornecedor);
+        return PaginaCursorDTO.de(pedidos, tamanhoPagina,
+                dto -> CursorPaginacao.codificar(dto.dataPedido().toString(), dto.id()));
+    }
 
-        return pedidos.stream()
-                .map(PedidoResumoDTO::new)
-                .collect(Collectors.toList());
+    private LocalDateTime lerDataDoCursor(CursorPaginacao.Cursor posicao) {
+        try {
+            return LocalDateTime.parse(posicao.chave());
+        } catch (DateTimeParseException e) {
+            throw new RegraNegocioException("Cursor de paginação inválido.", e);
+        }
     }
 
     public Page<PedidoResumoDTO> listarPedidosDoFornecedorPaginado(Integer idFornecedor, Pageable pageable) {
 
-        Page<Pedido> pedidos = pedidoRepository.findPedidosPorFornecedor(idFornecedor, pageable);
-
-        return pedidos.map(PedidoResumoDTO::new);
+        return pedidoRepository.listarDoFornecedor(idFornecedor, pageable);
     }
 
     @Transactional
     public PedidoResponseDTO atualizarStatus(Integer idPedido, StatusPedido novoStatus) {
 
-        Pedido pedido = pedidoRepository.findById(idPedido)
+        // Travado para que o status anterior validado e gravado no histórico seja o atual,
+        // e não o de uma leitura anterior a um webhook ou cancelamento concorrente
+        Pedido pedido = pedidoRepository.findParaAtualizarById(idPedido)
                 .orElseThrow(() -> new RegraNegocioException("Pedido não encontrado."));
 
-        if (pedido.estaFinalizado()) {
-            throw new RegraNegocioException("Não é possível alterar o status de um pedido finalizado.");
-        }
-
-        validarTransicaoStatus(pedido.getStatus(), novoStatus);
+        StatusPedido statusAnterior = pedido.getStatus();
+        maquinaEstados.validar(statusAnterior, novoStatus);
 
         pedido.setStatus(novoStatus);
 
         Pedido pedidoAtualizado = pedidoRepository.save(pedido);
+        outboxPedidoService.registrar(TipoEventoPedido.paraStatus(novoStatus), idPedido);
+        historicoStatusPedidoService.registrar(idPedido, statusAnterior, novoStatus);
 
         return new PedidoResponseDTO(pedidoAtualizado);
     }
@@ -220,44 +244,33 @@ public class PedidoService {
     @Transactional
     public PedidoResponseDTO cancelarPedido(Integer idPedido) {
 
-        Pedido pedido = pedidoRepository.findById(idPedido)
+        // PIX antes do pedido: mesma ordem de travas da expiração e do webhook. Se o
+        // cancelamento for recusado abaixo, a transação desfaz o cancelamento do PIX.
+        pixService.cancelarPendente(idPedido);
+
+        Pedido pedido = pedidoRepository.findParaAtualizarById(idPedido)
                 .orElseThrow(() -> new RegraNegocioException("Pedido não encontrado."));
 
-        if (!pedido.podeCancelar()) {
+        StatusPedido statusAnterior = pedido.getStatus();
+        if (!maquinaEstados.podeTransitar(statusAnterior, StatusPedido.CANCELADO)) {
             throw new RegraNegocioException("Não é possível cancelar um pedido com status: " + pedido.getStatus());
         }
 
+        // PIX gerado pela outbox (PEDIDO_CRIADO) entre o primeiro cancelamento e a trava do pedido
+        pixService.cancelarPendente(idPedido);
+
+        Map<Integer, Integer> quantidades = new HashMap<>();
         for (ItemPedido item : pedido.getItens()) {
-            Produto produto = item.getProduto();
-            produto.setEstoque(produto.getEstoque() + item.getQuantidade());
-            produtoRepository.save(produto);
+            quantidades.merge(item.getProduto().getId(), item.getQuantidade(), Integer::sum);
         }
+        estoqueService.creditar(quantidades);
 
         pedido.setStatus(StatusPedido.CANCELADO);
 
         Pedido pedidoCancelado = pedidoRepository.save(pedido);
+        outboxPedidoService.registrar(TipoEventoPedido.PEDIDO_CANCELADO, idPedido);
+        historicoStatusPedidoService.registrar(idPedido, statusAnterior, StatusPedido.CANCELADO);
 
         return new PedidoResponseDTO(pedidoCancelado);
     }
-
-    private void validarTransicaoStatus(StatusPedido statusAtual, StatusPedido novoStatus) {
-
-        if (statusAtual == StatusPedido.PENDENTE) {
-            if (novoStatus != StatusPedido.PAGO && novoStatus != StatusPedido.CANCELADO) {
-                throw new RegraNegocioException("Transição de status inválida: " + statusAtual + " -> " + novoStatus);
-            }
-        }
-
-        if (statusAtual == StatusPedido.PAGO) {
-            if (novoStatus != StatusPedido.ENVIADO && novoStatus != StatusPedido.CANCELADO) {
-                throw new RegraNegocioException("Transição de status inválida: " + statusAtual + " -> " + novoStatus);
-            }
-        }
-
-        if (statusAtual == StatusPedido.ENVIADO) {
-            if (novoStatus != StatusPedido.ENTREGUE) {
-                throw new RegraNegocioException("Transição de status inválida: " + statusAtual + " -> " + novoStatus);
-            }
-        }
-    }
 }
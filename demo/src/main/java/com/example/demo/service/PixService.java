@@ -1,32 +1,66 @@
 package com.example.demo.service;
 
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Base64;
-
-import javax.imageio.ImageIO;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.demo.exception.RegraNegocioException;
 import com.example.demo.model.PagamentoPix;
 import com.example.demo.model.Pedido;
 import com.example.demo.model.StatusPagamentoPix;
+import com.example.demo.model.StatusPedido;
+import com.example.demo.model.TipoEventoPedido;
 import com.example.demo.repository.PagamentoPixRepository;
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.example.demo.repository.PedidoRepository;
+import com.example.demo.util.BrCode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class PixService {
 
+    private static final int TAMANHO_QRCODE_PIX = 350;
+
+    private static final int MAX_LOTES_POR_VARREDURA = 100;
+
+    private static final String SQL_TRAVAR_VENCIDOS =
+            "SELECT id_pedido FROM tb_pagamentos_pix WHERE status_pagamento = ? AND data_expiracao < ?"
+                    + " ORDER BY data_expiracao LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SQL_VENCIDO_MAIS_ANTIGO =
+            "SELECT MIN(data_expiracao) FROM tb_pagamentos_pix WHERE status_pagamento = ? AND data_expiracao < ?";
+
     private final PagamentoPixRepository pagamentoPixRepository;
+    private final PedidoRepository pedidoRepository;
+    private final QRCodeRenderer qrCodeRenderer;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EstoqueService estoqueService;
+    private final OutboxPedidoService outboxPedidoService;
+    private final HistoricoStatusPedidoService historicoStatusPedidoService;
+    private final Counter totalExpirados;
+    private final AtomicLong atrasoVarreduraSegundos = new AtomicLong();
+
+    /** Campos fixos do recebedor já codificados; só valor e txid variam por cobrança. */
+    private BrCode brCode;
 
     @Value("${pix.chave:12345678000190}")
     private String pixChave;
@@ -40,8 +74,35 @@ public class PixService {
     @Value("${pix.minutos-expiracao:15}")
     private Integer minutosExpiracao;
 
-    public PixService(PagamentoPixRepository pagamentoPixRepository) {
+    @Value("${pix.expiracao.tamanho-lote:200}")
+    private int tamanhoLoteExpiracao;
+
+    public PixService(PagamentoPixRepository pagamentoPixRepository, PedidoRepository pedidoRepository,
+            QRCodeRenderer qrCodeRenderer,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EstoqueService estoqueService, OutboxPedidoService outboxPedidoService,
+            HistoricoStatusPedidoService historicoStatusPedidoService, MeterRegistry meterRegistry) {
         this.pagamentoPixRepository = pagamentoPixRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.outboxPedidoService = outboxPedidoService;
+        this.historicoStatusPedidoService = historicoStatusPedidoService;
+        this.qrCodeRenderer = qrCodeRenderer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.estoqueService = estoqueService;
+
+        this.totalExpirados = Counter.builder("pix.expirados")
+                .description("PIX expirados pela varredura (pedidos cancelados e estoque devolvido)")
+                .register(meterRegistry);
+        Gauge.builder("pix.expiracao.atraso", atrasoVarreduraSegundos, AtomicLong::get)
+                .baseUnit("seconds")
+                .description("Tempo desde o vencimento do PIX pendente mais antigo ainda não expirado")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void prepararBrCode() {
+        this.brCode = new BrCode(pixChave, nomeBeneficiario, cidade);
     }
 
     @Transactional
@@ -51,24 +112,19 @@ public class PixService {
             throw new RegraNegocioException("Este pedido já possui um pagamento PIX gerado.");
         }
 
-        String codigoPix = gerarCodigoPixEMV(pedido);
-
-        String qrCodeBase64;
-        try {
-            qrCodeBase64 = gerarQRCodePix(codigoPix);
-        } catch (WriterException | IOException e) {
-            throw new RegraNegocioException("Erro ao gerar QR Code do PIX: " + e.getMessage());
-        }
+        String txid = gerarTxid(pedido);
+        String codigoPix = brCode.gerar(pedido.getValorTotal(), txid);
 
         LocalDateTime dataExpiracao = LocalDateTime.now().plusMinutes(minutosExpiracao);
 
         PagamentoPix pagamentoPix = new PagamentoPix();
         pagamentoPix.setPedido(pedido);
         pagamentoPix.setCodigoPix(codigoPix);
-        pagamentoPix.setQrCodePix(qrCodeBase64);
         pagamentoPix.setValorPix(pedido.getValorTotal());
         pagamentoPix.setDataExpiracao(dataExpiracao);
         pagamentoPix.setStatusPagamento(StatusPagamentoPix.PENDENTE);
+        // O mesmo txid do campo 62-05 do código: é por ele que o webhook do PSP identifica a cobrança
+        pagamentoPix.setTxid(txid);
 
         return pagamentoPixRepository.save(pagamentoPix);
     }
@@ -79,10 +135,26 @@ public class PixService {
                         "Nenhum pagamento PIX encontrado para este pedido."));
     }
 
+    /**
+     * Confirmação manual do PIX. Trava o PIX e depois o pedido, na mesma ordem do webhook e
+     * da varredura de expiração: um pagamento confirmado ou cancelado por eles enquanto
+     * esta confirmação aguardava é visto aqui e recusado, sem gerar um segundo PEDIDO_PAGO.
+     */
     @Transactional
     public PagamentoPix confirmarPagamento(Integer idPedido, String txid) {
 
-        PagamentoPix pagamentoPix = buscarPorPedido(idPedido);
+        PagamentoPix pagamentoPix = pagamentoPixRepository.findParaAtualizarByIdPedido(idPedido)
+                .orElseThrow(() -> new RegraNegocioException(
+                        "Nenhum pagamento PIX encontrado para este pedido."));
+
+        if (pagamentoPix.getStatusPagamento() == StatusPagamentoPix.CONFIRMADO) {
+            throw new RegraNegocioException("Este PIX já foi confirmado anteriormente.");
+        }
+
+        if (pagamentoPix.getStatusPagamento() != StatusPagamentoPix.PENDENTE) {
+            throw new RegraNegocioException("Este PIX está " + pagamentoPix.getStatusPagamento().name().toLowerCase()
+                    + " e não pode ser confirmado.");
+        }
 
         if (pagamentoPix.isExpirado()) {
             pagamentoPix.expirarPagamento();
@@ -90,92 +162,133 @@ public class PixService {
             throw new RegraNegocioException("Este PIX está expirado e não pode ser confirmado.");
         }
 
-        if (pagamentoPix.getStatusPagamento() == StatusPagamentoPix.CONFIRMADO) {
-            throw new RegraNegocioException("Este PIX já foi confirmado anteriormente.");
+        Pedido pedido = pedidoRepository.findParaAtualizarById(idPedido)
+                .orElseThrow(() -> new RegraNegocioException("Pedido não encontrado."));
+
+        if (pedido.getStatus() != StatusPedido.PENDENTE) {
+            throw new RegraNegocioException("Não é possível confirmar o pagamento de um pedido com status: "
+                    + pedido.getStatus());
         }
 
         pagamentoPix.confirmarPagamento(txid);
-
-        Pedido pedido = pagamentoPix.getPedido();
         pedido.marcarComoPago();
+        outboxPedidoService.registrar(TipoEventoPedido.PEDIDO_PAGO, pedido.getId());
+        historicoStatusPedidoService.registrar(pedido.getId(), StatusPedido.PENDENTE, StatusPedido.PAGO);
 
         return pagamentoPixRepository.save(pagamentoPix);
     }
 
-    @Transactional
-    public void expirarPixVencidos() {
-
+    /**
+     * Cancela o PIX ainda pendente do pedido, na transação do cancelamento do pedido.
+     * O UPDATE trava a linha do PIX: um pagamento recebido pelo webhook depois disso
+     * encontra o PIX cancelado e é tratado como devolução.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cancelarPendente(Integer idPedido) {
+        jdbcTemplate.update("UPDATE tb_pagamentos_pix SET status_pagamento = ?, updated_at = ?"
+                + " WHERE id_pedido = ? AND status_pagamento = ?",
+                StatusPagamentoPix.CANCELADO.name(), Timestamp.valueOf(LocalDateTime.now()), idPedido,
+                StatusPagamentoPix.PENDENTE.name());
     }
 
-    private String gerarCodigoPixEMV(Pedido pedido) {
-
-        StringBuilder emv = new StringBuilder();
-
-        emv.append("00020126");
-
-        String merchantAccount = String.format("0014BR.GOV.BCB.PIX01%02d%s",
-                pixChave.length(), pixChave);
-        emv.append(String.format("26%02d%s", merchantAccount.length(), merchantAccount));
-
-        emv.append("52040000");
-
-        emv.append("5303986");
-
-        String valor = pedido.getValorTotal().setScale(2).toString();
-        emv.append(String.format("54%02d%s", valor.length(), valor));
-
-        emv.append("5802BR");
-
-        emv.append(String.format("59%02d%s", nomeBeneficiario.length(), nomeBeneficiario));
-
-        emv.append(String.format("60%02d%s", cidade.length(), cidade));
-
-        String txid = "PEDIDO" + String.format("%06d", pedido.getId());
-        String additionalData = String.format("05%02d%s", txid.length(), txid);
-        emv.append(String.format("62%02d%s", additionalData.length(), additionalData));
-
-        emv.append("6304");
-        String crc = calcularCRC16(emv.toString());
-        emv.append(crc);
+    /**
+     * Expira os PIX pendentes vencidos, cancela os pedidos e devolve o estoque reservado.
+     *
+     * Processa em lotes, cada um em sua própria transação. O SELECT ... FOR UPDATE SKIP LOCKED
+     * faz com que instâncias rodando a varredura ao mesmo tempo peguem lotes diferentes
+     * em vez de esperarem umas pelas outras.
+     */
+    @Scheduled(fixedDelayString = "${pix.expiracao.varredura-ms:30000}")
+    public void expirarPixVencidos() {
 
-        return emv.toString();
+        int expirados;
+        int lotes = 0;
+        do {
+            LocalDateTime agora = LocalDateTime.now();
+            expirados = transactionTemplate.execute(status -> expirarLote(agora));
+            totalExpirados.increment(expirados);
+            lotes++;
+        } while (expirados == tamanhoLoteExpiracao && lotes < MAX_LOTES_POR_VARREDURA);
+
+        // Atraso da varredura: há quanto tempo o PIX vencido mais antigo aguarda expiração
+        Timestamp maisAntigo = jdbcTemplate.queryForObject(SQL_VENCIDO_MAIS_ANTIGO, Timestamp.class,
+                StatusPagamentoPix.PENDENTE.name(), Timestamp.valueOf(LocalDateTime.now()));
+        atrasoVarreduraSegundos.set(maisAntigo == null ? 0
+                : Duration.between(maisAntigo.toLocalDateTime(), LocalDateTime.now()).getSeconds());
     }
 
-    private String gerarQRCodePix(String codigoPix) throws WriterException, IOException {
+    private int expirarLote(LocalDateTime agora) {
 
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(
-                codigoPix,
-                BarcodeFormat.QR_CODE,
-                350,
-                350);
+        List<Integer> idsPedidos = jdbcTemplate.queryForList(SQL_TRAVAR_VENCIDOS, Integer.class,
+                StatusPagamentoPix.PENDENTE.name(), Timestamp.valueOf(agora), tamanhoLoteExpiracao);
 
-        BufferedImage imagem = MatrixToImageWriter.toBufferedImage(bitMatrix);
+        if (idsPedidos.isEmpty()) {
+            return 0;
+        }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(imagem, "PNG", baos);
-        byte[] bytes = baos.toByteArray();
-        String base64 = Base64.getEncoder().encodeToString(bytes);
+        String emPedidos = " IN (" + placeholders(idsPedidos.size()) + ")";
+        Timestamp instante = Timestamp.valueOf(agora);
+
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(StatusPagamentoPix.EXPIRADO.name());
+        parametros.add(instante);
+        parametros.addAll(idsPedidos);
+        jdbcTemplate.update("UPDATE tb_pagamentos_pix SET status_pagamento = ?, updated_at = ?"
+                + " WHERE id_pedido" + emPedidos, parametros.toArray());
+
+        // Só pedidos ainda pendentes são cancelados (e só eles devolvem estoque)
+        List<Object> parametrosPedidos = new ArrayList<>(idsPedidos);
+        parametrosPedidos.add(StatusPedido.PENDENTE.name());
+        List<Integer> cancelados = jdbcTemplate.queryForList(
+                "SELECT id_pedido FROM tb_pedido WHERE id_pedido" + emPedidos + " AND status = ? FOR UPDATE",
+                Integer.class, parametrosPedidos.toArray());
+
+        if (cancelados.isEmpty()) {
+            return idsPedidos.size();
+        }
 
-        return "data:image/png;base64," + base64;
+        String emCancelados = " IN (" + placeholders(cancelados.size()) + ")";
+
+        List<Object> parametrosCancelamento = new ArrayList<>();
+        parametrosCancelamento.add(StatusPedido.CANCELADO.name());
+        parametrosCancelamento.add(instante);
+        parametrosCancelamento.addAll(cancelados);
+        jdbcTemplate.update("UPDATE tb_pedido SET status = ?, updated_at = ? WHERE id_pedido" + emCancelados,
+                parametrosCancelamento.toArray());
+        outboxPedidoService.registrar(TipoEventoPedido.PEDIDO_CANCELADO, cancelados);
+        historicoStatusPedidoService.registrar(cancelados, StatusPedido.PENDENTE, StatusPedido.CANCELADO);
+
+        Map<Integer, Integer> quantidades = new HashMap<>();
+        jdbcTemplate.query("SELECT id_produto, SUM(quantidade) FROM tb_item_pedido WHERE id_pedido" + emCancelados
+                + " GROUP BY id_produto",
+                rs -> {
+                    quantidades.put(rs.getInt(1), rs.getInt(2));
+                },
+                cancelados.toArray());
+        estoqueService.creditar(quantidades);
+
+        return idsPedidos.size();
     }
 
-    private String calcularCRC16(String payload) {
+    private static String placeholders(int quantidade) {
+        return String.join(", ", Collections.nCopies(quantidade, "?"));
+    }
 
-        int crc = 0xFFFF;
-        byte[] bytes = payload.getBytes();
+    private static String gerarTxid(Pedido pedido) {
+        return "PEDIDO" + String.format("%06d", pedido.getId());
+    }
 
-        for (byte b : bytes) {
-            crc ^= (b & 0xFF) << 8;
-            for (int i = 0; i < 8; i++) {
-                if ((crc & 0x8000) != 0) {
-                    crc = (crc << 1) ^ 0x1021;
-                } else {
-                    crc = crc << 1;
-                }
-            }
-        }
+    /**
+     * PNG do QR Code do PIX, renderizado sob demanda a partir do código copia e cola.
+     */
+    public byte[] renderizarQRCodePix(PagamentoPix pagamentoPix) {
+        return qrCodeRenderer.renderizarPng(pagamentoPix.getCodigoPix(), TAMANHO_QRCODE_PIX);
+    }
 
-        return String.format("%04X", crc & 0xFFFF);
+    /**
+     * ETag da imagem do QR Code do PIX.
+     */
+    public String calcularEtagQRCodePix(PagamentoPix pagamentoPix) {
+        return "\"" + qrCodeRenderer.calcularHash(pagamentoPix.getCodigoPix(), TAMANHO_QRCODE_PIX) + "\"";
     }
 }
\ No newline at end of file
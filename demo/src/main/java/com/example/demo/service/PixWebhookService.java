@@ -0,0 +1,498 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.dto.PixWebhookDTO;
+import com.example.demo.dto.PixWebhookRespostaDTO;
+import com.example.demo.exception.AcessoNegadoException;
+import com.example.demo.exception.RegraNegocioException;
+import com.example.demo.model.StatusPagamentoPix;
+import com.example.demo.model.StatusPedido;
+import com.example.demo.model.StatusWebhookPix;
+import com.example.demo.model.TipoEventoPedido;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Recebe as notificações de PIX pagos enviadas pelo PSP e confirma os pagamentos em lote.
+ *
+ * A requisição só grava as notificações em tb_pix_webhook e responde: a chave primária
+ * no txid descarta os reenvios do PSP na própria inserção (INSERT sem erro em duplicata).
+ * Depois do commit, os txids novos entram em uma fila limitada consumida por threads
+ * virtuais, que confirmam PIX e pedidos com um UPDATE por lote. Notificações que não
+ * couberem na fila, ou cujo lote falhar, continuam RECEBIDAS e são recolocadas pela
+ * varredura periódica.
+ */
+@Service
+public class PixWebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PixWebhookService.class);
+
+    private static final String SQL_INSERIR_MARIADB =
+            "INSERT IGNORE INTO tb_pix_webhook (txid, end_to_end_id, valor, horario, status, recebido_em)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_INSERIR_POSTGRES =
+            "INSERT INTO tb_pix_webhook (txid, end_to_end_id, valor, horario, status, recebido_em)"
+                    + " VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (txid) DO NOTHING";
+
+    private static final String SQL_ATUALIZAR_NOTIFICACAO =
+            "UPDATE tb_pix_webhook SET status = ?, motivo = ?, processado_em = ? WHERE txid = ?";
+
+    private static final String SQL_CONFIRMAR_PIX =
+            "UPDATE tb_pagamentos_pix SET status_pagamento = ?, data_confirmacao = ?, updated_at = ?"
+                    + " WHERE id_pedido = ? AND status_pagamento = ?";
+
+    private static final String SQL_PENDENTES_ANTIGOS =
+            "SELECT txid FROM tb_pix_webhook WHERE status = ? AND recebido_em < ? ORDER BY recebido_em LIMIT ?";
+
+    private static final String ALGORITMO_ASSINATURA = "HmacSHA256";
+    private static final String PREFIXO_ASSINATURA = "sha256=";
+    private static final String[] PERFIS_SEM_ASSINATURA = { "dev", "simulador-psp" };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxPedidoService outboxPedidoService;
+    private final HistoricoStatusPedidoService historicoStatusPedidoService;
+    private final Environment environment;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BlockingQueue<String> fila;
+    private final Set<String> emAndamento = ConcurrentHashMap.newKeySet();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Counter recebidos;
+    private final Counter duplicados;
+    private final Counter confirmados;
+    private final Counter ignorados;
+    private final Counter falhas;
+    private final Counter rejeitados;
+    private final Timer tempoLote;
+
+    @Value("${pix.webhook.segredo:}")
+    private String segredo;
+
+    @Value("${pix.webhook.threads:2}")
+    private int quantidadeWorkers;
+
+    @Value("${pix.webhook.tamanho-lote:200}")
+    private int tamanhoLote;
+
+    private String sqlInserir;
+
+    /** Chave do HMAC das notificações; nula quando pix.webhook.segredo não foi configurado. */
+    private SecretKeySpec chaveAssinatura;
+    private boolean semAssinaturaPermitida;
+
+    private volatile boolean executando = true;
+
+    public PixWebhookService(JdbcTemplate jdbcTemplate, DataSource dataSource,
+            PlatformTransactionManager transactionManager, OutboxPedidoService outboxPedidoService,
+            HistoricoStatusPedidoService historicoStatusPedidoService, Environment environment,
+            ObjectMapper objectMapper, Validator validator, MeterRegistry meterRegistry,
+            @Value("${pix.webhook.capacidade-fila:10000}") int capacidadeFila) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.outboxPedidoService = outboxPedidoService;
+        this.historicoStatusPedidoService = historicoStatusPedidoService;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+
+        Gauge.builder("pix.webhook.fila.tamanho", fila, BlockingQueue::size).register(meterRegistry);
+        this.recebidos = meterRegistry.counter("pix.webhook.recebidos");
+        this.duplicados = meterRegistry.counter("pix.webhook.duplicados");
+        this.confirmados = meterRegistry.counter("pix.webhook.confirmados");
+        this.ignorados = meterRegistry.counter("pix.webhook.ignorados");
+        this.falhas = meterRegistry.counter("pix.webhook.falhas");
+        this.rejeitados = meterRegistry.counter("pix.webhook.fila.rejeitados");
+        this.tempoLote = meterRegistry.timer("pix.webhook.lote.tempo");
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        try (Connection conexao = dataSource.getConnection()) {
+            String produto = conexao.getMetaData().getDatabaseProductName().toLowerCase();
+            sqlInserir = produto.contains("postgres") ? SQL_INSERIR_POSTGRES : SQL_INSERIR_MARIADB;
+        } catch (Exception e) {
+            throw new IllegalStateException("Não foi possível identificar o banco do webhook PIX", e);
+        }
+
+        if (!segredo.isEmpty()) {
+            chaveAssinatura = new SecretKeySpec(segredo.getBytes(StandardCharsets.UTF_8), ALGORITMO_ASSINATURA);
+        } else if (environment.acceptsProfiles(Profiles.of(PERFIS_SEM_ASSINATURA))) {
+            semAssinaturaPermitida = true;
+            logger.warn("Webhook PIX aceitando notificações sem assinatura (perfil de desenvolvimento)");
+        } else {
+            logger.error("pix.webhook.segredo não configurado: todas as notificações do webhook PIX serão recusadas");
+        }
+
+        for (int i = 0; i < quantidadeWorkers; i++) {
+            workers.add(Thread.ofVirtual().name("pix-webhook-worker-" + i).start(this::processarFila));
+        }
+    }
+
+    @PreDestroy
+    public void parar() {
+        executando = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Confere a assinatura "sha256={hex}" do cabeçalho X-Webhook-Signature: HMAC-SHA256 do
+     * corpo da requisição com pix.webhook.segredo. Sem segredo configurado, toda notificação
+     * é recusada, exceto nos perfis de desenvolvimento (dev, simulador-psp).
+     */
+    public void validarAssinatura(String assinatura, byte[] corpo) {
+        if (chaveAssinatura == null) {
+            if (semAssinaturaPermitida) {
+                return;
+            }
+            throw new AcessoNegadoException("Webhook PIX desabilitado: pix.webhook.segredo não configurado.");
+        }
+
+        byte[] recebida;
+        try {
+            String hex = assinatura == null ? "" : assinatura.trim();
+            hex = hex.startsWith(PREFIXO_ASSINATURA) ? hex.substring(PREFIXO_ASSINATURA.length()) : hex;
+            recebida = HexFormat.of().parseHex(hex);
+        } catch (IllegalArgumentException e) {
+            throw new AcessoNegadoException("Assinatura do webhook PIX inválida.");
+        }
+
+        if (!MessageDigest.isEqual(hmac(chaveAssinatura, corpo), recebida)) {
+            throw new AcessoNegadoException("Assinatura do webhook PIX inválida.");
+        }
+    }
+
+    /**
+     * Valor do cabeçalho X-Webhook-Signature para o corpo informado (usado pelo PSP simulado).
+     */
+    public static String assinar(String segredo, byte[] corpo) {
+        SecretKeySpec chave = new SecretKeySpec(segredo.getBytes(StandardCharsets.UTF_8), ALGORITMO_ASSINATURA);
+        return PREFIXO_ASSINATURA + HexFormat.of().formatHex(hmac(chave, corpo));
+    }
+
+    /**
+     * Lê e valida o corpo já autenticado por {@link #validarAssinatura}.
+     */
+    public PixWebhookDTO ler(byte[] corpo) {
+        PixWebhookDTO dto;
+        try {
+            dto = objectMapper.readValue(corpo, PixWebhookDTO.class);
+        } catch (IOException e) {
+            throw new RegraNegocioException("Corpo do webhook PIX inválido.", e);
+        }
+
+        Set<ConstraintViolation<PixWebhookDTO>> violacoes = dto == null ? Set.of() : validator.validate(dto);
+        if (dto == null || !violacoes.isEmpty()) {
+            throw new RegraNegocioException("Notificação PIX inválida: " + violacoes.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return dto;
+    }
+
+    private static byte[] hmac(SecretKeySpec chave, byte[] corpo) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO_ASSINATURA);
+            mac.init(chave);
+            return mac.doFinal(corpo);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC indisponível para o webhook PIX", e);
+        }
+    }
+
+    /**
+     * Registra as notificações do lote, descartando os txids já recebidos, e agenda o
+     * processamento dos novos para depois do commit.
+     */
+    @Transactional
+    public PixWebhookRespostaDTO receber(PixWebhookDTO dto) {
+
+        // O mesmo txid pode vir repetido dentro do próprio lote
+        Map<String, PixWebhookDTO.PixRecebido> porTxid = new LinkedHashMap<>();
+        dto.pix().forEach(pix -> porTxid.putIfAbsent(pix.txid(), pix));
+
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> linhas = new ArrayList<>(porTxid.size());
+        for (PixWebhookDTO.PixRecebido pix : porTxid.values()) {
+            LocalDateTime horario = pix.horario().atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            linhas.add(new Object[] { pix.txid(), pix.endToEndId(), pix.valor(), Timestamp.valueOf(horario),
+                    StatusWebhookPix.RECEBIDO.name(), agora });
+        }
+
+        int[] resultados = jdbcTemplate.batchUpdate(sqlInserir, linhas);
+
+        // 0 = duplicata ignorada; o driver pode não informar a contagem (SUCCESS_NO_INFO),
+        // e nesse caso o txid é enfileirado mesmo assim: só notificações RECEBIDAS são processadas
+        List<String> novos = new ArrayList<>();
+        int i = 0;
+        for (String txid : porTxid.keySet()) {
+            if (resultados[i++] != 0) {
+                novos.add(txid);
+            }
+        }
+
+        int duplicadosLote = dto.pix().size() - novos.size();
+        recebidos.increment(dto.pix().size());
+        duplicados.increment(duplicadosLote);
+
+        enfileirarAposCommit(novos);
+
+        return new PixWebhookRespostaDTO(dto.pix().size(), novos.size(), duplicadosLote);
+    }
+
+    /**
+     * Recoloca na fila as notificações esquecidas (fila cheia, falha ou reinício).
+     */
+    @Scheduled(fixedDelayString = "${pix.webhook.varredura-ms:30000}")
+    public void varrerPendentes() {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minusSeconds(30));
+        jdbcTemplate.queryForList(SQL_PENDENTES_ANTIGOS, String.class,
+                StatusWebhookPix.RECEBIDO.name(), limite, fila.remainingCapacity())
+                .forEach(this::enfileirar);
+    }
+
+    private void enfileirarAposCommit(List<String> txids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            txids.forEach(this::enfileirar);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                txids.forEach(PixWebhookService.this::enfileirar);
+            }
+        });
+    }
+
+    private void enfileirar(String txid) {
+        if (!emAndamento.add(txid)) {
+            return;
+        }
+        if (!fila.offer(txid)) {
+            emAndamento.remove(txid);
+            rejeitados.increment();
+        }
+    }
+
+    private void processarFila() {
+        List<String> lote = new ArrayList<>(tamanhoLote);
+        while (executando) {
+            String primeiro;
+            try {
+                primeiro = fila.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (primeiro == null) {
+                continue;
+            }
+
+            lote.add(primeiro);
+            fila.drainTo(lote, tamanhoLote - 1);
+            try {
+                tempoLote.record(() -> processar(lote));
+            } catch (Exception e) {
+                // As notificações continuam RECEBIDAS e voltam pela varredura
+                falhas.increment(lote.size());
+                logger.error("Falha ao processar lote de {} notificações PIX: {}", lote.size(), e.getMessage());
+            } finally {
+                emAndamento.removeAll(lote);
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Confirma as notificações RECEBIDAS dentre os txids informados, em uma transação.
+     */
+    void processar(List<String> txids) {
+        transactionTemplate.executeWithoutResult(status -> processarLote(txids));
+    }
+
+    private void processarLote(List<String> txids) {
+
+        String emTxids = " IN (" + placeholders(txids.size()) + ")";
+
+        // SKIP LOCKED: notificações que outra instância já está processando ficam com ela
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(StatusWebhookPix.RECEBIDO.name());
+        parametros.addAll(txids);
+        List<Notificacao> notificacoes = jdbcTemplate.query(
+                "SELECT txid, valor, horario FROM tb_pix_webhook WHERE status = ? AND txid" + emTxids
+                        + " FOR UPDATE SKIP LOCKED",
+                (rs, linha) -> new Notificacao(rs.getString(1), rs.getBigDecimal(2),
+                        rs.getTimestamp(3).toLocalDateTime()),
+                parametros.toArray());
+
+        if (notificacoes.isEmpty()) {
+            return;
+        }
+
+        List<String> txidsRecebidos = notificacoes.stream().map(Notificacao::txid).toList();
+        Map<String, Cobranca> cobrancas = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT pix.txid, pix.id_pedido, pix.valor_pix, pix.data_expiracao, pix.status_pagamento, p.status"
+                        + " FROM tb_pagamentos_pix pix JOIN tb_pedido p ON p.id_pedido = pix.id_pedido"
+                        + " WHERE pix.txid IN (" + placeholders(txidsRecebidos.size()) + ") FOR UPDATE",
+                rs -> {
+                    cobrancas.put(rs.getString(1), new Cobranca(rs.getInt(2), rs.getBigDecimal(3),
+                            rs.getTimestamp(4).toLocalDateTime(),
+                            StatusPagamentoPix.valueOf(rs.getString(5)), StatusPedido.valueOf(rs.getString(6))));
+                },
+                txidsRecebidos.toArray());
+
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> confirmacoes = new ArrayList<>();
+        List<Integer> idsPedidos = new ArrayList<>();
+        List<Object[]> situacoes = new ArrayList<>(notificacoes.size());
+        int descartadas = 0;
+
+        for (Notificacao notificacao : notificacoes) {
+            Cobranca cobranca = cobrancas.get(notificacao.txid());
+            String motivo = motivoDescarte(notificacao, cobranca);
+
+            if (motivo == null && cobranca.status() == StatusPagamentoPix.PENDENTE) {
+                confirmacoes.add(new Object[] { StatusPagamentoPix.CONFIRMADO.name(),
+                        Timestamp.valueOf(notificacao.horario()), agora, cobranca.idPedido(),
+                        StatusPagamentoPix.PENDENTE.name() });
+                idsPedidos.add(cobranca.idPedido());
+            }
+
+            if (motivo != null) {
+                descartadas++;
+                logger.warn("Notificação PIX {} ignorada: {}", notificacao.txid(), motivo);
+            }
+
+            StatusWebhookPix status = motivo == null ? StatusWebhookPix.PROCESSADO : StatusWebhookPix.IGNORADO;
+            situacoes.add(new Object[] { status.name(), motivo, agora, notificacao.txid() });
+        }
+
+        if (!confirmacoes.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_CONFIRMAR_PIX, confirmacoes);
+            marcarPedidosPagos(idsPedidos, agora);
+        }
+        jdbcTemplate.batchUpdate(SQL_ATUALIZAR_NOTIFICACAO, situacoes);
+
+        confirmados.increment(confirmacoes.size());
+        ignorados.increment(descartadas);
+    }
+
+    /**
+     * Motivo para não confirmar o pagamento, ou null se a notificação é válida.
+     * PIX já confirmado (por exemplo, manualmente) não é motivo de descarte.
+     */
+    private static String motivoDescarte(Notificacao notificacao, Cobranca cobranca) {
+        if (cobranca == null) {
+            return "txid desconhecido";
+        }
+        if (cobranca.status() == StatusPagamentoPix.CONFIRMADO) {
+            return null;
+        }
+        if (cobranca.status() != StatusPagamentoPix.PENDENTE) {
+            return "PIX " + cobranca.status().name().toLowerCase() + " (requer devolução)";
+        }
+        if (cobranca.statusPedido() != StatusPedido.PENDENTE) {
+            return "pedido " + cobranca.statusPedido().name().toLowerCase() + " (requer devolução)";
+        }
+        if (notificacao.valor().compareTo(cobranca.valor()) != 0) {
+            return "valor divergente (requer devolução)";
+        }
+        if (notificacao.horario().isAfter(cobranca.dataExpiracao())) {
+            return "pago após a expiração (requer devolução)";
+        }
+        return null;
+    }
+
+    private void marcarPedidosPagos(Collection<Integer> idsPedidos, Timestamp agora) {
+
+        // Trava os que ainda estão pendentes: só eles mudam de status e geram PEDIDO_PAGO
+        List<Object> parametrosPendentes = new ArrayList<>(idsPedidos);
+        parametrosPendentes.add(StatusPedido.PENDENTE.name());
+        List<Integer> pendentes = jdbcTemplate.queryForList("SELECT id_pedido FROM tb_pedido WHERE id_pedido IN ("
+                + placeholders(idsPedidos.size()) + ") AND status = ? FOR UPDATE",
+                Integer.class, parametrosPendentes.toArray());
+
+        if (pendentes.isEmpty()) {
+            return;
+        }
+
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(StatusPedido.PAGO.name());
+        parametros.add(agora);
+        parametros.addAll(pendentes);
+        jdbcTemplate.update("UPDATE tb_pedido SET status = ?, updated_at = ? WHERE id_pedido IN ("
+                + placeholders(pendentes.size()) + ")", parametros.toArray());
+        outboxPedidoService.registrar(TipoEventoPedido.PEDIDO_PAGO, pendentes);
+        historicoStatusPedidoService.registrar(pendentes, StatusPedido.PENDENTE, StatusPedido.PAGO);
+    }
+
+    private static String placeholders(int quantidade) {
+        return String.join(", ", Collections.nCopies(quantidade, "?"));
+    }
+
+    private record Notificacao(String txid, BigDecimal valor, LocalDateTime horario) {
+    }
+
+    private record Cobranca(Integer idPedido, BigDecimal valor, LocalDateTime dataExpiracao,
+            StatusPagamentoPix status, StatusPedido statusPedido) {
+    }
+}
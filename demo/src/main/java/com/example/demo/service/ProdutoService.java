@@ -1,69 +1,113 @@
 package com.example.demo.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.FacetasProdutoDTO;
+import com.example.demo.dto.PaginaCursorDTO;
 import com.example.demo.dto.ProdutoRequestDTO;
 import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.event.ProdutoAlteradoEvent;
 import com.example.demo.model.Categoria;
 import com.example.demo.model.Fornecedor;
 import com.example.demo.model.Produto;
 import com.example.demo.repository.CategoriaRepository;
 import com.example.demo.repository.FornecedorRepository;
 import com.example.demo.repository.ProdutoRepository;
+import com.example.demo.util.CursorPaginacao;
 
 import jakarta.transaction.Transactional;
 
 @Service
 public class ProdutoService {
 
+        private static final int MAXIMO_RESULTADOS_BUSCA = 50;
+
         private final ProdutoRepository pRepository;
         private final CategoriaRepository catRepository;
         private final FornecedorRepository fRepository;
+        private final ReservaEstoqueMemoria reservaEstoqueMemoria;
+        private final IndiceBuscaProdutos indiceBusca;
+        private final FacetasProdutos facetasProdutos;
+        private final ApplicationEventPublisher eventPublisher;
 
         public ProdutoService(ProdutoRepository pRepository,
                         CategoriaRepository catRepository,
-                        FornecedorRepository fRepository) {
+                        FornecedorRepository fRepository,
+                        ReservaEstoqueMemoria reservaEstoqueMemoria,
+                        IndiceBuscaProdutos indiceBusca,
+                        FacetasProdutos facetasProdutos,
+                        ApplicationEventPublisher eventPublisher) {
                 this.pRepository = pRepository;
                 this.catRepository = catRepository;
                 this.fRepository = fRepository;
+                this.reservaEstoqueMemoria = reservaEstoqueMemoria;
+                this.indiceBusca = indiceBusca;
+                this.facetasProdutos = facetasProdutos;
+                this.eventPublisher = eventPublisher;
         }
 
-        public List<ProdutoResponseDTO> listarTodosProdutos() {
+        public PaginaCursorDTO<ProdutoResponseDTO> listarProdutos(String cursor, Integer tamanho) {
 
-                List<Produto> produtos = pRepository.findAll();
+                int tamanhoPagina = CursorPaginacao.tamanhoValido(tamanho);
+                CursorPaginacao.Cursor posicao = CursorPaginacao.decodificar(cursor);
+                Limit limite = Limit.of(tamanhoPagina + 1);
 
-                return produtos.stream()
-                                .map(produto -> new ProdutoResponseDTO(produto))
-                                .collect(Collectors.toList());
+                List<ProdutoResponseDTO> produtos = posicao == null
+                                ? pRepository.listarResponseDTOPrimeiraPagina(limite)
+                                : pRepository.listarResponseDTOApos(posicao.chave(), posicao.id(), limite);
+
+                return PaginaCursorDTO.de(produtos, tamanhoPagina,
+                                dto -> CursorPaginacao.codificar(dto.nome(), dto.id()));
         }
 
         public Page<ProdutoResponseDTO> listarTodosProdutosPaginado(Pageable pageable) {
 
-                Page<Produto> produtos = pRepository.findAll(pageable);
-
-                return produtos.map(produto -> new ProdutoResponseDTO(produto));
+                return pRepository.listarResponseDTO(pageable);
         }
 
+        /**
+         * Busca textual pelo índice invertido (sem acentos, por prefixo, ordenada por
+         * relevância). Enquanto o índice não termina de carregar, a busca vai ao banco.
+         */
         public List<ProdutoResponseDTO> buscarProdutosPorNome(String nome) {
 
-                List<Produto> produtos = pRepository.findByNomeContainingIgnoreCase(nome);
+                if (!indiceBusca.isPronto()) {
+                        return pRepository.buscarResponseDTOPorNome(nome);
+                }
 
-                return produtos.stream()
-                                .map(produto -> new ProdutoResponseDTO(produto))
+                List<Integer> ids = indiceBusca.buscar(nome, MAXIMO_RESULTADOS_BUSCA);
+                if (ids.isEmpty()) {
+                        return List.of();
+                }
+
+                // Preço e estoque vêm do banco; a ordem é a da relevância calculada pelo índice
+                Map<Integer, ProdutoResponseDTO> porId = pRepository.buscarResponseDTOPorIds(ids).stream()
+                                .collect(Collectors.toMap(ProdutoResponseDTO::id, Function.identity()));
+
+                return ids.stream()
+                                .map(porId::get)
+                                .filter(Objects::nonNull)
                                 .collect(Collectors.toList());
         }
 
         public Page<ProdutoResponseDTO> buscarProdutosPorNomePaginado(String nome, Pageable pageable) {
 
-                Page<Produto> produtos = pRepository.findByNomeContainingIgnoreCase(nome, pageable);
-
-                return produtos.map(produto -> new ProdutoResponseDTO(produto));
+                return pRepository.buscarResponseDTOPorNome(nome, pageable);
         }
 
         public List<ProdutoResponseDTO> buscarProdutosPorCategoria(Integer idCategoria) {
@@ -72,11 +116,7 @@ public class ProdutoService {
                                 .orElseThrow(() -> new NoSuchElementException(
                                                 "Categoria não encontrada com ID: " + idCategoria));
 
-                List<Produto> produtos = pRepository.findByCategoria_Id(idCategoria);
-
-                return produtos.stream()
-                                .map(produto -> new ProdutoResponseDTO(produto))
-                                .collect(Collectors.toList());
+                return pRepository.buscarResponseDTOPorCategoria(idCategoria);
         }
 
         public Page<ProdutoResponseDTO> buscarProdutosPorCategoriaPaginado(Integer idCategoria, Pageable pageable) {
@@ -85,13 +125,27 @@ public class ProdutoService {
                                 .orElseThrow(() -> new NoSuchElementException(
                                                 "Categoria não encontrada com ID: " + idCategoria));
 
-                Page<Produto> produtos = pRepository.findByCategoria_Id(idCategoria, pageable);
+                return pRepository.buscarResponseDTOPorCategoria(idCategoria, pageable);
+        }
+
+        /**
+         * Contagens por categoria, fornecedor e faixa de preço, calculadas em memória.
+         */
+        public FacetasProdutoDTO contarFacetas(Integer idCategoria, Integer idFornecedor, Integer faixaPreco) {
+                return facetasProdutos.contar(idCategoria, idFornecedor, faixaPreco);
+        }
 
-                return produtos.map(produto -> new ProdutoResponseDTO(produto));
+        @Cacheable(cacheNames = CacheConfig.PRODUTOS, key = "#idProduto")
+        public ProdutoResponseDTO buscarProdutoPorId(Integer idProduto) {
+                return pRepository.buscarResponseDTOPorId(idProduto)
+                                .orElseThrow(
+                                                () -> new NoSuchElementException(
+                                                                "Produto " + idProduto + " não encontrado! Tipo: "
+                                                                                + Produto.class.getName()));
         }
 
         public Produto findById(Integer idProduto) {
-                Produto produtos = pRepository.findById(idProduto)
+                Produto produtos = pRepository.findComDetalhesById(idProduto)
                                 .orElseThrow(
                                                 () -> new NoSuchElementException(
                                                                 "Produto " + idProduto + " não encontrado! Tipo: "
@@ -99,7 +153,9 @@ public class ProdutoService {
                 return produtos;
         }
 
+        // A quantidade de produtos da categoria muda
         @Transactional
+        @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, key = "#dto.idCategoria()")
         public ProdutoResponseDTO criarProduto(ProdutoRequestDTO dto, String emailUsuarioLogado) {
 
                 Fornecedor fornecedorLogado = fRepository.findByUser_Email(emailUsuarioLogado)
@@ -120,10 +176,16 @@ public class ProdutoService {
 
                 Produto produtoSalvo = pRepository.save(novoProduto);
 
+                eventPublisher.publishEvent(ProdutoAlteradoEvent.alterado(produtoSalvo.getId()));
+
                 return new ProdutoResponseDTO(produtoSalvo);
         }
 
         @Transactional
+        @Caching(evict = {
+                        @CacheEvict(cacheNames = CacheConfig.PRODUTOS, key = "#idProduto"),
+                        @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true, condition = "#dto.idCategoria() != null")
+        })
         public ProdutoResponseDTO atualizarProduto(Integer idProduto, ProdutoRequestDTO dto,
                         String emailUsuarioLogado) {
 
@@ -150,6 +212,7 @@ public class ProdutoService {
 
                 if (dto.estoque() != null) {
                         produtoExistente.setEstoque(dto.estoque());
+                        reservaEstoqueMemoria.descartar(idProduto);
                 }
 
                 if (dto.idCategoria() != null) {
@@ -161,10 +224,16 @@ public class ProdutoService {
 
                 Produto produtoAtualizado = pRepository.save(produtoExistente);
 
+                eventPublisher.publishEvent(ProdutoAlteradoEvent.alterado(idProduto));
+
                 return new ProdutoResponseDTO(produtoAtualizado);
         }
 
         @Transactional
+        @Caching(evict = {
+                        @CacheEvict(cacheNames = CacheConfig.PRODUTOS, key = "#idProduto"),
+                        @CacheEvict(cacheNames = CacheConfig.CATEGORIAS, allEntries = true)
+        })
         public void deletarProduto(Integer idProduto, String emailUsuarioLogado) {
 
                 Produto produtoExistente = findById(idProduto);
@@ -179,6 +248,8 @@ public class ProdutoService {
                 produtoExistente.markAsDeleted();
                 pRepository.save(produtoExistente);
 
+                eventPublisher.publishEvent(ProdutoAlteradoEvent.removido(idProduto));
+
         }
 
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Gera as imagens dos QR Codes de rastreamento fora da transação do pedido.
+ *
+ * Os registros PENDENTES em tb_qrcode_rastreamento funcionam como outbox: depois do
+ * commit os IDs entram em uma fila limitada consumida por threads virtuais. Se a fila
+ * estiver cheia (backpressure) ou a aplicação reiniciar, a varredura periódica
+ * recoloca os pendentes na fila.
+ */
+@Component
+public class QRCodeGeracaoWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(QRCodeGeracaoWorker.class);
+
+    private final QRCodeService qrCodeService;
+    private final BlockingQueue<Integer> fila;
+    private final Set<Integer> emAndamento = ConcurrentHashMap.newKeySet();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Counter gerados;
+    private final Counter falhas;
+    private final Counter rejeitados;
+    private final Timer tempoGeracao;
+
+    @Value("${qrcode.worker.threads:4}")
+    private int quantidadeWorkers;
+
+    @Value("${qrcode.worker.max-tentativas:5}")
+    private int maxTentativas;
+
+    private volatile boolean executando = true;
+
+    public QRCodeGeracaoWorker(QRCodeService qrCodeService,
+            MeterRegistry meterRegistry,
+            @Value("${qrcode.worker.capacidade-fila:1000}") int capacidadeFila) {
+        this.qrCodeService = qrCodeService;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+
+        Gauge.builder("qrcode.fila.tamanho", fila, BlockingQueue::size).register(meterRegistry);
+        this.gerados = meterRegistry.counter("qrcode.gerados");
+        this.falhas = meterRegistry.counter("qrcode.falhas");
+        this.rejeitados = meterRegistry.counter("qrcode.fila.rejeitados");
+        this.tempoGeracao = meterRegistry.timer("qrcode.geracao.tempo");
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        for (int i = 0; i < quantidadeWorkers; i++) {
+            workers.add(Thread.ofVirtual().name("qrcode-worker-" + i).start(this::processarFila));
+        }
+    }
+
+    @PreDestroy
+    public void parar() {
+        executando = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Enfileira os QR Codes somente depois que a transação corrente fizer commit.
+     */
+    public void enfileirarAposCommit(List<Integer> idsQRCode) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            idsQRCode.forEach(this::enfileirar);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                idsQRCode.forEach(QRCodeGeracaoWorker.this::enfileirar);
+            }
+        });
+    }
+
+    /**
+     * Recoloca na fila os pendentes esquecidos (fila cheia, falha ou reinício).
+     */
+    @Scheduled(fixedDelayString = "${qrcode.worker.varredura-ms:30000}")
+    public void varrerPendentes() {
+        LocalDateTime limite = LocalDateTime.now().minusSeconds(30);
+        qrCodeService.buscarPendentesAntesDe(limite).forEach(this::enfileirar);
+    }
+
+    private void enfileirar(Integer idQRCode) {
+        if (!emAndamento.add(idQRCode)) {
+            return;
+        }
+        if (!fila.offer(idQRCode)) {
+            emAndamento.remove(idQRCode);
+            rejeitados.increment();
+        }
+    }
+
+    private void processarFila() {
+        while (executando) {
+            Integer idQRCode;
+            try {
+                idQRCode = fila.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (idQRCode != null) {
+                processar(idQRCode);
+            }
+        }
+    }
+
+    private void processar(Integer idQRCode) {
+        try {
+            tempoGeracao.record(() -> qrCodeService.gerarImagem(idQRCode));
+            gerados.increment();
+            emAndamento.remove(idQRCode);
+
+        } catch (Exception e) {
+            falhas.increment();
+            tratarFalha(idQRCode, e);
+        }
+    }
+
+    private void tratarFalha(Integer idQRCode, Exception erro) {
+        int tentativas;
+        try {
+            tentativas = qrCodeService.registrarFalha(idQRCode, maxTentativas);
+        } catch (Exception e) {
+            logger.error("Não foi possível registrar falha do QR Code {}: {}", idQRCode, e.getMessage());
+            emAndamento.remove(idQRCode);
+            return;
+        }
+
+        if (tentativas >= maxTentativas) {
+            logger.error("QR Code {} descartado após {} tentativas: {}", idQRCode, tentativas, erro.getMessage());
+            emAndamento.remove(idQRCode);
+            return;
+        }
+
+        // Backoff exponencial em uma thread virtual, sem ocupar os workers
+        Duration espera = Duration.ofSeconds(1L << Math.min(tentativas, 6));
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(espera);
+                emAndamento.remove(idQRCode);
+                enfileirar(idQRCode);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emAndamento.remove(idQRCode);
+            }
+        });
+    }
+}
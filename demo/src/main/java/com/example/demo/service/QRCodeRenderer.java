@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+/**
+ * Renderiza imagens PNG de QR Codes sob demanda.
+ *
+ * A imagem é derivada de forma determinística do texto codificado, então não precisa
+ * ser guardada no banco. Os PNGs mais acessados ficam em um cache LRU limitado pelo
+ * total de bytes.
+ */
+@Service
+public class QRCodeRenderer {
+
+    private final long maxBytesCache;
+    private final Map<String, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesEmCache;
+
+    public QRCodeRenderer(@Value("${qrcode.cache.max-bytes:33554432}") long maxBytesCache) {
+        this.maxBytesCache = maxBytesCache;
+    }
+
+    /**
+     * Identificador estável da imagem (hash do conteúdo + tamanho), usado como ETag.
+     */
+    public String calcularHash(String conteudo, int tamanho) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(conteudo.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(tamanho).getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Retorna o PNG do QR Code, do cache quando possível.
+     */
+    public byte[] renderizarPng(String conteudo, int tamanho) {
+
+        String chave = calcularHash(conteudo, tamanho);
+
+        synchronized (cache) {
+            byte[] emCache = cache.get(chave);
+            if (emCache != null) {
+                return emCache;
+            }
+        }
+
+        byte[] png = gerarPng(conteudo, tamanho);
+
+        synchronized (cache) {
+            if (cache.putIfAbsent(chave, png) == null) {
+                bytesEmCache += png.length;
+                removerExcedentes();
+            }
+        }
+
+        return png;
+    }
+
+    private byte[] gerarPng(String conteudo, int tamanho) {
+        try {
+            BitMatrix bitMatrix = new QRCodeWriter().encode(conteudo, BarcodeFormat.QR_CODE, tamanho, tamanho);
+            BufferedImage imagem = MatrixToImageWriter.toBufferedImage(bitMatrix);
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ImageIO.write(imagem, "PNG", baos);
+            return baos.toByteArray();
+
+        } catch (WriterException | IOException e) {
+            throw new RuntimeException("Erro ao gerar QR Code: " + e.getMessage(), e);
+        }
+    }
+
+    private void removerExcedentes() {
+        Iterator<byte[]> iterator = cache.values().iterator();
+        while (bytesEmCache > maxBytesCache && iterator.hasNext()) {
+            bytesEmCache -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+}
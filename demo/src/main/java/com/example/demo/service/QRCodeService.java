@@ -1,19 +1,19 @@
 package com.example.demo.service;
 
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Base64;
-
-import javax.imageio.ImageIO;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.exception.RegraNegocioException;
 import com.example.demo.model.Cliente;
 import com.example.demo.model.Endereco;
 import com.example.demo.model.Fornecedor;
@@ -21,59 +21,131 @@ import com.example.demo.model.ItemPedido;
 import com.example.demo.model.Pedido;
 import com.example.demo.model.Produto;
 import com.example.demo.model.QRCodeRastreamento;
+import com.example.demo.model.StatusGeracaoQRCode;
 import com.example.demo.repository.QRCodeRastreamentoRepository;
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 
 @Service
 public class QRCodeService {
 
+    private static final int TAMANHO_QRCODE = 400;
+
     private final QRCodeRastreamentoRepository qrCodeRepository;
+    private final QRCodeRenderer qrCodeRenderer;
 
     @Value("${qrcode.diretorio:qrcodes}")
     private String diretorioQRCodes;
 
-    public QRCodeService(QRCodeRastreamentoRepository qrCodeRepository) {
+    public QRCodeService(QRCodeRastreamentoRepository qrCodeRepository, QRCodeRenderer qrCodeRenderer) {
         this.qrCodeRepository = qrCodeRepository;
+        this.qrCodeRenderer = qrCodeRenderer;
+    }
+
+    /**
+     * Registra o QR Code do item como PENDENTE, na mesma transação do pedido.
+     * A imagem é gerada depois do commit pelo QRCodeGeracaoWorker.
+     */
+    public QRCodeRastreamento registrarPendente(ItemPedido itemPedido) {
+
+        QRCodeRastreamento qrCode = new QRCodeRastreamento();
+        qrCode.setItemPedido(itemPedido);
+        qrCode.setCodigoRastreamento(gerarCodigoRastreamento(itemPedido.getPedido(), itemPedido));
+        qrCode.setStatusGeracao(StatusGeracaoQRCode.PENDENTE);
+
+        return qrCodeRepository.save(qrCode);
     }
 
-    public QRCodeRastreamento gerarQRCodeParaItem(ItemPedido itemPedido) {
+    /**
+     * Gera o conteúdo, a imagem e o arquivo de um QR Code pendente.
+     */
+    @Transactional
+    public void gerarImagem(Integer idQRCode) {
+
+        QRCodeRastreamento qrCode = qrCodeRepository.findById(idQRCode)
+                .orElseThrow(() -> new RegraNegocioException("QR Code não encontrado: " + idQRCode));
+
+        if (!qrCode.isPendente()) {
+            return;
+        }
 
-        
+        ItemPedido itemPedido = qrCode.getItemPedido();
         Pedido pedido = itemPedido.getPedido();
         Cliente cliente = pedido.getCliente();
         Produto produto = itemPedido.getProduto();
         Fornecedor fornecedor = produto.getFornecedor();
         Endereco enderecoCliente = pedido.getEnderecoEntrega();
 
-        String codigoRastreamento = gerarCodigoRastreamento(pedido, itemPedido);
+        String codigoRastreamento = qrCode.getCodigoRastreamento();
 
         String conteudo = montarConteudoQRCode(
                 fornecedor, produto, cliente, enderecoCliente,
                 pedido, itemPedido, codigoRastreamento);
 
-        try {
-            BufferedImage imagemQRCode = gerarImagemQRCode(conteudo);
+        Path caminhoArquivo = salvarArquivoFisico(conteudo);
+
+        qrCode.setConteudoQRCode(conteudo);
+        qrCode.setQrcodeCaminhoArquivo(caminhoArquivo.toString());
+        qrCode.setDataGeracao(LocalDateTime.now());
+        qrCode.setStatusGeracao(StatusGeracaoQRCode.GERADO);
+
+        qrCodeRepository.save(qrCode);
+    }
 
-            String qrcodeBase64 = converterImagemParaBase64(imagemQRCode);
+    /**
+     * Arquivo PNG do QR Code no disco. Se ainda não existir (ex.: registros do layout
+     * antigo ou arquivo apagado), é recriado a partir do conteúdo.
+     */
+    public Path arquivoPng(QRCodeRastreamento qrCode) {
+        return salvarArquivoFisico(qrCode.getConteudoQRCode());
+    }
 
-            String caminhoArquivo = salvarArquivoFisico(imagemQRCode, codigoRastreamento);
+    /**
+     * PNG do QR Code de rastreamento, renderizado sob demanda.
+     */
+    public byte[] renderizarPng(QRCodeRastreamento qrCode) {
+        return qrCodeRenderer.renderizarPng(qrCode.getConteudoQRCode(), TAMANHO_QRCODE);
+    }
 
-            QRCodeRastreamento qrCode = new QRCodeRastreamento();
-            qrCode.setItemPedido(itemPedido);
-            qrCode.setCodigoRastreamento(codigoRastreamento);
-            qrCode.setConteudoQRCode(conteudo);
-            qrCode.setQrcodeBase64(qrcodeBase64);
-            qrCode.setQrcodeCaminhoArquivo(caminhoArquivo);
+    /**
+     * ETag da imagem do QR Code de rastreamento.
+     */
+    public String calcularEtag(QRCodeRastreamento qrCode) {
+        return "\"" + qrCodeRenderer.calcularHash(qrCode.getConteudoQRCode(), TAMANHO_QRCODE) + "\"";
+    }
 
-            return qrCodeRepository.save(qrCode);
+    /**
+     * Registra uma tentativa de geração que falhou. Ao atingir o máximo de
+     * tentativas o QR Code é marcado como FALHA.
+     *
+     * @return número de tentativas já realizadas
+     */
+    @Transactional
+    public int registrarFalha(Integer idQRCode, int maxTentativas) {
 
-        } catch (WriterException | IOException e) {
-            throw new RuntimeException("Erro ao gerar QR Code: " + e.getMessage(), e);
+        QRCodeRastreamento qrCode = qrCodeRepository.findById(idQRCode)
+                .orElseThrow(() -> new RegraNegocioException("QR Code não encontrado: " + idQRCode));
+
+        int tentativas = (qrCode.getTentativas() != null ? qrCode.getTentativas() : 0) + 1;
+        qrCode.setTentativas(tentativas);
+
+        if (tentativas >= maxTentativas) {
+            qrCode.setStatusGeracao(StatusGeracaoQRCode.FALHA);
         }
+
+        qrCodeRepository.save(qrCode);
+
+        return tentativas;
+    }
+
+    /**
+     * IDs de QR Codes pendentes há mais tempo que o limite informado.
+     */
+    @Transactional(readOnly = true)
+    public List<Integer> buscarPendentesAntesDe(LocalDateTime limite) {
+        return qrCodeRepository
+                .findTop100ByStatusGeracaoAndCreatedAtBeforeOrderByIdAsc(StatusGeracaoQRCode.PENDENTE, limite)
+                .stream()
+                .map(QRCodeRastreamento::getId)
+                .collect(Collectors.toList());
     }
 
     private String gerarCodigoRastreamento(Pedido pedido, ItemPedido item) {
@@ -134,39 +206,42 @@ public class QRCodeService {
         return sb.toString();
     }
 
-    private BufferedImage gerarImagemQRCode(String conteudo) throws WriterException {
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(
-                conteudo,
-                BarcodeFormat.QR_CODE,
-                400, 
-                400 
-        );
-        return MatrixToImageWriter.toBufferedImage(bitMatrix);
-    }
-
-    private String converterImagemParaBase64(BufferedImage imagem) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(imagem, "PNG", baos);
-        byte[] bytes = baos.toByteArray();
-        String base64 = Base64.getEncoder().encodeToString(bytes);
-        return "data:image/png;base64," + base64;
-    }
-
-    private String salvarArquivoFisico(BufferedImage imagem, String codigoRastreamento) throws IOException {
-
-        Path diretorio = Paths.get(diretorioQRCodes);
-        if (!Files.exists(diretorio)) {
-            Files.createDirectories(diretorio);
+    /**
+     * Grava o PNG em um layout endereçado pelo conteúdo: {diretorio}/ab/cd/abcd...png,
+     * onde o nome é o hash do conteúdo. Os dois níveis de prefixo mantêm cada diretório
+     * pequeno mesmo com milhões de arquivos, e conteúdos iguais compartilham o arquivo.
+     */
+    private Path salvarArquivoFisico(String conteudo) {
+
+        String hash = qrCodeRenderer.calcularHash(conteudo, TAMANHO_QRCODE);
+        Path caminhoCompleto = Paths.get(diretorioQRCodes)
+                .resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2, 4))
+                .resolve(hash + ".png");
+
+        if (Files.exists(caminhoCompleto)) {
+            return caminhoCompleto;
         }
 
-        String nomeArquivo = codigoRastreamento + ".png";
-        Path caminhoCompleto = diretorio.resolve(nomeArquivo);
-
-        File arquivo = caminhoCompleto.toFile();
-        ImageIO.write(imagem, "PNG", arquivo);
-
-        return caminhoCompleto.toString();
+        try {
+            Files.createDirectories(caminhoCompleto.getParent());
+
+            // Escreve em arquivo temporário e renomeia, para que um download concorrente
+            // nunca encontre o PNG pela metade
+            Path temporario = Files.createTempFile(caminhoCompleto.getParent(), hash, ".tmp");
+            try {
+                Files.write(temporario, qrCodeRenderer.renderizarPng(conteudo, TAMANHO_QRCODE));
+                Files.move(temporario, caminhoCompleto,
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+
+            return caminhoCompleto;
+
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao salvar QR Code: " + e.getMessage(), e);
+        }
     }
 
     private String formatarCPF(String cpf) {
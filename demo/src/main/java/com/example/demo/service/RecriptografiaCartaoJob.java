@@ -0,0 +1,209 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.model.CheckpointRecriptografia;
+import com.example.demo.repository.CheckpointRecriptografiaRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Regrava os números de cartão com a chave de criptografia ativa, em segundo plano.
+ *
+ * Percorre tb_cartoes em lotes por id_cartao (WHERE id_cartao > ultimoId), cada lote em sua
+ * própria transação, e grava o progresso em tb_recriptografia_checkpoint: um reinício
+ * retoma do último lote concluído. O UPDATE só vale se a coluna ainda tiver o valor lido
+ * (WHERE numero_mascarado = ?), então uma alteração feita pela aplicação no meio do lote,
+ * que já grava com a chave ativa, nunca é sobrescrita. No modo simulação nada é gravado
+ * além do próprio checkpoint.
+ */
+@Component
+public class RecriptografiaCartaoJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecriptografiaCartaoJob.class);
+
+    private static final String COLUNA = "tb_cartoes.numero_mascarado";
+
+    private static final String SQL_LOTE =
+            "SELECT id_cartao, numero_mascarado FROM tb_cartoes WHERE id_cartao > ? ORDER BY id_cartao LIMIT ?";
+
+    private static final String SQL_REGRAVAR =
+            "UPDATE tb_cartoes SET numero_mascarado = ? WHERE id_cartao = ? AND numero_mascarado = ?";
+
+    private final EncryptionService encryptionService;
+    private final CheckpointRecriptografiaRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter processados;
+    private final Counter alterados;
+    private final Counter concorrentes;
+    private final Counter falhas;
+    private final Timer tempoLote;
+    private final AtomicLong ultimoIdProcessado = new AtomicLong();
+
+    @Value("${recriptografia.habilitada:false}")
+    private boolean habilitada;
+
+    @Value("${recriptografia.simulacao:false}")
+    private boolean simulacao;
+
+    @Value("${recriptografia.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    /** Pausa entre lotes, para não competir com o tráfego normal pelo banco. */
+    @Value("${recriptografia.pausa-ms:200}")
+    private long pausaMs;
+
+    @Value("${recriptografia.lotes-por-execucao:50}")
+    private int lotesPorExecucao;
+
+    private volatile boolean executando = true;
+
+    public RecriptografiaCartaoJob(EncryptionService encryptionService,
+            CheckpointRecriptografiaRepository checkpointRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.encryptionService = encryptionService;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.processados = meterRegistry.counter("recriptografia.processados", "coluna", COLUNA);
+        this.alterados = meterRegistry.counter("recriptografia.alterados", "coluna", COLUNA);
+        this.concorrentes = meterRegistry.counter("recriptografia.concorrentes", "coluna", COLUNA);
+        this.falhas = meterRegistry.counter("recriptografia.falhas", "coluna", COLUNA);
+        this.tempoLote = meterRegistry.timer("recriptografia.lote.tempo", "coluna", COLUNA);
+        Gauge.builder("recriptografia.ultimo-id", ultimoIdProcessado, AtomicLong::get)
+                .tag("coluna", COLUNA)
+                .description("Último id_cartao processado pela recriptografia")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void parar() {
+        executando = false;
+    }
+
+    /**
+     * Processa até recriptografia.lotes-por-execucao lotes; o restante fica para as próximas
+     * execuções, a partir do checkpoint.
+     */
+    @Scheduled(fixedDelayString = "${recriptografia.intervalo-ms:60000}")
+    public void executar() {
+        if (!habilitada) {
+            return;
+        }
+
+        for (int lote = 0; lote < lotesPorExecucao && executando; lote++) {
+            Boolean concluido = tempoLote.record(() -> transactionTemplate.execute(status -> processarLote()));
+            if (Boolean.TRUE.equals(concluido)) {
+                return;
+            }
+
+            try {
+                Thread.sleep(pausaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Processa um lote a partir do checkpoint. Retorna true quando não há mais nada a fazer.
+     */
+    private boolean processarLote() {
+
+        String chaveAtiva = encryptionService.getIdChaveAtiva();
+        CheckpointRecriptografia checkpoint = travarCheckpoint(chaveAtiva);
+
+        if (!chaveAtiva.equals(checkpoint.getChaveDestino())) {
+            logger.info("Recriptografia de {} reiniciada para a chave {}", checkpoint.getNome(), chaveAtiva);
+            checkpoint.reiniciar(chaveAtiva);
+        }
+        if (checkpoint.isConcluido()) {
+            return true;
+        }
+
+        List<Object[]> linhas = jdbcTemplate.query(SQL_LOTE,
+                (rs, i) -> new Object[] { rs.getInt(1), rs.getString(2) },
+                checkpoint.getUltimoId(), tamanhoLote);
+
+        List<Object[]> regravacoes = new ArrayList<>();
+        long falhasLote = 0;
+        for (Object[] linha : linhas) {
+            Integer id = (Integer) linha[0];
+            String valor = (String) linha[1];
+            if (!encryptionService.precisaRecriptografar(valor)) {
+                continue;
+            }
+            try {
+                regravacoes.add(new Object[] { encryptionService.recriptografar(valor), id, valor });
+            } catch (RuntimeException e) {
+                // O valor não é logado; a linha fica como está e o job segue adiante
+                falhasLote++;
+                logger.warn("Cartão {} não pôde ser recriptografado: {}", id, e.getMessage());
+            }
+        }
+
+        long alteradosLote = regravacoes.size();
+        if (!simulacao && !regravacoes.isEmpty()) {
+            int[] resultados = jdbcTemplate.batchUpdate(SQL_REGRAVAR, regravacoes);
+            long concorrentesLote = 0;
+            for (int resultado : resultados) {
+                if (resultado == 0) {
+                    concorrentesLote++;
+                }
+            }
+            alteradosLote -= concorrentesLote;
+            concorrentes.increment(concorrentesLote);
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        if (!linhas.isEmpty()) {
+            checkpoint.setUltimoId((Integer) linhas.get(linhas.size() - 1)[0]);
+        }
+        checkpoint.setProcessados(checkpoint.getProcessados() + linhas.size());
+        checkpoint.setAlterados(checkpoint.getAlterados() + alteradosLote);
+        checkpoint.setFalhas(checkpoint.getFalhas() + falhasLote);
+        checkpoint.setAtualizadoEm(agora);
+
+        boolean concluido = linhas.size() < tamanhoLote;
+        if (concluido) {
+            checkpoint.setConcluidoEm(agora);
+            logger.info("Recriptografia de {}{} concluída: {} processados, {} alterados, {} falhas",
+                    checkpoint.getNome(), simulacao ? " (simulação)" : "", checkpoint.getProcessados(),
+                    checkpoint.getAlterados(), checkpoint.getFalhas());
+        }
+        checkpointRepository.save(checkpoint);
+
+        processados.increment(linhas.size());
+        alterados.increment(alteradosLote);
+        falhas.increment(falhasLote);
+        ultimoIdProcessado.set(checkpoint.getUltimoId());
+
+        return concluido;
+    }
+
+    private CheckpointRecriptografia travarCheckpoint(String chaveAtiva) {
+        String nome = simulacao ? COLUNA + ":simulacao" : COLUNA;
+        return checkpointRepository.travar(nome)
+                .orElseGet(() -> checkpointRepository.saveAndFlush(new CheckpointRecriptografia(nome, chaveAtiva)));
+    }
+}
@@ -0,0 +1,405 @@
+package com.example.demo.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.event.PedidoEvento;
+import com.example.demo.event.PedidoEventoDescartado;
+import com.example.demo.model.StatusEventoOutbox;
+import com.example.demo.model.TipoEventoPedido;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Entrega os eventos da outbox de pedidos (tb_pedido_outbox) aos ouvintes de PedidoEvento.
+ *
+ * Uma thread lê os pendentes em lotes (SELECT ... FOR UPDATE SKIP LOCKED), reserva-os por
+ * um prazo e os distribui em faixas: cada faixa é uma fila consumida por uma thread virtual
+ * e o pedido sempre cai na mesma faixa, então pedidos diferentes são processados em
+ * paralelo. Só o evento pendente mais antigo de cada pedido é lido; o seguinte só fica
+ * disponível depois que ele for concluído, o que mantém a ordem por pedido mesmo com
+ * várias instâncias. Falhas voltam com backoff exponencial e, esgotadas as tentativas,
+ * o evento fica como FALHA, libera os seguintes e é publicado como PedidoEventoDescartado.
+ *
+ * A leitura nunca reserva mais eventos do que cabem nas faixas, e a reserva dos eventos
+ * ainda parados em uma faixa ou em entrega é renovada periodicamente: enquanto esta
+ * instância estiver viva, nenhuma outra entrega o mesmo evento.
+ */
+@Service
+public class RelayEventosPedido {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelayEventosPedido.class);
+
+    private static final String SQL_RESERVAR =
+            "SELECT o.id_evento, o.id_pedido, o.tipo, o.criado_em, o.tentativas FROM tb_pedido_outbox o"
+                    + " WHERE o.status = ? AND o.disponivel_em <= ? AND (o.reservado_ate IS NULL OR o.reservado_ate < ?)"
+                    + " AND NOT EXISTS (SELECT 1 FROM tb_pedido_outbox a"
+                    + " WHERE a.id_pedido = o.id_pedido AND a.status = ? AND a.id_evento < o.id_evento)"
+                    + " ORDER BY o.id_evento LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SQL_REAGENDAR =
+            "UPDATE tb_pedido_outbox SET status = ?, tentativas = ?, disponivel_em = ?, reservado_ate = NULL,"
+                    + " ultimo_erro = ?, processado_em = ? WHERE id_evento = ?";
+
+    private static final String SQL_RENOVAR =
+            "UPDATE tb_pedido_outbox SET reservado_ate = ? WHERE status = ? AND reservado_ate IS NOT NULL"
+                    + " AND id_evento IN (";
+
+    private static final String SQL_REMOVER_PROCESSADOS =
+            "DELETE FROM tb_pedido_outbox WHERE status = ? AND processado_em < ?";
+
+    private static final long BACKOFF_MAXIMO_SEGUNDOS = 300;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final List<BlockingQueue<PedidoEvento>> faixas = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final Semaphore sinal = new Semaphore(0);
+
+    /** Resultados das faixas, gravados em lote pela thread de leitura. */
+    private final Queue<Long> concluidos = new ConcurrentLinkedQueue<>();
+    private final Queue<Falha> falhas = new ConcurrentLinkedQueue<>();
+
+    /** Eventos reservados por esta instância cujo resultado ainda não foi gravado. */
+    private final Set<Long> emAndamento = ConcurrentHashMap.newKeySet();
+
+    private final Counter entregues;
+    private final Counter totalFalhas;
+    private final Counter descartados;
+    private final Timer atraso;
+    private final Timer tempoEntrega;
+
+    @Value("${outbox.pedido.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${outbox.pedido.faixas:4}")
+    private int quantidadeFaixas;
+
+    @Value("${outbox.pedido.capacidade-faixa:100}")
+    private int capacidadeFaixa;
+
+    @Value("${outbox.pedido.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    @Value("${outbox.pedido.intervalo-ms:500}")
+    private long intervaloMs;
+
+    @Value("${outbox.pedido.reserva:60s}")
+    private Duration reserva;
+
+    @Value("${outbox.pedido.max-tentativas:10}")
+    private int maxTentativas;
+
+    @Value("${outbox.pedido.retencao:7d}")
+    private Duration retencao;
+
+    private volatile boolean executando = true;
+
+    public RelayEventosPedido(ApplicationEventPublisher eventPublisher, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.entregues = meterRegistry.counter("outbox.pedido.entregues");
+        this.totalFalhas = meterRegistry.counter("outbox.pedido.falhas");
+        this.descartados = meterRegistry.counter("outbox.pedido.descartados");
+        this.atraso = Timer.builder("outbox.pedido.atraso")
+                .description("Tempo entre a gravação do evento e sua leitura pelo relay")
+                .register(meterRegistry);
+        this.tempoEntrega = meterRegistry.timer("outbox.pedido.entrega.tempo");
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitado) {
+            logger.info("Relay da outbox de pedidos desabilitado (outbox.pedido.habilitado=false)");
+            return;
+        }
+
+        for (int i = 0; i < quantidadeFaixas; i++) {
+            BlockingQueue<PedidoEvento> faixa = new ArrayBlockingQueue<>(capacidadeFaixa);
+            faixas.add(faixa);
+            threads.add(Thread.ofVirtual().name("outbox-pedido-faixa-" + i).start(() -> consumirFaixa(faixa)));
+        }
+        threads.add(Thread.ofVirtual().name("outbox-pedido-relay").start(this::executarRelay));
+        threads.add(Thread.ofVirtual().name("outbox-pedido-reservas").start(this::executarRenovacao));
+    }
+
+    @PreDestroy
+    public void parar() {
+        executando = false;
+        threads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Antecipa a próxima leitura (chamado depois do commit de novos eventos).
+     */
+    public void acordar() {
+        sinal.release();
+    }
+
+    /**
+     * Remove os eventos já entregues há mais tempo que outbox.pedido.retencao.
+     */
+    @Scheduled(cron = "${outbox.pedido.limpeza.cron:0 45 3 * * *}")
+    public void removerProcessados() {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minus(retencao));
+        int removidos = jdbcTemplate.update(SQL_REMOVER_PROCESSADOS, StatusEventoOutbox.PROCESSADO.name(), limite);
+        logger.info("Outbox de pedidos: {} eventos entregues removidos", removidos);
+    }
+
+    private void executarRelay() {
+        while (executando) {
+            try {
+                gravarResultados();
+                int lidos = reservarEDistribuir();
+                if (lidos < tamanhoLote) {
+                    sinal.tryAcquire(intervaloMs, TimeUnit.MILLISECONDS);
+                    sinal.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Falha no relay da outbox de pedidos: {}", e.getMessage());
+                try {
+                    Thread.sleep(intervaloMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void executarRenovacao() {
+        long intervalo = Math.max(1, reserva.toMillis() / 3);
+        while (executando) {
+            try {
+                Thread.sleep(intervalo);
+                renovarReservas();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Falha ao renovar as reservas da outbox de pedidos: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Estende a reserva dos eventos desta instância ainda sem resultado (parados em uma faixa
+     * ou em entrega). Eventos já concluídos ou reagendados não são afetados.
+     */
+    int renovarReservas() {
+        if (emAndamento.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(emAndamento);
+        List<Object> parametros = new ArrayList<>(ids.size() + 2);
+        parametros.add(Timestamp.valueOf(LocalDateTime.now().plus(reserva)));
+        parametros.add(StatusEventoOutbox.PENDENTE.name());
+        parametros.addAll(ids);
+        return jdbcTemplate.update(SQL_RENOVAR + placeholders(ids.size()) + ")", parametros.toArray());
+    }
+
+    private int reservarEDistribuir() throws InterruptedException {
+
+        List<PedidoEvento> eventos = transactionTemplate.execute(status -> reservar());
+
+        LocalDateTime agora = LocalDateTime.now();
+        for (PedidoEvento evento : eventos) {
+            atraso.record(Duration.between(evento.ocorridoEm(), agora));
+            // put bloqueia com a faixa cheia: a leitura acompanha o ritmo dos ouvintes
+            faixas.get(Math.floorMod(evento.idPedido(), faixas.size())).put(evento);
+        }
+        return eventos.size();
+    }
+
+    /**
+     * Reserva os próximos eventos, no máximo tantos quantos ainda cabem nas faixas.
+     * Deve ser chamado dentro de uma transação.
+     */
+    List<PedidoEvento> reservar() {
+
+        int vagas = Math.min(tamanhoLote, quantidadeFaixas * capacidadeFaixa - emAndamento.size());
+        if (vagas <= 0) {
+            return List.of();
+        }
+
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<PedidoEvento> eventos = jdbcTemplate.query(SQL_RESERVAR,
+                (rs, linha) -> new PedidoEvento(rs.getLong(1), rs.getInt(2),
+                        TipoEventoPedido.valueOf(rs.getString(3)), rs.getTimestamp(4).toLocalDateTime(),
+                        rs.getInt(5) + 1),
+                StatusEventoOutbox.PENDENTE.name(), agora, agora, StatusEventoOutbox.PENDENTE.name(), vagas);
+
+        if (eventos.isEmpty()) {
+            return eventos;
+        }
+
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(Timestamp.valueOf(LocalDateTime.now().plus(reserva)));
+        eventos.forEach(evento -> parametros.add(evento.idEvento()));
+        jdbcTemplate.update("UPDATE tb_pedido_outbox SET reservado_ate = ? WHERE id_evento IN ("
+                + placeholders(eventos.size()) + ")", parametros.toArray());
+
+        List<Long> ids = eventos.stream().map(PedidoEvento::idEvento).toList();
+        emAndamento.addAll(ids);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Reserva desfeita: os eventos não são desta instância
+                if (status != STATUS_COMMITTED) {
+                    emAndamento.removeAll(ids);
+                }
+            }
+        });
+
+        return eventos;
+    }
+
+    private void consumirFaixa(BlockingQueue<PedidoEvento> faixa) {
+        while (executando) {
+            PedidoEvento evento;
+            try {
+                evento = faixa.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                tempoEntrega.record(() -> eventPublisher.publishEvent(evento));
+                concluir(evento);
+                entregues.increment();
+            } catch (Exception e) {
+                totalFalhas.increment();
+                falhar(evento, e.getMessage());
+            }
+        }
+    }
+
+    void concluir(PedidoEvento evento) {
+        concluidos.add(evento.idEvento());
+    }
+
+    void falhar(PedidoEvento evento, String erro) {
+        falhas.add(new Falha(evento, erro));
+    }
+
+    /**
+     * Grava os resultados entregues pelas faixas. Se a gravação falhar, os resultados voltam
+     * para a fila e continuam reservados (e renovados) até a próxima tentativa.
+     */
+    void gravarResultados() {
+
+        List<Long> ids = new ArrayList<>();
+        for (Long id = concluidos.poll(); id != null; id = concluidos.poll()) {
+            ids.add(id);
+        }
+        if (!ids.isEmpty()) {
+            List<Object> parametros = new ArrayList<>();
+            parametros.add(StatusEventoOutbox.PROCESSADO.name());
+            parametros.add(Timestamp.valueOf(LocalDateTime.now()));
+            parametros.addAll(ids);
+            try {
+                jdbcTemplate.update("UPDATE tb_pedido_outbox SET status = ?, processado_em = ?, reservado_ate = NULL"
+                        + " WHERE id_evento IN (" + placeholders(ids.size()) + ")", parametros.toArray());
+            } catch (RuntimeException e) {
+                concluidos.addAll(ids);
+                throw e;
+            }
+            emAndamento.removeAll(ids);
+        }
+
+        List<Falha> lidas = new ArrayList<>();
+        for (Falha falha = falhas.poll(); falha != null; falha = falhas.poll()) {
+            lidas.add(falha);
+        }
+        if (lidas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> reagendamentos = new ArrayList<>(lidas.size());
+        List<Falha> descartadas = new ArrayList<>();
+        LocalDateTime agora = LocalDateTime.now();
+        for (Falha falha : lidas) {
+            PedidoEvento evento = falha.evento();
+            String erro = falha.erro() == null ? "" : falha.erro();
+            erro = erro.length() > 500 ? erro.substring(0, 500) : erro;
+
+            if (evento.tentativa() >= maxTentativas) {
+                // Descartado: libera os eventos seguintes do pedido
+                descartadas.add(falha);
+                logger.error("Evento {} do pedido {} descartado após {} tentativas: {}", evento.tipo(),
+                        evento.idPedido(), evento.tentativa(), erro);
+                reagendamentos.add(new Object[] { StatusEventoOutbox.FALHA.name(), evento.tentativa(),
+                        Timestamp.valueOf(agora), erro, Timestamp.valueOf(agora), evento.idEvento() });
+            } else {
+                long espera = Math.min(1L << Math.min(evento.tentativa(), 20), BACKOFF_MAXIMO_SEGUNDOS);
+                logger.warn("Evento {} do pedido {} falhou (tentativa {}), nova tentativa em {} s: {}",
+                        evento.tipo(), evento.idPedido(), evento.tentativa(), espera, erro);
+                reagendamentos.add(new Object[] { StatusEventoOutbox.PENDENTE.name(), evento.tentativa(),
+                        Timestamp.valueOf(agora.plusSeconds(espera)), erro, null, evento.idEvento() });
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(SQL_REAGENDAR, reagendamentos);
+        } catch (RuntimeException e) {
+            falhas.addAll(lidas);
+            throw e;
+        }
+        lidas.forEach(falha -> emAndamento.remove(falha.evento().idEvento()));
+
+        for (Falha falha : descartadas) {
+            descartados.increment();
+            try {
+                eventPublisher.publishEvent(new PedidoEventoDescartado(falha.evento(), falha.erro()));
+            } catch (Exception e) {
+                logger.error("Falha ao tratar o descarte do evento {} do pedido {}: {}", falha.evento().tipo(),
+                        falha.evento().idPedido(), e.getMessage());
+            }
+        }
+    }
+
+    private static String placeholders(int quantidade) {
+        return String.join(", ", Collections.nCopies(quantidade, "?"));
+    }
+
+    private record Falha(PedidoEvento evento, String erro) {
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.demo.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.CacheConfig;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reserva antecipada de estoque para produtos "quentes" (ex.: promoções relâmpago).
+ *
+ * Para cada produto configurado, a instância retira um lote de unidades de tb_produto e
+ * o registra em tb_reserva_estoque na mesma transação. As compras consomem esse lote:
+ * o saldo em memória responde sem ir a tb_produto, e a linha da reserva da instância é
+ * decrementada na transação do pedido. Assim a linha disputada passa a ser uma por
+ * instância, e o banco sempre tem o estoque real (tb_produto somado às reservas).
+ *
+ * As reservas não se perdem se a instância cair: cada instância renova atualizado_em a
+ * cada reabastecimento, e as reservas paradas há mais de estoque.reserva-memoria.expiracao-ms
+ * são devolvidas a tb_produto (na subida e periodicamente, por qualquer instância). Como
+ * a linha é a fonte da verdade, um saldo em memória que não corresponde mais a ela
+ * (reserva devolvida ou descartada) é zerado e a compra cai no débito direto.
+ *
+ * Devolver e retirar mudam tb_produto.estoque, então removem o produto do cache de produtos.
+ *
+ * Desabilitado por padrão (estoque.reserva-memoria.habilitada=false).
+ */
+@Component
+public class ReservaEstoqueMemoria {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaEstoqueMemoria.class);
+
+    private static final String SQL_RETIRAR_LOTE =
+            "UPDATE tb_produto SET estoque = estoque - ? WHERE id_produto = ? AND estoque >= ?";
+
+    private static final String SQL_DEVOLVER =
+            "UPDATE tb_produto SET estoque = estoque + ? WHERE id_produto = ?";
+
+    private static final String SQL_RESERVAR =
+            "INSERT INTO tb_reserva_estoque (id_instancia, id_produto, quantidade, atualizado_em) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE quantidade = quantidade + VALUES(quantidade), "
+                    + "atualizado_em = VALUES(atualizado_em)";
+
+    private static final String SQL_CONSUMIR = "UPDATE tb_reserva_estoque SET quantidade = quantidade - ? "
+            + "WHERE id_instancia = ? AND id_produto = ? AND quantidade >= ?";
+
+    private static final String SQL_RESERVADO =
+            "SELECT quantidade FROM tb_reserva_estoque WHERE id_instancia = ? AND id_produto = ?";
+
+    private static final String SQL_RENOVAR =
+            "UPDATE tb_reserva_estoque SET atualizado_em = ? WHERE id_instancia = ?";
+
+    private static final String SQL_ABANDONADAS = "SELECT id_instancia, id_produto, quantidade "
+            + "FROM tb_reserva_estoque WHERE atualizado_em < ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SQL_DA_INSTANCIA = "SELECT id_instancia, id_produto, quantidade "
+            + "FROM tb_reserva_estoque WHERE id_instancia = ? FOR UPDATE";
+
+    private static final String SQL_REMOVER =
+            "DELETE FROM tb_reserva_estoque WHERE id_instancia = ? AND id_produto = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache cacheProdutos;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitada;
+    private final int lote;
+    private final long expiracaoMillis;
+
+    private final String idInstancia = UUID.randomUUID().toString();
+
+    private final Map<Integer, Saldo> saldos = new ConcurrentHashMap<>();
+
+    public ReservaEstoqueMemoria(JdbcTemplate jdbcTemplate, CacheManager cacheManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${estoque.reserva-memoria.habilitada:false}") boolean habilitada,
+            @Value("${estoque.reserva-memoria.lote:50}") int lote,
+            @Value("${estoque.reserva-memoria.produtos:}") Set<Integer> produtosQuentes,
+            @Value("${estoque.reserva-memoria.expiracao-ms:30000}") long expiracaoMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheProdutos = cacheManager.getCache(CacheConfig.PRODUTOS);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.habilitada = habilitada;
+        this.lote = lote;
+        this.expiracaoMillis = expiracaoMillis;
+        for (Integer idProduto : produtosQuentes) {
+            saldos.put(idProduto, new Saldo());
+        }
+    }
+
+    public boolean isHabilitada() {
+        return habilitada && !saldos.isEmpty();
+    }
+
+    public String getIdInstancia() {
+        return idInstancia;
+    }
+
+    /**
+     * Quantidade retida em memória para o produto (já debitada de tb_produto).
+     */
+    public int saldo(Integer idProduto) {
+        Saldo saldo = saldos.get(idProduto);
+        return saldo != null ? saldo.disponivel.get() : 0;
+    }
+
+    /**
+     * Consome o que for possível das reservas desta instância e retorna o que ainda
+     * precisa ser debitado de tb_produto. Deve rodar na transação do pedido: a linha da
+     * reserva é decrementada nela, e um rollback devolve o consumo.
+     */
+    public Map<Integer, Integer> consumir(Map<Integer, Integer> quantidades) {
+        if (!isHabilitada()) {
+            return quantidades;
+        }
+
+        Map<Integer, Integer> restante = new HashMap<>();
+        Map<Integer, Integer> consumido = new HashMap<>();
+
+        // Enquanto a transação não termina, o acerto com o banco não mexe nestes saldos
+        quantidades.keySet().forEach(idProduto -> ajustarEmAndamento(idProduto, 1));
+        boolean sincronizada = TransactionSynchronizationManager.isSynchronizationActive();
+        if (sincronizada) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        consumido.forEach((idProduto, quantidade) ->
+                                saldos.get(idProduto).disponivel.addAndGet(quantidade));
+                    }
+                    quantidades.keySet().forEach(idProduto -> ajustarEmAndamento(idProduto, -1));
+                }
+            });
+        }
+
+        try {
+            quantidades.forEach((idProduto, quantidade) -> {
+                Saldo saldo = saldos.get(idProduto);
+                int retirado = saldo != null ? retirarAte(saldo.disponivel, quantidade) : 0;
+
+                if (retirado > 0) {
+                    if (jdbcTemplate.update(SQL_CONSUMIR, retirado, idInstancia, idProduto, retirado) == 1) {
+                        consumido.put(idProduto, retirado);
+                    } else {
+                        // Reserva devolvida ou descartada: o saldo local não vale mais
+                        saldo.disponivel.set(0);
+                        retirado = 0;
+                    }
+                }
+                if (retirado < quantidade) {
+                    restante.put(idProduto, quantidade - retirado);
+                }
+            });
+        } finally {
+            if (!sincronizada) {
+                quantidades.keySet().forEach(idProduto -> ajustarEmAndamento(idProduto, -1));
+            }
+        }
+
+        return restante;
+    }
+
+    /**
+     * Descarta as reservas de um produto cujo estoque foi redefinido manualmente (o valor
+     * informado pelo fornecedor passa a ser a fonte da verdade). Apaga as reservas de todas
+     * as instâncias na transação corrente; o saldo local é zerado depois do commit, e as
+     * outras instâncias percebem na próxima compra ou no próximo reabastecimento.
+     */
+    public void descartar(Integer idProduto) {
+        jdbcTemplate.update("DELETE FROM tb_reserva_estoque WHERE id_produto = ?", idProduto);
+
+        Saldo saldo = saldos.get(idProduto);
+        if (saldo == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    saldo.disponivel.set(0);
+                }
+            });
+        } else {
+            saldo.disponivel.set(0);
+        }
+    }
+
+    /**
+     * Renova as reservas desta instância, acerta os saldos locais com o banco e
+     * reabastece os produtos cujo saldo caiu abaixo de meio lote.
+     */
+    @Scheduled(fixedDelayString = "${estoque.reserva-memoria.intervalo-ms:1000}")
+    public void reabastecer() {
+        if (!isHabilitada()) {
+            return;
+        }
+
+        jdbcTemplate.update(SQL_RENOVAR, Timestamp.valueOf(LocalDateTime.now()), idInstancia);
+
+        saldos.forEach((idProduto, saldo) -> {
+            acertar(idProduto, saldo);
+            if (saldo.disponivel.get() >= lote / 2) {
+                return;
+            }
+
+            Integer retirado = transactionTemplate.execute(status -> {
+                Integer estoqueBanco = jdbcTemplate.query(
+                        "SELECT estoque FROM tb_produto WHERE id_produto = ?",
+                        rs -> rs.next() ? rs.getInt(1) : 0,
+                        idProduto);
+
+                int quantidade = Math.min(lote, estoqueBanco != null ? estoqueBanco : 0);
+                if (quantidade <= 0 || jdbcTemplate.update(SQL_RETIRAR_LOTE, quantidade, idProduto, quantidade) != 1) {
+                    return 0;
+                }
+                jdbcTemplate.update(SQL_RESERVAR, idInstancia, idProduto, quantidade,
+                        Timestamp.valueOf(LocalDateTime.now()));
+                return quantidade;
+            });
+
+            if (retirado != null && retirado > 0) {
+                saldo.disponivel.addAndGet(retirado);
+                cacheProdutos.evict(idProduto);
+            }
+        });
+    }
+
+    /**
+     * Devolve a tb_produto as reservas de instâncias que pararam de renová-las (queda,
+     * kill, OOM). Roda na subida e periodicamente, com a reserva em memória habilitada
+     * ou não nesta instância.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${estoque.reserva-memoria.expiracao-ms:30000}",
+            initialDelayString = "${estoque.reserva-memoria.expiracao-ms:30000}")
+    public void devolverAbandonadas() {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minus(expiracaoMillis, ChronoUnit.MILLIS));
+        Map<Integer, Integer> devolvidos = transactionTemplate.execute(status ->
+                devolver(jdbcTemplate.query(SQL_ABANDONADAS, (rs, i) -> new Object[] {
+                        rs.getString(1), rs.getInt(2), rs.getInt(3) }, limite)));
+
+        if (devolvidos != null && !devolvidos.isEmpty()) {
+            logger.warn("Reservas de estoque abandonadas devolvidas ao banco: {}", devolvidos);
+        }
+    }
+
+    /**
+     * Devolve a tb_produto tudo o que está reservado por esta instância.
+     */
+    @PreDestroy
+    public void reconciliar() {
+        saldos.values().forEach(saldo -> saldo.disponivel.set(0));
+
+        Map<Integer, Integer> devolvidos = transactionTemplate.execute(status ->
+                devolver(jdbcTemplate.query(SQL_DA_INSTANCIA, (rs, i) -> new Object[] {
+                        rs.getString(1), rs.getInt(2), rs.getInt(3) }, idInstancia)));
+
+        logger.info("Reserva de estoque em memória reconciliada: {}", devolvidos);
+    }
+
+    /**
+     * Devolve as reservas (id da instância, id do produto, quantidade) já travadas e as apaga.
+     */
+    private Map<Integer, Integer> devolver(List<Object[]> reservas) {
+        Map<Integer, Integer> devolvidos = new HashMap<>();
+        for (Object[] reserva : reservas) {
+            Integer idProduto = (Integer) reserva[1];
+            int quantidade = (Integer) reserva[2];
+            if (quantidade > 0) {
+                jdbcTemplate.update(SQL_DEVOLVER, quantidade, idProduto);
+                cacheProdutos.evict(idProduto);
+                devolvidos.merge(idProduto, quantidade, Integer::sum);
+            }
+            jdbcTemplate.update(SQL_REMOVER, reserva[0], idProduto);
+        }
+        return devolvidos;
+    }
+
+    /**
+     * Iguala o saldo local à reserva gravada quando não há compra em andamento no produto.
+     * Com compras em andamento o acerto fica para a próxima rodada; se o saldo local passar
+     * da reserva nesse meio tempo, a própria compra percebe (a linha não é decrementada).
+     */
+    private void acertar(Integer idProduto, Saldo saldo) {
+        int local = saldo.disponivel.get();
+        Integer reservado = jdbcTemplate.query(SQL_RESERVADO, rs -> rs.next() ? rs.getInt(1) : 0,
+                idInstancia, idProduto);
+        int gravado = reservado != null ? reservado : 0;
+        if (local != gravado && saldo.emAndamento.get() == 0 && saldo.disponivel.compareAndSet(local, gravado)) {
+            logger.debug("Saldo em memória do produto {} acertado de {} para {}", idProduto, local, gravado);
+        }
+    }
+
+    private void ajustarEmAndamento(Integer idProduto, int delta) {
+        Saldo saldo = saldos.get(idProduto);
+        if (saldo != null) {
+            saldo.emAndamento.addAndGet(delta);
+        }
+    }
+
+    private int retirarAte(AtomicInteger saldo, int quantidade) {
+        while (true) {
+            int atual = saldo.get();
+            int retirado = Math.min(atual, quantidade);
+            if (retirado <= 0) {
+                return 0;
+            }
+            if (saldo.compareAndSet(atual, atual - retirado)) {
+                return retirado;
+            }
+        }
+    }
+
+    /**
+     * Saldo local de um produto e quantas compras nele ainda não terminaram.
+     */
+    private static final class Saldo {
+
+        private final AtomicInteger disponivel = new AtomicInteger();
+        private final AtomicInteger emAndamento = new AtomicInteger();
+    }
+}
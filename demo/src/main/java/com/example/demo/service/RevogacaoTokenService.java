@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.repository.TokenRepository;
+import com.example.demo.util.FiltroBloom;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Lista de revogação das famílias de tokens (uma família por login).
+ *
+ * A consulta feita a cada requisição autenticada passa primeiro por um filtro de Bloom:
+ * quase todas as famílias não estão revogadas e são liberadas sem acessar nada além do
+ * filtro. Só os "pode conter" consultam o conjunto exato em memória. A fonte da verdade é
+ * tb_token; o estado em memória é reconstruído periodicamente a partir dela, o que também
+ * propaga revogações feitas por outras instâncias e descarta famílias já expiradas.
+ */
+@Service
+public class RevogacaoTokenService {
+
+    private final TokenRepository tokenRepository;
+    private final int capacidadeFiltro;
+    private final double taxaFalsoPositivo;
+    private final long refreshExpiration;
+
+    private volatile Estado estado;
+
+    public RevogacaoTokenService(
+            TokenRepository tokenRepository,
+            MeterRegistry meterRegistry,
+            @Value("${token.revogacao.capacidade-filtro:100000}") int capacidadeFiltro,
+            @Value("${token.revogacao.taxa-falso-positivo:0.001}") double taxaFalsoPositivo,
+            @Value("${jwt.refresh-token.expiration}") long refreshExpiration) {
+        this.tokenRepository = tokenRepository;
+        this.capacidadeFiltro = capacidadeFiltro;
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        this.refreshExpiration = refreshExpiration;
+        this.estado = new Estado(new FiltroBloom(capacidadeFiltro, taxaFalsoPositivo), new ConcurrentHashMap<>());
+
+        Gauge.builder("token.revogacao.familias", this, s -> s.estado.revogadas().size())
+                .description("Famílias de tokens revogadas e ainda não expiradas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verifica se a família do token foi revogada (logout ou reuso de refresh token).
+     */
+    public boolean isRevogada(String familia) {
+        if (familia == null) {
+            return false;
+        }
+        Estado atual = estado;
+        return atual.filtro().podeConter(familia) && atual.revogadas().containsKey(familia);
+    }
+
+    /**
+     * Revoga todos os tokens da família: os refresh tokens em tb_token e, pela lista
+     * em memória, os access tokens emitidos com ela.
+     */
+    @Transactional
+    public void revogarFamilia(String familia) {
+        LocalDateTime agora = LocalDateTime.now();
+        tokenRepository.revogarFamilia(familia, agora);
+        // Nenhum token da família vive mais que um refresh token emitido agora
+        registrar(estado, familia, agora.plus(Duration.ofMillis(refreshExpiration)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarAoIniciar() {
+        sincronizar();
+    }
+
+    /**
+     * Reconstrói filtro e conjunto a partir do banco. Revogações locais feitas durante a
+     * leitura são mantidas (as ainda válidas são copiadas do estado anterior).
+     */
+    @Scheduled(fixedDelayString = "${token.revogacao.sincronizacao-ms:10000}")
+    @Transactional(readOnly = true)
+    public void sincronizar() {
+        LocalDateTime agora = LocalDateTime.now();
+        List<Object[]> revogadasNoBanco = tokenRepository.listarFamiliasRevogadas(agora);
+
+        Estado novo = new Estado(new FiltroBloom(capacidadeFiltro, taxaFalsoPositivo), new ConcurrentHashMap<>());
+        for (Object[] linha : revogadasNoBanco) {
+            registrar(novo, (String) linha[0], (LocalDateTime) linha[1]);
+        }
+
+        Estado anterior = estado;
+        estado = novo;
+        anterior.revogadas().forEach((familia, expiracao) -> {
+            if (expiracao.isAfter(agora)) {
+                registrar(novo, familia, expiracao);
+            }
+        });
+    }
+
+    /**
+     * Remove refresh tokens expirados há mais de um dia.
+     */
+    @Scheduled(cron = "${token.limpeza.cron:0 30 3 * * *}")
+    @Transactional
+    public void removerExpirados() {
+        tokenRepository.removerExpiradosAntes(LocalDateTime.now().minusDays(1));
+    }
+
+    private static void registrar(Estado destino, String familia, LocalDateTime expiracao) {
+        // Conjunto antes do filtro: quem vê o bit no filtro encontra a família no conjunto
+        destino.revogadas().merge(familia, expiracao, (a, b) -> a.isAfter(b) ? a : b);
+        destino.filtro().adicionar(familia);
+    }
+
+    private record Estado(FiltroBloom filtro, Map<String, LocalDateTime> revogadas) {
+    }
+}
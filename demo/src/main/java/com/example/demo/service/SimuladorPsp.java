@@ -0,0 +1,106 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.example.demo.dto.PixWebhookDTO;
+import com.example.demo.dto.PixWebhookRespostaDTO;
+import com.example.demo.model.StatusPagamentoPix;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * PSP simulado para testes de carga do webhook PIX (perfil simulador-psp).
+ *
+ * A cada intervalo "paga" um lote de PIX pendentes e envia as notificações para
+ * /pagamento/pix/webhook como um PSP real faria, inclusive reenviando parte dos lotes
+ * para exercitar a idempotência. Nunca ativar em produção.
+ */
+@Component
+@Profile("simulador-psp")
+public class SimuladorPsp {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimuladorPsp.class);
+
+    private static final String SQL_PENDENTES =
+            "SELECT txid, valor_pix FROM tb_pagamentos_pix WHERE status_pagamento = ? AND txid IS NOT NULL"
+                    + " AND data_expiracao > ? ORDER BY data_expiracao LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${simulador-psp.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    /** Fração dos lotes enviada duas vezes (reentrega do PSP). */
+    @Value("${simulador-psp.taxa-reenvio:0.2}")
+    private double taxaReenvio;
+
+    @Value("${pix.webhook.segredo:}")
+    private String segredo;
+
+    public SimuladorPsp(JdbcTemplate jdbcTemplate, RestClient.Builder restClientBuilder, ObjectMapper objectMapper,
+            @Value("${simulador-psp.url:http://localhost:${server.port:8080}/pagamento/pix/webhook}") String url) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.restClient = restClientBuilder.baseUrl(url).build();
+    }
+
+    @Scheduled(fixedDelayString = "${simulador-psp.intervalo-ms:1000}")
+    public void pagarPendentes() {
+
+        List<PixWebhookDTO.PixRecebido> pagos = jdbcTemplate.query(SQL_PENDENTES,
+                (rs, linha) -> novoPagamento(rs.getString(1), rs.getBigDecimal(2)),
+                StatusPagamentoPix.PENDENTE.name(), Timestamp.valueOf(LocalDateTime.now()), tamanhoLote);
+
+        if (pagos.isEmpty()) {
+            return;
+        }
+
+        PixWebhookDTO lote = new PixWebhookDTO(pagos);
+        enviar(lote);
+        if (ThreadLocalRandom.current().nextDouble() < taxaReenvio) {
+            enviar(lote);
+        }
+    }
+
+    private void enviar(PixWebhookDTO lote) {
+        try {
+            long inicio = System.nanoTime();
+            byte[] corpo = objectMapper.writeValueAsBytes(lote);
+            RestClient.RequestBodySpec requisicao = restClient.post().contentType(MediaType.APPLICATION_JSON);
+            if (!segredo.isEmpty()) {
+                requisicao.header("X-Webhook-Signature", PixWebhookService.assinar(segredo, corpo));
+            }
+            PixWebhookRespostaDTO resposta = requisicao
+                    .body(corpo)
+                    .retrieve()
+                    .body(PixWebhookRespostaDTO.class);
+            logger.info("Simulador PSP: lote de {} enviado em {} ms ({} novos, {} duplicados)",
+                    lote.pix().size(), (System.nanoTime() - inicio) / 1_000_000,
+                    resposta.novos(), resposta.duplicados());
+        } catch (Exception e) {
+            logger.warn("Simulador PSP: falha ao enviar lote: {}", e.getMessage());
+        }
+    }
+
+    private static PixWebhookDTO.PixRecebido novoPagamento(String txid, BigDecimal valor) {
+        String endToEndId = "E00000000" + UUID.randomUUID().toString().replace("-", "").substring(0, 23);
+        return new PixWebhookDTO.PixRecebido(endToEndId, txid, valor, OffsetDateTime.now());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens com reposição contínua, sem locks.
+ *
+ * Implementado como GCRA (generic cell rate algorithm): em vez de guardar a quantidade de
+ * tokens e o instante da última reposição, guarda só o "instante teórico de chegada"
+ * (TAT) em um único AtomicLong. A reposição é calculada de forma preguiçosa no momento do
+ * consumo, então baldes ociosos não custam nada, e cada consumo é um único CAS.
+ *
+ * O comportamento é o de um balde com {@code capacidade} tokens que recebe um token a cada
+ * {@code janelaNanos / capacidade} nanossegundos.
+ */
+public class BaldeTokens {
+
+    private final long capacidade;
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final AtomicLong instanteTeorico = new AtomicLong(Long.MIN_VALUE);
+
+    public BaldeTokens(long capacidade, long janelaNanos) {
+        if (capacidade <= 0 || janelaNanos <= 0) {
+            throw new IllegalArgumentException("Capacidade e janela devem ser positivas.");
+        }
+        this.capacidade = capacidade;
+        this.intervaloNanos = Math.max(1, janelaNanos / capacidade);
+        this.toleranciaNanos = intervaloNanos * capacidade;
+    }
+
+    /**
+     * Tenta consumir um token no instante informado (System.nanoTime()).
+     */
+    public Resultado consumir(long agoraNanos) {
+        while (true) {
+            long atual = instanteTeorico.get();
+            long base = atual == Long.MIN_VALUE ? agoraNanos : Math.max(atual, agoraNanos);
+            long novo = base + intervaloNanos;
+            long ocupado = novo - agoraNanos;
+
+            if (ocupado > toleranciaNanos) {
+                // Tempo até sobrar espaço para um token
+                long espera = ocupado - toleranciaNanos;
+                return new Resultado(false, capacidade, 0, espera, base - agoraNanos);
+            }
+
+            if (instanteTeorico.compareAndSet(atual, novo)) {
+                long restantes = (toleranciaNanos - ocupado) / intervaloNanos;
+                return new Resultado(true, capacidade, restantes, 0, ocupado);
+            }
+        }
+    }
+
+    /**
+     * @param permitido         se o token foi consumido
+     * @param limite            capacidade do balde
+     * @param restantes         tokens ainda disponíveis após esta requisição
+     * @param esperaNanos       tempo até o próximo token, quando negado
+     * @param ateEncherNanos    tempo até o balde voltar a ficar cheio
+     */
+    public record Resultado(boolean permitido, long limite, long restantes, long esperaNanos, long ateEncherNanos) {
+    }
+}
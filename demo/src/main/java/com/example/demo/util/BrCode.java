@@ -0,0 +1,317 @@
+package com.example.demo.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+
+/**
+ * Codificador e leitor do BR Code (PIX copia e cola, padrão EMV QRCPS do Banco Central).
+ *
+ * Os campos fixos do recebedor (versão, conta PIX, MCC, moeda, país, nome e cidade) são
+ * codificados uma única vez no construtor; cada cobrança só escreve valor e txid em um
+ * buffer de bytes e calcula o CRC16-CCITT por tabela. Nome e cidade são reduzidos a ASCII
+ * sem acentos, então o tamanho de cada campo em caracteres é o mesmo em bytes.
+ */
+public final class BrCode {
+
+    private static final String GUI_PIX = "BR.GOV.BCB.PIX";
+
+    private static final int TAMANHO_MAXIMO_TXID = 25;
+    private static final int TAMANHO_MAXIMO_NOME = 25;
+    private static final int TAMANHO_MAXIMO_CIDADE = 15;
+
+    /** Espaço para os campos variáveis: valor (54), dados adicionais (62) e CRC (63). */
+    private static final int TAMANHO_MAXIMO_VARIAVEL = 4 + 13 + 4 + 4 + TAMANHO_MAXIMO_TXID + 8;
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int[] TABELA_CRC = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            TABELA_CRC[i] = crc & 0xFFFF;
+        }
+    }
+
+    /** IDs 00, 26, 52 e 53 (antes do valor). */
+    private final byte[] prefixo;
+
+    /** IDs 58, 59 e 60 (entre o valor e os dados adicionais). */
+    private final byte[] sufixo;
+
+    public BrCode(String chave, String nomeBeneficiario, String cidade) {
+
+        if (chave == null || chave.isBlank()) {
+            throw new IllegalArgumentException("Chave PIX não informada.");
+        }
+
+        String contaPix = campo("00", GUI_PIX) + campo("01", chave);
+
+        this.prefixo = bytes(campo("00", "01")
+                + campo("26", contaPix)
+                + campo("52", "0000")
+                + campo("53", "986"));
+
+        this.sufixo = bytes(campo("58", "BR")
+                + campo("59", normalizar(nomeBeneficiario, TAMANHO_MAXIMO_NOME))
+                + campo("60", normalizar(cidade, TAMANHO_MAXIMO_CIDADE)));
+    }
+
+    /**
+     * Código copia e cola da cobrança.
+     *
+     * @param valor valor em reais (arredondado para centavos)
+     * @param txid  identificador da cobrança: 1 a 25 caracteres alfanuméricos
+     */
+    public String gerar(BigDecimal valor, String txid) {
+
+        validarTxid(txid);
+
+        byte[] buffer = new byte[prefixo.length + sufixo.length + TAMANHO_MAXIMO_VARIAVEL];
+        System.arraycopy(prefixo, 0, buffer, 0, prefixo.length);
+        int pos = prefixo.length;
+
+        pos = escreverValor(buffer, pos, valor);
+
+        System.arraycopy(sufixo, 0, buffer, pos, sufixo.length);
+        pos += sufixo.length;
+
+        pos = escreverId(buffer, pos, '6', '2', 4 + txid.length());
+        pos = escreverId(buffer, pos, '0', '5', txid.length());
+        for (int i = 0; i < txid.length(); i++) {
+            buffer[pos++] = (byte) txid.charAt(i);
+        }
+
+        pos = escreverId(buffer, pos, '6', '3', 4);
+        int crc = crc16(buffer, 0, pos);
+        buffer[pos++] = HEX[(crc >>> 12) & 0xF];
+        buffer[pos++] = HEX[(crc >>> 8) & 0xF];
+        buffer[pos++] = HEX[(crc >>> 4) & 0xF];
+        buffer[pos++] = HEX[crc & 0xF];
+
+        return new String(buffer, 0, pos, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lê e valida um código copia e cola: estrutura TLV, campos obrigatórios e CRC.
+     *
+     * @throws IllegalArgumentException se o código não for um BR Code PIX válido
+     */
+    public static Conteudo ler(String codigo) {
+
+        if (codigo == null || codigo.length() < 8) {
+            throw new IllegalArgumentException("BR Code vazio ou incompleto.");
+        }
+
+        byte[] bytes = codigo.getBytes(StandardCharsets.UTF_8);
+        int inicioCrc = bytes.length - 8;
+
+        if (bytes[inicioCrc] != '6' || bytes[inicioCrc + 1] != '3' || bytes[inicioCrc + 2] != '0'
+                || bytes[inicioCrc + 3] != '4') {
+            throw new IllegalArgumentException("BR Code sem CRC (ID 63) no final.");
+        }
+
+        int crcInformado;
+        try {
+            crcInformado = Integer.parseInt(codigo.substring(codigo.length() - 4), 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("CRC do BR Code inválido.");
+        }
+        if (crc16(bytes, 0, inicioCrc + 4) != crcInformado) {
+            throw new IllegalArgumentException("CRC do BR Code não confere.");
+        }
+
+        String versao = null;
+        String chave = null;
+        BigDecimal valor = null;
+        String nome = null;
+        String cidade = null;
+        String txid = null;
+        boolean contaPix = false;
+
+        int pos = 0;
+        while (pos < inicioCrc) {
+            int id = lerNumero(bytes, pos, inicioCrc);
+            int tamanho = lerNumero(bytes, pos + 2, inicioCrc);
+            int inicio = pos + 4;
+            if (inicio + tamanho > inicioCrc) {
+                throw new IllegalArgumentException("Campo " + id + " ultrapassa o fim do BR Code.");
+            }
+            String conteudo = new String(bytes, inicio, tamanho, StandardCharsets.UTF_8);
+
+            switch (id) {
+                case 0 -> versao = conteudo;
+                case 26 -> {
+                    String gui = subcampo(conteudo, 0);
+                    if (GUI_PIX.equalsIgnoreCase(gui)) {
+                        contaPix = true;
+                        chave = subcampo(conteudo, 1);
+                    }
+                }
+                case 53 -> {
+                    if (!"986".equals(conteudo)) {
+                        throw new IllegalArgumentException("Moeda do BR Code não é o real (986).");
+                    }
+                }
+                case 54 -> {
+                    try {
+                        valor = new BigDecimal(conteudo);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Valor do BR Code inválido: " + conteudo);
+                    }
+                }
+                case 58 -> {
+                    if (!"BR".equals(conteudo)) {
+                        throw new IllegalArgumentException("País do BR Code não é BR.");
+                    }
+                }
+                case 59 -> nome = conteudo;
+                case 60 -> cidade = conteudo;
+                case 62 -> txid = subcampo(conteudo, 5);
+                default -> {
+                    // Campos opcionais (ex.: 80-99, templates de outros arranjos) são ignorados
+                }
+            }
+            pos = inicio + tamanho;
+        }
+
+        if (!"01".equals(versao)) {
+            throw new IllegalArgumentException("BR Code deve começar pelo ID 00 com versão 01.");
+        }
+        if (!contaPix || chave == null) {
+            throw new IllegalArgumentException("BR Code sem conta PIX (ID 26 com " + GUI_PIX + ").");
+        }
+        if (nome == null || cidade == null) {
+            throw new IllegalArgumentException("BR Code sem nome ou cidade do recebedor.");
+        }
+
+        return new Conteudo(chave, valor, nome, cidade, txid);
+    }
+
+    /**
+     * CRC16-CCITT (polinômio 0x1021, valor inicial 0xFFFF), exigido no ID 63 do BR Code.
+     */
+    public static int crc16(byte[] dados, int inicio, int fim) {
+        int crc = 0xFFFF;
+        for (int i = inicio; i < fim; i++) {
+            crc = ((crc << 8) ^ TABELA_CRC[((crc >>> 8) ^ dados[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc;
+    }
+
+    /**
+     * Campos de um BR Code lido. valor e txid são nulos quando ausentes no código.
+     */
+    public record Conteudo(String chave, BigDecimal valor, String nomeBeneficiario, String cidade, String txid) {
+    }
+
+    private static void validarTxid(String txid) {
+        if (txid == null || txid.isEmpty() || txid.length() > TAMANHO_MAXIMO_TXID) {
+            throw new IllegalArgumentException("txid deve ter de 1 a " + TAMANHO_MAXIMO_TXID + " caracteres.");
+        }
+        for (int i = 0; i < txid.length(); i++) {
+            char c = txid.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z')) {
+                throw new IllegalArgumentException("txid deve conter apenas letras e dígitos: " + txid);
+            }
+        }
+    }
+
+    /**
+     * Escreve o ID 54 com o valor em centavos formatado como "reais.centavos".
+     */
+    private static int escreverValor(byte[] buffer, int pos, BigDecimal valor) {
+
+        long centavos = valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        if (centavos <= 0) {
+            throw new IllegalArgumentException("Valor do PIX deve ser positivo.");
+        }
+
+        long reais = centavos / 100;
+        int digitosReais = reais == 0 ? 1 : (int) Math.log10(reais) + 1;
+        int tamanho = digitosReais + 3;
+        if (tamanho > 13) {
+            throw new IllegalArgumentException("Valor do PIX excede 13 caracteres.");
+        }
+
+        pos = escreverId(buffer, pos, '5', '4', tamanho);
+        int fim = pos + tamanho;
+        int centavosResto = (int) (centavos % 100);
+        buffer[fim - 1] = (byte) ('0' + centavosResto % 10);
+        buffer[fim - 2] = (byte) ('0' + centavosResto / 10);
+        buffer[fim - 3] = '.';
+        for (int i = fim - 4; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + reais % 10);
+            reais /= 10;
+        }
+        return fim;
+    }
+
+    private static int escreverId(byte[] buffer, int pos, char id1, char id2, int tamanho) {
+        buffer[pos] = (byte) id1;
+        buffer[pos + 1] = (byte) id2;
+        buffer[pos + 2] = (byte) ('0' + tamanho / 10);
+        buffer[pos + 3] = (byte) ('0' + tamanho % 10);
+        return pos + 4;
+    }
+
+    private static int lerNumero(byte[] bytes, int pos, int limite) {
+        if (pos + 2 > limite) {
+            throw new IllegalArgumentException("Estrutura TLV do BR Code incompleta.");
+        }
+        int dezena = bytes[pos] - '0';
+        int unidade = bytes[pos + 1] - '0';
+        if (dezena < 0 || dezena > 9 || unidade < 0 || unidade > 9) {
+            throw new IllegalArgumentException("ID ou tamanho não numérico na posição " + pos + " do BR Code.");
+        }
+        return dezena * 10 + unidade;
+    }
+
+    /**
+     * Conteúdo do subcampo com o ID informado dentro de um template, ou null se ausente.
+     */
+    private static String subcampo(String template, int idProcurado) {
+        byte[] bytes = template.getBytes(StandardCharsets.UTF_8);
+        int pos = 0;
+        while (pos < bytes.length) {
+            int id = lerNumero(bytes, pos, bytes.length);
+            int tamanho = lerNumero(bytes, pos + 2, bytes.length);
+            int inicio = pos + 4;
+            if (inicio + tamanho > bytes.length) {
+                throw new IllegalArgumentException("Subcampo " + id + " ultrapassa o fim do template.");
+            }
+            if (id == idProcurado) {
+                return new String(bytes, inicio, tamanho, StandardCharsets.UTF_8);
+            }
+            pos = inicio + tamanho;
+        }
+        return null;
+    }
+
+    private static String campo(String id, String valor) {
+        int tamanho = valor.getBytes(StandardCharsets.UTF_8).length;
+        if (tamanho > 99) {
+            throw new IllegalArgumentException("Campo " + id + " do BR Code excede 99 caracteres.");
+        }
+        return id + (tamanho < 10 ? "0" : "") + tamanho + valor;
+    }
+
+    private static String normalizar(String texto, int tamanhoMaximo) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("Nome e cidade do recebedor são obrigatórios no BR Code.");
+        }
+        String ascii = Normalizer.normalize(texto.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("[^\\x20-\\x7E]", "");
+        return ascii.length() > tamanhoMaximo ? ascii.substring(0, tamanhoMaximo) : ascii;
+    }
+
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Buffer circular limitado, sem locks, para vários produtores e um único consumidor.
+ *
+ * Cada posição guarda um número de sequência que diz de quem é a vez: o produtor reserva
+ * uma posição com um CAS no contador de escrita e a publica avançando a sequência; o
+ * consumidor só lê posições publicadas. Com o buffer cheio, oferecer retorna false
+ * imediatamente em vez de bloquear, e quem chama decide o que descartar.
+ *
+ * retirar e drenar só podem ser chamados por uma thread de cada vez.
+ */
+public class BufferCircular<E> {
+
+    private final int capacidade;
+    private final int mascara;
+    private final AtomicReferenceArray<E> elementos;
+    private final AtomicLongArray sequencias;
+    private final AtomicLong escrita = new AtomicLong();
+    private volatile long leitura;
+
+    /**
+     * @param capacidade quantidade mínima de posições (arredondada para a potência de 2 seguinte)
+     */
+    public BufferCircular(int capacidade) {
+        if (capacidade <= 0 || capacidade > (1 << 30)) {
+            throw new IllegalArgumentException("A capacidade deve estar entre 1 e 2^30.");
+        }
+        this.capacidade = capacidade == 1 ? 1 : Integer.highestOneBit(capacidade - 1) << 1;
+        this.mascara = this.capacidade - 1;
+        this.elementos = new AtomicReferenceArray<>(this.capacidade);
+        this.sequencias = new AtomicLongArray(this.capacidade);
+        for (int i = 0; i < this.capacidade; i++) {
+            sequencias.set(i, i);
+        }
+    }
+
+    /**
+     * Insere o elemento, ou retorna false se o buffer estiver cheio.
+     */
+    public boolean oferecer(E elemento) {
+        if (elemento == null) {
+            throw new NullPointerException("O buffer não aceita elementos nulos.");
+        }
+
+        long posicao = escrita.get();
+        while (true) {
+            int indice = (int) (posicao & mascara);
+            long diferenca = sequencias.get(indice) - posicao;
+
+            if (diferenca == 0) {
+                if (escrita.compareAndSet(posicao, posicao + 1)) {
+                    elementos.lazySet(indice, elemento);
+                    // Publica: a partir daqui o consumidor enxerga o elemento
+                    sequencias.set(indice, posicao + 1);
+                    return true;
+                }
+                posicao = escrita.get();
+            } else if (diferenca < 0) {
+                // A posição ainda não foi liberada pelo consumidor: cheio
+                return false;
+            } else {
+                posicao = escrita.get();
+            }
+        }
+    }
+
+    /**
+     * Remove o elemento mais antigo, ou retorna null se não houver nenhum publicado.
+     */
+    public E retirar() {
+        long posicao = leitura;
+        int indice = (int) (posicao & mascara);
+        if (sequencias.get(indice) != posicao + 1) {
+            return null;
+        }
+
+        E elemento = elementos.get(indice);
+        elementos.lazySet(indice, null);
+        // Libera a posição para a volta seguinte dos produtores
+        sequencias.set(indice, posicao + capacidade);
+        leitura = posicao + 1;
+        return elemento;
+    }
+
+    /**
+     * Entrega ao consumidor até maximo elementos, na ordem de publicação.
+     *
+     * @return quantidade entregue
+     */
+    public int drenar(Consumer<? super E> consumidor, int maximo) {
+        int entregues = 0;
+        while (entregues < maximo) {
+            E elemento = retirar();
+            if (elemento == null) {
+                break;
+            }
+            consumidor.accept(elemento);
+            entregues++;
+        }
+        return entregues;
+    }
+
+    /**
+     * Quantidade aproximada de elementos aguardando (exata só com o buffer parado).
+     */
+    public int tamanho() {
+        long diferenca = escrita.get() - leitura;
+        return (int) Math.max(0, Math.min(diferenca, capacidade));
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+}
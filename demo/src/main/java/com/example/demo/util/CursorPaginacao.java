@@ -0,0 +1,65 @@
+package com.example.demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.example.demo.exception.RegraNegocioException;
+
+/**
+ * Cursores opacos para paginação por keyset (seek).
+ *
+ * O cursor guarda a chave de ordenação e o ID do último registro da página
+ * ("v1|chave|id" em Base64 URL-safe). A próxima página começa logo depois dele,
+ * então o custo não cresce com a profundidade, ao contrário do OFFSET.
+ */
+public class CursorPaginacao {
+
+    public static final int TAMANHO_PADRAO = 20;
+    public static final int TAMANHO_MAXIMO = 100;
+
+    private static final String VERSAO = "v1";
+
+    public record Cursor(String chave, Integer id) {
+    }
+
+    public static String codificar(String chave, Integer id) {
+        String bruto = VERSAO + "|" + chave + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica o cursor recebido do cliente. Retorna null para a primeira página.
+     */
+    public static Cursor decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String bruto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            // A chave pode conter '|', então o ID é separado pelo último delimitador
+            int inicioChave = bruto.indexOf('|');
+            int fimChave = bruto.lastIndexOf('|');
+            if (inicioChave < 0 || fimChave <= inicioChave || !VERSAO.equals(bruto.substring(0, inicioChave))) {
+                throw new RegraNegocioException("Cursor de paginação inválido.");
+            }
+
+            return new Cursor(bruto.substring(inicioChave + 1, fimChave),
+                    Integer.valueOf(bruto.substring(fimChave + 1)));
+
+        } catch (IllegalArgumentException e) {
+            throw new RegraNegocioException("Cursor de paginação inválido.", e);
+        }
+    }
+
+    /**
+     * Limita o tamanho de página pedido pelo cliente a [1, TAMANHO_MAXIMO].
+     */
+    public static int tamanhoValido(Integer tamanho) {
+        if (tamanho == null) {
+            return TAMANHO_PADRAO;
+        }
+        return Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO));
+    }
+}
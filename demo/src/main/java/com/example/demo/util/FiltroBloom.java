@@ -0,0 +1,98 @@
+package com.example.demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom thread-safe para strings.
+ *
+ * Responde "com certeza não contém" ou "pode conter": falsos positivos ocorrem na taxa
+ * configurada, falsos negativos nunca. Não suporta remoção; para descartar elementos
+ * monte um filtro novo.
+ */
+public class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long quantidadeBits;
+    private final int quantidadeHashes;
+
+    /**
+     * @param capacidadeEsperada quantidade de elementos para a qual a taxa de falsos positivos vale
+     * @param taxaFalsoPositivo  probabilidade desejada de falso positivo (entre 0 e 1, exclusivo)
+     */
+    public FiltroBloom(int capacidadeEsperada, double taxaFalsoPositivo) {
+        if (capacidadeEsperada <= 0) {
+            throw new IllegalArgumentException("A capacidade esperada deve ser positiva.");
+        }
+        if (taxaFalsoPositivo <= 0 || taxaFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("A taxa de falso positivo deve estar entre 0 e 1.");
+        }
+
+        // m = -n ln(p) / (ln 2)^2 e k = (m / n) ln 2
+        long m = (long) Math.ceil(-capacidadeEsperada * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.quantidadeBits = Math.max(64, m);
+        this.quantidadeHashes = Math.max(1, (int) Math.round((double) quantidadeBits / capacidadeEsperada * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((quantidadeBits + 63) / 64));
+    }
+
+    public void adicionar(String valor) {
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= quantidadeHashes; i++) {
+            long indice = indice(h1 + i * h2);
+            int palavra = (int) (indice >>> 6);
+            long mascara = 1L << indice;
+
+            long atual;
+            do {
+                atual = bits.get(palavra);
+                if ((atual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palavra, atual, atual | mascara));
+        }
+    }
+
+    public boolean podeConter(String valor) {
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= quantidadeHashes; i++) {
+            long indice = indice(h1 + i * h2);
+            if ((bits.get((int) (indice >>> 6)) & (1L << indice)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getQuantidadeHashes() {
+        return quantidadeHashes;
+    }
+
+    private long indice(int hashCombinado) {
+        // Garante valor não negativo antes do módulo
+        return (hashCombinado & 0x7FFFFFFFL) % quantidadeBits;
+    }
+
+    /**
+     * FNV-1a de 64 bits seguido de mistura final (fmix64 do MurmurHash3) para espalhar
+     * os bits altos e baixos usados no hashing duplo.
+     */
+    private static long hash64(String valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe1a85ec3L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
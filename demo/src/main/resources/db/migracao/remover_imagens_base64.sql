@@ -0,0 +1,18 @@
+-- ===================================================================
+-- Remove as imagens em Base64 gravadas no banco (limpeza opcional).
+--
+-- As imagens dos QR Codes (rastreamento e PIX) passaram a ser geradas sob
+-- demanda a partir de conteudo_qrcode / codigo_pix, então estas colunas
+-- LONGTEXT não são mais lidas nem escritas pela aplicação.
+--
+-- Não é necessário para a aplicação funcionar: na subida, AjusteSchemaLegado
+-- já libera qrcode_pix (que era NOT NULL) para aceitar NULL. Este script só
+-- recupera o espaço das imagens antigas e deve ser executado manualmente,
+-- depois que nenhuma instância da versão anterior estiver mais rodando
+-- (ela ainda lê e grava essas colunas):
+--   mysql -u root -p backend < remover_imagens_base64.sql
+-- ===================================================================
+
+ALTER TABLE tb_qrcode_rastreamento DROP COLUMN qrcode_base64;
+
+ALTER TABLE tb_pagamentos_pix DROP COLUMN qrcode_pix;
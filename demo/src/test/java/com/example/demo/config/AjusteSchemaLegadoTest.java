@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Usa uma tabela própria em vez de tb_pagamentos_pix. Sem @Transactional: DDL no MariaDB
+ * faz commit implícito, então a tabela é removida ao final de cada teste.
+ */
+@SpringBootTest
+@DisplayName("Testes de Integração do AjusteSchemaLegado")
+public class AjusteSchemaLegadoTest {
+
+    private static final String TABELA = "tb_teste_ajuste_schema";
+
+    @Autowired
+    private AjusteSchemaLegado ajusteSchema;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Como a tb_pagamentos_pix de um banco criado pela versão que guardava a imagem
+        jdbcTemplate.execute("CREATE TABLE " + TABELA + " (id INT PRIMARY KEY, imagem LONGTEXT NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABELA);
+    }
+
+    @Test
+    @DisplayName("Deve liberar para NULL a coluna NOT NULL que saiu da entidade")
+    void testLiberaColunaNotNull() {
+        assertEquals("NO", nullable("imagem"));
+
+        ajusteSchema.liberarParaNull(List.<String[]>of(new String[] { TABELA, "imagem", "LONGTEXT" }));
+
+        assertEquals("YES", nullable("imagem"));
+        jdbcTemplate.update("INSERT INTO " + TABELA + " (id) VALUES (1)");
+    }
+
+    @Test
+    @DisplayName("Não deve falhar quando a coluna já foi removida")
+    void testSemColuna() {
+        ajusteSchema.liberarParaNull(List.<String[]>of(new String[] { TABELA, "removida", "LONGTEXT" }));
+
+        assertEquals("NO", nullable("imagem"));
+    }
+
+    private String nullable(String coluna) {
+        return jdbcTemplate.queryForObject("SELECT IS_NULLABLE FROM information_schema.COLUMNS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                String.class, TABELA, coluna);
+    }
+}
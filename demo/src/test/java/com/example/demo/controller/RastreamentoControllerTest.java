@@ -0,0 +1,80 @@
+package com.example.demo.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.demo.exception.NoSuchElementException;
+import com.example.demo.model.ItemPedido;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.QRCodeRastreamento;
+import com.example.demo.model.StatusGeracaoQRCode;
+import com.example.demo.model.StatusPedido;
+import com.example.demo.service.PedidosTeste;
+
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest
+@Transactional
+@DisplayName("Testes do RastreamentoController para QR Codes ainda não gerados")
+public class RastreamentoControllerTest {
+
+    @Autowired
+    private RastreamentoController rastreamentoController;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private WebRequest request;
+
+    @BeforeEach
+    void setUp() {
+        request = new ServletWebRequest(new MockHttpServletRequest());
+    }
+
+    @Test
+    @DisplayName("QR Code pendente deve responder 202 na imagem, no download e no conteúdo")
+    void testQRCodePendente() {
+        String codigo = criarQRCode(StatusGeracaoQRCode.PENDENTE);
+
+        assertEquals(HttpStatus.ACCEPTED, rastreamentoController.imagemQRCode(codigo, request).getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, rastreamentoController.downloadQRCode(codigo, request).getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, rastreamentoController.visualizarConteudo(codigo).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("QR Code com falha na geração deve responder 404 em vez de erro interno")
+    void testQRCodeComFalha() {
+        String codigo = criarQRCode(StatusGeracaoQRCode.FALHA);
+
+        assertThrows(NoSuchElementException.class, () -> rastreamentoController.imagemQRCode(codigo, request));
+        assertThrows(NoSuchElementException.class, () -> rastreamentoController.downloadQRCode(codigo, request));
+        assertThrows(NoSuchElementException.class, () -> rastreamentoController.visualizarConteudo(codigo));
+    }
+
+    private String criarQRCode(StatusGeracaoQRCode status) {
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, PedidosTeste.criarCliente(entityManager),
+                StatusPedido.PENDENTE, new BigDecimal("10.00"));
+        ItemPedido item = PedidosTeste.criarItem(entityManager, pedido, PedidosTeste.criarProduto(entityManager, 5), 1);
+
+        QRCodeRastreamento qrCode = new QRCodeRastreamento();
+        qrCode.setItemPedido(item);
+        qrCode.setCodigoRastreamento("TESTE-" + status + "-" + item.getId());
+        qrCode.setStatusGeracao(status);
+        entityManager.persist(qrCode);
+        entityManager.flush();
+        return qrCode.getCodigoRastreamento();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Testes do AccountLockoutService")
+public class AccountLockoutServiceTest {
+
+    private static final String EMAIL = "cliente@teste.com";
+    private static final int MAX_TENTATIVAS = 3;
+
+    private final ContadorCompartilhado contador = new ContadorCompartilhadoMemoria(1000);
+
+    @Test
+    @DisplayName("Deve bloquear a conta ao atingir o limite de falhas")
+    void testBloqueio() {
+        AccountLockoutService service = criar(Duration.ofMinutes(15));
+
+        service.registerFailedAttempt(EMAIL);
+        service.registerFailedAttempt(EMAIL);
+        assertFalse(service.isAccountLocked(EMAIL));
+        assertEquals(1, service.getRemainingAttempts(EMAIL));
+
+        service.registerFailedAttempt(EMAIL);
+
+        assertTrue(service.isAccountLocked(EMAIL));
+        assertEquals(15, service.getLockoutMinutesRemaining(EMAIL));
+    }
+
+    @Test
+    @DisplayName("Deve zerar as falhas quando o bloqueio termina")
+    void testFimDoBloqueio() throws InterruptedException {
+        AccountLockoutService service = criar(Duration.ofSeconds(1));
+        bloquear(service);
+        assertTrue(service.isAccountLocked(EMAIL));
+
+        Thread.sleep(1100);
+
+        assertFalse(service.isAccountLocked(EMAIL));
+        assertNull(service.getLockoutExpiration(EMAIL));
+        assertEquals(MAX_TENTATIVAS, service.getRemainingAttempts(EMAIL));
+
+        // As falhas anteriores ao bloqueio não podem bloquear de novo na primeira falha
+        service.registerFailedAttempt(EMAIL);
+        assertFalse(service.isAccountLocked(EMAIL));
+        assertEquals(MAX_TENTATIVAS - 1, service.getRemainingAttempts(EMAIL));
+    }
+
+    @Test
+    @DisplayName("Deve dobrar a duração do bloqueio na reincidência")
+    void testBackoff() throws InterruptedException {
+        AccountLockoutService service = criar(Duration.ofSeconds(1));
+        bloquear(service);
+        Thread.sleep(1100);
+        assertFalse(service.isAccountLocked(EMAIL));
+
+        bloquear(service);
+
+        LocalDateTime fim = service.getLockoutExpiration(EMAIL);
+        assertNotNull(fim);
+        long restante = Duration.between(LocalDateTime.now(), fim).toMillis();
+        assertTrue(restante > 1500 && restante <= 2000, "Esperado bloqueio de 2s, restante: " + restante + "ms");
+    }
+
+    @Test
+    @DisplayName("Deve estimar o tempo restante do bloqueio vindo de outra instância pelo contador")
+    void testBloqueioDeOutraInstancia() {
+        AccountLockoutService origem = criar(Duration.ofMinutes(15));
+        AccountLockoutService outra = criar(Duration.ofMinutes(15));
+        for (int i = 0; i < MAX_TENTATIVAS; i++) {
+            origem.registerFailedAttempt(EMAIL);
+        }
+
+        assertTrue(outra.isAccountLocked(EMAIL));
+        assertNull(outra.getLockoutExpiration(EMAIL));
+
+        Duration restante = contador.tempoAteAbaixoDe("login:" + EMAIL, Duration.ofMinutes(15), MAX_TENTATIVAS);
+        assertTrue(restante.compareTo(Duration.ZERO) > 0 && restante.compareTo(Duration.ofMinutes(15)) <= 0);
+        assertEquals(Math.max(1, (restante.getSeconds() + 59) / 60), outra.getLockoutMinutesRemaining(EMAIL));
+    }
+
+    @Test
+    @DisplayName("Deve calcular quando a janela deslizante fica abaixo do limite")
+    void testTempoAteAbaixoDoLimite() {
+        // Balde anterior com 10: 10 * (1 - 501/1000) = 4,99 -> 4
+        assertEquals(501, ContadorCompartilhado.millisAteAbaixoDe(0, 10, 0, 1000, 5));
+        // Balde atual com 6 precisa virar o anterior: 700 até o próximo balde + 167
+        assertEquals(867, ContadorCompartilhado.millisAteAbaixoDe(6, 0, 300, 1000, 5));
+        assertEquals(0, ContadorCompartilhado.millisAteAbaixoDe(2, 2, 500, 1000, 5));
+    }
+
+    private AccountLockoutService criar(Duration duracao) {
+        return new AccountLockoutService(contador, new SimpleMeterRegistry(), MAX_TENTATIVAS, duracao,
+                Duration.ofHours(1), Duration.ofHours(1), 1 << 20);
+    }
+
+    private void bloquear(AccountLockoutService service) throws InterruptedException {
+        // Falhas no início do balde do contador: nenhuma é descontada pela estimativa, e logo
+        // depois do fim do bloqueio elas ainda pesariam quase inteiras no balde anterior
+        while (System.currentTimeMillis() % 1000 > 50) {
+            Thread.sleep(5);
+        }
+        for (int i = 0; i < MAX_TENTATIVAS; i++) {
+            service.registerFailedAttempt(EMAIL);
+        }
+        assertTrue(service.isAccountLocked(EMAIL));
+    }
+}
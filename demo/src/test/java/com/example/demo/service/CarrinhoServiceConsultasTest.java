@@ -0,0 +1,94 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.Carrinho;
+import com.example.demo.model.Cliente;
+import com.example.demo.model.ItemCarrinho;
+import com.example.demo.model.Produto;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Garante que carregar o carrinho não dispara um SELECT por item ou por produto: a
+ * quantidade de statements não pode crescer com o número de itens.
+ */
+@SpringBootTest
+@Transactional
+@DisplayName("Testes de quantidade de consultas do CarrinhoService")
+public class CarrinhoServiceConsultasTest {
+
+    private static final int QUANTIDADE_ITENS = 10;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    @DisplayName("Obter o carrinho deve usar a mesma quantidade de SELECTs com 1 ou com vários itens")
+    void testObterCarrinhoSemN1() {
+        Integer clienteUmItem = criarCarrinho(1);
+        Integer clienteVariosItens = criarCarrinho(QUANTIDADE_ITENS);
+        entityManager.flush();
+
+        long comUmItem = contarStatements(clienteUmItem, 1);
+        long comVariosItens = contarStatements(clienteVariosItens, QUANTIDADE_ITENS);
+
+        assertEquals(comUmItem, comVariosItens,
+                "Statements com 1 item: " + comUmItem + ", com " + QUANTIDADE_ITENS + " itens: " + comVariosItens);
+    }
+
+    private long contarStatements(Integer idCliente, int itensEsperados) {
+        entityManager.clear();
+        statistics.clear();
+
+        assertEquals(itensEsperados, carrinhoService.obterCarrinho(idCliente).itens().size());
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Integer criarCarrinho(int quantidadeItens) {
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+
+        Carrinho carrinho = new Carrinho();
+        carrinho.setCliente(cliente);
+        entityManager.persist(carrinho);
+
+        // Um produto (com categoria e fornecedor próprios) por item
+        for (int i = 0; i < quantidadeItens; i++) {
+            Produto produto = PedidosTeste.criarProduto(entityManager, 10);
+
+            ItemCarrinho item = new ItemCarrinho();
+            item.setCarrinho(carrinho);
+            item.setProduto(produto);
+            item.setQuantidade(1);
+            item.setPrecoUnitario(produto.getPreco());
+            carrinho.getItens().add(item);
+            entityManager.persist(item);
+        }
+        return cliente.getIdCliente();
+    }
+}
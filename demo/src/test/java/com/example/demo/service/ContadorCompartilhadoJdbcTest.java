@@ -0,0 +1,166 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Backend jdbc dos contadores com a sincronização agendada praticamente parada: os testes
+ * chamam sincronizar() diretamente e simulam as outras instâncias escrevendo em tb_contador.
+ */
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = {
+        "contador.backend=jdbc",
+        "contador.jdbc.intervalo-ms=3600000",
+        "contador.jdbc.limpeza-ms=3600000" })
+@DisplayName("Testes de Integração do ContadorCompartilhadoJdbc")
+public class ContadorCompartilhadoJdbcTest {
+
+    private static final Duration JANELA = Duration.ofDays(1);
+
+    @Autowired
+    private ContadorCompartilhadoJdbc contador;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String chave;
+
+    @BeforeEach
+    void setUp() {
+        chave = "teste:" + UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Deve contar localmente e enviar os incrementos em lote na sincronização")
+    void testEnvioEmLote() {
+        contador.incrementar(chave, JANELA);
+        contador.incrementar(chave, JANELA);
+        assertEquals(3, contador.incrementar(chave, JANELA));
+        assertEquals(0, quantidadeNoBanco());
+
+        contador.sincronizar();
+
+        assertEquals(3, quantidadeNoBanco());
+        assertEquals(3, contador.contar(chave, JANELA));
+    }
+
+    @Test
+    @DisplayName("Deve somar as contagens enviadas por outras instâncias")
+    void testContagemDeOutraInstancia() {
+        contador.incrementar(chave, JANELA);
+        contador.sincronizar();
+
+        jdbcTemplate.update("UPDATE tb_contador SET quantidade = quantidade + 5 WHERE chave = ?", chaveCompleta());
+        contador.sincronizar();
+
+        assertEquals(6, contador.contar(chave, JANELA));
+    }
+
+    @Test
+    @DisplayName("Deve zerar a contagem local quando outra instância zera a chave")
+    void testZeradoPorOutraInstancia() {
+        contador.incrementar(chave, JANELA);
+        contador.incrementar(chave, JANELA);
+        contador.sincronizar();
+        assertEquals(2, contador.contar(chave, JANELA));
+
+        // zerar() de outra instância só apaga as linhas da chave
+        jdbcTemplate.update("DELETE FROM tb_contador WHERE chave = ?", chaveCompleta());
+        contador.sincronizar();
+
+        assertEquals(0, contador.contar(chave, JANELA));
+        assertEquals(1, contador.incrementar(chave, JANELA));
+    }
+
+    @Test
+    @DisplayName("Deve descartar a contagem local e a do banco ao zerar")
+    void testZerar() {
+        contador.incrementar(chave, JANELA);
+        contador.sincronizar();
+        contador.incrementar(chave, JANELA);
+
+        contador.zerar(chave, JANELA);
+        contador.sincronizar();
+
+        assertEquals(0, contador.contar(chave, JANELA));
+        assertEquals(0, quantidadeNoBanco());
+    }
+
+    @Test
+    @DisplayName("Não deve acompanhar nem ler do banco chaves apenas consultadas")
+    void testConsultaNaoAcompanhaChave() {
+        long agora = System.currentTimeMillis();
+        long inicio = agora - agora % JANELA.toMillis();
+        jdbcTemplate.update("INSERT INTO tb_contador (chave, inicio_janela, quantidade, expira_em) VALUES (?, ?, ?, ?)",
+                chaveCompleta(), inicio, 5, Timestamp.from(Instant.ofEpochMilli(inicio + 2 * JANELA.toMillis())));
+
+        assertEquals(0, contador.contar(chave, JANELA));
+        contador.sincronizar();
+        assertEquals(0, contador.contar(chave, JANELA));
+
+        // A partir do primeiro incremento a chave passa a ser lida
+        contador.incrementar(chave, JANELA);
+        contador.sincronizar();
+        assertEquals(6, contador.contar(chave, JANELA));
+    }
+
+    @Test
+    @DisplayName("Não deve perder incrementos feitos durante a sincronização")
+    void testIncrementosConcorrentesComSincronizacao() throws Exception {
+        int threads = 4;
+        int porThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tarefas.add(executor.submit(() -> {
+                    for (int i = 0; i < porThread; i++) {
+                        contador.incrementar(chave, JANELA);
+                    }
+                }));
+            }
+            while (!tarefas.stream().allMatch(Future::isDone)) {
+                contador.sincronizar();
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        contador.sincronizar();
+
+        assertEquals(threads * porThread, quantidadeNoBanco());
+        assertEquals(threads * porThread, contador.contar(chave, JANELA));
+    }
+
+    private long quantidadeNoBanco() {
+        Long quantidade = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantidade), 0) FROM tb_contador WHERE chave = ?", Long.class, chaveCompleta());
+        return quantidade == null ? 0 : quantidade;
+    }
+
+    private String chaveCompleta() {
+        return chave + "|" + JANELA.toMillis();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.config.EncryptionConverter;
+
+@DisplayName("Testes do EncryptionService")
+public class EncryptionServiceTest {
+
+    private static final String CHAVE_LEGADA =
+            "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final String CHAVE_K1 = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String TEXTO = "4111 1111 1111 1111";
+
+    private final EncryptionService service = criar("", EncryptionService.ID_CHAVE_LEGADA);
+
+    @Test
+    @DisplayName("Deve cifrar no formato versionado com IV aleatório e decifrar de volta")
+    void testIdaEVolta() {
+        String cifrado = service.encrypt(TEXTO);
+        String outro = service.encrypt(TEXTO);
+
+        assertTrue(cifrado.startsWith(EncryptionService.PREFIXO + "k0:"));
+        assertNotEquals(cifrado, outro);
+        assertEquals(TEXTO, service.decrypt(cifrado));
+        assertEquals(TEXTO, service.decrypt(outro));
+        assertFalse(service.precisaRecriptografar(cifrado));
+    }
+
+    @Test
+    @DisplayName("Deve decifrar valores do formato antigo (AES/ECB) com a chave k0")
+    void testFormatoLegado() {
+        String legado = cifrarLegado(TEXTO);
+
+        assertTrue(service.isLegado(legado));
+        assertFalse(service.isEncrypted(legado));
+        assertEquals(EncryptionService.ID_CHAVE_LEGADA, service.idChave(legado));
+        assertEquals(TEXTO, service.decrypt(legado));
+
+        assertTrue(service.precisaRecriptografar(legado));
+        String regravado = service.recriptografar(legado);
+        assertTrue(service.isEncrypted(regravado));
+        assertEquals(TEXTO, service.decrypt(regravado));
+    }
+
+    @Test
+    @DisplayName("Deve recusar texto cifrado adulterado")
+    void testAdulteracao() {
+        String cifrado = service.encrypt(TEXTO);
+        int inicioCorpo = cifrado.lastIndexOf(':') + 1;
+        byte[] corpo = Base64.getDecoder().decode(cifrado.substring(inicioCorpo));
+        corpo[corpo.length - 1] ^= 1;
+        String adulterado = cifrado.substring(0, inicioCorpo) + Base64.getEncoder().encodeToString(corpo);
+
+        assertThrows(RuntimeException.class, () -> service.decrypt(adulterado));
+        assertThrows(RuntimeException.class, () -> service.decrypt(cifrado.substring(0, inicioCorpo) + "AAAA"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar valor cujo id de chave foi trocado no cabeçalho")
+    void testTrocaDoIdDaChave() {
+        // k1 com os mesmos bytes de k0: só o cabeçalho autenticado distingue os dois valores
+        String mesmosBytes = Base64.getEncoder().encodeToString(bytesChaveLegada());
+        EncryptionService comK1 = criar("k1:" + mesmosBytes, EncryptionService.ID_CHAVE_LEGADA);
+        String cifrado = comK1.encrypt(TEXTO);
+
+        String trocado = cifrado.replaceFirst(":k0:", ":k1:");
+        assertThrows(RuntimeException.class, () -> comK1.decrypt(trocado));
+        assertThrows(RuntimeException.class, () -> comK1.decrypt(cifrado.replaceFirst(":k0:", ":k9:")));
+    }
+
+    @Test
+    @DisplayName("Deve decifrar com a chave indicada no valor e regravar com a chave ativa na rotação")
+    void testRotacaoDeChave() {
+        String comChaveAntiga = service.encrypt(TEXTO);
+        EncryptionService rotacionado = criar("k1:" + CHAVE_K1, "k1");
+
+        assertEquals(TEXTO, rotacionado.decrypt(comChaveAntiga));
+        assertTrue(rotacionado.precisaRecriptografar(comChaveAntiga));
+
+        String regravado = rotacionado.recriptografar(comChaveAntiga);
+        assertEquals("k1", rotacionado.idChave(regravado));
+        assertFalse(rotacionado.precisaRecriptografar(regravado));
+        assertEquals(TEXTO, rotacionado.decrypt(regravado));
+
+        // Sem a chave k1 configurada o valor novo não pode ser lido
+        assertThrows(RuntimeException.class, () -> service.decrypt(regravado));
+    }
+
+    @Test
+    @DisplayName("Deve recusar chave ativa ausente e chaves adicionais com tamanho inválido")
+    void testConfiguracaoInvalida() {
+        assertThrows(IllegalStateException.class, () -> criar("", "k1"));
+        assertThrows(IllegalStateException.class,
+                () -> criar("k1:" + Base64.getEncoder().encodeToString(new byte[10]), "k1"));
+        assertThrows(IllegalStateException.class, () -> criar("k0:" + CHAVE_K1, "k0"));
+    }
+
+    @Test
+    @DisplayName("O conversor JPA deve cifrar na gravação e ler valores novos, antigos e em texto puro")
+    void testConversor() {
+        EncryptionConverter conversor = new EncryptionConverter();
+        conversor.setEncryptionService(service);
+
+        String gravado = conversor.convertToDatabaseColumn(TEXTO);
+        assertTrue(service.isEncrypted(gravado));
+        assertEquals(gravado, conversor.convertToDatabaseColumn(gravado));
+
+        assertEquals(TEXTO, conversor.convertToEntityAttribute(gravado));
+        assertEquals(TEXTO, conversor.convertToEntityAttribute(cifrarLegado(TEXTO)));
+        assertEquals(TEXTO, conversor.convertToEntityAttribute(TEXTO));
+    }
+
+    private static EncryptionService criar(String chavesAdicionais, String chaveAtiva) {
+        EncryptionService encryptionService = new EncryptionService();
+        ReflectionTestUtils.setField(encryptionService, "encryptionKey", CHAVE_LEGADA);
+        ReflectionTestUtils.setField(encryptionService, "chavesAdicionais", chavesAdicionais);
+        ReflectionTestUtils.setField(encryptionService, "idChaveAtiva", chaveAtiva);
+        encryptionService.carregarChaves();
+        return encryptionService;
+    }
+
+    /**
+     * Formato gravado antes do AES-GCM: AES/ECB em Base64, com a chave derivada de encryption.key.
+     */
+    private static String cifrarLegado(String texto) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(bytesChaveLegada(), "AES"));
+            return Base64.getEncoder().encodeToString(cipher.doFinal(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] bytesChaveLegada() {
+        byte[] chave = new byte[32];
+        byte[] decodificada = Base64.getDecoder().decode(CHAVE_LEGADA);
+        System.arraycopy(decodificada, 0, chave, 0, Math.min(decodificada.length, 32));
+        return chave;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.exception.EstoqueInsuficienteException;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.Produto;
+import com.example.demo.model.StatusPedido;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Sem @Transactional: debitar() abre a própria transação, e só depois do rollback dela dá
+ * para conferir que nenhum produto ficou debitado. Os produtos do teste são gravados de
+ * verdade e apagados no fim.
+ */
+@SpringBootTest
+@DisplayName("Testes de Integração do EstoqueService")
+public class EstoqueServiceTest {
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Produto primeiro;
+    private Produto segundo;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        primeiro = transactionTemplate.execute(status -> PedidosTeste.criarProduto(entityManager, 10));
+        segundo = transactionTemplate.execute(status -> PedidosTeste.criarProduto(entityManager, 5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Produto produto : new Produto[] { primeiro, segundo }) {
+            jdbcTemplate.update("DELETE FROM tb_produto WHERE id_produto = ?", produto.getId());
+            jdbcTemplate.update("DELETE FROM tb_fornecedores WHERE id_fornecedor = ?",
+                    produto.getFornecedor().getIdFornecedor());
+            jdbcTemplate.update("DELETE FROM tb_categoria WHERE id_categoria = ?", produto.getCategoria().getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve debitar vários produtos em uma única operação")
+    void testDebitoEmLote() {
+        estoqueService.debitar(Map.of(primeiro.getId(), 3, segundo.getId(), 5));
+
+        assertEquals(7, estoque(primeiro));
+        assertEquals(0, estoque(segundo));
+    }
+
+    @Test
+    @DisplayName("Faltando estoque de um produto, não deve debitar nenhum")
+    void testDebitoParcialInsuficiente() {
+        EstoqueInsuficienteException erro = assertThrows(EstoqueInsuficienteException.class,
+                () -> estoqueService.debitar(Map.of(primeiro.getId(), 3, segundo.getId(), 6)));
+
+        assertEquals(segundo.getNome(), erro.getNomeProduto());
+        assertEquals(5, erro.getEstoqueDisponivel());
+        assertEquals(6, erro.getQuantidadeSolicitada());
+        assertEquals(10, estoque(primeiro));
+        assertEquals(5, estoque(segundo));
+    }
+
+    @Test
+    @DisplayName("Produto inexistente deve falhar sem debitar os demais")
+    void testDebitoProdutoInexistente() {
+        assertThrows(EstoqueInsuficienteException.class,
+                () -> estoqueService.debitar(Map.of(primeiro.getId(), 3, Integer.MAX_VALUE, 1)));
+
+        assertEquals(10, estoque(primeiro));
+    }
+
+    @Test
+    @DisplayName("Deve creditar vários produtos em uma única operação")
+    void testCreditoEmLote() {
+        estoqueService.creditar(Map.of(primeiro.getId(), 2, segundo.getId(), 4));
+
+        assertEquals(12, estoque(primeiro));
+        assertEquals(9, estoque(segundo));
+    }
+
+    @Test
+    @DisplayName("Itens repetidos do mesmo produto devem ser somados ao devolver o estoque do pedido")
+    void testItensRepetidosNoCancelamento() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Pedido pedido = PedidosTeste.criarPedido(entityManager, PedidosTeste.criarCliente(entityManager),
+                    StatusPedido.PENDENTE, new BigDecimal("50.00"));
+            Produto produto = entityManager.merge(primeiro);
+            PedidosTeste.criarItem(entityManager, pedido, produto, 2);
+            PedidosTeste.criarItem(entityManager, pedido, produto, 3);
+            entityManager.flush();
+
+            pedidoService.cancelarPedido(pedido.getId());
+
+            assertEquals(15, estoque(primeiro));
+            // Pedido e cliente do teste não ficam no banco
+            status.setRollbackOnly();
+        });
+    }
+
+    private int estoque(Produto produto) {
+        return jdbcTemplate.queryForObject("SELECT estoque FROM tb_produto WHERE id_produto = ?", Integer.class,
+                produto.getId());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.FacetasProdutoDTO;
+import com.example.demo.event.CategoriaAlteradaEvent;
+import com.example.demo.event.FornecedorAlteradoEvent;
+import com.example.demo.event.ProdutoAlteradoEvent;
+import com.example.demo.model.Produto;
+import com.example.demo.repository.ProdutoRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Os ouvintes de eventos são chamados diretamente: na transação do teste, que termina em
+ * rollback, os eventos publicados pelos serviços nunca chegariam ao afterCommit.
+ */
+@SpringBootTest
+@Transactional
+@DisplayName("Testes de Integração do FacetasProdutos")
+public class FacetasProdutosTest {
+
+    @Autowired
+    private FacetasProdutos facetas;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<Produto> criados = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        // Os produtos somem no rollback; as facetas em memória também precisam esquecê-los
+        criados.forEach(produto -> facetas.aoAlterarProduto(ProdutoAlteradoEvent.removido(produto.getId())));
+    }
+
+    @Test
+    @DisplayName("A carga das facetas não deve contar produtos excluídos")
+    void testCargaIgnoraExcluidos() {
+        Produto ativo = criarProduto();
+        Produto excluido = criarProduto();
+        excluido.markAsDeleted();
+        entityManager.flush();
+
+        facetas.recarregar();
+
+        assertEquals(1, contarNaCategoria(ativo));
+        assertEquals(0, contarNaCategoria(excluido));
+    }
+
+    @Test
+    @DisplayName("A carga repetida não deve contar o mesmo produto duas vezes")
+    void testCargaRepetida() {
+        Produto produto = criarProduto();
+        entityManager.flush();
+
+        facetas.recarregar();
+        facetas.recarregar();
+
+        assertEquals(1, contarNaCategoria(produto));
+    }
+
+    @Test
+    @DisplayName("Deve retirar das facetas o produto alterado que já foi excluído")
+    void testAlteracaoDeProdutoExcluido() {
+        Produto produto = criarProduto();
+        entityManager.flush();
+        facetas.aoAlterarProduto(ProdutoAlteradoEvent.alterado(produto.getId()));
+        assertEquals(1, contarNaCategoria(produto));
+
+        produto.markAsDeleted();
+        entityManager.flush();
+        facetas.aoAlterarProduto(ProdutoAlteradoEvent.alterado(produto.getId()));
+
+        assertEquals(0, contarNaCategoria(produto));
+    }
+
+    @Test
+    @DisplayName("Deve atualizar os nomes de categoria e fornecedor exibidos nas facetas")
+    void testRenomeiaCategoriaEFornecedor() {
+        Produto produto = criarProduto();
+        entityManager.flush();
+        facetas.aoAlterarProduto(ProdutoAlteradoEvent.alterado(produto.getId()));
+
+        Integer idCategoria = produto.getCategoria().getId();
+        Integer idFornecedor = produto.getFornecedor().getIdFornecedor();
+        facetas.aoAlterarCategoria(new CategoriaAlteradaEvent(idCategoria, "Categoria Renomeada"));
+        facetas.aoAlterarFornecedor(new FornecedorAlteradoEvent(idFornecedor, "Fornecedor Renomeado"));
+
+        FacetasProdutoDTO resultado = facetas.contar(idCategoria, idFornecedor, null);
+        assertEquals("Categoria Renomeada", nome(resultado.categorias(), idCategoria));
+        assertEquals("Fornecedor Renomeado", nome(resultado.fornecedores(), idFornecedor));
+    }
+
+    @Test
+    @DisplayName("Durante a carga, deve responder com as facetas anteriores e reaplicar as alterações recebidas")
+    void testAlteracaoDuranteCarga() {
+        Produto produto = criarProduto();
+        Produto outro = criarProduto();
+        entityManager.flush();
+        Integer categoriaAntiga = produto.getCategoria().getId();
+        Integer categoriaNova = outro.getCategoria().getId();
+
+        AtomicBoolean primeiroLote = new AtomicBoolean(true);
+        FacetasProdutos[] emCarga = new FacetasProdutos[1];
+        ProdutoRepository repositorio = (ProdutoRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ProdutoRepository.class }, (proxy, metodo, argumentos) -> {
+                    Object resultado;
+                    try {
+                        resultado = metodo.invoke(produtoRepository, argumentos);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+
+                    if (metodo.getName().equals("listarFacetaDTOApos") && primeiroLote.getAndSet(false)) {
+                        // A carga não segura o lock: as consultas veem as facetas anteriores
+                        assertEquals(1, emCarga[0].contar(categoriaAntiga, null, null).totalProdutos());
+
+                        // O produto muda de categoria depois de lido o primeiro lote
+                        produto.setCategoria(outro.getCategoria());
+                        entityManager.flush();
+                        emCarga[0].aoAlterarProduto(ProdutoAlteradoEvent.alterado(produto.getId()));
+                    }
+                    return resultado;
+                });
+        emCarga[0] = new FacetasProdutos(repositorio, List.of(new BigDecimal("50"), new BigDecimal("100")));
+        emCarga[0].aoAlterarProduto(ProdutoAlteradoEvent.alterado(produto.getId()));
+
+        emCarga[0].recarregar();
+
+        assertEquals(0, emCarga[0].contar(categoriaAntiga, null, null).totalProdutos());
+        assertEquals(2, emCarga[0].contar(categoriaNova, null, null).totalProdutos());
+    }
+
+    private Produto criarProduto() {
+        Produto produto = PedidosTeste.criarProduto(entityManager, 10);
+        criados.add(produto);
+        return produto;
+    }
+
+    private long contarNaCategoria(Produto produto) {
+        return facetas.contar(produto.getCategoria().getId(), null, null).totalProdutos();
+    }
+
+    private static String nome(List<FacetasProdutoDTO.ValorFaceta> valores, Integer id) {
+        return valores.stream()
+                .filter(valor -> valor.id().equals(id))
+                .map(FacetasProdutoDTO.ValorFaceta::nome)
+                .findFirst()
+                .orElse(null);
+    }
+}
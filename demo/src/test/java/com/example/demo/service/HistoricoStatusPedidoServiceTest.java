@@ -0,0 +1,128 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.DuracaoStatusDTO;
+import com.example.demo.dto.HistoricoStatusPedidoDTO;
+import com.example.demo.model.Cliente;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.StatusPedido;
+
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest
+@Transactional
+@DisplayName("Testes de Integração do HistoricoStatusPedidoService")
+public class HistoricoStatusPedidoServiceTest {
+
+    @Autowired
+    private HistoricoStatusPedidoService historicoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        // Só as transições do teste ficam pendentes de agregação (desfeito no rollback)
+        jdbcTemplate.update("UPDATE tb_pedido_evento SET agregacao_pendente = NULL");
+        jdbcTemplate.update("DELETE FROM tb_pedido_status_duracao");
+        cliente = PedidosTeste.criarCliente(entityManager);
+    }
+
+    @Test
+    @DisplayName("Deve medir o tempo em PENDENTE a partir de data_pedido quando não há histórico")
+    void testDuracaoDesdeDataPedido() {
+        Pedido pedido = criarPedidoHaMinutos(10);
+
+        historicoService.registrar(pedido.getId(), StatusPedido.PENDENTE, StatusPedido.PAGO);
+
+        List<HistoricoStatusPedidoDTO> historico = historicoService.listar(pedido.getId());
+        assertEquals(1, historico.size());
+        assertEquals(StatusPedido.PENDENTE, historico.get(0).statusAnterior());
+        assertEntre(599, 605, historico.get(0).segundosNoStatusAnterior());
+    }
+
+    @Test
+    @DisplayName("Deve medir o tempo no status a partir da transição anterior")
+    void testDuracaoDesdeTransicaoAnterior() {
+        Pedido pedido = criarPedidoHaMinutos(30);
+        historicoService.registrar(pedido.getId(), StatusPedido.PENDENTE, StatusPedido.PAGO);
+        jdbcTemplate.update("UPDATE tb_pedido_evento SET ocorrido_em = ? WHERE id_pedido = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(5)), pedido.getId());
+
+        historicoService.registrar(pedido.getId(), StatusPedido.PAGO, StatusPedido.ENVIADO);
+
+        List<HistoricoStatusPedidoDTO> historico = historicoService.listar(pedido.getId());
+        assertEquals(2, historico.size());
+        assertEquals(StatusPedido.PAGO, historico.get(1).statusAnterior());
+        assertEntre(299, 305, historico.get(1).segundosNoStatusAnterior());
+    }
+
+    @Test
+    @DisplayName("Não deve registrar duração quando a entrada no status é desconhecida")
+    void testSemDuracaoSemHistorico() {
+        Pedido pedido = criarPedidoHaMinutos(10);
+
+        // Fora de PENDENTE não há data_pedido como referência
+        historicoService.registrar(pedido.getId(), StatusPedido.PAGO, StatusPedido.ENVIADO);
+
+        assertNull(historicoService.listar(pedido.getId()).get(0).segundosNoStatusAnterior());
+        assertEquals(0, historicoService.agregarLote());
+    }
+
+    @Test
+    @DisplayName("Deve somar as durações no agregado do dia só na varredura")
+    void testAgregacao() {
+        Pedido primeiro = criarPedidoHaMinutos(10);
+        Pedido segundo = criarPedidoHaMinutos(20);
+        historicoService.registrar(List.of(primeiro.getId(), segundo.getId()), StatusPedido.PENDENTE,
+                StatusPedido.PAGO);
+
+        LocalDate hoje = LocalDate.now();
+        assertTrue(historicoService.duracoes(hoje, hoje).isEmpty());
+
+        assertEquals(2, historicoService.agregarLote());
+        assertEquals(0, historicoService.agregarLote());
+
+        List<DuracaoStatusDTO> duracoes = historicoService.duracoes(hoje, hoje);
+        assertEquals(1, duracoes.size());
+        assertEquals(StatusPedido.PENDENTE, duracoes.get(0).status());
+        assertEquals(2, duracoes.get(0).quantidade());
+        assertEntre(899, 905, duracoes.get(0).mediaSegundos());
+        assertEntre(1199, 1205, duracoes.get(0).maximoSegundos());
+    }
+
+    private Pedido criarPedidoHaMinutos(int minutos) {
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, cliente, StatusPedido.PENDENTE,
+                new BigDecimal("10.00"));
+        pedido.setDataPedido(LocalDateTime.now().minusMinutes(minutos));
+        entityManager.flush();
+        return pedido;
+    }
+
+    private static void assertEntre(long minimo, long maximo, Long valor) {
+        assertTrue(valor != null && valor >= minimo && valor <= maximo,
+                "Esperado entre " + minimo + " e " + maximo + ", obtido: " + valor);
+    }
+}
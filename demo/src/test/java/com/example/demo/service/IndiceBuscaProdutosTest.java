@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.ProdutoResponseDTO;
+import com.example.demo.event.ProdutoAlteradoEvent;
+import com.example.demo.model.Produto;
+
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest
+@Transactional
+@DisplayName("Testes de Integração do IndiceBuscaProdutos")
+public class IndiceBuscaProdutosTest {
+
+    @Autowired
+    private IndiceBuscaProdutos indice;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Produto ativo;
+    private Produto excluido;
+
+    @AfterEach
+    void tearDown() {
+        // Os produtos somem no rollback; o índice em memória também precisa esquecê-los
+        indice.aoAlterarProduto(ProdutoAlteradoEvent.removido(ativo.getId()));
+        indice.aoAlterarProduto(ProdutoAlteradoEvent.removido(excluido.getId()));
+    }
+
+    @Test
+    @DisplayName("A carga do índice não deve incluir produtos excluídos")
+    void testCargaIgnoraExcluidos() {
+        ativo = PedidosTeste.criarProduto(entityManager, 10);
+        excluido = PedidosTeste.criarProduto(entityManager, 10);
+        excluido.markAsDeleted();
+        entityManager.flush();
+
+        indice.indexarProdutos();
+
+        assertEquals(List.of(ativo.getId()), indice.buscar(termoDoNome(ativo), 10));
+        assertTrue(indice.buscar(termoDoNome(excluido), 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Alteração recebida durante a carga não deve ser desfeita pelo lote lido antes dela")
+    void testAlteracaoDuranteCarga() {
+        ativo = PedidosTeste.criarProduto(entityManager, 10);
+        excluido = PedidosTeste.criarProduto(entityManager, 10);
+        entityManager.flush();
+        // Lote lido pela carga antes da alteração
+        ProdutoResponseDTO lido = new ProdutoResponseDTO(ativo);
+        String termoAntigo = termoDoNome(ativo);
+        String termoNovo = "renomeado" + termoAntigo;
+
+        indice.iniciarCarga();
+        ativo.setNome("Produto " + termoNovo);
+        excluido.markAsDeleted();
+        entityManager.flush();
+        indice.aoAlterarProduto(ProdutoAlteradoEvent.alterado(ativo.getId()));
+        indice.aoAlterarProduto(ProdutoAlteradoEvent.removido(excluido.getId()));
+        // ... e gravado no índice só depois dos eventos
+        indice.indexar(lido);
+        indice.indexar(new ProdutoResponseDTO(excluido));
+        indice.concluirCarga();
+
+        assertTrue(indice.buscar(termoAntigo, 10).isEmpty());
+        assertEquals(List.of(ativo.getId()), indice.buscar(termoNovo, 10));
+        assertTrue(indice.buscar(termoDoNome(excluido), 10).stream().noneMatch(excluido.getId()::equals));
+    }
+
+    private static String termoDoNome(Produto produto) {
+        // "Produto <sufixo>": o sufixo é único por produto
+        return produto.getNome().substring("Produto ".length());
+    }
+}
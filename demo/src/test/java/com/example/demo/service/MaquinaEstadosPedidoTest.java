@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.exception.RegraNegocioException;
+import com.example.demo.model.StatusPedido;
+
+@DisplayName("Testes da MaquinaEstadosPedido")
+public class MaquinaEstadosPedidoTest {
+
+    private final MaquinaEstadosPedido maquina = new MaquinaEstadosPedido();
+
+    @Test
+    @DisplayName("Deve percorrer o fluxo completo passando por EM_PREPARACAO")
+    void testFluxoCompleto() {
+        assertDoesNotThrow(() -> {
+            maquina.validar(StatusPedido.PENDENTE, StatusPedido.PAGO);
+            maquina.validar(StatusPedido.PAGO, StatusPedido.EM_PREPARACAO);
+            maquina.validar(StatusPedido.EM_PREPARACAO, StatusPedido.ENVIADO);
+            maquina.validar(StatusPedido.ENVIADO, StatusPedido.ENTREGUE);
+        });
+    }
+
+    @Test
+    @DisplayName("Deve aceitar PAGO -> ENVIADO sem preparação")
+    void testPagoDiretoParaEnviado() {
+        assertTrue(maquina.podeTransitar(StatusPedido.PAGO, StatusPedido.ENVIADO));
+    }
+
+    @Test
+    @DisplayName("Deve permitir cancelar só antes da preparação")
+    void testCancelamento() {
+        assertTrue(maquina.podeTransitar(StatusPedido.PENDENTE, StatusPedido.CANCELADO));
+        assertTrue(maquina.podeTransitar(StatusPedido.PAGO, StatusPedido.CANCELADO));
+        assertFalse(maquina.podeTransitar(StatusPedido.EM_PREPARACAO, StatusPedido.CANCELADO));
+        assertFalse(maquina.podeTransitar(StatusPedido.ENVIADO, StatusPedido.CANCELADO));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar transições que pulam etapas")
+    void testTransicaoInvalida() {
+        assertThrows(RegraNegocioException.class,
+                () -> maquina.validar(StatusPedido.PENDENTE, StatusPedido.ENVIADO));
+        assertThrows(RegraNegocioException.class,
+                () -> maquina.validar(StatusPedido.EM_PREPARACAO, StatusPedido.ENTREGUE));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar qualquer alteração de pedido finalizado")
+    void testStatusFinais() {
+        assertTrue(maquina.isFinal(StatusPedido.ENTREGUE));
+        assertTrue(maquina.isFinal(StatusPedido.CANCELADO));
+        assertThrows(RegraNegocioException.class,
+                () -> maquina.validar(StatusPedido.CANCELADO, StatusPedido.PENDENTE));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.PedidoResumoDTO;
+import com.example.demo.model.Cliente;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.Produto;
+import com.example.demo.model.StatusPagamentoPix;
+import com.example.demo.model.StatusPedido;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Garante que as listagens de pedidos não disparam N+1 SELECTs: nem pelos itens, nem
+ * pelos OneToOne inversos (PIX do pedido, QR Code do item) que o Hibernate resolve linha
+ * a linha quando a listagem carrega entidades.
+ */
+@SpringBootTest
+@Transactional
+@DisplayName("Testes de quantidade de consultas do PedidoService")
+public class PedidoServiceConsultasTest {
+
+    private static final int QUANTIDADE_PEDIDOS = 20;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Integer idCliente;
+    private Integer idFornecedor;
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+        Produto produto = PedidosTeste.criarProduto(entityManager, 100);
+        idCliente = cliente.getIdCliente();
+        idFornecedor = produto.getFornecedor().getIdFornecedor();
+
+        for (int i = 0; i < QUANTIDADE_PEDIDOS; i++) {
+            Pedido pedido = PedidosTeste.criarPedido(entityManager, cliente, StatusPedido.PENDENTE,
+                    new BigDecimal("30.00"));
+            PedidosTeste.criarItem(entityManager, pedido, produto, 1);
+            PedidosTeste.criarItem(entityManager, pedido, produto, 2);
+            PedidosTeste.criarPix(entityManager, pedido, PedidosTeste.novoTxid(), StatusPagamentoPix.PENDENTE);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Listagem por cursor dos pedidos do cliente deve usar um único SELECT")
+    void testListarPedidosDoClienteUmSelect() {
+        List<PedidoResumoDTO> pedidos = pedidoService.listarPedidosDoCliente(idCliente, null, 10).conteudo();
+
+        assertMaximoStatements(1);
+        assertEquals(10, pedidos.size());
+        pedidos.forEach(pedido -> assertEquals(3, pedido.totalItens()));
+    }
+
+    @Test
+    @DisplayName("Listagem paginada dos pedidos do cliente deve usar no máximo SELECT + COUNT")
+    void testListarPedidosDoClientePaginadoSemN1() {
+        pedidoService.listarPedidosDoClientePaginado(idCliente, PageRequest.of(0, 10));
+
+        assertMaximoStatements(2);
+    }
+
+    @Test
+    @DisplayName("Listagem por cursor das vendas do fornecedor deve usar um único SELECT")
+    void testListarPedidosDoFornecedorUmSelect() {
+        assertEquals(10, pedidoService.listarPedidosDoFornecedor(idFornecedor, null, 10).conteudo().size());
+
+        assertMaximoStatements(1);
+    }
+
+    @Test
+    @DisplayName("Listagem paginada das vendas do fornecedor deve usar no máximo SELECT + COUNT")
+    void testListarPedidosDoFornecedorPaginadoSemN1() {
+        pedidoService.listarPedidosDoFornecedorPaginado(idFornecedor, PageRequest.of(0, 10));
+
+        assertMaximoStatements(2);
+    }
+
+    private void assertMaximoStatements(long maximo) {
+        long executados = statistics.getPrepareStatementCount();
+        assertTrue(executados <= maximo,
+                "Esperado no máximo " + maximo + " statements, executados: " + executados);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.model.Cliente;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.StatusPedido;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Sem @Transactional: a concorrência precisa de duas transações de verdade. O pedido e o
+ * cliente do teste são gravados e apagados no fim.
+ */
+@SpringBootTest
+@DisplayName("Testes de Integração do PedidoService")
+public class PedidoServiceTest {
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Pedido pedido;
+
+    @BeforeEach
+    void setUp() {
+        pedido = new TransactionTemplate(transactionManager).execute(status -> {
+            Cliente cliente = PedidosTeste.criarCliente(entityManager);
+            return PedidosTeste.criarPedido(entityManager, cliente, StatusPedido.PENDENTE, new BigDecimal("50.00"));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM tb_pedido_evento WHERE id_pedido = ?", pedido.getId());
+        jdbcTemplate.update("DELETE FROM tb_pedido_outbox WHERE id_pedido = ?", pedido.getId());
+        jdbcTemplate.update("DELETE FROM tb_pedido WHERE id_pedido = ?", pedido.getId());
+        jdbcTemplate.update("DELETE FROM tb_clientes WHERE id_cliente = ?", pedido.getCliente().getIdCliente());
+        jdbcTemplate.update("DELETE FROM tb_users WHERE id_user = ?", pedido.getCliente().getUser().getId());
+    }
+
+    @Test
+    @DisplayName("Deve validar e registrar a transição a partir do status gravado por outra transação")
+    void testAtualizacaoEsperaTransacaoConcorrente() throws Exception {
+        CountDownLatch travado = new CountDownLatch(1);
+
+        // Outra transação (como o webhook do PIX) trava o pedido e o marca como PAGO
+        CompletableFuture<Void> pagamento = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject("SELECT status FROM tb_pedido WHERE id_pedido = ? FOR UPDATE",
+                            String.class, pedido.getId());
+                    jdbcTemplate.update("UPDATE tb_pedido SET status = 'PAGO' WHERE id_pedido = ?", pedido.getId());
+                    travado.countDown();
+                    dormir(500);
+                }));
+        travado.await(5, TimeUnit.SECONDS);
+
+        pedidoService.atualizarStatus(pedido.getId(), StatusPedido.ENVIADO);
+        pagamento.get(5, TimeUnit.SECONDS);
+
+        assertEquals("ENVIADO", jdbcTemplate.queryForObject("SELECT status FROM tb_pedido WHERE id_pedido = ?",
+                String.class, pedido.getId()));
+        List<String> anteriores = jdbcTemplate.queryForList(
+                "SELECT status_anterior FROM tb_pedido_evento WHERE id_pedido = ?", String.class, pedido.getId());
+        assertEquals(List.of("PAGO"), anteriores);
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.example.demo.model.Categoria;
+import com.example.demo.model.Cliente;
+import com.example.demo.model.EstadosBrasileiros;
+import com.example.demo.model.Fornecedor;
+import com.example.demo.model.ItemPedido;
+import com.example.demo.model.PagamentoPix;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.Produto;
+import com.example.demo.model.StatusPagamentoPix;
+import com.example.demo.model.StatusPedido;
+import com.example.demo.model.TipoPagamento;
+import com.example.demo.model.User;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Massa de dados mínima de clientes, produtos, pedidos e PIX para os testes de integração.
+ */
+public final class PedidosTeste {
+
+    private PedidosTeste() {
+    }
+
+    public static Cliente criarCliente(EntityManager entityManager) {
+        String sufixo = sufixo();
+
+        User user = User.builder()
+                .email("cliente." + sufixo + "@teste.com")
+                .senha("senha-nao-usada")
+                .build();
+
+        Cliente cliente = Cliente.builder()
+                .nomeCliente("Cliente de Teste")
+                .cpf(sufixo.substring(0, 11))
+                .user(user)
+                .build();
+        entityManager.persist(cliente);
+        return cliente;
+    }
+
+    public static Produto criarProduto(EntityManager entityManager, int estoque) {
+        String sufixo = sufixo();
+
+        Categoria categoria = new Categoria();
+        categoria.setNome("Categoria " + sufixo.substring(0, 12));
+        categoria.setDescricao("Categoria de teste");
+        entityManager.persist(categoria);
+
+        Fornecedor fornecedor = new Fornecedor();
+        fornecedor.setNome("Fornecedor de Teste");
+        fornecedor.setCnpj(String.format("%014d", Math.floorMod(sufixo.hashCode(), 1_000_000_000L)));
+        fornecedor.setEstado(EstadosBrasileiros.SP);
+        entityManager.persist(fornecedor);
+
+        Produto produto = new Produto();
+        produto.setNome("Produto " + sufixo.substring(0, 12));
+        produto.setDescricao("Produto de teste");
+        produto.setPreco(new BigDecimal("10.00"));
+        produto.setEstoque(estoque);
+        produto.setCategoria(categoria);
+        produto.setFornecedor(fornecedor);
+        entityManager.persist(produto);
+        return produto;
+    }
+
+    public static ItemPedido criarItem(EntityManager entityManager, Pedido pedido, Produto produto, int quantidade) {
+        ItemPedido item = new ItemPedido();
+        item.setPedido(pedido);
+        item.setProduto(produto);
+        item.setQuantidade(quantidade);
+        item.setPrecoUnitario(produto.getPreco());
+        pedido.getItens().add(item);
+        entityManager.persist(item);
+        return item;
+    }
+
+    public static Pedido criarPedido(EntityManager entityManager, Cliente cliente, StatusPedido status,
+            BigDecimal valor) {
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setDataPedido(LocalDateTime.now());
+        pedido.setValorTotal(valor);
+        pedido.setStatus(status);
+        pedido.setTipoPagamento(TipoPagamento.PIX);
+        entityManager.persist(pedido);
+        return pedido;
+    }
+
+    public static PagamentoPix criarPix(EntityManager entityManager, Pedido pedido, String txid,
+            StatusPagamentoPix status) {
+        PagamentoPix pix = new PagamentoPix();
+        pix.setPedido(pedido);
+        pix.setCodigoPix("00020126-teste-" + txid);
+        pix.setValorPix(pedido.getValorTotal());
+        pix.setDataExpiracao(LocalDateTime.now().plusMinutes(15));
+        pix.setStatusPagamento(status);
+        pix.setTxid(txid);
+        entityManager.persist(pix);
+        return pix;
+    }
+
+    public static String novoTxid() {
+        return sufixo().substring(0, 30);
+    }
+
+    private static String sufixo() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.PixWebhookDTO;
+import com.example.demo.exception.RegraNegocioException;
+import com.example.demo.model.Cliente;
+import com.example.demo.model.PagamentoPix;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.Produto;
+import com.example.demo.model.StatusPagamentoPix;
+import com.example.demo.model.StatusPedido;
+
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest
+@Transactional
+@DisplayName("Testes de Integração do PixService")
+public class PixServiceTest {
+
+    @Autowired
+    private PixService pixService;
+
+    @Autowired
+    private PixWebhookService pixWebhookService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Deve confirmar manualmente o PIX pendente e marcar o pedido como PAGO")
+    void testConfirmacaoManual() {
+        Pedido pedido = criarPedidoComPix(StatusPagamentoPix.PENDENTE);
+
+        pixService.confirmarPagamento(pedido.getId(), "E2E-MANUAL");
+        entityManager.flush();
+
+        assertEquals("CONFIRMADO", statusPix(pedido));
+        assertEquals("PAGO", statusPedido(pedido));
+        assertEquals(1, eventosPago(pedido));
+    }
+
+    @Test
+    @DisplayName("Não deve confirmar o PIX cancelado junto com o pedido")
+    void testConfirmacaoDePixCancelado() {
+        Pedido pedido = criarPedidoComPix(StatusPagamentoPix.PENDENTE);
+        pedidoService.cancelarPedido(pedido.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThrows(RegraNegocioException.class, () -> pixService.confirmarPagamento(pedido.getId(), "E2E-MANUAL"));
+
+        assertEquals("CANCELADO", statusPix(pedido));
+        assertEquals("CANCELADO", statusPedido(pedido));
+        assertEquals(0, eventosPago(pedido));
+    }
+
+    @Test
+    @DisplayName("Não deve gerar um segundo PEDIDO_PAGO depois da confirmação pelo webhook")
+    void testConfirmacaoDepoisDoWebhook() {
+        Pedido pedido = criarPedidoComPix(StatusPagamentoPix.PENDENTE);
+        String txid = jdbcTemplate.queryForObject("SELECT txid FROM tb_pagamentos_pix WHERE id_pedido = ?",
+                String.class, pedido.getId());
+
+        pixWebhookService.receber(new PixWebhookDTO(List.of(
+                new PixWebhookDTO.PixRecebido("E" + txid, txid, new BigDecimal("50.00"), OffsetDateTime.now()))));
+        pixWebhookService.processar(List.of(txid));
+        entityManager.clear();
+
+        assertThrows(RegraNegocioException.class, () -> pixService.confirmarPagamento(pedido.getId(), "E2E-MANUAL"));
+
+        assertEquals("PAGO", statusPedido(pedido));
+        assertEquals(1, eventosPago(pedido));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_pedido_evento"
+                + " WHERE id_pedido = ? AND status_novo = 'PAGO'", Integer.class, pedido.getId()));
+    }
+
+    @Test
+    @DisplayName("Não deve confirmar o PIX de um pedido que já saiu de PENDENTE")
+    void testConfirmacaoDePedidoNaoPendente() {
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, cliente, StatusPedido.CANCELADO,
+                new BigDecimal("50.00"));
+        PedidosTeste.criarPix(entityManager, pedido, PedidosTeste.novoTxid(), StatusPagamentoPix.PENDENTE);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThrows(RegraNegocioException.class, () -> pixService.confirmarPagamento(pedido.getId(), "E2E-MANUAL"));
+
+        assertEquals("PENDENTE", statusPix(pedido));
+        assertEquals(0, eventosPago(pedido));
+    }
+
+    @Test
+    @DisplayName("Deve expirar o PIX vencido, cancelar o pedido e devolver o estoque")
+    void testExpiracaoDePixVencido() {
+        Produto produto = PedidosTeste.criarProduto(entityManager, 10);
+        Pedido pedido = criarPedidoComPixVencido(produto, StatusPedido.PENDENTE);
+
+        pixService.expirarPixVencidos();
+
+        assertEquals("EXPIRADO", statusPix(pedido));
+        assertEquals("CANCELADO", statusPedido(pedido));
+        assertEquals(13, estoque(produto));
+        assertEquals(1, eventos(pedido, "PEDIDO_CANCELADO"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_pedido_evento WHERE id_pedido = ?"
+                + " AND status_anterior = 'PENDENTE' AND status_novo = 'CANCELADO'", Integer.class, pedido.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve expirar o PIX vencido sem alterar pedido já pago ou cancelado")
+    void testExpiracaoNaoAlteraPedidoForaDePendente() {
+        Produto produto = PedidosTeste.criarProduto(entityManager, 10);
+        Pedido pago = criarPedidoComPixVencido(produto, StatusPedido.PAGO);
+        Pedido cancelado = criarPedidoComPixVencido(produto, StatusPedido.CANCELADO);
+
+        pixService.expirarPixVencidos();
+
+        assertEquals("PAGO", statusPedido(pago));
+        assertEquals("CANCELADO", statusPedido(cancelado));
+        assertEquals("EXPIRADO", statusPix(pago));
+        assertEquals("EXPIRADO", statusPix(cancelado));
+        assertEquals(10, estoque(produto));
+        for (Pedido pedido : new Pedido[] { pago, cancelado }) {
+            assertEquals(0, eventos(pedido, "PEDIDO_CANCELADO"));
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_pedido_evento WHERE id_pedido = ?",
+                    Integer.class, pedido.getId()));
+        }
+    }
+
+    private Pedido criarPedidoComPixVencido(Produto produto, StatusPedido status) {
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, cliente, status, new BigDecimal("30.00"));
+        PedidosTeste.criarItem(entityManager, pedido, produto, 3);
+        PagamentoPix pix = PedidosTeste.criarPix(entityManager, pedido, PedidosTeste.novoTxid(),
+                StatusPagamentoPix.PENDENTE);
+        pix.setDataExpiracao(LocalDateTime.now().minusMinutes(1));
+        entityManager.flush();
+        return pedido;
+    }
+
+    private Pedido criarPedidoComPix(StatusPagamentoPix statusPix) {
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, cliente, StatusPedido.PENDENTE,
+                new BigDecimal("50.00"));
+        PedidosTeste.criarPix(entityManager, pedido, PedidosTeste.novoTxid(), statusPix);
+        entityManager.flush();
+        return pedido;
+    }
+
+    private int eventosPago(Pedido pedido) {
+        return eventos(pedido, "PEDIDO_PAGO");
+    }
+
+    private int eventos(Pedido pedido, String tipo) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_pedido_outbox WHERE id_pedido = ? AND tipo = ?",
+                Integer.class, pedido.getId(), tipo);
+    }
+
+    private int estoque(Produto produto) {
+        return jdbcTemplate.queryForObject("SELECT estoque FROM tb_produto WHERE id_produto = ?", Integer.class,
+                produto.getId());
+    }
+
+    private String statusPix(Pedido pedido) {
+        return jdbcTemplate.queryForObject("SELECT status_pagamento FROM tb_pagamentos_pix WHERE id_pedido = ?",
+                String.class, pedido.getId());
+    }
+
+    private String statusPedido(Pedido pedido) {
+        return jdbcTemplate.queryForObject("SELECT status FROM tb_pedido WHERE id_pedido = ?",
+                String.class, pedido.getId());
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.PixWebhookDTO;
+import com.example.demo.dto.PixWebhookRespostaDTO;
+import com.example.demo.exception.AcessoNegadoException;
+import com.example.demo.model.Cliente;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.StatusPagamentoPix;
+import com.example.demo.model.StatusPedido;
+
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "pix.webhook.segredo=segredo-de-teste")
+@DisplayName("Testes de Integração do PixWebhookService")
+public class PixWebhookServiceTest {
+
+    private static final String SEGREDO = "segredo-de-teste";
+
+    @Autowired
+    private PixWebhookService pixWebhookService;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Deve recusar notificação sem assinatura ou com assinatura de outro segredo")
+    void testRecusaAssinaturaInvalida() {
+        byte[] corpo = "{\"pix\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(AcessoNegadoException.class, () -> pixWebhookService.validarAssinatura(null, corpo));
+        assertThrows(AcessoNegadoException.class, () -> pixWebhookService.validarAssinatura("sha256=zz", corpo));
+        assertThrows(AcessoNegadoException.class,
+                () -> pixWebhookService.validarAssinatura(PixWebhookService.assinar("outro-segredo", corpo), corpo));
+    }
+
+    @Test
+    @DisplayName("Deve recusar assinatura válida de um corpo diferente do recebido")
+    void testRecusaCorpoAlterado() {
+        byte[] original = "{\"pix\":[{\"valor\":\"10.00\"}]}".getBytes(StandardCharsets.UTF_8);
+        byte[] alterado = "{\"pix\":[{\"valor\":\"0.01\"}]}".getBytes(StandardCharsets.UTF_8);
+        String assinatura = PixWebhookService.assinar(SEGREDO, original);
+
+        assertDoesNotThrow(() -> pixWebhookService.validarAssinatura(assinatura, original));
+        assertThrows(AcessoNegadoException.class, () -> pixWebhookService.validarAssinatura(assinatura, alterado));
+    }
+
+    @Test
+    @DisplayName("Deve descartar reenvios do mesmo txid")
+    void testDeduplicacao() {
+        String txid = PedidosTeste.novoTxid();
+        PixWebhookDTO notificacao = notificacao(txid, new BigDecimal("50.00"));
+
+        PixWebhookRespostaDTO primeira = pixWebhookService.receber(notificacao);
+        PixWebhookRespostaDTO reenvio = pixWebhookService.receber(notificacao);
+
+        assertEquals(1, primeira.novos());
+        assertEquals(0, primeira.duplicados());
+        assertEquals(0, reenvio.novos());
+        assertEquals(1, reenvio.duplicados());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_pix_webhook WHERE txid = ?",
+                Integer.class, txid));
+    }
+
+    @Test
+    @DisplayName("Deve confirmar o PIX e marcar o pedido como PAGO")
+    void testConfirmaPagamento() {
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, cliente, StatusPedido.PENDENTE,
+                new BigDecimal("50.00"));
+        String txid = PedidosTeste.novoTxid();
+        PedidosTeste.criarPix(entityManager, pedido, txid, StatusPagamentoPix.PENDENTE);
+        entityManager.flush();
+
+        pixWebhookService.receber(notificacao(txid, new BigDecimal("50.00")));
+        pixWebhookService.processar(List.of(txid));
+
+        assertEquals("CONFIRMADO", statusPix(pedido));
+        assertEquals("PAGO", statusPedido(pedido));
+        assertEquals("PROCESSADO", statusNotificacao(txid));
+    }
+
+    @Test
+    @DisplayName("Deve ignorar notificação com valor divergente sem alterar o pedido")
+    void testValorDivergente() {
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, cliente, StatusPedido.PENDENTE,
+                new BigDecimal("50.00"));
+        String txid = PedidosTeste.novoTxid();
+        PedidosTeste.criarPix(entityManager, pedido, txid, StatusPagamentoPix.PENDENTE);
+        entityManager.flush();
+
+        pixWebhookService.receber(notificacao(txid, new BigDecimal("5.00")));
+        pixWebhookService.processar(List.of(txid));
+
+        assertEquals("PENDENTE", statusPix(pedido));
+        assertEquals("PENDENTE", statusPedido(pedido));
+        assertEquals("IGNORADO", statusNotificacao(txid));
+    }
+
+    @Test
+    @DisplayName("Deve cancelar o PIX junto com o pedido e tratar o pagamento posterior como devolução")
+    void testPagamentoDePedidoCancelado() {
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, cliente, StatusPedido.PENDENTE,
+                new BigDecimal("50.00"));
+        String txid = PedidosTeste.novoTxid();
+        PedidosTeste.criarPix(entityManager, pedido, txid, StatusPagamentoPix.PENDENTE);
+        entityManager.flush();
+
+        pedidoService.cancelarPedido(pedido.getId());
+        entityManager.flush();
+        assertEquals("CANCELADO", statusPix(pedido));
+
+        pixWebhookService.receber(notificacao(txid, new BigDecimal("50.00")));
+        pixWebhookService.processar(List.of(txid));
+
+        assertEquals("CANCELADO", statusPix(pedido));
+        assertEquals("CANCELADO", statusPedido(pedido));
+        assertEquals("IGNORADO", statusNotificacao(txid));
+        assertEquals("PIX cancelado (requer devolução)", jdbcTemplate.queryForObject(
+                "SELECT motivo FROM tb_pix_webhook WHERE txid = ?", String.class, txid));
+    }
+
+    @Test
+    @DisplayName("Deve tratar como devolução o pagamento de PIX pendente de pedido já cancelado")
+    void testPixPendenteDePedidoCancelado() {
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, cliente, StatusPedido.CANCELADO,
+                new BigDecimal("50.00"));
+        String txid = PedidosTeste.novoTxid();
+        PedidosTeste.criarPix(entityManager, pedido, txid, StatusPagamentoPix.PENDENTE);
+        entityManager.flush();
+
+        pixWebhookService.receber(notificacao(txid, new BigDecimal("50.00")));
+        pixWebhookService.processar(List.of(txid));
+
+        assertEquals("PENDENTE", statusPix(pedido));
+        assertEquals("IGNORADO", statusNotificacao(txid));
+        assertEquals("pedido cancelado (requer devolução)", jdbcTemplate.queryForObject(
+                "SELECT motivo FROM tb_pix_webhook WHERE txid = ?", String.class, txid));
+    }
+
+    private static PixWebhookDTO notificacao(String txid, BigDecimal valor) {
+        return new PixWebhookDTO(List.of(
+                new PixWebhookDTO.PixRecebido("E" + txid, txid, valor, OffsetDateTime.now())));
+    }
+
+    private String statusPix(Pedido pedido) {
+        return jdbcTemplate.queryForObject("SELECT status_pagamento FROM tb_pagamentos_pix WHERE id_pedido = ?",
+                String.class, pedido.getId());
+    }
+
+    private String statusPedido(Pedido pedido) {
+        return jdbcTemplate.queryForObject("SELECT status FROM tb_pedido WHERE id_pedido = ?",
+                String.class, pedido.getId());
+    }
+
+    private String statusNotificacao(String txid) {
+        return jdbcTemplate.queryForObject("SELECT status FROM tb_pix_webhook WHERE txid = ?",
+                String.class, txid);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.Categoria;
+import com.example.demo.model.EstadosBrasileiros;
+import com.example.demo.model.Fornecedor;
+import com.example.demo.model.Produto;
+import com.example.demo.repository.ProdutoRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Garante que as listagens de produtos não disparam N+1 SELECTs
+ * (contagem de statements via estatísticas do Hibernate).
+ */
+@SpringBootTest
+@Transactional
+@DisplayName("Testes de quantidade de consultas do ProdutoService")
+public class ProdutoServiceConsultasTest {
+
+    private static final int QUANTIDADE_PRODUTOS = 20;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Integer idCategoria;
+
+    private final List<Integer> idsProdutos = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Categoria categoria = new Categoria();
+        categoria.setNome("Categoria N+1");
+        categoria.setDescricao("Categoria usada no teste de consultas");
+        entityManager.persist(categoria);
+        idCategoria = categoria.getId();
+
+        // Um fornecedor por produto: sem JOIN, cada um custaria um SELECT extra
+        for (int i = 0; i < QUANTIDADE_PRODUTOS; i++) {
+            Fornecedor fornecedor = new Fornecedor();
+            fornecedor.setNome("Fornecedor " + i);
+            fornecedor.setCnpj(String.format("99%012d", i));
+            fornecedor.setEstado(EstadosBrasileiros.SP);
+            entityManager.persist(fornecedor);
+
+            Produto produto = new Produto();
+            produto.setNome("Produto N+1 " + i);
+            produto.setDescricao("Produto usado no teste de consultas");
+            produto.setPreco(new BigDecimal("10.00"));
+            produto.setEstoque(5);
+            produto.setCategoria(categoria);
+            produto.setFornecedor(fornecedor);
+            entityManager.persist(produto);
+            idsProdutos.add(produto.getId());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Listagem por cursor deve usar um único SELECT")
+    void testListarProdutosPorCursorUmSelect() {
+        assertFalse(produtoService.listarProdutos(null, 20).conteudo().isEmpty());
+
+        assertMaximoStatements(1);
+    }
+
+    @Test
+    @DisplayName("Listagem paginada deve usar no máximo SELECT + COUNT")
+    void testListarProdutosPaginadoSemN1() {
+        produtoService.listarTodosProdutosPaginado(PageRequest.of(0, 10));
+
+        assertMaximoStatements(2);
+    }
+
+    @Test
+    @DisplayName("Listagem por categoria deve usar no máximo a validação da categoria + um SELECT")
+    void testBuscarProdutosPorCategoriaSemN1() {
+        assertFalse(produtoService.buscarProdutosPorCategoria(idCategoria).isEmpty());
+
+        assertMaximoStatements(2);
+    }
+
+    @Test
+    @DisplayName("Produto excluído não deve aparecer em nenhuma consulta do catálogo nem nas contagens")
+    void testProdutoExcluidoForaDasConsultas() {
+        Integer idExcluido = idsProdutos.get(0);
+        entityManager.find(Produto.class, idExcluido).markAsDeleted();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(QUANTIDADE_PRODUTOS - 1, produtoService.buscarProdutosPorCategoria(idCategoria).size());
+        assertEquals(QUANTIDADE_PRODUTOS - 1, produtoService
+                .buscarProdutosPorCategoriaPaginado(idCategoria, PageRequest.of(0, 5)).getTotalElements());
+        assertEquals(QUANTIDADE_PRODUTOS - 1, produtoRepository.buscarResponseDTOPorIds(idsProdutos).size());
+        assertTrue(produtoRepository.buscarResponseDTOPorId(idExcluido).isEmpty());
+        assertThrows(NoSuchElementException.class, () -> produtoService.buscarProdutoPorId(idExcluido));
+
+        String nome = "Produto N+1 0";
+        assertTrue(produtoRepository.buscarResponseDTOPorNome(nome).stream()
+                .noneMatch(p -> p.id().equals(idExcluido)));
+        assertTrue(produtoRepository.buscarResponseDTOPorNome(nome, PageRequest.of(0, 50)).stream()
+                .noneMatch(p -> p.id().equals(idExcluido)));
+    }
+
+    private void assertMaximoStatements(long maximo) {
+        long executados = statistics.getPrepareStatementCount();
+        assertTrue(executados <= maximo,
+                "Esperado no máximo " + maximo + " statements, executados: " + executados);
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.CheckpointRecriptografia;
+import com.example.demo.model.Cliente;
+import com.example.demo.repository.CheckpointRecriptografiaRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+/**
+ * O job roda na transação do teste (os lotes usam PROPAGATION_REQUIRED), então cartões e
+ * checkpoints somem no rollback. O checkpoint começa depois dos cartões que já existem no
+ * banco, para que só os cartões do teste sejam percorridos.
+ */
+@SpringBootTest
+@Transactional
+@DisplayName("Testes de Integração do RecriptografiaCartaoJob")
+public class RecriptografiaCartaoJobTest {
+
+    private static final String COLUNA = "tb_cartoes.numero_mascarado";
+    private static final String CHAVE_LEGADA =
+            "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final String CHAVE_K1 = "k1:" + Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String CHAVE_K2 = "k2:" + Base64.getEncoder().encodeToString(bytes(32, 1));
+    private static final int QUANTIDADE_CARTOES = 5;
+
+    @Autowired
+    private CheckpointRecriptografiaRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final EncryptionService chaveK0 = criarEncryptionService("", EncryptionService.ID_CHAVE_LEGADA);
+    private final EncryptionService chaveK1 = criarEncryptionService(CHAVE_K1, "k1");
+
+    private Integer ultimoIdAnterior;
+    private final List<Integer> cartoes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ultimoIdAnterior = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id_cartao), 0) FROM tb_cartoes",
+                Integer.class);
+        jdbcTemplate.update("DELETE FROM tb_recriptografia_checkpoint WHERE nome IN (?, ?)",
+                COLUNA, COLUNA + ":simulacao");
+
+        Cliente cliente = PedidosTeste.criarCliente(entityManager);
+        entityManager.flush();
+        for (int i = 0; i < QUANTIDADE_CARTOES; i++) {
+            jdbcTemplate.update("INSERT INTO tb_cartoes (id_cliente, numero_mascarado, bandeira, nome_titular,"
+                    + " mes_validade, ano_validade, is_principal, created_at) VALUES (?, ?, 'VISA', 'Titular', 12,"
+                    + " 2030, false, NOW())", cliente.getIdCliente(), chaveK0.encrypt("4111 1111 1111 111" + i));
+        }
+        cartoes.addAll(jdbcTemplate.queryForList("SELECT id_cartao FROM tb_cartoes WHERE id_cartao > ?"
+                + " ORDER BY id_cartao", Integer.class, ultimoIdAnterior));
+    }
+
+    @Test
+    @DisplayName("Deve retomar do checkpoint depois de um reinício, sem repetir lotes")
+    void testRetomaDoCheckpoint() {
+        iniciarCheckpoint(COLUNA, "k1");
+
+        criarJob(chaveK1, false, 1).executar();
+
+        CheckpointRecriptografia checkpoint = checkpoint(COLUNA);
+        assertEquals(cartoes.get(1), checkpoint.getUltimoId());
+        assertEquals(2, checkpoint.getProcessados());
+        assertFalse(checkpoint.isConcluido());
+        assertEquals(List.of("k1", "k1", "k0", "k0", "k0"), chaves());
+
+        // Nova instância do job, como depois de reiniciar a aplicação
+        criarJob(chaveK1, false, 10).executar();
+
+        checkpoint = checkpoint(COLUNA);
+        assertEquals(QUANTIDADE_CARTOES, checkpoint.getProcessados());
+        assertEquals(QUANTIDADE_CARTOES, checkpoint.getAlterados());
+        assertTrue(checkpoint.isConcluido());
+        assertEquals(List.of("k1", "k1", "k1", "k1", "k1"), chaves());
+    }
+
+    @Test
+    @DisplayName("Deve recomeçar do primeiro cartão quando a chave ativa muda")
+    void testReiniciaComNovaChave() {
+        iniciarCheckpoint(COLUNA, "k1");
+        criarJob(chaveK1, false, 10).executar();
+        assertTrue(checkpoint(COLUNA).isConcluido());
+
+        EncryptionService chaveK2 = criarEncryptionService(CHAVE_K1 + "," + CHAVE_K2, "k2");
+        criarJob(chaveK2, false, Integer.MAX_VALUE).executar();
+
+        CheckpointRecriptografia checkpoint = checkpoint(COLUNA);
+        assertEquals("k2", checkpoint.getChaveDestino());
+        assertTrue(checkpoint.isConcluido());
+        assertEquals(List.of("k2", "k2", "k2", "k2", "k2"), chaves());
+        assertEquals("4111 1111 1111 1110", chaveK2.decrypt(valor(cartoes.get(0))));
+    }
+
+    @Test
+    @DisplayName("No modo simulação deve contar o que seria regravado sem alterar os cartões")
+    void testSimulacaoNaoGrava() {
+        List<String> antes = cartoes.stream().map(this::valor).toList();
+        iniciarCheckpoint(COLUNA + ":simulacao", "k1");
+
+        criarJob(chaveK1, true, 10).executar();
+
+        CheckpointRecriptografia checkpoint = checkpoint(COLUNA + ":simulacao");
+        assertEquals(QUANTIDADE_CARTOES, checkpoint.getAlterados());
+        assertTrue(checkpoint.isConcluido());
+        assertEquals(antes, cartoes.stream().map(this::valor).toList());
+        assertTrue(checkpointRepository.findById(COLUNA).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Não deve sobrescrever o cartão alterado pela aplicação no meio do lote")
+    void testEscritaConcorrente() {
+        Integer alterado = cartoes.get(2);
+        String lido = valor(alterado);
+        String gravadoPelaAplicacao = chaveK1.encrypt("5555 5555 5555 4444");
+
+        // A aplicação grava o cartão entre a leitura do lote e o UPDATE condicional
+        EncryptionService comEscritaConcorrente = new EncryptionService() {
+            @Override
+            public String recriptografar(String encryptedText) {
+                if (encryptedText.equals(lido)) {
+                    jdbcTemplate.update("UPDATE tb_cartoes SET numero_mascarado = ? WHERE id_cartao = ?",
+                            gravadoPelaAplicacao, alterado);
+                }
+                return super.recriptografar(encryptedText);
+            }
+        };
+        configurar(comEscritaConcorrente, CHAVE_K1, "k1");
+        iniciarCheckpoint(COLUNA, "k1");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        criarJob(comEscritaConcorrente, false, 10, meterRegistry).executar();
+
+        assertEquals(gravadoPelaAplicacao, valor(alterado));
+        assertEquals(QUANTIDADE_CARTOES - 1, checkpoint(COLUNA).getAlterados());
+        assertEquals(1.0, meterRegistry.counter("recriptografia.concorrentes", "coluna", COLUNA).count());
+        assertEquals(List.of("k1", "k1", "k1", "k1", "k1"), chaves());
+    }
+
+    private RecriptografiaCartaoJob criarJob(EncryptionService encryptionService, boolean simulacao,
+            int lotesPorExecucao) {
+        return criarJob(encryptionService, simulacao, lotesPorExecucao, new SimpleMeterRegistry());
+    }
+
+    private RecriptografiaCartaoJob criarJob(EncryptionService encryptionService, boolean simulacao,
+            int lotesPorExecucao, SimpleMeterRegistry meterRegistry) {
+        RecriptografiaCartaoJob job = new RecriptografiaCartaoJob(encryptionService, checkpointRepository,
+                jdbcTemplate, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(job, "habilitada", true);
+        ReflectionTestUtils.setField(job, "simulacao", simulacao);
+        ReflectionTestUtils.setField(job, "tamanhoLote", 2);
+        ReflectionTestUtils.setField(job, "pausaMs", 0L);
+        ReflectionTestUtils.setField(job, "lotesPorExecucao", lotesPorExecucao);
+        return job;
+    }
+
+    // Começa depois dos cartões que já estavam no banco
+    private void iniciarCheckpoint(String nome, String chaveDestino) {
+        CheckpointRecriptografia checkpoint = new CheckpointRecriptografia(nome, chaveDestino);
+        checkpoint.setUltimoId(ultimoIdAnterior);
+        checkpointRepository.saveAndFlush(checkpoint);
+    }
+
+    private CheckpointRecriptografia checkpoint(String nome) {
+        entityManager.flush();
+        entityManager.clear();
+        return checkpointRepository.findById(nome).orElseThrow();
+    }
+
+    private List<String> chaves() {
+        return cartoes.stream().map(id -> chaveK0.idChave(valor(id))).toList();
+    }
+
+    private String valor(Integer idCartao) {
+        return jdbcTemplate.queryForObject("SELECT numero_mascarado FROM tb_cartoes WHERE id_cartao = ?",
+                String.class, idCartao);
+    }
+
+    private static EncryptionService criarEncryptionService(String chavesAdicionais, String chaveAtiva) {
+        return configurar(new EncryptionService(), chavesAdicionais, chaveAtiva);
+    }
+
+    private static EncryptionService configurar(EncryptionService encryptionService, String chavesAdicionais,
+            String chaveAtiva) {
+        ReflectionTestUtils.setField(encryptionService, "encryptionKey", CHAVE_LEGADA);
+        ReflectionTestUtils.setField(encryptionService, "chavesAdicionais", chavesAdicionais);
+        ReflectionTestUtils.setField(encryptionService, "idChaveAtiva", chaveAtiva);
+        encryptionService.carregarChaves();
+        return encryptionService;
+    }
+
+    private static byte[] bytes(int tamanho, int valor) {
+        byte[] bytes = new byte[tamanho];
+        Arrays.fill(bytes, (byte) valor);
+        return bytes;
+    }
+}
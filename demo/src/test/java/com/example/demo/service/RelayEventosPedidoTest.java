@@ -0,0 +1,168 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.event.PedidoEvento;
+import com.example.demo.model.Pedido;
+import com.example.demo.model.StatusPedido;
+import com.example.demo.model.TipoEventoPedido;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Relay da outbox de pedidos com as threads desligadas: os testes chamam as etapas
+ * (reserva, renovação, gravação dos resultados) diretamente, na transação do teste.
+ */
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = {
+        "outbox.pedido.habilitado=false",
+        "outbox.pedido.faixas=1",
+        "outbox.pedido.capacidade-faixa=2",
+        "outbox.pedido.max-tentativas=3" })
+@DisplayName("Testes de Integração do RelayEventosPedido")
+public class RelayEventosPedidoTest {
+
+    @Autowired
+    private RelayEventosPedido relay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        // Só os eventos do teste ficam visíveis (desfeito no rollback)
+        jdbcTemplate.update("DELETE FROM tb_pedido_outbox");
+    }
+
+    @Test
+    @DisplayName("Não deve reservar mais eventos do que cabem nas faixas")
+    void testReservaLimitadaPelasFaixas() {
+        inserirEvento(900001, TipoEventoPedido.PEDIDO_PAGO, 0);
+        inserirEvento(900002, TipoEventoPedido.PEDIDO_PAGO, 0);
+        inserirEvento(900003, TipoEventoPedido.PEDIDO_PAGO, 0);
+
+        List<PedidoEvento> primeiros = relay.reservar();
+        assertEquals(2, primeiros.size());
+        assertTrue(relay.reservar().isEmpty());
+
+        relay.concluir(primeiros.get(0));
+        relay.gravarResultados();
+
+        assertEquals(1, relay.reservar().size());
+    }
+
+    @Test
+    @DisplayName("Deve reservar só o evento mais antigo de cada pedido")
+    void testOrdemPorPedido() {
+        long primeiro = inserirEvento(900010, TipoEventoPedido.PEDIDO_CRIADO, 0);
+        long segundo = inserirEvento(900010, TipoEventoPedido.PEDIDO_PAGO, 0);
+
+        List<PedidoEvento> reservados = relay.reservar();
+        assertEquals(1, reservados.size());
+        assertEquals(primeiro, reservados.get(0).idEvento());
+
+        relay.concluir(reservados.get(0));
+        relay.gravarResultados();
+
+        List<PedidoEvento> seguintes = relay.reservar();
+        assertEquals(1, seguintes.size());
+        assertEquals(segundo, seguintes.get(0).idEvento());
+    }
+
+    @Test
+    @DisplayName("Deve renovar a reserva enquanto o evento não é concluído")
+    void testRenovacaoDaReserva() {
+        long idEvento = inserirEvento(900020, TipoEventoPedido.PEDIDO_PAGO, 0);
+        PedidoEvento evento = relay.reservar().get(0);
+
+        // Reserva prestes a vencer (o evento continua parado na faixa)
+        jdbcTemplate.update("UPDATE tb_pedido_outbox SET reservado_ate = ? WHERE id_evento = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), idEvento);
+
+        assertEquals(1, relay.renovarReservas());
+        assertTrue(reservadoAte(idEvento).isAfter(LocalDateTime.now()));
+
+        relay.concluir(evento);
+        relay.gravarResultados();
+
+        assertEquals("PROCESSADO", status(idEvento));
+        assertNull(reservadoAte(idEvento));
+        assertEquals(0, relay.renovarReservas());
+    }
+
+    @Test
+    @DisplayName("Deve reagendar o evento com falha sem manter a reserva")
+    void testFalhaReagendada() {
+        long idEvento = inserirEvento(900030, TipoEventoPedido.PEDIDO_PAGO, 0);
+        PedidoEvento evento = relay.reservar().get(0);
+
+        relay.falhar(evento, "erro simulado");
+        relay.gravarResultados();
+
+        assertEquals("PENDENTE", status(idEvento));
+        assertNull(reservadoAte(idEvento));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT tentativas FROM tb_pedido_outbox WHERE id_evento = ?",
+                Integer.class, idEvento));
+        assertTrue(relay.reservar().isEmpty());
+    }
+
+    @Test
+    @DisplayName("PEDIDO_CRIADO descartado deve cancelar o pedido pendente")
+    void testPedidoCriadoDescartadoCancelaPedido() {
+        Pedido pedido = PedidosTeste.criarPedido(entityManager, PedidosTeste.criarCliente(entityManager),
+                StatusPedido.PENDENTE, new BigDecimal("30.00"));
+        entityManager.flush();
+        long idEvento = inserirEvento(pedido.getId(), TipoEventoPedido.PEDIDO_CRIADO, 2);
+
+        PedidoEvento evento = relay.reservar().get(0);
+        assertEquals(3, evento.tentativa());
+
+        relay.falhar(evento, "erro simulado");
+        relay.gravarResultados();
+        entityManager.flush();
+
+        assertEquals("FALHA", status(idEvento));
+        assertEquals("CANCELADO", jdbcTemplate.queryForObject("SELECT status FROM tb_pedido WHERE id_pedido = ?",
+                String.class, pedido.getId()));
+    }
+
+    private long inserirEvento(Integer idPedido, TipoEventoPedido tipo, int tentativas) {
+        Timestamp criadoEm = Timestamp.valueOf(LocalDateTime.now().minusSeconds(5));
+        jdbcTemplate.update("INSERT INTO tb_pedido_outbox (id_pedido, tipo, status, criado_em, disponivel_em,"
+                + " tentativas) VALUES (?, ?, 'PENDENTE', ?, ?, ?)", idPedido, tipo.name(), criadoEm, criadoEm,
+                tentativas);
+        return jdbcTemplate.queryForObject("SELECT MAX(id_evento) FROM tb_pedido_outbox WHERE id_pedido = ?",
+                Long.class, idPedido);
+    }
+
+    private String status(long idEvento) {
+        return jdbcTemplate.queryForObject("SELECT status FROM tb_pedido_outbox WHERE id_evento = ?",
+                String.class, idEvento);
+    }
+
+    private LocalDateTime reservadoAte(long idEvento) {
+        Timestamp reservadoAte = jdbcTemplate.queryForObject(
+                "SELECT reservado_ate FROM tb_pedido_outbox WHERE id_evento = ?", Timestamp.class, idEvento);
+        return reservadoAte == null ? null : reservadoAte.toLocalDateTime();
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.model.Produto;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Sem @Transactional: o cache de produtos adia as remoções feitas dentro de uma transação
+ * para depois do commit, e o reabastecimento e a devolução abrem as próprias transações.
+ * O produto do teste é gravado de verdade e apagado no fim (com as reservas dele).
+ */
+@SpringBootTest
+@DisplayName("Testes de Integração do ReservaEstoqueMemoria")
+public class ReservaEstoqueMemoriaTest {
+
+    private static final int ESTOQUE = 100;
+    private static final int LOTE = 10;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Produto produto;
+    private Cache cacheProdutos;
+    private ReservaEstoqueMemoria reserva;
+
+    @BeforeEach
+    void setUp() {
+        produto = new TransactionTemplate(transactionManager)
+                .execute(status -> PedidosTeste.criarProduto(entityManager, ESTOQUE));
+        cacheProdutos = cacheManager.getCache(CacheConfig.PRODUTOS);
+        reserva = novaInstancia();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheProdutos.evict(produto.getId());
+        jdbcTemplate.update("DELETE FROM tb_reserva_estoque WHERE id_produto = ?", produto.getId());
+        jdbcTemplate.update("DELETE FROM tb_produto WHERE id_produto = ?", produto.getId());
+        jdbcTemplate.update("DELETE FROM tb_fornecedores WHERE id_fornecedor = ?",
+                produto.getFornecedor().getIdFornecedor());
+        jdbcTemplate.update("DELETE FROM tb_categoria WHERE id_categoria = ?", produto.getCategoria().getId());
+    }
+
+    @Test
+    @DisplayName("Reabastecer deve remover do cache o produto com estoque retirado do banco")
+    void testReabastecerInvalidaCache() {
+        assertEquals(ESTOQUE, produtoService.buscarProdutoPorId(produto.getId()).estoque());
+
+        reserva.reabastecer();
+
+        assertEquals(LOTE, reserva.saldo(produto.getId()));
+        assertNull(cacheProdutos.get(produto.getId()));
+        assertEquals(ESTOQUE - LOTE, produtoService.buscarProdutoPorId(produto.getId()).estoque());
+    }
+
+    @Test
+    @DisplayName("Reconciliar deve remover do cache o produto com estoque devolvido ao banco")
+    void testReconciliarInvalidaCache() {
+        reserva.reabastecer();
+        assertEquals(ESTOQUE - LOTE, produtoService.buscarProdutoPorId(produto.getId()).estoque());
+
+        reserva.reconciliar();
+
+        assertEquals(0, reserva.saldo(produto.getId()));
+        assertNull(cacheProdutos.get(produto.getId()));
+        assertEquals(ESTOQUE, produtoService.buscarProdutoPorId(produto.getId()).estoque());
+        assertEquals(0, reservado(reserva));
+    }
+
+    @Test
+    @DisplayName("O lote retirado deve ficar gravado na reserva da instância junto com a baixa em tb_produto")
+    void testReservaGravada() {
+        reserva.reabastecer();
+
+        assertEquals(ESTOQUE - LOTE, estoqueNoBanco());
+        assertEquals(LOTE, reservado(reserva));
+    }
+
+    @Test
+    @DisplayName("Consumir deve decrementar a reserva gravada na transação do pedido")
+    void testConsumoGravado() {
+        reserva.reabastecer();
+
+        Map<Integer, Integer> restante = transactionTemplate().execute(
+                status -> reserva.consumir(Map.of(produto.getId(), 3)));
+
+        assertTrue(restante.isEmpty());
+        assertEquals(LOTE - 3, reserva.saldo(produto.getId()));
+        assertEquals(LOTE - 3, reservado(reserva));
+        assertEquals(ESTOQUE - LOTE, estoqueNoBanco());
+    }
+
+    @Test
+    @DisplayName("Rollback do pedido deve devolver o consumo ao saldo e à reserva")
+    void testConsumoDesfeito() {
+        reserva.reabastecer();
+
+        transactionTemplate().executeWithoutResult(status -> {
+            reserva.consumir(Map.of(produto.getId(), 3));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(LOTE, reserva.saldo(produto.getId()));
+        assertEquals(LOTE, reservado(reserva));
+    }
+
+    @Test
+    @DisplayName("Reserva de instância que caiu deve voltar ao estoque e o saldo dela não deve mais vender")
+    void testReservaAbandonada() {
+        reserva.reabastecer();
+
+        // A instância para de renovar a reserva (kill, OOM) e outra instância a devolve
+        jdbcTemplate.update("UPDATE tb_reserva_estoque SET atualizado_em = ? WHERE id_instancia = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)), reserva.getIdInstancia());
+        novaInstancia().devolverAbandonadas();
+
+        assertEquals(ESTOQUE, estoqueNoBanco());
+        assertEquals(0, reservado(reserva));
+
+        // O saldo local sem reserva por trás cai no débito direto
+        Map<Integer, Integer> restante = transactionTemplate().execute(
+                status -> reserva.consumir(Map.of(produto.getId(), 3)));
+        assertEquals(3, restante.get(produto.getId()));
+        assertEquals(0, reserva.saldo(produto.getId()));
+    }
+
+    @Test
+    @DisplayName("Descartar deve apagar a reserva de todas as instâncias na transação do fornecedor")
+    void testDescartarEmTodasAsInstancias() {
+        ReservaEstoqueMemoria outra = novaInstancia();
+        reserva.reabastecer();
+        outra.reabastecer();
+        assertEquals(ESTOQUE - 2 * LOTE, estoqueNoBanco());
+
+        transactionTemplate().executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE tb_produto SET estoque = 7 WHERE id_produto = ?", produto.getId());
+            reserva.descartar(produto.getId());
+            // Só depois do commit
+            assertEquals(LOTE, reserva.saldo(produto.getId()));
+        });
+
+        assertEquals(0, reserva.saldo(produto.getId()));
+        assertEquals(0, reservado(reserva));
+        assertEquals(0, reservado(outra));
+
+        // A outra instância não soma o saldo antigo ao valor informado pelo fornecedor
+        Map<Integer, Integer> restante = transactionTemplate().execute(
+                status -> outra.consumir(Map.of(produto.getId(), 2)));
+        assertEquals(2, restante.get(produto.getId()));
+        outra.reabastecer();
+        assertEquals(7, outra.saldo(produto.getId()) + estoqueNoBanco());
+    }
+
+    private ReservaEstoqueMemoria novaInstancia() {
+        return new ReservaEstoqueMemoria(jdbcTemplate, cacheManager, transactionManager, true, LOTE,
+                Set.of(produto.getId()), 60_000);
+    }
+
+    private TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private int estoqueNoBanco() {
+        return jdbcTemplate.queryForObject("SELECT estoque FROM tb_produto WHERE id_produto = ?", Integer.class,
+                produto.getId());
+    }
+
+    private int reservado(ReservaEstoqueMemoria instancia) {
+        Integer quantidade = jdbcTemplate.query(
+                "SELECT quantidade FROM tb_reserva_estoque WHERE id_instancia = ? AND id_produto = ?",
+                rs -> rs.next() ? rs.getInt(1) : 0, instancia.getIdInstancia(), produto.getId());
+        return quantidade == null ? 0 : quantidade;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes unitários para o BaldeTokens
+ */
+class BaldeTokensTest {
+
+    private static final long UM_MINUTO = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void testPermiteRajadaAteACapacidade() {
+        BaldeTokens balde = new BaldeTokens(5, UM_MINUTO);
+        long agora = 1_000_000_000L;
+
+        for (int i = 4; i >= 0; i--) {
+            BaldeTokens.Resultado resultado = balde.consumir(agora);
+            assertTrue(resultado.permitido());
+            assertEquals(i, resultado.restantes());
+        }
+
+        BaldeTokens.Resultado negado = balde.consumir(agora);
+        assertFalse(negado.permitido());
+        assertEquals(0, negado.restantes());
+        assertEquals(UM_MINUTO / 5, negado.esperaNanos());
+    }
+
+    @Test
+    void testRepoeTokensComOTempo() {
+        BaldeTokens balde = new BaldeTokens(5, UM_MINUTO);
+        long agora = 1_000_000_000L;
+
+        for (int i = 0; i < 5; i++) {
+            balde.consumir(agora);
+        }
+        assertFalse(balde.consumir(agora).permitido());
+
+        // Um token a cada 12 segundos
+        assertTrue(balde.consumir(agora + TimeUnit.SECONDS.toNanos(12)).permitido());
+        assertFalse(balde.consumir(agora + TimeUnit.SECONDS.toNanos(12)).permitido());
+    }
+
+    @Test
+    void testBaldeVoltaACheioAposAJanela() {
+        BaldeTokens balde = new BaldeTokens(5, UM_MINUTO);
+        long agora = 1_000_000_000L;
+
+        balde.consumir(agora);
+        balde.consumir(agora);
+
+        assertEquals(4, balde.consumir(agora + UM_MINUTO).restantes());
+    }
+
+    @Test
+    void testParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new BaldeTokens(0, UM_MINUTO));
+        assertThrows(IllegalArgumentException.class, () -> new BaldeTokens(5, 0));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes unitários para o BrCode
+ */
+class BrCodeTest {
+
+    /** Exemplo do Manual de Padrões para Iniciação do PIX (BCB). */
+    private static final String EXEMPLO_BCB = "00020126580014br.gov.bcb.pix0136123e4567-e12b-12d1-a456-426655440000"
+            + "5204000053039865802BR5913Fulano de Tal6008BRASILIA62070503***63041D3D";
+
+    @Test
+    void testCrc16Ccitt() {
+        // Valor de verificação do CRC-16/CCITT-FALSE
+        byte[] dados = "123456789".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(0x29B1, BrCode.crc16(dados, 0, dados.length));
+    }
+
+    @Test
+    void testGeraCodigoCompleto() {
+        BrCode brCode = new BrCode("faschatz@furb.br", "Loja Virtual LTDA", "Blumenua");
+
+        String codigo = brCode.gerar(new BigDecimal("110.5"), "PEDIDO000123");
+
+        assertEquals("00020126380014BR.GOV.BCB.PIX0116faschatz@furb.br5204000053039865406110.50"
+                + "5802BR5917Loja Virtual LTDA6008Blumenua62160512PEDIDO00012363043266", codigo);
+    }
+
+    @Test
+    void testGerarELerPreservamOsCampos() {
+        BrCode brCode = new BrCode("12345678000190", "Loja Virtual LTDA", "Sao Paulo");
+
+        for (String valor : new String[] { "0.01", "1", "99.99", "123.456", "9999999999.99" }) {
+            BrCode.Conteudo conteudo = BrCode.ler(brCode.gerar(new BigDecimal(valor), "PEDIDO000042"));
+
+            assertEquals("12345678000190", conteudo.chave());
+            assertEquals(new BigDecimal(valor).setScale(2, RoundingMode.HALF_UP), conteudo.valor());
+            assertEquals("Loja Virtual LTDA", conteudo.nomeBeneficiario());
+            assertEquals("Sao Paulo", conteudo.cidade());
+            assertEquals("PEDIDO000042", conteudo.txid());
+        }
+    }
+
+    @Test
+    void testRemoveAcentosELimitaNomeECidade() {
+        BrCode brCode = new BrCode("loja@exemplo.com", "Comércio de Produtos Eletrônicos", "São José dos Campos");
+
+        BrCode.Conteudo conteudo = BrCode.ler(brCode.gerar(BigDecimal.TEN, "A1"));
+
+        assertEquals("Comercio de Produtos Elet", conteudo.nomeBeneficiario());
+        assertEquals("Sao Jose dos Ca", conteudo.cidade());
+    }
+
+    @Test
+    void testLeExemploDoBancoCentral() {
+        BrCode.Conteudo conteudo = BrCode.ler(EXEMPLO_BCB);
+
+        assertEquals("123e4567-e12b-12d1-a456-426655440000", conteudo.chave());
+        assertNull(conteudo.valor());
+        assertEquals("Fulano de Tal", conteudo.nomeBeneficiario());
+        assertEquals("BRASILIA", conteudo.cidade());
+        assertEquals("***", conteudo.txid());
+    }
+
+    @Test
+    void testRejeitaCodigoInvalido() {
+        // CRC alterado
+        assertThrows(IllegalArgumentException.class,
+                () -> BrCode.ler(EXEMPLO_BCB.substring(0, EXEMPLO_BCB.length() - 1) + "E"));
+        // Código truncado
+        assertThrows(IllegalArgumentException.class, () -> BrCode.ler(EXEMPLO_BCB.substring(0, 40)));
+        assertThrows(IllegalArgumentException.class, () -> BrCode.ler(null));
+        // Formato do gerador antigo, com o ID 26 repetido
+        String antigo = "000201262626380014BR.GOV.BCB.PIX0116faschatz@furb.br6304";
+        assertThrows(IllegalArgumentException.class, () -> BrCode.ler(antigo + "0000"));
+    }
+
+    @Test
+    void testRejeitaTxidEValorInvalidos() {
+        BrCode brCode = new BrCode("loja@exemplo.com", "Loja", "Blumenau");
+
+        assertThrows(IllegalArgumentException.class, () -> brCode.gerar(BigDecimal.ONE, "PEDIDO-1"));
+        assertThrows(IllegalArgumentException.class, () -> brCode.gerar(BigDecimal.ONE, "X".repeat(26)));
+        assertThrows(IllegalArgumentException.class, () -> brCode.gerar(BigDecimal.ZERO, "PEDIDO1"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes unitários para o BufferCircular
+ */
+class BufferCircularTest {
+
+    @Test
+    void testCapacidadeArredondadaParaPotenciaDeDois() {
+        assertEquals(1, new BufferCircular<Integer>(1).getCapacidade());
+        assertEquals(8, new BufferCircular<Integer>(5).getCapacidade());
+        assertEquals(8, new BufferCircular<Integer>(8).getCapacidade());
+        assertThrows(IllegalArgumentException.class, () -> new BufferCircular<Integer>(0));
+    }
+
+    @Test
+    void testOrdemDeInsercao() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(4);
+        buffer.oferecer(1);
+        buffer.oferecer(2);
+        buffer.oferecer(3);
+
+        assertEquals(3, buffer.tamanho());
+        assertEquals(1, buffer.retirar());
+        assertEquals(2, buffer.retirar());
+        assertEquals(3, buffer.retirar());
+        assertNull(buffer.retirar());
+    }
+
+    @Test
+    void testCheioRecusaSemBloquear() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(2);
+        assertTrue(buffer.oferecer(1));
+        assertTrue(buffer.oferecer(2));
+        assertFalse(buffer.oferecer(3));
+
+        buffer.retirar();
+        assertTrue(buffer.oferecer(3));
+    }
+
+    @Test
+    void testVariasVoltas() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(4);
+        List<Integer> lidos = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(buffer.oferecer(i));
+            if (i % 3 == 2) {
+                buffer.drenar(lidos::add, 10);
+            }
+        }
+        buffer.drenar(lidos::add, 10);
+
+        assertEquals(100, lidos.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, lidos.get(i));
+        }
+    }
+
+    @Test
+    void testDrenarRespeitaMaximo() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(8);
+        for (int i = 0; i < 6; i++) {
+            buffer.oferecer(i);
+        }
+
+        assertEquals(4, buffer.drenar(e -> { }, 4));
+        assertEquals(2, buffer.tamanho());
+    }
+
+    @Test
+    void testProdutoresConcorrentesSemPerdaNemDuplicidade() throws InterruptedException {
+        BufferCircular<Integer> buffer = new BufferCircular<>(1024);
+        int produtores = 4;
+        int porProdutor = 50_000;
+        CountDownLatch largada = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < produtores; p++) {
+            int base = p * porProdutor;
+            Thread thread = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < porProdutor; i++) {
+                    while (!buffer.oferecer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        Set<Integer> lidos = new HashSet<>();
+        largada.countDown();
+        while (lidos.size() < produtores * porProdutor) {
+            Integer elemento = buffer.retirar();
+            if (elemento != null) {
+                assertTrue(lidos.add(elemento), "Elemento lido duas vezes: " + elemento);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(buffer.retirar());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.exception.RegraNegocioException;
+
+/**
+ * Testes unitários para o CursorPaginacao
+ */
+class CursorPaginacaoTest {
+
+    @Test
+    void testCodificarEDecodificar() {
+        String cursor = CursorPaginacao.codificar("Notebook Gamer", 42);
+
+        CursorPaginacao.Cursor decodificado = CursorPaginacao.decodificar(cursor);
+
+        assertEquals("Notebook Gamer", decodificado.chave());
+        assertEquals(42, decodificado.id());
+    }
+
+    @Test
+    void testChaveComSeparador() {
+        CursorPaginacao.Cursor decodificado = CursorPaginacao.decodificar(CursorPaginacao.codificar("A|B", 7));
+
+        assertEquals("A|B", decodificado.chave());
+        assertEquals(7, decodificado.id());
+    }
+
+    @Test
+    void testCursorVazioEhPrimeiraPagina() {
+        assertNull(CursorPaginacao.decodificar(null));
+        assertNull(CursorPaginacao.decodificar(""));
+    }
+
+    @Test
+    void testCursorInvalido() {
+        assertThrows(RegraNegocioException.class, () -> CursorPaginacao.decodificar("%%%"));
+        assertThrows(RegraNegocioException.class, () -> CursorPaginacao.decodificar("dGV4dG8"));
+    }
+
+    @Test
+    void testTamanhoValido() {
+        assertEquals(CursorPaginacao.TAMANHO_PADRAO, CursorPaginacao.tamanhoValido(null));
+        assertEquals(1, CursorPaginacao.tamanhoValido(0));
+        assertEquals(CursorPaginacao.TAMANHO_MAXIMO, CursorPaginacao.tamanhoValido(10_000));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testes unitários para o FiltroBloom
+ */
+class FiltroBloomTest {
+
+    @Test
+    void testSemFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(1000, 0.01);
+
+        for (int i = 0; i < 1000; i++) {
+            filtro.adicionar("familia-" + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filtro.podeConter("familia-" + i));
+        }
+    }
+
+    @Test
+    void testFiltroVazioNaoContemNada() {
+        FiltroBloom filtro = new FiltroBloom(100, 0.01);
+
+        assertFalse(filtro.podeConter(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    void testTaxaDeFalsosPositivosProximaDaConfigurada() {
+        FiltroBloom filtro = new FiltroBloom(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filtro.adicionar(UUID.randomUUID().toString());
+        }
+
+        int falsosPositivos = 0;
+        int consultas = 100000;
+        for (int i = 0; i < consultas; i++) {
+            if (filtro.podeConter(UUID.randomUUID().toString())) {
+                falsosPositivos++;
+            }
+        }
+
+        // Margem folgada sobre 1% para não depender da sorte
+        assertTrue(falsosPositivos < consultas * 0.03, "Falsos positivos: " + falsosPositivos);
+    }
+
+    @Test
+    void testParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloom(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloom(100, 1.0));
+    }
+}